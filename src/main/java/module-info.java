@@ -10,6 +10,7 @@ module org.example.qe {
     exports org.example;
     exports org.example.model;
     exports org.example.model.qubit;
+    exports org.example.model.qubit.backend;
     exports org.example.script;
     exports org.example.translation;
     exports org.example.qgantt;
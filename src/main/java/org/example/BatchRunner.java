@@ -0,0 +1,59 @@
+package org.example;
+
+import org.example.model.circuit.CircuitFile;
+import org.example.model.circuit.CompiledCircuit;
+import org.example.script.ScriptParser;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+
+// Серии запусков без интерфейса: скрипт или файл .qcir выполняется скомпилированной схемой,
+// печатаются частоты исходов измерений. Запуск: --shots N файл [зерно]
+public final class BatchRunner {
+    public static final String SHOTS_OPTION = "--shots";
+
+    private BatchRunner() {
+    }
+
+    // Схема из файла: .qcir выполняется как есть, без перевода в команды, текстовый скрипт компилируется
+    public static CompiledCircuit load(Path path) throws IOException {
+        if (path.getFileName().toString().endsWith(".qcir")) {
+            return CircuitFile.read(path);
+        }
+        return CompiledCircuit.compile(ScriptParser.parse(Files.readString(path)));
+    }
+
+    // Отчёт о серии: строки исходов в порядке команд M и число запусков с каждой
+    public static String report(CompiledCircuit circuit, int shots, Random random) {
+        Map<String, Integer> counts = circuit.sample(shots, random);
+        StringBuilder sb = new StringBuilder();
+        sb.append("Серия из ").append(shots).append(" запусков, кубитов: ").append(circuit.getWidth())
+                .append(", измерений: ").append(circuit.getMeasurementCount()).append("\n");
+        counts.forEach((outcome, count) -> sb.append(outcome.isEmpty() ? "(без измерений)" : outcome)
+                .append(": ").append(count).append("\n"));
+        return sb.toString();
+    }
+
+    // Код возврата: 0 - серия выполнена, 1 - ошибка в аргументах, файле или схеме
+    public static int run(String[] args, PrintStream out, PrintStream err) {
+        if (args.length < 3 || args.length > 4 || !SHOTS_OPTION.equals(args[0])) {
+            err.println("Использование: " + SHOTS_OPTION + " <число запусков> <скрипт или .qcir> [зерно]");
+            return 1;
+        }
+        try {
+            int shots = Integer.parseInt(args[1]);
+            Random random = args.length == 4 ? new Random(Long.parseLong(args[3])) : new Random();
+            out.print(report(load(Path.of(args[2])), shots, random));
+            return 0;
+        } catch (NumberFormatException e) {
+            err.println("Ошибка: число запусков и зерно должны быть целыми: " + e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            err.println("Ошибка: " + e.getMessage());
+        }
+        return 1;
+    }
+}
@@ -2,6 +2,9 @@ package org.example;
 
 public class Launcher {
     public static void main(String[] args) {
+        if (args.length > 0 && BatchRunner.SHOTS_OPTION.equals(args[0])) {
+            System.exit(BatchRunner.run(args, System.out, System.err));
+        }
         Main.main(args);
     }
-}
\ No newline at end of file
+}
@@ -14,12 +14,16 @@ import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import org.example.model.ApproximationPolicy;
 import org.example.model.Emulation;
+import org.example.model.SimulationMode;
+import org.example.model.circuit.CircuitFile;
+import org.example.model.circuit.CompiledCircuit;
 import org.example.model.qubit.Complex;
 import org.example.model.qubit.QubitRegister;
 import org.example.qgantt.QGanttManager;
 import org.example.script.Command;
-import org.example.script.Parser;
+import org.example.script.ScriptParser;
 import org.example.syntax.SyntaxHighlighter;
 import org.example.translation.QuantumTranslator;
 import org.example.translation.TranslatorFactory;
@@ -36,10 +40,23 @@ public class Main extends Application {
     private Integer versionCounter = 0;
     private int currentLineIndex = -1;
     private List<String> commandList = new ArrayList<>();
+    // Команды строк commandList, разобранные один раз; null - пустая строка или комментарий
+    private List<Command> lineCommands = Collections.emptyList();
+    // Открытая скомпилированная схема: пока её текст не изменён, команды берутся из неё без разбора,
+    // а серия запусков выполняет саму схему. Команды нужны только для пошагового показа.
+    private CompiledCircuit compiledCircuit;
+    private List<String> compiledLines = Collections.emptyList();
+    private List<Command> compiledCommands = Collections.emptyList();
     private Stack<String> outputHistory = new Stack<>();
     private CodeArea commandInput;
     private CodeArea measurementOutput;
     private QGanttManager qganttManager;
+    // Порог отсечения и бюджет ошибки для пункта меню приближённой эмуляции
+    private static final double DEFAULT_PRUNE_THRESHOLD = 1e-10;
+    private static final double DEFAULT_ERROR_BUDGET = 1e-3;
+    private static final int DEFAULT_SHOTS = 1000;
+    private SimulationMode simulationMode = SimulationMode.STANDARD;
+    private ApproximationPolicy approximation;
 
     @Override
     public void start(Stage stage) {
@@ -60,12 +77,32 @@ public class Main extends Application {
         Menu scriptMenu = new Menu("Скрипт");
         MenuItem saveScriptItem = new MenuItem("Сохранить скрипт");
         MenuItem loadScriptItem = new MenuItem("Загрузить скрипт");
-        scriptMenu.getItems().addAll(saveScriptItem, loadScriptItem);
+        MenuItem saveCompiledItem = new MenuItem("Сохранить скомпилированную схему");
+        MenuItem loadCompiledItem = new MenuItem("Открыть скомпилированную схему");
+        scriptMenu.getItems().addAll(saveScriptItem, loadScriptItem, new SeparatorMenuItem(), saveCompiledItem, loadCompiledItem);
 
         Menu emulationMenu = new Menu("Эмуляция");
         MenuItem saveModelItem = new MenuItem("Сохранить модель");
         MenuItem loadModelItem = new MenuItem("Загрузить модель");
-        emulationMenu.getItems().addAll(saveModelItem, loadModelItem);
+        ToggleGroup simulationModeGroup = new ToggleGroup();
+        RadioMenuItem standardModeItem = new RadioMenuItem("Стандартный режим");
+        RadioMenuItem extendedStabilizerItem = new RadioMenuItem("Расширенный стабилизаторный режим");
+        RadioMenuItem tensorNetworkItem = new RadioMenuItem("Режим тензорной сети");
+        standardModeItem.setToggleGroup(simulationModeGroup);
+        extendedStabilizerItem.setToggleGroup(simulationModeGroup);
+        tensorNetworkItem.setToggleGroup(simulationModeGroup);
+        standardModeItem.setSelected(true);
+        standardModeItem.setOnAction(e -> simulationMode = SimulationMode.STANDARD);
+        extendedStabilizerItem.setOnAction(e -> simulationMode = SimulationMode.EXTENDED_STABILIZER);
+        tensorNetworkItem.setOnAction(e -> simulationMode = SimulationMode.TENSOR_NETWORK);
+        CheckMenuItem approximationItem = new CheckMenuItem("Приближённая эмуляция (отсечение амплитуд)");
+        approximationItem.setOnAction(e -> approximation = approximationItem.isSelected()
+                ? ApproximationPolicy.pruning(DEFAULT_PRUNE_THRESHOLD, DEFAULT_ERROR_BUDGET)
+                : null);
+        MenuItem shotsItem = new MenuItem("Серия запусков...");
+        emulationMenu.getItems().addAll(saveModelItem, loadModelItem, new SeparatorMenuItem(),
+                standardModeItem, extendedStabilizerItem, tensorNetworkItem, new SeparatorMenuItem(), approximationItem,
+                new SeparatorMenuItem(), shotsItem);
 
         Menu translationMenu = new Menu("Трансляция");
         MenuItem qiskitItem = new MenuItem("Qiskit");
@@ -118,6 +155,63 @@ public class Main extends Application {
             }
         });
 
+        saveCompiledItem.setOnAction(e -> {
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setTitle("Сохранить скомпилированную схему");
+            fileChooser.getExtensionFilters().add(
+                    new FileChooser.ExtensionFilter("Compiled Circuits", "*.qcir")
+            );
+            File file = fileChooser.showSaveDialog(stage);
+            if (file != null) {
+                try {
+                    CircuitFile.write(CompiledCircuit.compile(parseCommandsFromText(commandInput.getText())), file.toPath());
+                } catch (IOException | IllegalArgumentException ex) {
+                    measurementOutput.appendText("Ошибка при сохранении схемы: " + ex.getMessage() + "\n");
+                }
+            }
+        });
+
+        loadCompiledItem.setOnAction(e -> {
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setTitle("Открыть скомпилированную схему");
+            fileChooser.getExtensionFilters().add(
+                    new FileChooser.ExtensionFilter("Compiled Circuits", "*.qcir")
+            );
+            File file = fileChooser.showOpenDialog(stage);
+            if (file != null) {
+                try {
+                    CompiledCircuit circuit = CircuitFile.read(file.toPath());
+                    compiledCircuit = circuit;
+                    compiledLines = circuit.toScript();
+                    compiledCommands = circuit.toCommands();
+                    commandInput.replaceText(String.join("\n", compiledLines) + "\n");
+                    commandList.clear();
+                    currentLineIndex = -1;
+                    outputHistory.clear();
+                    versionCounter = 0;
+                    qganttManager.clear();
+                    measurementOutput.clear();
+                } catch (IOException | IllegalArgumentException ex) {
+                    measurementOutput.appendText("Ошибка при открытии схемы: " + ex.getMessage() + "\n");
+                }
+            }
+        });
+
+        // Серия выполняется скомпилированной схемой без пошаговой эмуляции и QGantt, выводятся только частоты исходов
+        shotsItem.setOnAction(e -> {
+            TextInputDialog dialog = new TextInputDialog(String.valueOf(DEFAULT_SHOTS));
+            dialog.setTitle("Серия запусков");
+            dialog.setHeaderText(null);
+            dialog.setContentText("Число запусков:");
+            dialog.showAndWait().ifPresent(value -> {
+                try {
+                    measurementOutput.appendText(BatchRunner.report(circuitOf(commandInput.getText()), Integer.parseInt(value.trim()), new Random()));
+                } catch (RuntimeException ex) {
+                    measurementOutput.appendText("Ошибка серии запусков: " + ex.getMessage() + "\n");
+                }
+            });
+        });
+
         saveModelItem.setOnAction(e -> {
             FileChooser fileChooser = new FileChooser();
             fileChooser.setTitle("Сохранить модель");
@@ -163,6 +257,7 @@ public class Main extends Application {
                     context = appState.getContext();
                     outputHistory = appState.getOutputHistory();
                     commandList = appState.getCommandList();
+                    parseScript(String.join("\n", commandList));
                     versionCounter = appState.getOutputCounter();
                     currentLineIndex = appState.getCurrentLineIndex();
 
@@ -213,14 +308,17 @@ public class Main extends Application {
             outputHistory.clear();
             qganttManager.clear();
             measurementOutput.clear();
+            commandList = commands.isEmpty() ? new ArrayList<>() : Arrays.asList(commands.split("\\r?\\n"));
+            if (!prepareContext(commands)) {
+                return;
+            }
 
             if (!commands.isEmpty()) {
-                commandList = Arrays.asList(commands.split("\\r?\\n"));
                 for (int i = 0; i < commandList.size(); i++) {
                     String command = commandList.get(i).trim();
                     if (!command.isEmpty()) {
                         currentLineIndex = i;
-                        executeCommand(command);
+                        executeCommand(i);
                         highlightCurrentLine(commandInput, i);
                     }
                 }
@@ -249,6 +347,11 @@ public class Main extends Application {
                 qganttManager.clear();
                 commandInput.deselect();
                 measurementOutput.clear();
+                if (!prepareContext(commands)) {
+                    // Следующий шаг разберёт скрипт заново
+                    commandList = new ArrayList<>();
+                    return;
+                }
             }
 
             int nextLineIndex = currentLineIndex + 1;
@@ -266,11 +369,9 @@ public class Main extends Application {
 
             if (targetVersion > maxVersionInHistory) {
                 currentLineIndex = nextLineIndex;
-                String command = commandList.get(currentLineIndex).trim();
-
                 int versionBeforeExecute = versionCounter;
 
-                executeCommand(command);
+                executeCommand(currentLineIndex);
 
                 if (versionCounter > versionBeforeExecute) {
                     qganttManager.updateDiagramToStep(versionCounter);
@@ -358,13 +459,19 @@ public class Main extends Application {
         stage.show();
     }
 
-    private void executeCommand(String command) {
+    private void executeCommand(int lineIndex) {
         try {
-            Command parsedCommand = Parser.parse(command);
+            Command parsedCommand = lineIndex < lineCommands.size() ? lineCommands.get(lineIndex) : null;
+            if (parsedCommand == null) {
+                return;
+            }
             outputHistory.push(measurementOutput.getText());
 
             Map<String, Object> runResult = context.run(parsedCommand);
             String output = (String) runResult.getOrDefault("output", "");
+            if (runResult.get("warning") != null) {
+                measurementOutput.appendText(runResult.get("warning") + "\n");
+            }
             @SuppressWarnings("unchecked")
             Map<String, Object> joinInfo = (Map<String, Object>) runResult.get("joinInfo");
 
@@ -387,6 +494,15 @@ public class Main extends Application {
                             qganttManager.addMeasurementStep(targetRealRegisterName, finalState, measuredQubitRealIndex, measurementResult, versionCounter);
 
                             measurementOutput.appendText("Измерение " + nominalRegisterName + "[" + nominalIndex + "] = " + output + "\n");
+                            if (context.getApproximationReport() != null) {
+                                measurementOutput.appendText(context.getApproximationReport() + "\n");
+                            }
+
+                            @SuppressWarnings("unchecked")
+                            Map<String, Object> splitInfo = (Map<String, Object>) runResult.get("splitInfo");
+                            if (splitInfo != null) {
+                                showSplit(splitInfo);
+                            }
                         } else {
                             measurementOutput.appendText("Ошибка: Не найден номинальный регистр '" + nominalRegisterName + "' для обновления QGantt после MEASURE.\n");
                         }
@@ -404,62 +520,35 @@ public class Main extends Application {
                 int realRegisterSize = parsedCommand.getArgumentAsInt("realRegisterSize");
                 @SuppressWarnings("unchecked")
                 List<Map<String, Object>> nominalSpecs = (List<Map<String, Object>>) parsedCommand.getArgument("nominalRegisters");
-
-                qganttManager.createRegister(realRegisterName, realRegisterSize, nominalSpecs, null);
-
-                QubitRegister realReg = context.getRealRegister(realRegisterName);
-                if (realReg != null) {
-                    Map<Integer, Complex> initialState = new HashMap<>();
-                    initialState.put(0, Complex.getOne());
-                    int currentVersionForState = versionCounter + 1;
-                    qganttManager.addState(realRegisterName, initialState, currentVersionForState);
-                    versionCounter++;
-                } else {
-                    measurementOutput.appendText("Ошибка: Не удалось найти реальный регистр '" + realRegisterName + "' после создания.\n");
+                @SuppressWarnings("unchecked")
+                List<String> realRegNames = (List<String>) runResult.get("realRegNames");
+                if (realRegNames == null) {
+                    realRegNames = List.of(realRegisterName);
                 }
-            } else if (parsedCommand.getType() == Command.CommandType.APPLY_GATE) {
-                String gateName = parsedCommand.getArgumentAsString("gate");
-                String targetRealRegisterName;
-
-                if (joinInfo != null) {
-                    String newRealRegName = (String) joinInfo.get("newRealRegName");
-                    targetRealRegisterName = newRealRegName;
-
-                    QubitRegister newRealReg = context.getRealRegister(newRealRegName);
-                    if (newRealReg != null) {
-                        List<Map<String, Object>> updatedNominalSpecs = context.getQubitRegisters().values().stream()
-                                .filter(nr -> nr.getRealRegister() == newRealReg)
-                                .sorted(Comparator.comparingInt(nr -> -nr.getOffsetInRealRegister())).map(nr -> {
-                                    Map<String, Object> spec = new HashMap<>();
-                                    spec.put("name", nr.getName());
-                                    spec.put("size", nr.size());
-                                    spec.put("offset", nr.getOffsetInRealRegister());
-                                    return spec;
-                                })
-                                .collect(Collectors.toList());
 
-                        @SuppressWarnings("unchecked")
-                        List<String> oldRealRegNames = (List<String>) joinInfo.get("oldRealRegNames");
-                        qganttManager.createRegister(newRealRegName, newRealReg.getRealSize(), updatedNominalSpecs, oldRealRegNames);
-
-                        @SuppressWarnings("unchecked")
-                        Map<Integer, Complex> initialJoinedState = (Map<Integer, Complex>) joinInfo.get("initialJoinedState");
-                        Map<Integer, Complex> finalState = context.getRealRegisterState(newRealRegName);
-
-                        int commonVersion = versionCounter + 1;
-                        if (initialJoinedState != null) {
-                            qganttManager.addState(newRealRegName, initialJoinedState, commonVersion);
+                for (String createdName : realRegNames) {
+                    QubitRegister realReg = context.getRealRegister(createdName);
+                    if (realReg != null) {
+                        if (realRegNames.size() == 1) {
+                            qganttManager.createRegister(createdName, realRegisterSize, nominalSpecs, null);
                         } else {
-                            measurementOutput.appendText("Предупреждение: Не удалось получить начальное состояние для объединенного регистра " + newRealRegName + "\n");
-                            qganttManager.addState(newRealRegName, new HashMap<>(), commonVersion); // Добавляем пустое, чтобы версии не сдвигались
+                            qganttManager.createRegister(createdName, realReg.getRealSize(), nominalSpecsOf(realReg), null);
                         }
-
-                        qganttManager.addGateTrace(newRealRegName, finalState, context.getLastGateTrace(), gateName, commonVersion); // Используем ту же версию
-
+                        Map<Integer, Complex> initialState = new HashMap<>();
+                        initialState.put(0, Complex.getOne());
+                        int currentVersionForState = versionCounter + 1;
+                        qganttManager.addState(createdName, initialState, currentVersionForState);
                         versionCounter++;
                     } else {
-                        measurementOutput.appendText("Критическая ошибка: Не удалось найти новый реальный регистр '" + newRealRegName + "' после объединения.\n");
+                        measurementOutput.appendText("Ошибка: Не удалось найти реальный регистр '" + createdName + "' после создания.\n");
                     }
+                }
+            } else if (parsedCommand.getType() == Command.CommandType.APPLY_GATE) {
+                String gateName = parsedCommand.getArgumentAsString("gate");
+                String targetRealRegisterName;
+
+                if (joinInfo != null) {
+                    showJoin(joinInfo, gateName);
                 } else {
                     @SuppressWarnings("unchecked")
                     List<Map<String, Object>> operandsData = (List<Map<String, Object>>) parsedCommand.getArgument("operands");
@@ -467,7 +556,10 @@ public class Main extends Application {
                         String firstNominalOperandName = (String) operandsData.get(0).get("register");
                         QubitRegister nominalReg = context.getNominalRegister(firstNominalOperandName);
                         if (nominalReg != null) {
-                            targetRealRegisterName = nominalReg.getRealRegister().getName();
+                            // Гейт, упрощённый без объединения регистров, мог подействовать не на регистр первого операнда
+                            targetRealRegisterName = runResult.get("targetRealRegName") != null
+                                    ? (String) runResult.get("targetRealRegName")
+                                    : nominalReg.getRealRegister().getName();
                             Map<Integer, Complex> finalState = context.getRealRegisterState(targetRealRegisterName);
                             int versionForFinal = versionCounter + 1;
                             qganttManager.addGateTrace(targetRealRegisterName, finalState, context.getLastGateTrace(), gateName, versionForFinal);
@@ -478,16 +570,19 @@ public class Main extends Application {
                     }
                 }
 
+            } else if (parsedCommand.getType() == Command.CommandType.AMPLITUDE) {
+                // Запрос не меняет состояние, результат только выводится
+                measurementOutput.appendText(output + "\n");
             } else if (parsedCommand.getType() == Command.CommandType.DEFINE_ORACLE_CSV) {
                 // Эта команда определяет оракул, но не меняет состояние кубитов.
                 // Просто выполняем ее в контексте (context.run уже был вызван).
             } else if (parsedCommand.getType() == Command.CommandType.APPLY_ORACLE) {
+                String oracleName = parsedCommand.getArgumentAsString("oracleName");
                 if (joinInfo != null) {
-                    measurementOutput.appendText("Критическая ошибка: Обнаружено объединение регистров при применении оракула!\n");
+                    showJoin(joinInfo, oracleName);
                     return;
                 }
 
-                String oracleName = parsedCommand.getArgumentAsString("oracleName");
                 String inputNominalRegName = parsedCommand.getArgumentAsString("inputRegisterName");
 
                 QubitRegister inputNominalReg = context.getNominalRegister(inputNominalRegName);
@@ -509,6 +604,86 @@ public class Main extends Application {
         }
     }
 
+    // Реальные регистры объединены перед применением операции: новый регистр продолжает историю старых
+    private void showJoin(Map<String, Object> joinInfo, String gateName) {
+        String newRealRegName = (String) joinInfo.get("newRealRegName");
+        QubitRegister newRealReg = context.getRealRegister(newRealRegName);
+        if (newRealReg != null) {
+            List<Map<String, Object>> updatedNominalSpecs = nominalSpecsOf(newRealReg);
+
+            @SuppressWarnings("unchecked")
+            List<String> oldRealRegNames = (List<String>) joinInfo.get("oldRealRegNames");
+            qganttManager.createRegister(newRealRegName, newRealReg.getRealSize(), updatedNominalSpecs, oldRealRegNames);
+
+            @SuppressWarnings("unchecked")
+            Map<Integer, Complex> initialJoinedState = (Map<Integer, Complex>) joinInfo.get("initialJoinedState");
+            Map<Integer, Complex> finalState = context.getRealRegisterState(newRealRegName);
+
+            int commonVersion = versionCounter + 1;
+            // Незатронутые гейтом части вынесены из объединяемых регистров и тоже продолжают их историю
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> factoredParts = (List<Map<String, Object>>) joinInfo.get("factoredParts");
+            if (factoredParts != null) {
+                for (Map<String, Object> factored : factoredParts) {
+                    String sourceName = (String) factored.get("oldRealRegName");
+                    @SuppressWarnings("unchecked")
+                    List<String> partNames = (List<String>) factored.get("newRealRegNames");
+                    for (String partName : partNames) {
+                        QubitRegister part = context.getRealRegister(partName);
+                        if (part == null) {
+                            continue;
+                        }
+                        qganttManager.createRegister(partName, part.getRealSize(), nominalSpecsOf(part), List.of(sourceName));
+                        qganttManager.addState(partName, context.getRealRegisterState(partName), commonVersion);
+                    }
+                }
+            }
+            if (initialJoinedState != null) {
+                qganttManager.addState(newRealRegName, initialJoinedState, commonVersion);
+            } else {
+                measurementOutput.appendText("Предупреждение: Не удалось получить начальное состояние для объединенного регистра " + newRealRegName + "\n");
+                qganttManager.addState(newRealRegName, new HashMap<>(), commonVersion); // Добавляем пустое, чтобы версии не сдвигались
+            }
+
+            qganttManager.addGateTrace(newRealRegName, finalState, context.getLastGateTrace(), gateName, commonVersion); // Используем ту же версию
+
+            versionCounter++;
+        } else {
+            measurementOutput.appendText("Критическая ошибка: Не удалось найти новый реальный регистр '" + newRealRegName + "' после объединения.\n");
+        }
+    }
+
+    private List<Map<String, Object>> nominalSpecsOf(QubitRegister realRegister) {
+        return context.getQubitRegisters().values().stream()
+                .filter(nr -> nr.getRealRegister() == realRegister)
+                .sorted(Comparator.comparingInt(nr -> -nr.getOffsetInRealRegister())).map(nr -> {
+                    Map<String, Object> spec = new HashMap<>();
+                    spec.put("name", nr.getName());
+                    spec.put("size", nr.size());
+                    spec.put("offset", nr.getOffsetInRealRegister());
+                    return spec;
+                })
+                .collect(Collectors.toList());
+    }
+
+    // Реальный регистр после измерения разделён на незапутанные части: каждая часть продолжает его историю
+    private void showSplit(Map<String, Object> splitInfo) {
+        String oldRealRegName = (String) splitInfo.get("oldRealRegName");
+        @SuppressWarnings("unchecked")
+        List<String> newRealRegNames = (List<String>) splitInfo.get("newRealRegNames");
+        int commonVersion = versionCounter + 1;
+        for (String newRealRegName : newRealRegNames) {
+            QubitRegister newRealReg = context.getRealRegister(newRealRegName);
+            if (newRealReg == null) {
+                continue;
+            }
+            qganttManager.createRegister(newRealRegName, newRealReg.getRealSize(), nominalSpecsOf(newRealReg), List.of(oldRealRegName));
+            qganttManager.addState(newRealRegName, context.getRealRegisterState(newRealRegName), commonVersion);
+        }
+        versionCounter++;
+        measurementOutput.appendText("Регистр " + oldRealRegName + " разделён на незапутанные части: " + String.join(", ", newRealRegNames) + "\n");
+    }
+
     private void setupCodeArea() {
         commandInput = new CodeArea();
         commandInput.setWrapText(true);
@@ -624,19 +799,55 @@ public class Main extends Application {
         });
     }
 
-    private List<Command> parseCommandsFromText(String text) {
-        List<Command> commands = new ArrayList<>();
-        String[] lines = text.split("\\r?\\n");
-        for (String line : lines) {
-            line = line.trim();
-            if (!line.isEmpty()) {
-                Command command = Parser.parse(line);
-                if (command != null) {
-                    commands.add(command);
-                }
-            }
+    // Выбор бэкендов по всему скрипту. Вызывается после того, как commandList заполнен строками text;
+    // false - скрипт не разобран, ошибка уже показана
+    private boolean prepareContext(String text) {
+        context.setSimulationMode(simulationMode);
+        context.setApproximation(approximation);
+        if (!parseScript(text)) {
+            return false;
+        }
+        try {
+            context.prepare(lineCommands.stream().filter(Objects::nonNull).collect(Collectors.toList()));
+        } catch (Exception e) {
+            // Семантическая ошибка будет показана при выполнении соответствующей строки
+            context.prepare(Collections.emptyList());
         }
-        return commands;
+        if (context.getPreparationReport() != null) {
+            measurementOutput.appendText(context.getPreparationReport());
+        }
+        return true;
+    }
+
+    // Скрипт разбирается один раз, строки затем выполняются по готовым командам. Текст открытой
+    // скомпилированной схемы не разбирается: её команды уже есть. Ошибка разбора - со строкой и столбцом.
+    private boolean parseScript(String text) {
+        if (commandList.equals(compiledLines)) {
+            lineCommands = compiledCommands;
+            return true;
+        }
+        try {
+            lineCommands = ScriptParser.parseLines(text);
+            return true;
+        } catch (IllegalArgumentException e) {
+            lineCommands = Collections.emptyList();
+            measurementOutput.appendText("Ошибка разбора скрипта: " + e.getMessage() + "\n");
+            return false;
+        }
+    }
+
+    // Схема для серии запусков: открытая из файла, пока её текст не изменён, иначе компилируется заново
+    private CompiledCircuit circuitOf(String text) {
+        String trimmed = text.trim();
+        List<String> lines = trimmed.isEmpty() ? Collections.emptyList() : Arrays.asList(trimmed.split("\\r?\\n"));
+        if (compiledCircuit != null && lines.equals(compiledLines)) {
+            return compiledCircuit;
+        }
+        return CompiledCircuit.compile(parseCommandsFromText(text));
+    }
+
+    private List<Command> parseCommandsFromText(String text) {
+        return ScriptParser.parse(text);
     }
 
     public String translateToPlatform(String platform) {
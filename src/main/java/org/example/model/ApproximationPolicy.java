@@ -0,0 +1,51 @@
+package org.example.model;
+
+import lombok.Getter;
+
+import java.io.Serializable;
+
+// Параметры приближённой эмуляции: после каждого гейта отбрасываются амплитуды, чья вероятность меньше
+// доли pruneThreshold от нормы, а при beamWidth > 0 - все, кроме beamWidth наибольших.
+// Суммарная отброшенная вероятность сравнивается с бюджетом ошибки.
+@Getter
+public class ApproximationPolicy implements Serializable {
+    private final double pruneThreshold;
+    // 0 - число амплитуд не ограничено
+    private final int beamWidth;
+    private final double errorBudget;
+    // true - после исчерпания бюджета гейты не применяются, false - только предупреждение
+    private final boolean stopOnBudgetExceeded;
+
+    public ApproximationPolicy(double pruneThreshold, int beamWidth, double errorBudget, boolean stopOnBudgetExceeded) {
+        if (!(pruneThreshold >= 0 && pruneThreshold < 1)) {
+            throw new IllegalArgumentException("Порог отсечения должен лежать в [0, 1): " + pruneThreshold);
+        }
+        if (beamWidth < 0) {
+            throw new IllegalArgumentException("Ширина луча не может быть отрицательной: " + beamWidth);
+        }
+        if (!(errorBudget > 0 && errorBudget <= 1)) {
+            throw new IllegalArgumentException("Бюджет ошибки должен лежать в (0, 1]: " + errorBudget);
+        }
+        this.pruneThreshold = pruneThreshold;
+        this.beamWidth = beamWidth;
+        this.errorBudget = errorBudget;
+        this.stopOnBudgetExceeded = stopOnBudgetExceeded;
+    }
+
+    public static ApproximationPolicy pruning(double pruneThreshold, double errorBudget) {
+        return new ApproximationPolicy(pruneThreshold, 0, errorBudget, false);
+    }
+
+    public static ApproximationPolicy beam(int beamWidth, double errorBudget) {
+        if (beamWidth == 0) {
+            throw new IllegalArgumentException("Ширина луча должна быть положительной");
+        }
+        return new ApproximationPolicy(0, beamWidth, errorBudget, false);
+    }
+
+    @Override
+    public String toString() {
+        return (beamWidth > 0 ? "луч " + beamWidth : String.format("порог %.3g", pruneThreshold))
+                + String.format(", бюджет ошибки %.3g", errorBudget);
+    }
+}
@@ -0,0 +1,474 @@
+package org.example.model;
+
+import org.example.model.gate.GateResolver;
+import org.example.model.qubit.backend.ExtendedStabilizerBackend;
+import org.example.model.tensor.ContractionPlan;
+import org.example.model.tensor.TensorNetwork;
+import org.example.script.Command;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Статический анализ скрипта до выполнения
+public class CircuitAnalysis {
+    private static final Set<String> CLIFFORD_GATES = Set.of("X", "NOT", "Y", "Z", "H", "S", "SWAP");
+    private static final Set<String> CLIFFORD_CONTROLLED_TARGETS = Set.of("X", "NOT", "Y", "Z");
+    // Диагональные гейты вида diag(1, e^{i phi}): управляемые варианты симметричны по всем кубитам
+    private static final Set<String> DIAGONAL_BASE_GATES = Set.of("Z", "S", "T", "P");
+
+    // Содержит ли скрипт только гейты Клиффорда и измерения
+    public static boolean isCliffordOnly(List<Command> script) {
+        for (Command command : script) {
+            if (command == null) {
+                continue;
+            }
+            switch (command.getType()) {
+                case CREATE_REGISTER, MEASURE, AMPLITUDE -> {
+                }
+                case APPLY_GATE -> {
+                    if (!isCliffordGate(command.getArgumentAsString("gate"))) {
+                        return false;
+                    }
+                }
+                default -> {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public static boolean isCliffordGate(String gateName) {
+        if (gateName == null) {
+            return false;
+        }
+        if (gateName.startsWith("C")) {
+            // таблица поддерживает только одиночный контроль над паули-гейтом
+            return CLIFFORD_CONTROLLED_TARGETS.contains(gateName.substring(1));
+        }
+        return CLIFFORD_GATES.contains(gateName);
+    }
+
+    public static boolean isDiagonalBaseGate(String baseGateName) {
+        return DIAGONAL_BASE_GATES.contains(baseGateName);
+    }
+
+    // Число управляющих кубитов гейта: ведущие 'C' в имени (имена базовых гейтов с 'C' не начинаются)
+    public static int countControls(String gateName) {
+        int controls = 0;
+        while (controls < gateName.length() && gateName.charAt(controls) == 'C') {
+            controls++;
+        }
+        return controls;
+    }
+
+    // Явно ли в скрипте указан бэкенд хотя бы для одного регистра
+    public static boolean hasExplicitBackend(List<Command> script) {
+        for (Command command : script) {
+            if (command != null && command.getType() == Command.CommandType.CREATE_REGISTER) {
+                Map<String, Object> arguments = command.getArguments();
+                if (arguments.get("backend") != null) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Число T-гейтов; P считается T-подобным при любом угле, так как раскладывается на два слагаемых
+    public static int countTGates(List<Command> script) {
+        int count = 0;
+        for (Command command : script) {
+            if (command != null && command.getType() == Command.CommandType.APPLY_GATE && isTLike(command.getArgumentAsString("gate"))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean isTLike(String gateName) {
+        return "T".equals(gateName) || "P".equals(gateName);
+    }
+
+    // Оценка стоимости расширенного стабилизаторного режима: каждый неклиффордов гейт на k кубитах
+    // умножает число слагаемых не более чем на 2^k (T и P - на 2), ранг ограничен 2^n.
+    @SuppressWarnings("unchecked")
+    public static StabilizerRankEstimate estimateStabilizerRank(List<Command> script) {
+        Map<String, Integer> nominalSizes = new HashMap<>();
+        int qubits = 0;
+        int tCount = 0;
+        int otherNonClifford = 0;
+        int clifford = 0;
+        int measurements = 0;
+        int rankExponent = 0;
+        double operations = 0;
+        String unsupportedReason = null;
+
+        for (Command command : script) {
+            if (command == null) {
+                continue;
+            }
+            int words = Math.max(1, (qubits + 63) / 64);
+            // стоимость одного разложения паули-оператора по таблице
+            double decomposition = 2.0 * Math.max(1, qubits) * words;
+            switch (command.getType()) {
+                case CREATE_REGISTER -> {
+                    qubits += command.getArgumentAsInt("realRegisterSize");
+                    for (Map<String, Object> spec : (List<Map<String, Object>>) command.getArgument("nominalRegisters")) {
+                        nominalSizes.put((String) spec.get("name"), (Integer) spec.get("size"));
+                    }
+                }
+                case MEASURE -> {
+                    measurements++;
+                    operations += decomposition + 3.0 * Math.pow(2, rankExponent) * words;
+                }
+                case APPLY_GATE -> {
+                    String gateName = command.getArgumentAsString("gate");
+                    List<?> operands = (List<?>) command.getArgument("operands");
+                    int arity = operands == null ? 1 : operands.size();
+                    if (isCliffordGate(gateName)) {
+                        clifford++;
+                        operations += decomposition;
+                        continue;
+                    }
+                    if ("INC".equals(gateName) || "DEC".equals(gateName)) {
+                        unsupportedReason = "гейт " + gateName + " не приводится к диагональному виду";
+                        continue;
+                    }
+                    if (isTLike(gateName)) {
+                        tCount++;
+                    } else {
+                        otherNonClifford++;
+                    }
+                    int factorExponent = isTLike(gateName) ? 1 : arity;
+                    operations += (1 << factorExponent) * (decomposition + Math.pow(2, rankExponent) * words);
+                    rankExponent = Math.min(qubits, rankExponent + factorExponent);
+                }
+                case APPLY_ORACLE -> {
+                    Integer inputSize = nominalSizes.get(command.getArgumentAsString("inputRegisterName"));
+                    int arity = (inputSize == null ? 1 : inputSize) + 1;
+                    if (arity > ExtendedStabilizerBackend.MAX_NON_CLIFFORD_ARITY) {
+                        unsupportedReason = "оракл на " + arity + " кубитах слишком велик для разложения";
+                        continue;
+                    }
+                    otherNonClifford++;
+                    operations += (1 << arity) * (decomposition + Math.pow(2, rankExponent) * words);
+                    rankExponent = Math.min(qubits, rankExponent + arity);
+                }
+                default -> {
+                }
+            }
+        }
+        int words = Math.max(1, (qubits + 63) / 64);
+        // таблица 2n строк по 2 массива long[words], слагаемое - метка BitSet и комплексный коэффициент
+        double memory = 2.0 * qubits * 2 * words * 8 + Math.pow(2, rankExponent) * (words * 8 + 96);
+        return new StabilizerRankEstimate(qubits, tCount, otherNonClifford, clifford, measurements,
+                rankExponent, operations, memory, unsupportedReason);
+    }
+
+    // Оценка свёртки тензорной сети для одной амплитуды. Кубиты всех регистров нумеруются подряд;
+    // реальные регистры объединяются так же, как при выполнении, чтобы INC/DEC получили весь регистр.
+    @SuppressWarnings("unchecked")
+    public static ContractionPlan estimateTensorContraction(List<Command> script) {
+        Map<String, int[]> nominalQubits = new HashMap<>();
+        // кубиты реального регистра от младшего к старшему; объединённые регистры разделяют один список
+        Map<Integer, List<Integer>> registerOfQubit = new HashMap<>();
+        List<int[]> gates = new ArrayList<>();
+        int qubits = 0;
+
+        for (Command command : script) {
+            if (command == null) {
+                continue;
+            }
+            switch (command.getType()) {
+                case CREATE_REGISTER -> {
+                    int base = qubits;
+                    int size = command.getArgumentAsInt("realRegisterSize");
+                    List<Integer> register = new ArrayList<>();
+                    for (int q = 0; q < size; q++) {
+                        register.add(base + q);
+                        registerOfQubit.put(base + q, register);
+                    }
+                    qubits += size;
+                    for (Map<String, Object> spec : (List<Map<String, Object>>) command.getArgument("nominalRegisters")) {
+                        int[] indices = new int[(Integer) spec.get("size")];
+                        for (int i = 0; i < indices.length; i++) {
+                            indices[i] = base + (Integer) spec.get("offset") + i;
+                        }
+                        nominalQubits.put((String) spec.get("name"), indices);
+                    }
+                }
+                case APPLY_GATE -> {
+                    List<Map<String, Object>> operands = (List<Map<String, Object>>) command.getArgument("operands");
+                    List<Integer> operandQubits = new ArrayList<>();
+                    for (Map<String, Object> operand : operands == null ? List.<Map<String, Object>>of() : operands) {
+                        int[] indices = nominalQubits.get((String) operand.get("register"));
+                        int index = (Integer) operand.get("index");
+                        if (indices != null && index >= 0 && index < indices.length) {
+                            operandQubits.add(indices[index]);
+                        }
+                    }
+                    if (operandQubits.isEmpty()) {
+                        continue;
+                    }
+                    List<Integer> register = joinRegisters(operandQubits, registerOfQubit);
+                    List<Integer> gateQubits = GateResolver.actsOnWholeRegister(command.getArgumentAsString("gate"))
+                            ? register
+                            : operandQubits;
+                    gates.add(gateQubits.stream().mapToInt(Integer::intValue).toArray());
+                }
+                case APPLY_ORACLE -> {
+                    int[] input = nominalQubits.get(command.getArgumentAsString("inputRegisterName"));
+                    int[] ancilla = nominalQubits.get(command.getArgumentAsString("ancillaRegisterName"));
+                    int ancillaIndex = command.getArgumentAsInt("ancillaIndex");
+                    if (input != null && ancilla != null && ancillaIndex >= 0 && ancillaIndex < ancilla.length) {
+                        int[] gateQubits = Arrays.copyOf(input, input.length + 1);
+                        gateQubits[input.length] = ancilla[ancillaIndex];
+                        gates.add(gateQubits);
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        return TensorNetwork.planAmplitude(Math.max(1, qubits), gates);
+    }
+
+    // Объединение реальных регистров операндов в порядке Emulation: каждый следующий регистр становится младшей частью
+    private static List<Integer> joinRegisters(List<Integer> operandQubits, Map<Integer, List<Integer>> registerOfQubit) {
+        List<Integer> joined = registerOfQubit.get(operandQubits.get(0));
+        for (int qubit : operandQubits) {
+            List<Integer> next = registerOfQubit.get(qubit);
+            if (next == joined) {
+                continue;
+            }
+            List<Integer> merged = new ArrayList<>(next);
+            merged.addAll(joined);
+            for (int q : merged) {
+                registerOfQubit.put(q, merged);
+            }
+            joined = merged;
+        }
+        return joined;
+    }
+
+    // Реальный регистр в ходе анализа: номинальные регистры, число кубитов и ожидаемый размер носителя
+    private static final class PlannedRegister {
+        final List<String> nominals = new ArrayList<>();
+        int qubits;
+        double support = 1;
+
+        String label() {
+            return "{" + String.join(",", nominals) + "}";
+        }
+    }
+
+    // Граф взаимодействий номинальных регистров по всему скрипту. Регистры одной строки CR, которые
+    // ни прямо, ни через другие регистры не взаимодействуют, получают отдельные реальные регистры.
+    // Затем скрипт проходится ещё раз с оценкой носителя (H удваивает, измерение делит пополам),
+    // и для каждого объединения выбирается порядок от меньших носителей к большим.
+    @SuppressWarnings("unchecked")
+    public static RegisterPlan planRegisters(List<Command> script) {
+        Map<String, String> parent = new HashMap<>();
+        List<List<String>> createLines = new ArrayList<>();
+        Set<String> wholeRegisterOperands = new HashSet<>();
+        for (Command command : script) {
+            if (command == null) {
+                continue;
+            }
+            switch (command.getType()) {
+                case CREATE_REGISTER -> {
+                    List<String> names = nominalNamesOf(command);
+                    names.forEach(name -> parent.putIfAbsent(name, name));
+                    createLines.add(names);
+                }
+                case APPLY_GATE -> {
+                    List<String> registers = operandRegistersOf(command);
+                    registers.forEach(name -> union(parent, registers.get(0), name));
+                    if (GateResolver.actsOnWholeRegister(command.getArgumentAsString("gate"))) {
+                        wholeRegisterOperands.addAll(registers);
+                    }
+                }
+                case APPLY_ORACLE -> union(parent, command.getArgumentAsString("inputRegisterName"),
+                        command.getArgumentAsString("ancillaRegisterName"));
+                case AMPLITUDE -> {
+                    // Все регистры запроса должны оказаться в одном реальном регистре
+                    List<String> registers = new ArrayList<>(((Map<String, String>) command.getArgument("values")).keySet());
+                    registers.forEach(name -> union(parent, registers.get(0), name));
+                }
+                default -> {
+                }
+            }
+        }
+        // INC/DEC действуют на весь реальный регистр, поэтому его строка CR не разделяется
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            Set<String> wholeRoots = new HashSet<>();
+            for (String name : wholeRegisterOperands) {
+                if (parent.containsKey(name)) {
+                    wholeRoots.add(find(parent, name));
+                }
+            }
+            for (List<String> line : createLines) {
+                boolean whole = line.stream().anyMatch(name -> wholeRoots.contains(find(parent, name)));
+                for (String name : line) {
+                    if (whole && !find(parent, name).equals(find(parent, line.get(0)))) {
+                        union(parent, line.get(0), name);
+                        changed = true;
+                    }
+                }
+            }
+        }
+        Map<String, Integer> componentIds = new HashMap<>();
+        Map<String, Integer> componentOfNominal = new HashMap<>();
+        for (String name : parent.keySet()) {
+            componentOfNominal.put(name, componentIds.computeIfAbsent(find(parent, name), root -> componentIds.size()));
+        }
+
+        RegisterPlan grouping = new RegisterPlan(componentOfNominal, List.of(), 0);
+        Map<String, PlannedRegister> registerOf = new HashMap<>();
+        List<RegisterPlan.PlannedJoin> joins = new ArrayList<>();
+        int splitCreateCount = 0;
+        for (int index = 0; index < script.size(); index++) {
+            Command command = script.get(index);
+            if (command == null) {
+                continue;
+            }
+            switch (command.getType()) {
+                case CREATE_REGISTER -> {
+                    List<List<String>> groups = grouping.groupsOf(nominalNamesOf(command));
+                    if (groups.size() > 1) {
+                        splitCreateCount++;
+                    }
+                    Map<String, Integer> sizes = new HashMap<>();
+                    for (Map<String, Object> spec : (List<Map<String, Object>>) command.getArgument("nominalRegisters")) {
+                        sizes.put((String) spec.get("name"), (Integer) spec.get("size"));
+                    }
+                    for (List<String> group : groups) {
+                        PlannedRegister register = new PlannedRegister();
+                        for (String name : group) {
+                            register.nominals.add(name);
+                            register.qubits += sizes.get(name);
+                            registerOf.put(name, register);
+                        }
+                    }
+                }
+                case APPLY_GATE -> {
+                    String gateName = command.getArgumentAsString("gate");
+                    List<String> operands = operandRegistersOf(command);
+                    if (operands.isEmpty() || !registerOf.keySet().containsAll(operands)) {
+                        continue;
+                    }
+                    // Классические управляющие кубиты (носитель из одного состояния) не требуют объединения
+                    int controls = countControls(gateName);
+                    int removable = isDiagonalBaseGate(gateName.substring(controls)) ? controls + 1 : controls;
+                    List<PlannedRegister> involved = new ArrayList<>();
+                    for (int i = 0; i < operands.size(); i++) {
+                        PlannedRegister register = registerOf.get(operands.get(i));
+                        if (i < removable && register.support == 1 && operands.size() > 1) {
+                            continue;
+                        }
+                        if (!involved.contains(register)) {
+                            involved.add(register);
+                        }
+                    }
+                    PlannedRegister target = registerOf.get(operands.get(operands.size() - 1));
+                    if (involved.size() > 1) {
+                        target = planJoin(index, involved, registerOf, joins);
+                    }
+                    if ("H".equals(gateName.substring(controls))) {
+                        target.support = Math.min(2 * target.support, Math.pow(2, target.qubits));
+                    }
+                }
+                case APPLY_ORACLE -> {
+                    PlannedRegister input = registerOf.get(command.getArgumentAsString("inputRegisterName"));
+                    PlannedRegister ancilla = registerOf.get(command.getArgumentAsString("ancillaRegisterName"));
+                    if (input != null && ancilla != null && input != ancilla) {
+                        planJoin(index, new ArrayList<>(List.of(input, ancilla)), registerOf, joins);
+                    }
+                }
+                case MEASURE -> {
+                    PlannedRegister register = registerOf.get(command.getArgumentAsString("register"));
+                    if (register != null) {
+                        register.support = Math.max(1, Math.ceil(register.support / 2));
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        return new RegisterPlan(componentOfNominal, joins, splitCreateCount);
+    }
+
+    // Порядок объединения: при трёх и более регистрах - по возрастанию предсказанного носителя.
+    // Emulation объединяет регистры в этом порядке, если объединение совпадает с планом.
+    // Предсказание эвристическое: носитель удваивают только H и CH (остальные гейты набора - перестановки
+    // и фазы), измерение делит его пополам, а интерференция и разделение регистров не учитываются.
+    private static PlannedRegister planJoin(int index, List<PlannedRegister> involved,
+                                            Map<String, PlannedRegister> registerOf, List<RegisterPlan.PlannedJoin> joins) {
+        if (involved.size() > 2) {
+            involved.sort(Comparator.comparingDouble(register -> register.support));
+        }
+        PlannedRegister joined = new PlannedRegister();
+        double[] supports = new double[involved.size() - 1];
+        List<String> labels = new ArrayList<>();
+        List<Set<String>> nominalGroups = new ArrayList<>();
+        for (int i = 0; i < involved.size(); i++) {
+            PlannedRegister next = involved.get(i);
+            labels.add(next.label());
+            nominalGroups.add(new HashSet<>(next.nominals));
+            joined.nominals.addAll(next.nominals);
+            joined.qubits += next.qubits;
+            joined.support = i == 0 ? next.support : Math.min(joined.support * next.support, Math.pow(2, joined.qubits));
+            if (i > 0) {
+                supports[i - 1] = joined.support;
+            }
+        }
+        joined.nominals.forEach(name -> registerOf.put(name, joined));
+        joins.add(new RegisterPlan.PlannedJoin(index, labels, supports, nominalGroups));
+        return joined;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> nominalNamesOf(Command command) {
+        List<String> names = new ArrayList<>();
+        for (Map<String, Object> spec : (List<Map<String, Object>>) command.getArgument("nominalRegisters")) {
+            names.add((String) spec.get("name"));
+        }
+        return names;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> operandRegistersOf(Command command) {
+        List<Map<String, Object>> operands = (List<Map<String, Object>>) command.getArgument("operands");
+        List<String> registers = new ArrayList<>();
+        for (Map<String, Object> operand : operands == null ? List.<Map<String, Object>>of() : operands) {
+            registers.add((String) operand.get("register"));
+        }
+        return registers;
+    }
+
+    private static String find(Map<String, String> parent, String name) {
+        parent.putIfAbsent(name, name);
+        String root = name;
+        while (!parent.get(root).equals(root)) {
+            root = parent.get(root);
+        }
+        parent.put(name, root);
+        return root;
+    }
+
+    private static void union(Map<String, String> parent, String a, String b) {
+        if (a == null || b == null) {
+            return;
+        }
+        parent.put(find(parent, a), find(parent, b));
+    }
+}
@@ -1,6 +1,10 @@
 package org.example.model;
 
 import lombok.Getter;
+import lombok.Setter;
+import org.example.model.circuit.CircuitLog;
+import org.example.model.circuit.PathSumEvaluator;
+import org.example.model.circuit.SchrodingerFeynmanSimulator;
 import org.example.model.gate.Gate;
 import org.example.model.gate.GateResolver;
 import org.example.model.gate.GateTrace;
@@ -9,11 +13,16 @@ import org.example.model.gate.oracle.OracleGate;
 import org.example.model.qubit.ChunkedComplexArray;
 import org.example.model.qubit.Complex;
 import org.example.model.qubit.QubitRegister;
+import org.example.model.qubit.SupportSet;
+import org.example.model.qubit.backend.BackendFactory;
+import org.example.model.qubit.backend.RegisterBackend;
 import org.example.script.Command;
 
 import java.io.*;
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class Emulation implements Serializable, Cloneable {
     @Getter
@@ -23,10 +32,45 @@ public class Emulation implements Serializable, Cloneable {
     @Getter
     private GateTrace lastGateTrace;
     private final Map<String, QubitRegister> realRegisters;
+    // Журнал гейтов каждого реального регистра для запросов по сумме путей
+    private final Map<String, CircuitLog> circuitLogs;
+    // Бэкенд для регистров без явного AS, выбирается в prepare()
+    @Getter
+    private String defaultBackendType;
+    @Getter
+    @Setter
+    private SimulationMode simulationMode = SimulationMode.STANDARD;
+    @Getter
+    private String preparationReport;
+    // Сколько попарных объединений реальных регистров выполнено и сколько удалось избежать упрощением гейта
+    @Getter
+    private int joinCount;
+    @Getter
+    private int avoidedJoinCount;
+    // Сколько номинальных регистров вынесено из объединяемых реальных регистров: гейт их не затрагивал,
+    // и они не были запутаны с операндами, поэтому в тензорное произведение не попали
+    @Getter
+    private int factoredOutCount;
+    // Разбиение строк CR и ожидаемые объединения по графу взаимодействий, строится в prepare()
+    @Getter
+    private RegisterPlan registerPlan;
+    // Следующее ещё не выполненное объединение плана
+    private int nextPlannedJoin;
+    // Приближённая эмуляция с отсечением амплитуд; null - точная
+    @Getter
+    @Setter
+    private ApproximationPolicy approximation;
+    // Сумма отброшенных долей вероятности по всем отсечениям
+    @Getter
+    private double discardedProbability;
+    // Оценка сверху расстояния между приближённым и точным состоянием: сумма расстояний отдельных отсечений
+    private double truncationDistance;
+    private boolean budgetWarningIssued;
 
     public Emulation() {
         this.qubitRegisters = new HashMap<>();
         this.realRegisters = new HashMap<>();
+        this.circuitLogs = new HashMap<>();
         this.definedOracles = new HashMap<>();
     }
 
@@ -38,6 +82,38 @@ public class Emulation implements Serializable, Cloneable {
         return realRegisters.get(name);
     }
 
+    // Анализ всего скрипта перед выполнением: если в нём только гейты Клиффорда и измерения,
+    // регистры без явного бэкенда создаются на таблице стабилизаторов.
+    // В режиме EXTENDED_STABILIZER используется сумма стабилизаторных состояний,
+    // а в preparationReport записывается оценка стоимости по T-count.
+    // В режиме TENSOR_NETWORK в отчёт попадает оценка операций и памяти выбранного порядка свёрток.
+    // Во всех режимах строится план регистров: невзаимодействующие регистры одной строки CR создаются раздельно.
+    public void prepare(List<Command> script) {
+        preparationReport = null;
+        registerPlan = CircuitAnalysis.planRegisters(script);
+        nextPlannedJoin = 0;
+        boolean explicitBackend = CircuitAnalysis.hasExplicitBackend(script);
+        if (simulationMode == SimulationMode.EXTENDED_STABILIZER) {
+            StabilizerRankEstimate estimate = CircuitAnalysis.estimateStabilizerRank(script);
+            preparationReport = estimate.toString();
+            defaultBackendType = estimate.isSupported() && !explicitBackend ? BackendFactory.EXTENDED_STABILIZER : null;
+            return;
+        }
+        if (simulationMode == SimulationMode.TENSOR_NETWORK) {
+            preparationReport = "Оценка свёртки для одной амплитуды. " + CircuitAnalysis.estimateTensorContraction(script);
+            defaultBackendType = explicitBackend ? null : BackendFactory.TENSOR_NETWORK;
+            return;
+        }
+        if (CircuitAnalysis.isCliffordOnly(script) && !explicitBackend) {
+            defaultBackendType = BackendFactory.STABILIZER;
+        } else {
+            defaultBackendType = null;
+        }
+        if (!registerPlan.isTrivial()) {
+            preparationReport = registerPlan.toString();
+        }
+    }
+
     public Map<String, Object> run(Command parsedCommand) {
         Map<String, Object> result = new HashMap<>();
         result.put("joinInfo", null);
@@ -48,17 +124,27 @@ public class Emulation implements Serializable, Cloneable {
         }
         switch (parsedCommand.getType()) {
             case CREATE_REGISTER -> {
-                result.put("output", processCreateRegister(parsedCommand));
+                Map<String, Object> createResult = processCreateRegister(parsedCommand);
+                result.put("output", createResult.get("output"));
+                result.put("realRegNames", createResult.get("realRegNames"));
                 return result;
             }
             case APPLY_GATE -> {
+                if (isStoppedByErrorBudget()) {
+                    result.put("output", budgetExceededMessage());
+                    return result;
+                }
                 Map<String, Object> gateResult = processApplyGate(parsedCommand);
                 result.put("output", gateResult.getOrDefault("output", ""));
                 result.put("joinInfo", gateResult.get("joinInfo"));
+                result.put("targetRealRegName", gateResult.get("targetRealRegName"));
+                result.put("warning", budgetWarning());
                 return result;
             }
             case MEASURE -> {
                 result.put("output", processMeasure(parsedCommand));
+                QubitRegister measured = qubitRegisters.get(parsedCommand.getArgumentAsString("register"));
+                result.put("splitInfo", measured == null ? null : splitDisentangled(measured.getRealRegister().getName()));
                 return result;
             }
             case DEFINE_ORACLE_CSV -> {
@@ -66,9 +152,18 @@ public class Emulation implements Serializable, Cloneable {
                 return result;
             }
             case APPLY_ORACLE -> {
+                if (isStoppedByErrorBudget()) {
+                    result.put("output", budgetExceededMessage());
+                    return result;
+                }
                 Map<String, Object> oracleResult = processApplyOracle(parsedCommand);
                 result.put("output", oracleResult.getOrDefault("output", ""));
                 result.put("joinInfo", oracleResult.get("joinInfo"));
+                result.put("warning", budgetWarning());
+                return result;
+            }
+            case AMPLITUDE -> {
+                result.put("output", processAmplitude(parsedCommand));
                 return result;
             }
             default -> {
@@ -78,30 +173,68 @@ public class Emulation implements Serializable, Cloneable {
         }
     }
 
+    // Если план регистров делит строку CR, каждая группа получает свой реальный регистр с именем "R(a,b)"
+    // и тем же бэкендом; смещения пересчитываются так, что первый номинальный регистр группы старший.
     @SuppressWarnings("unchecked")
-    private String processCreateRegister(Command command) {
+    private Map<String, Object> processCreateRegister(Command command) {
         String realRegisterName = command.getArgumentAsString("realRegisterName");
         int realRegisterSize = command.getArgumentAsInt("realRegisterSize");
         List<Map<String, Object>> nominalRegistersSpecs = (List<Map<String, Object>>) command.getArgument("nominalRegisters");
+        String backendType = command.getArgumentAsString("backend");
+        if (backendType == null) {
+            backendType = defaultBackendType;
+        }
 
-        QubitRegister realRegister = new QubitRegister(realRegisterName, realRegisterSize);
-        realRegisters.put(realRegisterName, realRegister);
+        List<Double> backendParameters = command.getArgument("backendParameters") == null
+                ? Collections.emptyList()
+                : (List<Double>) command.getArgument("backendParameters");
 
         for (Map<String, Object> spec : nominalRegistersSpecs) {
-            String nominalName = (String) spec.get("name");
-            int nominalSize = (int) spec.get("size");
-            int offset = (int) spec.get("offset");
-
-            if (qubitRegisters.containsKey(nominalName)) {
+            if (qubitRegisters.containsKey((String) spec.get("name"))) {
                 // TODO: Или разрешить переопределение? Пока запрещаем.
-                throw new IllegalArgumentException("Номинальный регистр с именем '" + nominalName + "' уже существует.");
+                throw new IllegalArgumentException("Номинальный регистр с именем '" + spec.get("name") + "' уже существует.");
             }
+        }
+
+        List<String> nominalNames = nominalRegistersSpecs.stream().map(spec -> (String) spec.get("name")).toList();
+        List<List<String>> groups = registerPlan == null ? List.of(nominalNames) : registerPlan.groupsOf(nominalNames);
+        List<String> realRegNames = new ArrayList<>();
+        StringBuilder output = new StringBuilder();
+        for (List<String> group : groups) {
+            String groupRealName = groups.size() == 1 ? realRegisterName : realRegisterName + "(" + String.join(",", group) + ")";
+            int groupSize = groups.size() == 1 ? realRegisterSize : nominalRegistersSpecs.stream()
+                    .filter(spec -> group.contains((String) spec.get("name")))
+                    .mapToInt(spec -> (int) spec.get("size"))
+                    .sum();
+
+            QubitRegister realRegister = backendType == null
+                    ? new QubitRegister(groupRealName, groupSize)
+                    : new QubitRegister(groupRealName, groupSize, BackendFactory.create(backendType, groupSize, backendParameters));
+            realRegisters.put(groupRealName, realRegister);
+            circuitLogs.put(groupRealName, new CircuitLog(groupSize));
+            realRegNames.add(groupRealName);
+
+            int nextOffset = 0;
+            for (int i = nominalRegistersSpecs.size() - 1; i >= 0; i--) {
+                Map<String, Object> spec = nominalRegistersSpecs.get(i);
+                String nominalName = (String) spec.get("name");
+                if (!group.contains(nominalName)) {
+                    continue;
+                }
+                int nominalSize = (int) spec.get("size");
+                int offset = groups.size() == 1 ? (int) spec.get("offset") : nextOffset;
+                nextOffset += nominalSize;
 
-            QubitRegister nominalRegister = new QubitRegister(nominalName, nominalSize, realRegister, offset);
-            qubitRegisters.put(nominalName, nominalRegister);
+                QubitRegister nominalRegister = new QubitRegister(nominalName, nominalSize, realRegister, offset);
+                qubitRegisters.put(nominalName, nominalRegister);
+            }
+            output.append(realRegister);
         }
 
-        return realRegister.toString();
+        Map<String, Object> result = new HashMap<>();
+        result.put("output", output.toString());
+        result.put("realRegNames", realRegNames);
+        return result;
     }
 
     @SuppressWarnings("unchecked")
@@ -156,66 +289,15 @@ public class Emulation implements Serializable, Cloneable {
         }
 
         if (involvedRealRegisters.size() > 1) {
-            System.out.println("Обнаружена необходимость объединения реальных регистров: " + involvedRealRegisters.stream().map(QubitRegister::getName).collect(Collectors.joining(", ")));
-
-            QubitRegister currentJoinedRegister = involvedRealRegisters.get(0);
-            List<String> oldRegNames = new ArrayList<>();
-            oldRegNames.add(currentJoinedRegister.getName());
-
-            for (int i = 1; i < involvedRealRegisters.size(); i++) {
-                QubitRegister nextRegisterToJoin = involvedRealRegisters.get(i);
-                oldRegNames.add(nextRegisterToJoin.getName());
-
-                int size1 = currentJoinedRegister.getRealSize();
-                int size2 = nextRegisterToJoin.getRealSize();
-                String joinedName = "join(" + currentJoinedRegister.getName() + "," + nextRegisterToJoin.getName() + ")";
-
-                QubitRegister joinedRealRegister = QubitRegister.tensorProduct(currentJoinedRegister, nextRegisterToJoin, joinedName);
-
-                System.out.println("Создан объединенный регистр: " + joinedName + " размера " + joinedRealRegister.getRealSize());
-
-                List<String> nominalNamesToUpdate = new ArrayList<>(this.qubitRegisters.keySet());
-                for (String nominalName : nominalNamesToUpdate) {
-                    QubitRegister nominalReg = this.qubitRegisters.get(nominalName);
-                    if (nominalReg.getRealRegister() == currentJoinedRegister) {
-                        int newOffset = size2 + nominalReg.getOffsetInRealRegister();
-                        QubitRegister updatedNominalReg = new QubitRegister(
-                                nominalReg.getName(),
-                                nominalReg.size(),
-                                joinedRealRegister,
-                                newOffset
-                        );
-                        this.qubitRegisters.put(nominalName, updatedNominalReg); // Заменяем старый
-                        System.out.println("Номинальный регистр " + nominalName + " перенаправлен на " + joinedName + " (offset " + newOffset + ")");
-                    } else if (nominalReg.getRealRegister() == nextRegisterToJoin) {
-                        int newOffset = nominalReg.getOffsetInRealRegister();
-                        QubitRegister updatedNominalReg = new QubitRegister(
-                                nominalReg.getName(),
-                                nominalReg.size(),
-                                joinedRealRegister,
-                                newOffset
-                        );
-                        this.qubitRegisters.put(nominalName, updatedNominalReg);
-                        System.out.println("Номинальный регистр " + nominalName + " перенаправлен на " + joinedName + " (new offset " + newOffset + ")");
-                    }
-                }
-
-                this.realRegisters.put(joinedName, joinedRealRegister);
-                this.realRegisters.remove(currentJoinedRegister.getName());
-                this.realRegisters.remove(nextRegisterToJoin.getName());
-                System.out.println("Обновлена карта реальных регистров.");
-
-                currentJoinedRegister = joinedRealRegister;
-
-                Map<String, Object> joinInfo = new HashMap<>();
-                joinInfo.put("joined", true);
-                joinInfo.put("newRealRegName", joinedName);
-                joinInfo.put("oldRealRegNames", new ArrayList<>(oldRegNames));
-                joinInfo.put("initialJoinedState", getRealRegisterState(currentJoinedRegister.getName()));
-
-                result.put("joinInfo", joinInfo);
+            Command reduced = reduceClassicalOperands(gateName, phase, operandsData);
+            if (reduced != null) {
+                return applyReduced(reduced, involvedRealRegisters, operandsData);
             }
-            baseRealRegister = currentJoinedRegister;
+            Set<String> touched = new HashSet<>();
+            for (Map<String, Object> operandData : operandsData) {
+                touched.add((String) operandData.get("register"));
+            }
+            baseRealRegister = joinOperandRegisters(involvedRealRegisters, touched, result);
         }
 
         int[] absoluteIndices = new int[operandsData.size()];
@@ -243,22 +325,55 @@ public class Emulation implements Serializable, Cloneable {
             return result;
         }
 
-        try {
-            Integer[] absoluteIndicesInteger = Arrays.stream(absoluteIndices).boxed().toArray(Integer[]::new);
-            Gate gate = GateResolver.resolveByName(gateName, baseRealRegister, absoluteIndicesInteger, phase);
-            if (gate == null) {
-                result.put("output", "Неизвестный гейт: " + gateName);
+        if (baseRealRegister.getBackend() != null) {
+            try {
+                int[] qubits = GateResolver.actsOnWholeRegister(gateName)
+                        ? IntStream.range(0, baseRealRegister.getRealSize()).toArray()
+                        : absoluteIndices;
+                Gate localGate = GateResolver.resolveLocal(gateName, qubits.length, phase);
+                if (localGate == null) {
+                    result.put("output", "Неизвестный гейт: " + gateName);
+                    return result;
+                }
+                applyOnBackend(baseRealRegister, localGate, qubits);
+                circuitLogs.get(baseRealRegister.getName()).addGate(gateName, phase, qubits);
+            } catch (Exception e) {
+                result.put("output", "Ошибка при применении гейта " + gateName + " к " + operandNominalNames
+                        + " (бэкенд " + baseRealRegister.getBackend().getType() + "): " + e.getMessage());
                 return result;
             }
-            lastGateTrace = gate.apply();
-            if (lastGateTrace == null) {
-                result.put("output", "Ошибка при применении гейта " + gateName);
-                return result;
+            result.put("output", baseRealRegister.toString());
+            return result;
+        }
+
+        try {
+            if (absoluteIndices.length == 1 && !GateResolver.actsOnWholeRegister(gateName)) {
+                // Однокубитный гейт откладывается в кадр кубита и не увеличивает носитель
+                Gate localGate = GateResolver.resolveLocal(gateName, 1, phase);
+                if (localGate == null) {
+                    result.put("output", "Неизвестный гейт: " + gateName);
+                    return result;
+                }
+                // Трасса для QGantt строится по запросу из отображаемого состояния до гейта, регистр для неё не сворачивается
+                lastGateTrace = GateTrace.of(GateResolver.resolveByName(gateName, baseRealRegister, new Integer[]{absoluteIndices[0]}, phase));
+                baseRealRegister.deferSingleQubitGate(absoluteIndices[0], localGate);
+            } else {
+                Integer[] absoluteIndicesInteger = Arrays.stream(absoluteIndices).boxed().toArray(Integer[]::new);
+                Gate gate = GateResolver.resolveByName(gateName, baseRealRegister, absoluteIndicesInteger, phase);
+                if (gate == null) {
+                    result.put("output", "Неизвестный гейт: " + gateName);
+                    return result;
+                }
+                lastGateTrace = gate.apply();
+                if (lastGateTrace == null) {
+                    result.put("output", "Ошибка при применении гейта " + gateName);
+                    return result;
+                }
+                truncate(baseRealRegister);
             }
-            System.out.println("State of " + baseRealRegister.getName() + " immediately after gate.apply():");
-            System.out.println(baseRealRegister);
-            Map<Integer, Complex> checkState = getRealRegisterState(baseRealRegister.getName());
-            System.out.println("State from getRealRegisterState: " + checkState);
+            circuitLogs.get(baseRealRegister.getName()).addGate(gateName, phase, GateResolver.actsOnWholeRegister(gateName)
+                    ? IntStream.range(0, baseRealRegister.getRealSize()).toArray()
+                    : absoluteIndices);
         } catch (Exception e) {
             result.put("output", "Ошибка при применении гейта " + gateName + " к " + operandNominalNames
                     + " (реальный регистр: " + (baseRealRegister != null ? baseRealRegister.getName() : "null") + ", абс. индексы: " + java.util.Arrays.toString(absoluteIndices) + "): "
@@ -272,6 +387,292 @@ public class Emulation implements Serializable, Cloneable {
         return result;
     }
 
+    // Отсечение амплитуд после гейта в приближённом режиме. Отсечение с перенормировкой доли p
+    // сдвигает состояние на расстояние sqrt(2 - 2 sqrt(1 - p)), гейты расстояния не меняют.
+    private void truncate(QubitRegister realRegister) {
+        if (approximation == null) {
+            return;
+        }
+        double discarded = realRegister.prune(approximation.getPruneThreshold(), approximation.getBeamWidth());
+        if (discarded > 0) {
+            discardedProbability += discarded;
+            truncationDistance += Math.sqrt(Math.max(0, 2 - 2 * Math.sqrt(1 - discarded)));
+        }
+    }
+
+    // Нижняя граница точности |<точное|приближённое>|^2 для унитарной части схемы:
+    // при расстоянии D вещественная часть скалярного произведения равна 1 - D^2 / 2
+    public double getFidelityBound() {
+        double overlap = 1 - truncationDistance * truncationDistance / 2;
+        return overlap <= 0 ? 0 : overlap * overlap;
+    }
+
+    // Итог приближённой эмуляции для вывода вместе с результатами; null в точном режиме
+    public String getApproximationReport() {
+        if (approximation == null) {
+            return null;
+        }
+        return String.format("Приближённая эмуляция (%s): отброшено %.3g вероятности, граница точности %.6f",
+                approximation, discardedProbability, getFidelityBound());
+    }
+
+    public boolean isErrorBudgetExceeded() {
+        return approximation != null && discardedProbability > approximation.getErrorBudget();
+    }
+
+    private boolean isStoppedByErrorBudget() {
+        return isErrorBudgetExceeded() && approximation.isStopOnBudgetExceeded();
+    }
+
+    private String budgetExceededMessage() {
+        return String.format("Бюджет ошибки %.3g исчерпан: отброшено %.3g вероятности, граница точности %.6f",
+                approximation.getErrorBudget(), discardedProbability, getFidelityBound());
+    }
+
+    // Предупреждение выдаётся один раз, при первом превышении бюджета
+    private String budgetWarning() {
+        if (!isErrorBudgetExceeded() || budgetWarningIssued) {
+            return null;
+        }
+        budgetWarningIssued = true;
+        return budgetExceededMessage() + (approximation.isStopOnBudgetExceeded() ? ", дальнейшие гейты не применяются" : "");
+    }
+
+    // Значение кубита, если во всех базисных состояниях носителя оно одинаково; иначе null.
+    // Для регистров с альтернативным бэкендом не определяется.
+    private Integer classicalValue(String nominalRegisterName, int nominalIndex) {
+        QubitRegister nominalRegister = qubitRegisters.get(nominalRegisterName);
+        QubitRegister realRegister = nominalRegister.getRealRegister();
+        if (realRegister.getBackend() != null) {
+            return null;
+        }
+        int realIndex = nominalRegister.getOffsetInRealRegister() + nominalIndex;
+        realRegister.foldOperatorFrames(new Integer[]{realIndex});
+        SupportSet states = realRegister.getStoredStates();
+        boolean hasZero = states.hasBit(realIndex, 0);
+        boolean hasOne = states.hasBit(realIndex, 1);
+        if (hasZero == hasOne) {
+            return null;
+        }
+        return (hasOne ? 1 : 0) ^ realRegister.pendingPauliX(realIndex);
+    }
+
+    // Гейт на кубитах разных реальных регистров упрощается без объединения:
+    // управляющий кубит с классическим значением 0 делает гейт тождественным, со значением 1 - убирается,
+    // а у управляемых фазовых гейтов (CZ, CP, CS, CT) так же можно убрать и целевой кубит, так как они симметричны.
+    // Возвращает упрощённую команду (gate == null - тождественный гейт) или null, если упростить нельзя.
+    private Command reduceClassicalOperands(String gateName, double phase, List<Map<String, Object>> operandsData) {
+        String name = gateName;
+        List<Map<String, Object>> operands = new ArrayList<>(operandsData);
+        boolean changed = false;
+        boolean identity = false;
+        boolean progress = true;
+        while (progress && !identity) {
+            progress = false;
+            int controls = CircuitAnalysis.countControls(name);
+            if (controls == 0 || controls >= operands.size()) {
+                break;
+            }
+            boolean diagonal = CircuitAnalysis.isDiagonalBaseGate(name.substring(controls));
+            int candidates = diagonal ? controls + 1 : controls;
+            for (int i = 0; i < candidates; i++) {
+                Integer value = classicalValue((String) operands.get(i).get("register"), (int) operands.get(i).get("index"));
+                if (value == null) {
+                    continue;
+                }
+                if (value == 0) {
+                    identity = true;
+                } else {
+                    // Для целевого кубита фазового гейта новым целевым становится последний управляющий
+                    operands.remove(i);
+                    name = name.substring(1);
+                }
+                changed = true;
+                progress = true;
+                break;
+            }
+        }
+        if (!changed) {
+            return null;
+        }
+        Map<String, Object> args = new HashMap<>();
+        args.put("gate", identity ? null : name);
+        args.put("phase", phase);
+        args.put("operands", operands);
+        return new Command(Command.CommandType.APPLY_GATE, args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> applyReduced(Command reduced, List<QubitRegister> involvedRealRegisters, List<Map<String, Object>> operandsData) {
+        String reducedGate = reduced.getArgumentAsString("gate");
+        List<Map<String, Object>> reducedOperands = (List<Map<String, Object>>) reduced.getArgument("operands");
+        long remainingRegisters = reducedGate == null ? 0 : reducedOperands.stream()
+                .map(operand -> qubitRegisters.get((String) operand.get("register")).getRealRegister())
+                .distinct()
+                .count();
+        avoidedJoinCount += involvedRealRegisters.size() - Math.max(remainingRegisters, 1);
+        if (reducedGate != null) {
+            Map<String, Object> result = processApplyGate(reduced);
+            result.putIfAbsent("targetRealRegName", qubitRegisters.get((String) reducedOperands.get(reducedOperands.size() - 1).get("register"))
+                    .getRealRegister().getName());
+            return result;
+        }
+        Map<String, Object> target = operandsData.get(operandsData.size() - 1);
+        QubitRegister targetRealRegister = qubitRegisters.get((String) target.get("register")).getRealRegister();
+        lastGateTrace = new GateTrace();
+        Map<String, Object> result = new HashMap<>();
+        result.put("joinInfo", null);
+        result.put("targetRealRegName", targetRealRegister.getName());
+        result.put("output", targetRealRegister.toString());
+        return result;
+    }
+
+    // Реальные регистры - множители общего состояния. Перед объединением из каждого выносятся номинальные регистры,
+    // которые гейт не затрагивает и которые не запутаны с остальной частью регистра: объединяются только части
+    // с операндами гейта. Вынесенные регистры и регистры, из которых они вынесены, записываются в joinInfo.
+    private QubitRegister joinOperandRegisters(List<QubitRegister> involvedRealRegisters, Set<String> touchedNominals,
+                                               Map<String, Object> result) {
+        List<Map<String, Object>> factoredParts = new ArrayList<>();
+        Map<String, String> originalNames = new HashMap<>();
+        List<QubitRegister> remaining = new ArrayList<>();
+        for (QubitRegister realRegister : involvedRealRegisters) {
+            List<String> parts = new ArrayList<>();
+            QubitRegister rest = factorOutNominals(realRegister, nominal -> !touchedNominals.contains(nominal.getName()), parts);
+            if (!parts.isEmpty()) {
+                factoredOutCount += parts.size();
+                originalNames.put(rest.getName(), realRegister.getName());
+                Map<String, Object> factored = new HashMap<>();
+                factored.put("oldRealRegName", realRegister.getName());
+                factored.put("newRealRegNames", parts);
+                factoredParts.add(factored);
+            }
+            remaining.add(rest);
+        }
+        QubitRegister joined = joinRealRegisters(remaining, result);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> joinInfo = (Map<String, Object>) result.get("joinInfo");
+        if (joinInfo != null && !factoredParts.isEmpty()) {
+            // Для истории QGantt объединённый регистр продолжает исходные регистры, а не их остатки
+            @SuppressWarnings("unchecked")
+            List<String> oldRealRegNames = (List<String>) joinInfo.get("oldRealRegNames");
+            oldRealRegNames.replaceAll(name -> originalNames.getOrDefault(name, name));
+            joinInfo.put("factoredParts", factoredParts);
+        }
+        return joined;
+    }
+
+    // Объединяет реальные регистры тензорным произведением и перенаправляет на результат номинальные регистры.
+    // В result записывается joinInfo для визуализации.
+    // Три и более регистров объединяются в порядке из плана (по возрастанию предсказанного носителя),
+    // а если такого объединения в плане нет - от меньшего текущего носителя к большему.
+    private QubitRegister joinRealRegisters(List<QubitRegister> involvedRealRegisters, Map<String, Object> result) {
+        int[] plannedOrder = null;
+        if (registerPlan != null) {
+            List<Set<String>> groups = new ArrayList<>();
+            for (QubitRegister realRegister : involvedRealRegisters) {
+                groups.add(nominalNamesOf(realRegister));
+            }
+            int planned = registerPlan.findJoin(nextPlannedJoin, groups);
+            if (planned >= 0) {
+                plannedOrder = registerPlan.getPlannedJoins().get(planned).orderOf(groups);
+                nextPlannedJoin = planned + 1;
+            }
+        }
+        if (involvedRealRegisters.size() > 2) {
+            List<QubitRegister> ordered = new ArrayList<>(involvedRealRegisters);
+            if (plannedOrder != null) {
+                for (int i = 0; i < plannedOrder.length; i++) {
+                    ordered.set(i, involvedRealRegisters.get(plannedOrder[i]));
+                }
+            } else {
+                ordered.sort(Comparator.comparingDouble(Emulation::supportOf));
+            }
+            involvedRealRegisters = ordered;
+        }
+
+        QubitRegister currentJoinedRegister = involvedRealRegisters.get(0);
+        List<String> oldRegNames = new ArrayList<>();
+        oldRegNames.add(currentJoinedRegister.getName());
+
+        for (int i = 1; i < involvedRealRegisters.size(); i++) {
+            QubitRegister nextRegisterToJoin = involvedRealRegisters.get(i);
+            oldRegNames.add(nextRegisterToJoin.getName());
+
+            int size1 = currentJoinedRegister.getRealSize();
+            int size2 = nextRegisterToJoin.getRealSize();
+            String joinedName = "join(" + currentJoinedRegister.getName() + "," + nextRegisterToJoin.getName() + ")";
+
+            QubitRegister joinedRealRegister = QubitRegister.tensorProduct(currentJoinedRegister, nextRegisterToJoin, joinedName);
+            joinCount++;
+
+
+            List<String> nominalNamesToUpdate = new ArrayList<>(this.qubitRegisters.keySet());
+            for (String nominalName : nominalNamesToUpdate) {
+                QubitRegister nominalReg = this.qubitRegisters.get(nominalName);
+                if (nominalReg.getRealRegister() == currentJoinedRegister) {
+                    int newOffset = size2 + nominalReg.getOffsetInRealRegister();
+                    QubitRegister updatedNominalReg = new QubitRegister(
+                            nominalReg.getName(),
+                            nominalReg.size(),
+                            joinedRealRegister,
+                            newOffset
+                    );
+                    this.qubitRegisters.put(nominalName, updatedNominalReg); // Заменяем старый
+                } else if (nominalReg.getRealRegister() == nextRegisterToJoin) {
+                    int newOffset = nominalReg.getOffsetInRealRegister();
+                    QubitRegister updatedNominalReg = new QubitRegister(
+                            nominalReg.getName(),
+                            nominalReg.size(),
+                            joinedRealRegister,
+                            newOffset
+                    );
+                    this.qubitRegisters.put(nominalName, updatedNominalReg);
+                }
+            }
+
+            this.realRegisters.put(joinedName, joinedRealRegister);
+            this.realRegisters.remove(currentJoinedRegister.getName());
+            this.realRegisters.remove(nextRegisterToJoin.getName());
+            this.circuitLogs.put(joinedName, CircuitLog.join(
+                    this.circuitLogs.remove(currentJoinedRegister.getName()),
+                    this.circuitLogs.remove(nextRegisterToJoin.getName())));
+
+            currentJoinedRegister = joinedRealRegister;
+
+            Map<String, Object> joinInfo = new HashMap<>();
+            joinInfo.put("joined", true);
+            joinInfo.put("newRealRegName", joinedName);
+            joinInfo.put("oldRealRegNames", new ArrayList<>(oldRegNames));
+            joinInfo.put("initialJoinedState", getRealRegisterState(currentJoinedRegister.getName()));
+
+            result.put("joinInfo", joinInfo);
+        }
+        return currentJoinedRegister;
+    }
+
+    private Set<String> nominalNamesOf(QubitRegister realRegister) {
+        Set<String> names = new HashSet<>();
+        for (QubitRegister nominal : qubitRegisters.values()) {
+            if (nominal.getRealRegister() == realRegister) {
+                names.add(nominal.getName());
+            }
+        }
+        return names;
+    }
+
+    // Число ненулевых амплитуд; для бэкендов - верхняя оценка 2^n
+    private static double supportOf(QubitRegister realRegister) {
+        return realRegister.getBackend() == null
+                ? realRegister.getStoredStates().cardinality()
+                : Math.pow(2, realRegister.getRealSize());
+    }
+
+    private void applyOnBackend(QubitRegister realRegister, Gate localGate, int[] qubits) {
+        realRegister.getBackend().apply(localGate, qubits);
+        // Переходы между базисными состояниями бэкенды не отслеживают
+        lastGateTrace = new GateTrace();
+    }
+
     @Override
     public Emulation clone() {
         try {
@@ -319,6 +720,7 @@ public class Emulation implements Serializable, Cloneable {
 
         try {
             Integer result = nominalRegister.measureQubit(nominalIndex);
+            circuitLogs.get(nominalRegister.getRealRegister().getName()).addMeasurement();
             return result.toString();
         } catch (IndexOutOfBoundsException e) {
             return "Ошибка измерения: " + e.getMessage();
@@ -327,6 +729,89 @@ public class Emulation implements Serializable, Cloneable {
         }
     }
 
+    // После измерения часть кубитов может оказаться незапутанной с остальными. Каждый номинальный регистр
+    // проверяется на разложимость состояния, и разложимые выносятся в отдельные реальные регистры,
+    // чтобы следующие гейты работали с носителем меньшего размера.
+    // Возвращает null, если разделить не удалось, иначе старое имя и имена новых реальных регистров.
+    public Map<String, Object> splitDisentangled(String realRegisterName) {
+        QubitRegister source = realRegisters.get(realRegisterName);
+        if (source == null || source.getBackend() != null) {
+            return null;
+        }
+        List<String> newRealRegNames = new ArrayList<>();
+        QubitRegister current = factorOutNominals(source, nominal -> true, newRealRegNames);
+        if (newRealRegNames.isEmpty()) {
+            return null;
+        }
+        newRealRegNames.add(current.getName());
+        Map<String, Object> splitInfo = new HashMap<>();
+        splitInfo.put("oldRealRegName", realRegisterName);
+        splitInfo.put("newRealRegNames", newRealRegNames);
+        return splitInfo;
+    }
+
+    // Выносит из реального регистра по одному разложимые номинальные регистры, отобранные candidate, пока это удаётся.
+    // Имена вынесенных регистров добавляются в parts; возвращает оставшуюся часть (сам регистр, если ничего не вынесено).
+    private QubitRegister factorOutNominals(QubitRegister realRegister, Predicate<QubitRegister> candidate, List<String> parts) {
+        if (realRegister.getBackend() != null) {
+            return realRegister;
+        }
+        QubitRegister current = realRegister;
+        boolean split = true;
+        while (split) {
+            split = false;
+            QubitRegister source = current;
+            List<QubitRegister> nominals = qubitRegisters.values().stream()
+                    .filter(nominal -> nominal.getRealRegister() == source && nominal.size() < source.getRealSize())
+                    .filter(candidate)
+                    .sorted(Comparator.comparingInt(QubitRegister::getOffsetInRealRegister))
+                    .toList();
+            for (QubitRegister nominal : nominals) {
+                String partName = "split(" + source.getName() + "," + nominal.getName() + ")";
+                String restName = "rest(" + source.getName() + "," + nominal.getName() + ")";
+                QubitRegister[] factors = QubitRegister.factorOut(source, nominal.getOffsetInRealRegister(), nominal.size(), partName, restName);
+                if (factors == null) {
+                    continue;
+                }
+                replaceBySplit(source, nominal, factors[0], factors[1]);
+                parts.add(partName);
+                current = factors[1];
+                split = true;
+                break;
+            }
+        }
+        return current;
+    }
+
+    private void replaceBySplit(QubitRegister source, QubitRegister extracted, QubitRegister part, QubitRegister rest) {
+        int offset = extracted.getOffsetInRealRegister();
+        for (QubitRegister nominal : new ArrayList<>(qubitRegisters.values())) {
+            if (nominal.getRealRegister() != source) {
+                continue;
+            }
+            QubitRegister remapped;
+            if (nominal == extracted) {
+                remapped = new QubitRegister(nominal.getName(), nominal.size(), part, 0);
+            } else {
+                int nominalOffset = nominal.getOffsetInRealRegister();
+                remapped = new QubitRegister(nominal.getName(), nominal.size(), rest,
+                        nominalOffset < offset ? nominalOffset : nominalOffset - extracted.size());
+            }
+            qubitRegisters.put(nominal.getName(), remapped);
+        }
+        realRegisters.remove(source.getName());
+        realRegisters.put(part.getName(), part);
+        realRegisters.put(rest.getName(), rest);
+        // Новые регистры начинают не с |0...0>, поэтому сумма по путям для них недоступна
+        circuitLogs.remove(source.getName());
+        CircuitLog partLog = new CircuitLog(part.getRealSize());
+        partLog.addMeasurement();
+        CircuitLog restLog = new CircuitLog(rest.getRealSize());
+        restLog.addMeasurement();
+        circuitLogs.put(part.getName(), partLog);
+        circuitLogs.put(rest.getName(), restLog);
+    }
+
     public Map<Integer, Complex> getRegisterState(String nominalRegisterName) {
         QubitRegister nominalRegister = qubitRegisters.get(nominalRegisterName);
         if (nominalRegister == null) {
@@ -342,10 +827,16 @@ public class Emulation implements Serializable, Cloneable {
             System.err.println("Предупреждение: Запрошено состояние для несуществующего реального регистра '" + realRegisterName + "'");
             return new HashMap<>();
         }
+        RegisterBackend backend = realRegister.getBackend();
+        if (backend != null) {
+            return backend.getStateSnapshot();
+        }
 
+        // Отложенные кадры сворачиваются в копии, чтобы запрос состояния не увеличивал носитель регистра
+        QubitRegister folded = realRegister.withFramesFolded();
         Map<Integer, Complex> registerState = new HashMap<>();
-        BitSet states = realRegister.getStates();
-        ChunkedComplexArray amplitudes = realRegister.getAmplitudes();
+        SupportSet states = folded.getStates();
+        ChunkedComplexArray amplitudes = folded.getAmplitudes();
         int realSize = realRegister.size();
 
         for (int i = states.nextSetBit(0); i >= 0; i = states.nextSetBit(i + 1)) {
@@ -371,71 +862,10 @@ public class Emulation implements Serializable, Cloneable {
             return "Предупреждение: Оракул с именем '" + oracleName + "' уже определен. Переопределение...";
         }
 
-        Set<Integer> statesWhereOutputIsOne = new HashSet<>();
-        int inputSize = -1;
-        int maxStateValue = -1;
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(csvPath))) {
-            String line;
-            boolean firstLine = true;
-
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                if (line.isEmpty() || line.startsWith("#")) {
-                    continue;
-                }
-
-                if (firstLine) {
-                    try {
-                        inputSize = Integer.parseInt(line);
-                        if (inputSize <= 0) {
-                            throw new IllegalArgumentException("Размер входа (inputSize) в первой строке CSV должен быть положительным целым числом.");
-                        }
-                        firstLine = false;
-                    } catch (NumberFormatException e) {
-                        throw new IllegalArgumentException("Первая непустая строка CSV файла '" + csvPath + "' должна содержать размер входа (inputSize) как целое число.", e);
-                    }
-                } else {
-                    if (inputSize == -1) {
-                        // Эта ошибка не должна возникать, если первая строка прочитана правильно
-                        throw new IllegalStateException("Размер входа (inputSize) не был определен перед чтением состояний.");
-                    }
-                    try {
-                        int stateDecimal = Integer.parseInt(line);
-                        if (stateDecimal < 0) {
-                            throw new IllegalArgumentException("Десятичное состояние '" + line + "' в CSV не может быть отрицательным.");
-                        }
-                        if (stateDecimal >= (1 << inputSize)) {
-                            throw new IllegalArgumentException("Десятичное состояние " + stateDecimal + " в CSV файле превышает максимальное значение для " + inputSize + " кубитов (" + ((1 << inputSize) - 1) + ").");
-                        }
-
-                        if (!statesWhereOutputIsOne.add(stateDecimal)) {
-                            System.err.println("Предупреждение: Дублирующееся десятичное состояние " + stateDecimal + " в CSV файле '" + csvPath + "' для оракула '" + oracleName + "'.");
-                        }
-                        maxStateValue = Math.max(maxStateValue, stateDecimal);
-                    } catch (NumberFormatException e) {
-                        throw new IllegalArgumentException("Неверный формат десятичного состояния '" + line + "' в CSV файле '" + csvPath + "'. Ожидается целое число.", e);
-                    }
-                }
-            }
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException("Ошибка: Файл CSV для оракула '" + oracleName + "' не найден: " + csvPath, e);
-        } catch (IOException e) {
-            throw new RuntimeException("Ошибка чтения CSV файла для оракула '" + oracleName + "': " + csvPath, e);
-        }
-
-        if (inputSize == -1) {
-            throw new IllegalArgumentException("CSV файл '" + csvPath + "' не содержит определения размера входа (inputSize) в первой строке.");
-        }
-
-        if (maxStateValue != -1 && maxStateValue >= (1 << inputSize)) {
-            throw new IllegalStateException("Внутренняя ошибка: максимальное состояние не соответствует inputSize.");
-        }
-
-        OracleDefinition definition = new OracleDefinition(oracleName, statesWhereOutputIsOne);
+        OracleDefinition definition = OracleDefinition.fromCsv(oracleName, csvPath);
         definedOracles.put(oracleName, definition);
 
-        return "Оракул '" + oracleName + "' успешно определен из файла " + csvPath + " (" + inputSize + " входов, " + statesWhereOutputIsOne.size() + " состояний с выходом 1).";
+        return "Оракул '" + oracleName + "' успешно определен из файла " + csvPath + " (" + definition.getInputSize() + " входов, " + definition.getStatesWhereOutputIsOne().size() + " состояний с выходом 1).";
     }
 
     private Map<String, Object> processApplyOracle(Command command) {
@@ -445,7 +875,7 @@ public class Emulation implements Serializable, Cloneable {
         int ancillaIndex = command.getArgumentAsInt("ancillaIndex");
 
         Map<String, Object> result = new HashMap<>();
-        result.put("joinInfo", null); // TODO: Объединение не поддерживается для оракулов
+        result.put("joinInfo", null);
 
         OracleDefinition oracleDefinition = definedOracles.get(oracleName);
         if (oracleDefinition == null) {
@@ -476,10 +906,12 @@ public class Emulation implements Serializable, Cloneable {
         }
         involvedNominalRegisters.add(ancillaNominalReg);
 
+        // Вход и ancilla могли оказаться в разных реальных регистрах, например после разделения при измерении
         if (ancillaNominalReg.getRealRegister() != baseRealRegister) {
-            result.put("output", "Ошибка: Регистр ancilla '" + ancillaRegName
-                    + "' находится в другом реальном регистре, чем входной регистр '" + inputRegName + "'. Объединение не поддерживается.");
-            return result;
+            baseRealRegister = joinOperandRegisters(List.of(baseRealRegister, ancillaNominalReg.getRealRegister()),
+                    Set.of(inputRegName, ancillaRegName), result);
+            inputNominalReg = qubitRegisters.get(inputRegName);
+            ancillaNominalReg = qubitRegisters.get(ancillaRegName);
         }
 
         int realSize = baseRealRegister.getRealSize();
@@ -495,6 +927,19 @@ public class Emulation implements Serializable, Cloneable {
         }
 
         try {
+            if (baseRealRegister.getBackend() != null) {
+                int[] qubits = new int[inputNominalSize + 1];
+                for (int i = 0; i < inputNominalSize; i++) {
+                    qubits[i] = inputOffset + i;
+                }
+                qubits[inputNominalSize] = ancillaAbsIndex;
+                Gate localOracle = GateResolver.resolveLocalOracle(oracleName, inputNominalSize, oracleDefinition.getStatesWhereOutputIsOne());
+                applyOnBackend(baseRealRegister, localOracle, qubits);
+                circuitLogs.get(baseRealRegister.getName()).addOracle(oracleName, qubits, oracleDefinition.getStatesWhereOutputIsOne());
+                result.put("output", "Оракул '" + oracleName + "' применен.");
+                return result;
+            }
+
             OracleGate oracleGate = new OracleGate(
                     oracleName,
                     baseRealRegister,
@@ -505,6 +950,13 @@ public class Emulation implements Serializable, Cloneable {
             );
 
             this.lastGateTrace = oracleGate.apply();
+            truncate(baseRealRegister);
+            int[] oracleQubits = new int[inputNominalSize + 1];
+            for (int i = 0; i < inputNominalSize; i++) {
+                oracleQubits[i] = inputOffset + i;
+            }
+            oracleQubits[inputNominalSize] = ancillaAbsIndex;
+            circuitLogs.get(baseRealRegister.getName()).addOracle(oracleName, oracleQubits, oracleDefinition.getStatesWhereOutputIsOne());
 
         } catch (Exception e) {
             result.put("output", "Ошибка при применении оракула '" + oracleName + "': " + e.getMessage());
@@ -514,4 +966,107 @@ public class Emulation implements Serializable, Cloneable {
         result.put("output", "Оракул '" + oracleName + "' применен.");
         return result;
     }
+
+    // Амплитуда <bits|C|0> реального регистра суммой по путям, без обращения к его состоянию
+    public Complex amplitude(String realRegisterName, long bits) {
+        CircuitLog log = circuitLogs.get(realRegisterName);
+        if (log == null) {
+            throw new IllegalArgumentException("Реальный регистр '" + realRegisterName + "' не найден.");
+        }
+        return new PathSumEvaluator(log).amplitude(bits);
+    }
+
+    // Амплитуда по значениям номинальных регистров (строки битов, старший бит первым).
+    // Значения должны покрывать все кубиты одного реального регистра.
+    public Complex amplitude(Map<String, String> nominalValues) {
+        return amplitude(realRegisterOf(nominalValues), basisStateOf(nominalValues));
+    }
+
+    // Амплитуда гибридом Шрёдингера–Фейнмана: кубиты номинальных регистров partition образуют первую половину
+    public Complex amplitude(Map<String, String> nominalValues, Collection<String> partition) {
+        return hybridSimulator(realRegisterOf(nominalValues), partition).amplitude(basisStateOf(nominalValues));
+    }
+
+    private SchrodingerFeynmanSimulator hybridSimulator(String realRegisterName, Collection<String> partition) {
+        long maskA = 0;
+        for (String nominalName : partition) {
+            QubitRegister nominalRegister = qubitRegisters.get(nominalName);
+            if (nominalRegister == null) {
+                throw new IllegalArgumentException("Номинальный регистр '" + nominalName + "' не найден.");
+            }
+            if (!nominalRegister.getRealRegister().getName().equals(realRegisterName)) {
+                throw new IllegalArgumentException("Регистр разбиения '" + nominalName + "' не входит в реальный регистр " + realRegisterName + ".");
+            }
+            for (int i = 0; i < nominalRegister.size(); i++) {
+                maskA |= 1L << (nominalRegister.getOffsetInRealRegister() + i);
+            }
+        }
+        return new SchrodingerFeynmanSimulator(circuitLogs.get(realRegisterName), maskA);
+    }
+
+    private String realRegisterOf(Map<String, String> nominalValues) {
+        QubitRegister realRegister = null;
+        for (String nominalName : nominalValues.keySet()) {
+            QubitRegister nominalRegister = qubitRegisters.get(nominalName);
+            if (nominalRegister == null) {
+                throw new IllegalArgumentException("Номинальный регистр '" + nominalName + "' не найден.");
+            }
+            if (realRegister != null && nominalRegister.getRealRegister() != realRegister) {
+                throw new IllegalArgumentException("Регистры запроса амплитуды должны находиться в одном реальном регистре.");
+            }
+            realRegister = nominalRegister.getRealRegister();
+        }
+        if (realRegister == null) {
+            throw new IllegalArgumentException("Не указаны регистры для запроса амплитуды.");
+        }
+        for (QubitRegister nominalRegister : qubitRegisters.values()) {
+            if (nominalRegister.getRealRegister() == realRegister && !nominalValues.containsKey(nominalRegister.getName())) {
+                throw new IllegalArgumentException("Не задано значение регистра '" + nominalRegister.getName()
+                        + "', входящего в реальный регистр " + realRegister.getName() + ".");
+            }
+        }
+        return realRegister.getName();
+    }
+
+    private long basisStateOf(Map<String, String> nominalValues) {
+        long bits = 0;
+        for (Map.Entry<String, String> entry : nominalValues.entrySet()) {
+            QubitRegister nominalRegister = qubitRegisters.get(entry.getKey());
+            String value = entry.getValue();
+            if (value.length() != nominalRegister.size() || !value.matches("[01]+")) {
+                throw new IllegalArgumentException("Значение регистра '" + entry.getKey() + "' должно состоять из "
+                        + nominalRegister.size() + " битов, получено '" + value + "'.");
+            }
+            for (int i = 0; i < value.length(); i++) {
+                if (value.charAt(value.length() - 1 - i) == '1') {
+                    bits |= 1L << (nominalRegister.getOffsetInRealRegister() + i);
+                }
+            }
+        }
+        return bits;
+    }
+
+    @SuppressWarnings("unchecked")
+    private String processAmplitude(Command command) {
+        Map<String, String> nominalValues = (Map<String, String>) command.getArgument("values");
+        try {
+            String realRegisterName = realRegisterOf(nominalValues);
+            String query = nominalValues.entrySet().stream()
+                    .map(entry -> entry.getKey() + "=" + entry.getValue())
+                    .collect(Collectors.joining(", "));
+            List<String> partition = (List<String>) command.getArgument("split");
+            if (partition != null) {
+                SchrodingerFeynmanSimulator simulator = hybridSimulator(realRegisterName, partition);
+                Complex amplitude = simulator.amplitude(basisStateOf(nominalValues));
+                return "Амплитуда |" + query + "> = " + amplitude
+                        + String.format(", вероятность %.6g (%s)", amplitude.modulusSquared(), simulator.describe());
+            }
+            PathSumEvaluator evaluator = new PathSumEvaluator(circuitLogs.get(realRegisterName));
+            Complex amplitude = evaluator.amplitude(basisStateOf(nominalValues));
+            return "Амплитуда |" + query + "> = " + amplitude
+                    + String.format(", вероятность %.6g (ветвящихся гейтов: %d)", amplitude.modulusSquared(), evaluator.getBranchingGateCount());
+        } catch (IllegalArgumentException e) {
+            return "Ошибка вычисления амплитуды: " + e.getMessage();
+        }
+    }
 }
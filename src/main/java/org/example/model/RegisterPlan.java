@@ -0,0 +1,100 @@
+package org.example.model;
+
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Результат анализа графа взаимодействий до выполнения: какие номинальные регистры одной строки CR
+// можно разместить в разных реальных регистрах и какие объединения ожидаются по ходу скрипта
+@Getter
+public class RegisterPlan implements Serializable {
+    // Ожидаемое объединение: регистры в порядке объединения, размер носителя после каждого шага
+    // и номинальные регистры каждого из объединяемых реальных регистров (в том же порядке)
+    public record PlannedJoin(int commandIndex, List<String> realRegisters, double[] predictedSupports,
+                              List<Set<String>> nominalGroups) implements Serializable {
+        // Порядок объединения для реальных регистров с номинальными регистрами groups:
+        // order[i] - номер в groups регистра, объединяемого i-м; null, если это другое объединение
+        public int[] orderOf(List<Set<String>> groups) {
+            if (groups.size() != nominalGroups.size()) {
+                return null;
+            }
+            int[] order = new int[groups.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = groups.indexOf(nominalGroups.get(i));
+                if (order[i] < 0) {
+                    return null;
+                }
+            }
+            return order;
+        }
+    }
+
+    // Номер компоненты связности графа взаимодействий для каждого номинального регистра
+    private final Map<String, Integer> componentOfNominal;
+    private final List<PlannedJoin> plannedJoins;
+    private final int splitCreateCount;
+
+    public RegisterPlan(Map<String, Integer> componentOfNominal, List<PlannedJoin> plannedJoins, int splitCreateCount) {
+        this.componentOfNominal = componentOfNominal;
+        this.plannedJoins = plannedJoins;
+        this.splitCreateCount = splitCreateCount;
+    }
+
+    // Разбиение номинальных регистров одной строки CR на группы, которые взаимодействуют между собой.
+    // Порядок регистров внутри групп и порядок групп сохраняют порядок строки.
+    public List<List<String>> groupsOf(List<String> nominalNames) {
+        Map<Integer, List<String>> groups = new HashMap<>();
+        List<List<String>> ordered = new ArrayList<>();
+        for (String name : nominalNames) {
+            Integer component = componentOfNominal.get(name);
+            if (component == null) {
+                // Регистр вне анализа: строка CR создаётся целиком
+                return List.of(nominalNames);
+            }
+            List<String> group = groups.get(component);
+            if (group == null) {
+                group = new ArrayList<>();
+                groups.put(component, group);
+                ordered.add(group);
+            }
+            group.add(name);
+        }
+        return ordered;
+    }
+
+    // Первое объединение плана, начиная с from, для реальных регистров с номинальными регистрами groups; -1, если нет.
+    // Объединения, которых нет в плане (например, после разделения регистров измерением), не совпадут ни с одним.
+    public int findJoin(int from, List<Set<String>> groups) {
+        for (int i = Math.max(from, 0); i < plannedJoins.size(); i++) {
+            if (plannedJoins.get(i).orderOf(groups) != null) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean isTrivial() {
+        return splitCreateCount == 0 && plannedJoins.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("План регистров: разделено строк CR ").append(splitCreateCount)
+                .append(", ожидаемых объединений ").append(plannedJoins.size()).append("\n");
+        for (PlannedJoin join : plannedJoins) {
+            sb.append("  команда #").append(join.commandIndex() + 1).append(": ")
+                    .append(String.join(" + ", join.realRegisters())).append(", носитель");
+            for (double support : join.predictedSupports()) {
+                sb.append(String.format(" ~%.3g", support));
+            }
+            sb.append("\n");
+        }
+        return sb.toString();
+    }
+}
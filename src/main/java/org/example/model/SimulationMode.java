@@ -0,0 +1,11 @@
+package org.example.model;
+
+// Способ выбора бэкенда для регистров без явного AS
+public enum SimulationMode {
+    // Вектор состояний, либо таблица стабилизаторов для скриптов из одних гейтов Клиффорда
+    STANDARD,
+    // Сумма стабилизаторных состояний: стоимость экспоненциальна только по числу T-гейтов
+    EXTENDED_STABILIZER,
+    // Тензорная сеть: гейты не применяются к вектору, измерения вычисляются свёрткой
+    TENSOR_NETWORK
+}
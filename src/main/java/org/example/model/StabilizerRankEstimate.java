@@ -0,0 +1,52 @@
+package org.example.model;
+
+import lombok.Getter;
+
+// Оценка стоимости расширенного стабилизаторного режима, полученная до выполнения скрипта
+@Getter
+public class StabilizerRankEstimate {
+    private final int qubits;
+    private final int tCount;
+    private final int otherNonCliffordCount;
+    private final int cliffordCount;
+    private final int measurementCount;
+    // Ранг разложения не превосходит 2^rankExponent
+    private final int rankExponent;
+    private final double estimatedOperations;
+    private final double estimatedMemoryBytes;
+    // Причина, по которой режим неприменим, или null
+    private final String unsupportedReason;
+
+    public StabilizerRankEstimate(int qubits, int tCount, int otherNonCliffordCount, int cliffordCount,
+                                  int measurementCount, int rankExponent, double estimatedOperations,
+                                  double estimatedMemoryBytes, String unsupportedReason) {
+        this.qubits = qubits;
+        this.tCount = tCount;
+        this.otherNonCliffordCount = otherNonCliffordCount;
+        this.cliffordCount = cliffordCount;
+        this.measurementCount = measurementCount;
+        this.rankExponent = rankExponent;
+        this.estimatedOperations = estimatedOperations;
+        this.estimatedMemoryBytes = estimatedMemoryBytes;
+        this.unsupportedReason = unsupportedReason;
+    }
+
+    public boolean isSupported() {
+        return unsupportedReason == null;
+    }
+
+    @Override
+    public String toString() {
+        if (!isSupported()) {
+            return "Расширенный стабилизаторный режим недоступен: " + unsupportedReason + ". Используется вектор состояний\n";
+        }
+        return "Расширенный стабилизаторный режим: кубитов " + qubits
+                + ", T-count " + tCount
+                + ", других неклиффордовых гейтов " + otherNonCliffordCount
+                + ", гейтов Клиффорда " + cliffordCount
+                + ", измерений " + measurementCount + "\n"
+                + "Ранг разложения: не более 2^" + rankExponent + "\n"
+                + String.format("Оценка стоимости: ~%.3g операций, ~%.3g КБ памяти%n",
+                estimatedOperations, estimatedMemoryBytes / 1024);
+    }
+}
@@ -0,0 +1,263 @@
+package org.example.model.circuit;
+
+import org.example.model.gate.GateResolver;
+import org.example.model.qubit.SupportSet;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Двоичный файл скомпилированной схемы. Загрузка отображает файл в память и читает поля по порядку,
+// без разбора текста. Порядок байт - big-endian, строки - длина int и байты UTF-8.
+//   заголовок:   MAGIC, VERSION (short), ширина, число измерений
+//   регистры:    число; имя, смещение, размер, смещение строки CR, размер строки CR
+//   оракулы:     число; имя, путь к CSV, число отмеченных входов, входы по возрастанию
+//   имена:       число; имена гейтов и оракулов, на которые ссылаются инструкции
+//   инструкции:  число; записи по INSTRUCTION_BYTES байт: код операции (byte), номер имени (-1 - нет),
+//                фаза (double), маска управляющих кубитов, target, operand, width, slot
+// Матрицы однокубитных гейтов и таблицы оракулов не хранятся, а восстанавливаются по именам один раз на файл.
+public final class CircuitFile {
+    public static final int MAGIC = 0x51434952;
+    public static final short VERSION = 1;
+    private static final int INSTRUCTION_BYTES = 1 + 4 + 8 + 4 * 5;
+
+    private CircuitFile() {
+    }
+
+    public static void write(CompiledCircuit circuit, Path path) throws IOException {
+        Map<String, Integer> names = new LinkedHashMap<>();
+        for (CompiledCircuit.Instruction instruction : circuit.getInstructions()) {
+            if (instruction.name() != null) {
+                names.putIfAbsent(instruction.name(), names.size());
+            }
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(circuit.getWidth());
+            out.writeInt(circuit.getMeasurementCount());
+
+            out.writeInt(circuit.getRegisters().size());
+            for (CompiledCircuit.Register register : circuit.getRegisters()) {
+                writeString(out, register.name());
+                out.writeInt(register.offset());
+                out.writeInt(register.size());
+                out.writeInt(register.rowOffset());
+                out.writeInt(register.rowSize());
+            }
+
+            out.writeInt(circuit.getOracles().size());
+            for (CompiledCircuit.OracleSource oracle : circuit.getOracles()) {
+                writeString(out, oracle.name());
+                writeString(out, oracle.csvPath());
+                out.writeInt(oracle.marked().length);
+                for (int state : oracle.marked()) {
+                    out.writeInt(state);
+                }
+            }
+
+            out.writeInt(names.size());
+            for (String name : names.keySet()) {
+                writeString(out, name);
+            }
+
+            out.writeInt(circuit.getInstructions().size());
+            for (CompiledCircuit.Instruction instruction : circuit.getInstructions()) {
+                out.writeByte(instruction.opcode().ordinal());
+                out.writeInt(instruction.name() == null ? -1 : names.get(instruction.name()));
+                out.writeDouble(instruction.phase());
+                out.writeInt(instruction.controlMask());
+                out.writeInt(instruction.target());
+                out.writeInt(instruction.operand());
+                out.writeInt(instruction.width());
+                out.writeInt(instruction.slot());
+            }
+        }
+    }
+
+    public static CompiledCircuit read(Path path) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            return read(buffer);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Файл схемы " + path + " обрезан.", e);
+        }
+    }
+
+    // Все счётчики, номера имён и кубитов проверяются до использования: повреждённый файл даёт
+    // IllegalArgumentException, а не исключение индексации при чтении или при выполнении схемы
+    private static CompiledCircuit read(ByteBuffer buffer) {
+        if (buffer.remaining() < 6 || buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Файл не является скомпилированной схемой.");
+        }
+        short version = buffer.getShort();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Неподдерживаемая версия файла схемы: " + version + " (ожидается " + VERSION + ").");
+        }
+        int width = buffer.getInt();
+        if (width < 1 || width > CompiledCircuit.MAX_QUBITS) {
+            throw corrupt("ширина схемы " + width + " вне 1.." + CompiledCircuit.MAX_QUBITS);
+        }
+        int measurementCount = buffer.getInt();
+
+        int registerCount = readCount(buffer, 4 * 5, "число регистров");
+        List<CompiledCircuit.Register> registers = new ArrayList<>(registerCount);
+        int covered = 0;
+        for (int i = 0; i < registerCount; i++) {
+            CompiledCircuit.Register register = new CompiledCircuit.Register(readString(buffer), buffer.getInt(),
+                    buffer.getInt(), buffer.getInt(), buffer.getInt());
+            if (!fits(register.rowOffset(), register.rowSize(), width)
+                    || !fits(register.offset() - register.rowOffset(), register.size(), register.rowSize())) {
+                throw corrupt("регистр " + register.name() + " выходит за границы схемы");
+            }
+            int mask = (int) ((1L << register.size()) - 1) << register.offset();
+            if ((covered & mask) != 0) {
+                throw corrupt("регистр " + register.name() + " пересекается с другим регистром");
+            }
+            covered |= mask;
+            registers.add(register);
+        }
+        int allQubits = (int) ((1L << width) - 1);
+        if (covered != allQubits) {
+            throw corrupt("регистры не покрывают все " + width + " кубитов схемы");
+        }
+
+        int oracleCount = readCount(buffer, 4 * 3, "число оракулов");
+        List<CompiledCircuit.OracleSource> oracles = new ArrayList<>(oracleCount);
+        Map<String, int[]> markedByName = new HashMap<>();
+        for (int i = 0; i < oracleCount; i++) {
+            String name = readString(buffer);
+            String csvPath = readString(buffer);
+            int[] marked = new int[readCount(buffer, 4, "число отмеченных входов оракула " + name)];
+            buffer.asIntBuffer().get(marked);
+            buffer.position(buffer.position() + 4 * marked.length);
+            for (int j = 0; j < marked.length; j++) {
+                if (marked[j] < 0 || j > 0 && marked[j] <= marked[j - 1]) {
+                    throw corrupt("входы оракула " + name + " не упорядочены по возрастанию");
+                }
+            }
+            oracles.add(new CompiledCircuit.OracleSource(name, csvPath, marked));
+            markedByName.put(name, marked);
+        }
+
+        String[] names = new String[readCount(buffer, 4, "число имён")];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = readString(buffer);
+        }
+
+        int instructionCount = readCount(buffer, INSTRUCTION_BYTES, "число инструкций");
+        if (measurementCount < 0 || measurementCount > instructionCount) {
+            throw corrupt("число измерений " + measurementCount);
+        }
+        CompiledCircuit.Opcode[] opcodes = CompiledCircuit.Opcode.values();
+        // Матрицы по имени и битам фазы, таблицы по имени оракула и ширине входа
+        Map<String, Map<Long, double[]>> matrices = new HashMap<>();
+        Map<String, Map<Integer, SupportSet>> tables = new HashMap<>();
+        List<CompiledCircuit.Instruction> instructions = new ArrayList<>(instructionCount);
+        for (int i = 0; i < instructionCount; i++) {
+            int code = buffer.get();
+            if (code < 0 || code >= opcodes.length) {
+                throw new IllegalArgumentException("Неизвестный код операции " + code + " в инструкции " + i + ".");
+            }
+            CompiledCircuit.Opcode opcode = opcodes[code];
+            int nameIndex = buffer.getInt();
+            if (nameIndex < -1 || nameIndex >= names.length) {
+                throw corrupt("номер имени " + nameIndex + " в инструкции " + i);
+            }
+            String name = nameIndex < 0 ? null : names[nameIndex];
+            double phase = buffer.getDouble();
+            int controlMask = buffer.getInt();
+            int target = buffer.getInt();
+            int operand = buffer.getInt();
+            int instructionWidth = buffer.getInt();
+            int slot = buffer.getInt();
+            if ((controlMask & ~allQubits) != 0 || !validOperands(opcode, controlMask, target, operand, instructionWidth,
+                    slot, width, measurementCount)) {
+                throw corrupt("кубиты инструкции " + i + " (" + opcode + ") вне схемы");
+            }
+            if (name == null && opcode != CompiledCircuit.Opcode.MEASURE) {
+                throw corrupt("у инструкции " + i + " (" + opcode + ") нет имени");
+            }
+            double[] matrix = null;
+            SupportSet table = null;
+            if (opcode == CompiledCircuit.Opcode.UNITARY) {
+                matrix = matrices.computeIfAbsent(name, key -> new HashMap<>())
+                        .computeIfAbsent(Double.doubleToLongBits(phase), key -> GateResolver.singleQubitMatrix(name, phase));
+                if (matrix == null) {
+                    throw new IllegalArgumentException("Неизвестный гейт " + name + " в инструкции " + i + ".");
+                }
+            } else if (opcode == CompiledCircuit.Opcode.ORACLE) {
+                int[] marked = markedByName.get(name);
+                if (marked == null) {
+                    throw new IllegalArgumentException("Оракул " + name + " не описан в файле схемы.");
+                }
+                table = tables.computeIfAbsent(name, key -> new HashMap<>())
+                        .computeIfAbsent(instructionWidth, key -> CompiledCircuit.tableOf(marked, key));
+            }
+            instructions.add(new CompiledCircuit.Instruction(opcode, name, phase, controlMask, target, operand,
+                    instructionWidth, matrix, table, slot));
+        }
+        return new CompiledCircuit(instructions, registers, oracles, width, measurementCount);
+    }
+
+    // Кубиты инструкции лежат в схеме и не совпадают с управляющими
+    private static boolean validOperands(CompiledCircuit.Opcode opcode, int controlMask, int target, int operand,
+                                         int instructionWidth, int slot, int width, int measurementCount) {
+        boolean targetValid = target >= 0 && target < width && (controlMask & 1 << target) == 0;
+        return switch (opcode) {
+            case UNITARY -> targetValid;
+            case SWAP -> targetValid && operand >= 0 && operand < width && operand != target
+                    && (controlMask & 1 << operand) == 0;
+            case ADD -> fits(target, instructionWidth, width) && (operand == 1 || operand == -1)
+                    && (~controlMask & (int) ((1L << instructionWidth) - 1) << target) != 0;
+            case ORACLE -> targetValid && fits(operand, instructionWidth, width)
+                    && (target < operand || target >= operand + instructionWidth);
+            case MEASURE -> targetValid && controlMask == 0 && slot >= 0 && slot < measurementCount;
+        };
+    }
+
+    // Непустой отрезок [offset, offset + size) внутри [0, limit)
+    private static boolean fits(int offset, int size, int limit) {
+        return offset >= 0 && size >= 1 && size <= limit - offset;
+    }
+
+    // Число записей, каждая не короче minBytes: счётчик больше остатка файла означает повреждение
+    private static int readCount(ByteBuffer buffer, int minBytes, String what) {
+        int count = buffer.getInt();
+        if (count < 0 || (long) count * minBytes > buffer.remaining()) {
+            throw corrupt(what + " " + count);
+        }
+        return count;
+    }
+
+    private static IllegalArgumentException corrupt(String what) {
+        return new IllegalArgumentException("Файл схемы повреждён: " + what + ".");
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[readCount(buffer, 1, "длина строки")];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
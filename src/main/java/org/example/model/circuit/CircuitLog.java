@@ -0,0 +1,65 @@
+package org.example.model.circuit;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+// Последовательность гейтов, применённых к реальному регистру, в абсолютных индексах кубитов.
+// Хранятся только имена и параметры гейтов, без состояния, поэтому журнал занимает O(число гейтов).
+public class CircuitLog implements Serializable {
+    // markedStates задан только для оракулов: вход - qubits[0..k-2], ancilla - последний кубит
+    public record Operation(String gateName, double phase, int[] qubits, Set<Integer> markedStates) implements Serializable {
+        public boolean isOracle() {
+            return markedStates != null;
+        }
+    }
+
+    private final int numQubits;
+    private final List<Operation> operations = new ArrayList<>();
+    private int measurementCount;
+
+    public CircuitLog(int numQubits) {
+        this.numQubits = numQubits;
+    }
+
+    public int size() {
+        return numQubits;
+    }
+
+    public List<Operation> getOperations() {
+        return Collections.unmodifiableList(operations);
+    }
+
+    public int getMeasurementCount() {
+        return measurementCount;
+    }
+
+    public void addGate(String gateName, double phase, int[] qubits) {
+        operations.add(new Operation(gateName, phase, qubits.clone(), null));
+    }
+
+    public void addOracle(String oracleName, int[] qubits, Set<Integer> markedStates) {
+        operations.add(new Operation(oracleName, 0, qubits.clone(), markedStates));
+    }
+
+    public void addMeasurement() {
+        measurementCount++;
+    }
+
+    // Журнал объединённого регистра: кубиты low идут первыми, кубиты high сдвигаются на low.size()
+    public static CircuitLog join(CircuitLog high, CircuitLog low) {
+        CircuitLog joined = new CircuitLog(high.numQubits + low.numQubits);
+        joined.operations.addAll(low.operations);
+        for (Operation operation : high.operations) {
+            int[] shifted = operation.qubits().clone();
+            for (int i = 0; i < shifted.length; i++) {
+                shifted[i] += low.numQubits;
+            }
+            joined.operations.add(new Operation(operation.gateName(), operation.phase(), shifted, operation.markedStates()));
+        }
+        joined.measurementCount = high.measurementCount + low.measurementCount;
+        return joined;
+    }
+}
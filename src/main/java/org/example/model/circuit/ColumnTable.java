@@ -0,0 +1,87 @@
+package org.example.model.circuit;
+
+import javafx.util.Pair;
+import org.example.model.gate.Gate;
+import org.example.model.qubit.Complex;
+
+import java.util.Arrays;
+
+// Столбцы матрицы локального оператора: для входа col - выходы rows[col] с коэффициентами re/im.
+// Нулевые коэффициенты отброшены, поэтому перестановочные и диагональные гейты дают по одному выходу.
+final class ColumnTable {
+    private static final double TOLERANCE = 1e-15;
+
+    final int[][] rows;
+    final double[][] re;
+    final double[][] im;
+    final boolean branching;
+
+    private ColumnTable(int[][] rows, double[][] re, double[][] im) {
+        this.rows = rows;
+        this.re = re;
+        this.im = im;
+        boolean branches = false;
+        for (int[] column : rows) {
+            branches |= column.length > 1;
+        }
+        this.branching = branches;
+    }
+
+    int dimension() {
+        return rows.length;
+    }
+
+    static ColumnTable of(Gate localGate, int arity) {
+        int dim = 1 << arity;
+        int[][] rows = new int[dim][];
+        double[][] re = new double[dim][];
+        double[][] im = new double[dim][];
+        for (int col = 0; col < dim; col++) {
+            Pair<Integer, Complex>[] tos = localGate.getTosAndItsCoefs(col);
+            int[] columnRows = new int[tos.length];
+            double[] columnRe = new double[tos.length];
+            double[] columnIm = new double[tos.length];
+            int count = 0;
+            for (Pair<Integer, Complex> to : tos) {
+                if (to.getValue().modulusSquared() > TOLERANCE * TOLERANCE) {
+                    columnRows[count] = to.getKey();
+                    columnRe[count] = to.getValue().getReal();
+                    columnIm[count] = to.getValue().getImaginary();
+                    count++;
+                }
+            }
+            rows[col] = Arrays.copyOf(columnRows, count);
+            re[col] = Arrays.copyOf(columnRe, count);
+            im[col] = Arrays.copyOf(columnIm, count);
+        }
+        return new ColumnTable(rows, re, im);
+    }
+
+    // Плотная матрица dim x dim, элемент (row, col) лежит по индексу row * dim + col
+    static ColumnTable ofDense(int dim, double[] denseRe, double[] denseIm) {
+        int[][] rows = new int[dim][];
+        double[][] re = new double[dim][];
+        double[][] im = new double[dim][];
+        for (int col = 0; col < dim; col++) {
+            int count = 0;
+            for (int row = 0; row < dim; row++) {
+                if (Math.hypot(denseRe[row * dim + col], denseIm[row * dim + col]) > TOLERANCE) {
+                    count++;
+                }
+            }
+            rows[col] = new int[count];
+            re[col] = new double[count];
+            im[col] = new double[count];
+            int k = 0;
+            for (int row = 0; row < dim; row++) {
+                if (Math.hypot(denseRe[row * dim + col], denseIm[row * dim + col]) > TOLERANCE) {
+                    rows[col][k] = row;
+                    re[col][k] = denseRe[row * dim + col];
+                    im[col][k] = denseIm[row * dim + col];
+                    k++;
+                }
+            }
+        }
+        return new ColumnTable(rows, re, im);
+    }
+}
@@ -0,0 +1,459 @@
+package org.example.model.circuit;
+
+import lombok.Getter;
+import org.example.model.CircuitAnalysis;
+import org.example.model.gate.GateResolver;
+import org.example.model.gate.oracle.OracleDefinition;
+import org.example.model.qubit.QubitRegister;
+import org.example.model.qubit.SupportSet;
+import org.example.script.Command;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+// Скрипт, скомпилированный в неизменяемую последовательность типизированных инструкций.
+// Номинальные регистры, индексы операндов, управляющие кубиты и таблицы оракулов разрешаются один раз:
+// строки CR занимают подряд идущие кубиты одного разреженного регистра, начиная с младших,
+// а инструкции хранят абсолютные номера кубитов и маски. Повторное выполнение (серии запусков,
+// перебор параметров, замеры) не обращается к словарям и не разбирает имена гейтов.
+public final class CompiledCircuit implements Serializable {
+    // Состояния регистра - неотрицательные int
+    public static final int MAX_QUBITS = 30;
+    private static final double ZERO_TOLERANCE = 1e-9;
+    private static final Set<String> SINGLE_QUBIT_GATES = Set.of("X", "NOT", "Y", "Z", "H", "S", "T", "P");
+
+    public enum Opcode {
+        // Однокубитный оператор matrix (формат кадров QubitRegister) на кубите target
+        UNITARY,
+        // Обмен кубитов target и operand
+        SWAP,
+        // Прибавление operand (+1 или -1) по модулю 2^width к кубитам [target, target + width)
+        ADD,
+        // Инверсия ancilla target, если вход [operand, operand + width) есть в таблице table
+        ORACLE,
+        // Измерение кубита target, исход записывается в ячейку slot
+        MEASURE
+    }
+
+    // Все операции, кроме MEASURE, действуют только на состояния, где установлены все биты controlMask.
+    // name и phase - исходные имя гейта (без префиксов C) или оракула и фаза, нужны для обратного перевода в скрипт.
+    public record Instruction(Opcode opcode, String name, double phase, int controlMask, int target, int operand,
+                              int width, double[] matrix, SupportSet table, int slot) implements Serializable {
+    }
+
+    // Номинальный регистр: абсолютное смещение и строка CR, которой он принадлежит
+    public record Register(String name, int offset, int size, int rowOffset, int rowSize) implements Serializable {
+    }
+
+    // Оракул: путь к исходному CSV и отсортированные отмеченные входы
+    public record OracleSource(String name, String csvPath, int[] marked) implements Serializable {
+    }
+
+    private final List<Instruction> instructions;
+    // Регистры в порядке команд CR
+    private final List<Register> registers;
+    private final List<OracleSource> oracles;
+    @Getter
+    private final int width;
+    @Getter
+    private final int measurementCount;
+
+    CompiledCircuit(List<Instruction> instructions, List<Register> registers, List<OracleSource> oracles,
+                    int width, int measurementCount) {
+        this.instructions = Collections.unmodifiableList(instructions);
+        this.registers = Collections.unmodifiableList(registers);
+        this.oracles = Collections.unmodifiableList(oracles);
+        this.width = width;
+        this.measurementCount = measurementCount;
+    }
+
+    public List<Instruction> getInstructions() {
+        return instructions;
+    }
+
+    public List<Register> getRegisters() {
+        return registers;
+    }
+
+    public List<OracleSource> getOracles() {
+        return oracles;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static CompiledCircuit compile(List<Command> script) {
+        Map<String, Register> placements = new HashMap<>();
+        Map<String, OracleSource> oracles = new LinkedHashMap<>();
+        List<Register> registers = new ArrayList<>();
+        List<Instruction> instructions = new ArrayList<>();
+        int width = 0;
+        int measurementCount = 0;
+        for (Command command : script) {
+            if (command == null) {
+                continue;
+            }
+            switch (command.getType()) {
+                case CREATE_REGISTER -> {
+                    int rowSize = command.getArgumentAsInt("realRegisterSize");
+                    if (width + rowSize > MAX_QUBITS) {
+                        throw new IllegalArgumentException("Компилируемая схема не может быть шире " + MAX_QUBITS + " кубитов.");
+                    }
+                    for (Map<String, Object> spec : (List<Map<String, Object>>) command.getArgument("nominalRegisters")) {
+                        String name = (String) spec.get("name");
+                        if (placements.containsKey(name)) {
+                            throw new IllegalArgumentException("Номинальный регистр с именем '" + name + "' уже существует.");
+                        }
+                        Register register = new Register(name, width + (int) spec.get("offset"), (int) spec.get("size"), width, rowSize);
+                        placements.put(name, register);
+                        registers.add(register);
+                    }
+                    width += rowSize;
+                }
+                case APPLY_GATE -> instructions.add(compileGate(command, placements));
+                case APPLY_ORACLE -> instructions.add(compileOracle(command, placements, oracles));
+                case DEFINE_ORACLE_CSV -> {
+                    String oracleName = command.getArgumentAsString("oracleName");
+                    String csvPath = command.getArgumentAsString("csvPath");
+                    if (!oracles.containsKey(oracleName)) {
+                        int[] marked = OracleDefinition.fromCsv(oracleName, csvPath).getStatesWhereOutputIsOne().stream()
+                                .mapToInt(Integer::intValue)
+                                .sorted()
+                                .toArray();
+                        oracles.put(oracleName, new OracleSource(oracleName, csvPath, marked));
+                    }
+                }
+                case MEASURE -> {
+                    int qubit = absoluteIndex(placements, command.getArgumentAsString("register"), command.getArgumentAsInt("index"));
+                    instructions.add(new Instruction(Opcode.MEASURE, null, 0, 0, qubit, 0, 1, null, null, measurementCount++));
+                }
+                default -> throw new IllegalArgumentException("Команда " + command.getType() + " не компилируется.");
+            }
+        }
+        if (width == 0) {
+            throw new IllegalArgumentException("В скрипте не создано ни одного регистра.");
+        }
+        return new CompiledCircuit(instructions, registers, new ArrayList<>(oracles.values()), width, measurementCount);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Instruction compileGate(Command command, Map<String, Register> placements) {
+        String gateName = command.getArgumentAsString("gate");
+        double phase = command.getArgument("phase") == null ? 0 : (double) command.getArgument("phase");
+        List<Map<String, Object>> operands = (List<Map<String, Object>>) command.getArgument("operands");
+        int controls = CircuitAnalysis.countControls(gateName);
+        String baseName = gateName.substring(controls);
+        if (operands == null || operands.size() <= controls) {
+            throw new IllegalArgumentException("Не указаны операнды для гейта " + gateName);
+        }
+        int[] qubits = new int[operands.size()];
+        int used = 0;
+        for (int i = 0; i < qubits.length; i++) {
+            qubits[i] = absoluteIndex(placements, (String) operands.get(i).get("register"), (int) operands.get(i).get("index"));
+            if ((used & 1 << qubits[i]) != 0) {
+                throw new IllegalArgumentException("Операнды гейта " + gateName + " должны быть различными кубитами.");
+            }
+            used |= 1 << qubits[i];
+        }
+        int controlMask = 0;
+        for (int i = 0; i < controls; i++) {
+            controlMask |= 1 << qubits[i];
+        }
+        int targets = qubits.length - controls;
+        int target = qubits[controls];
+        if (SINGLE_QUBIT_GATES.contains(baseName) && targets == 1) {
+            return new Instruction(Opcode.UNITARY, baseName, phase, controlMask, target, 0, 1,
+                    GateResolver.singleQubitMatrix(baseName, phase), null, -1);
+        }
+        if (baseName.equals("SWAP") && targets == 2) {
+            return new Instruction(Opcode.SWAP, baseName, 0, controlMask, target, qubits[controls + 1], 1, null, null, -1);
+        }
+        if (GateResolver.actsOnWholeRegister(baseName)) {
+            // Как и в эмуляции, прибавление действует на всю строку CR первого целевого операнда
+            Register row = placements.get((String) operands.get(controls).get("register"));
+            return new Instruction(Opcode.ADD, baseName, 0, controlMask, row.rowOffset(), baseName.equals("INC") ? 1 : -1,
+                    row.rowSize(), null, null, -1);
+        }
+        throw new IllegalArgumentException("Неизвестный гейт: " + gateName + " (операндов: " + qubits.length + ")");
+    }
+
+    private static Instruction compileOracle(Command command, Map<String, Register> placements,
+                                             Map<String, OracleSource> oracles) {
+        String oracleName = command.getArgumentAsString("oracleName");
+        OracleSource source = oracles.get(oracleName);
+        if (source == null) {
+            throw new IllegalArgumentException("Оракул с именем '" + oracleName + "' не определен.");
+        }
+        String inputName = command.getArgumentAsString("inputRegisterName");
+        Register input = placements.get(inputName);
+        if (input == null) {
+            throw new IllegalArgumentException("Номинальный регистр '" + inputName + "' (вход оракула) не найден.");
+        }
+        int ancilla = absoluteIndex(placements, command.getArgumentAsString("ancillaRegisterName"), command.getArgumentAsInt("ancillaIndex"));
+        if (ancilla >= input.offset() && ancilla < input.offset() + input.size()) {
+            throw new IllegalArgumentException("Кубит ancilla пересекается с входным регистром '" + inputName + "'.");
+        }
+        return new Instruction(Opcode.ORACLE, oracleName, 0, 0, ancilla, input.offset(), input.size(), null,
+                tableOf(source.marked(), input.size()), -1);
+    }
+
+    // Таблица оракула - носитель отмеченных входов; входы шире регистра не встречаются
+    static SupportSet tableOf(int[] marked, int inputSize) {
+        int count = 0;
+        while (count < marked.length && marked[count] < 1 << inputSize) {
+            count++;
+        }
+        return SupportSet.fromSorted(marked, count);
+    }
+
+    private static int absoluteIndex(Map<String, Register> placements, String registerName, int index) {
+        Register placement = placements.get(registerName);
+        if (placement == null) {
+            throw new IllegalArgumentException("Номинальный регистр '" + registerName + "' не найден.");
+        }
+        if (index < 0 || index >= placement.size()) {
+            throw new IllegalArgumentException("Индекс " + index + " вне границ номинального регистра " + registerName
+                    + " (размер " + placement.size() + ").");
+        }
+        return placement.offset() + index;
+    }
+
+    // Текст скрипта, который компилируется в ту же схему: строки CR, определения оракулов, затем инструкции.
+    // Порядок CR и определений относительно гейтов на состояние не влияет.
+    public List<String> toScript() {
+        List<String> lines = new ArrayList<>();
+        int row = 0;
+        while (row < width) {
+            int rowOffset = row;
+            // Parser отдаёт первому регистру строки старшие кубиты
+            lines.add("CR " + registers.stream()
+                    .filter(register -> register.rowOffset() == rowOffset)
+                    .sorted((a, b) -> Integer.compare(b.offset(), a.offset()))
+                    .map(register -> register.name() + "[" + register.size() + "]")
+                    .collect(Collectors.joining(", ")));
+            row += registerAt(row).rowSize();
+        }
+        for (OracleSource oracle : oracles) {
+            lines.add("DEFINE_ORACLE_CSV " + oracle.name() + " \"" + oracle.csvPath() + "\"");
+        }
+        for (Instruction instruction : instructions) {
+            lines.add(toLine(instruction));
+        }
+        return lines;
+    }
+
+    private String toLine(Instruction instruction) {
+        if (instruction.opcode() == Opcode.MEASURE) {
+            return "M " + operand(instruction.target());
+        }
+        if (instruction.opcode() == Opcode.ORACLE) {
+            Register input = registerAt(instruction.operand());
+            return "APPLY_ORACLE " + instruction.name() + " " + input.name() + " -> " + operand(instruction.target());
+        }
+        StringBuilder line = new StringBuilder(gateName(instruction));
+        if (hasPhase(instruction)) {
+            line.append(' ').append(instruction.phase());
+        }
+        for (int qubit : gateOperands(instruction)) {
+            line.append(' ').append(operand(qubit));
+        }
+        return line.toString();
+    }
+
+    // Команды того же скрипта, что toScript(), по одной на строку: открытую схему можно выполнять
+    // по командам, не разбирая её текст
+    public List<Command> toCommands() {
+        List<Command> commands = new ArrayList<>();
+        int row = 0;
+        while (row < width) {
+            int rowOffset = row;
+            int rowSize = registerAt(row).rowSize();
+            List<Map<String, Object>> nominalRegisters = new ArrayList<>();
+            registers.stream()
+                    .filter(register -> register.rowOffset() == rowOffset)
+                    .sorted((a, b) -> Integer.compare(b.offset(), a.offset()))
+                    .forEach(register -> {
+                        Map<String, Object> spec = new HashMap<>();
+                        spec.put("name", register.name());
+                        spec.put("size", register.size());
+                        spec.put("offset", register.offset() - rowOffset);
+                        nominalRegisters.add(spec);
+                    });
+            Map<String, Object> args = new HashMap<>();
+            args.put("realRegisterName", "real_reg_" + commands.size());
+            args.put("realRegisterSize", rowSize);
+            args.put("nominalRegisters", nominalRegisters);
+            commands.add(new Command(Command.CommandType.CREATE_REGISTER, args));
+            row += rowSize;
+        }
+        for (OracleSource oracle : oracles) {
+            Map<String, Object> args = new HashMap<>();
+            args.put("oracleName", oracle.name());
+            args.put("csvPath", oracle.csvPath());
+            commands.add(new Command(Command.CommandType.DEFINE_ORACLE_CSV, args));
+        }
+        for (Instruction instruction : instructions) {
+            commands.add(toCommand(instruction));
+        }
+        return commands;
+    }
+
+    private Command toCommand(Instruction instruction) {
+        if (instruction.opcode() == Opcode.MEASURE) {
+            return new Command(Command.CommandType.MEASURE, operandArgs(instruction.target()));
+        }
+        if (instruction.opcode() == Opcode.ORACLE) {
+            Register ancilla = registerAt(instruction.target());
+            Map<String, Object> args = new HashMap<>();
+            args.put("oracleName", instruction.name());
+            args.put("inputRegisterName", registerAt(instruction.operand()).name());
+            args.put("ancillaRegisterName", ancilla.name());
+            args.put("ancillaIndex", instruction.target() - ancilla.offset());
+            return new Command(Command.CommandType.APPLY_ORACLE, args);
+        }
+        Map<String, Object> args = new HashMap<>();
+        args.put("gate", gateName(instruction));
+        if (hasPhase(instruction)) {
+            args.put("phase", instruction.phase());
+        }
+        List<Map<String, Object>> operands = new ArrayList<>();
+        for (int qubit : gateOperands(instruction)) {
+            operands.add(operandArgs(qubit));
+        }
+        args.put("operands", operands);
+        return new Command(Command.CommandType.APPLY_GATE, args);
+    }
+
+    private static String gateName(Instruction instruction) {
+        return "C".repeat(Integer.bitCount(instruction.controlMask())) + instruction.name();
+    }
+
+    private static boolean hasPhase(Instruction instruction) {
+        return instruction.name().equals("P") && instruction.controlMask() == 0;
+    }
+
+    // Управляющие кубиты по возрастанию, затем целевые
+    private static List<Integer> gateOperands(Instruction instruction) {
+        List<Integer> qubits = new ArrayList<>();
+        for (int mask = instruction.controlMask(); mask != 0; mask &= mask - 1) {
+            qubits.add(Integer.numberOfTrailingZeros(mask));
+        }
+        int target = instruction.target();
+        if (instruction.opcode() == Opcode.ADD) {
+            // Прибавление задаётся любым кубитом строки, кроме управляющих
+            while ((instruction.controlMask() & 1 << target) != 0) {
+                target++;
+            }
+        }
+        qubits.add(target);
+        if (instruction.opcode() == Opcode.SWAP) {
+            qubits.add(instruction.operand());
+        }
+        return qubits;
+    }
+
+    private Register registerAt(int qubit) {
+        for (Register register : registers) {
+            if (qubit >= register.offset() && qubit < register.offset() + register.size()) {
+                return register;
+            }
+        }
+        throw new IllegalStateException("Кубит " + qubit + " не принадлежит ни одному регистру.");
+    }
+
+    private String operand(int qubit) {
+        Register register = registerAt(qubit);
+        return register.name() + "[" + (qubit - register.offset()) + "]";
+    }
+
+    private Map<String, Object> operandArgs(int qubit) {
+        Register register = registerAt(qubit);
+        Map<String, Object> operand = new HashMap<>();
+        operand.put("register", register.name());
+        operand.put("index", qubit - register.offset());
+        return operand;
+    }
+
+    public QubitRegister newRegister(Random random) {
+        return new QubitRegister("compiled", width, random);
+    }
+
+    // Один запуск на новом регистре; возвращает исходы измерений в порядке команд M
+    public int[] run(Random random) {
+        return run(newRegister(random));
+    }
+
+    // Серия из shots запусков: число запусков на каждую строку исходов (биты в порядке команд M).
+    // Инструкции до первого измерения от исходов не зависят, поэтому выполняются один раз,
+    // а каждый запуск начинается с копии полученного состояния.
+    public Map<String, Integer> sample(int shots, Random random) {
+        if (shots <= 0) {
+            throw new IllegalArgumentException("Число запусков должно быть положительным: " + shots);
+        }
+        int prefix = 0;
+        while (prefix < instructions.size() && instructions.get(prefix).opcode() != Opcode.MEASURE) {
+            prefix++;
+        }
+        QubitRegister prepared = newRegister(random);
+        execute(prepared, 0, prefix, new int[measurementCount]);
+        Map<String, Integer> counts = new TreeMap<>();
+        for (int shot = 0; shot < shots; shot++) {
+            QubitRegister register = prefix == instructions.size() ? prepared : prepared.copy();
+            int[] outcomes = new int[measurementCount];
+            execute(register, prefix, instructions.size(), outcomes);
+            StringBuilder key = new StringBuilder(measurementCount);
+            for (int outcome : outcomes) {
+                key.append(outcome);
+            }
+            counts.merge(key.toString(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    // Выполнение на реальном регистре ширины getWidth() без отложенных кадров
+    public int[] run(QubitRegister register) {
+        if (register.getRealRegister() != register || register.getRealSize() != width || register.getBackend() != null) {
+            throw new IllegalArgumentException("Схема выполняется на реальном разреженном регистре из " + width + " кубитов.");
+        }
+        if (register.hasPendingFrames()) {
+            throw new IllegalArgumentException("Регистр " + register.getName() + " содержит отложенные кадры.");
+        }
+        int[] outcomes = new int[measurementCount];
+        execute(register, 0, instructions.size(), outcomes);
+        return outcomes;
+    }
+
+    private void execute(QubitRegister register, int from, int to, int[] outcomes) {
+        for (Instruction instruction : instructions.subList(from, to)) {
+            switch (instruction.opcode()) {
+                case UNITARY -> register.applySingleQubitMatrix(instruction.controlMask(), instruction.target(),
+                        instruction.matrix(), ZERO_TOLERANCE);
+                case SWAP, ADD, ORACLE -> register.applyPermutation(state -> permute(instruction, state));
+                case MEASURE -> outcomes[instruction.slot()] = register.measureQubit(instruction.target());
+            }
+        }
+    }
+
+    private static int permute(Instruction instruction, int state) {
+        if ((state & instruction.controlMask()) != instruction.controlMask()) {
+            return state;
+        }
+        int target = instruction.target();
+        int mask = (1 << instruction.width()) - 1;
+        return switch (instruction.opcode()) {
+            case SWAP -> (((state >>> target) ^ (state >>> instruction.operand())) & 1) == 0
+                    ? state
+                    : state ^ (1 << target | 1 << instruction.operand());
+            case ADD -> state & ~(mask << target) | (((state >>> target) + instruction.operand()) & mask) << target;
+            case ORACLE -> instruction.table().get((state >>> instruction.operand()) & mask) ? state ^ 1 << target : state;
+            default -> state;
+        };
+    }
+}
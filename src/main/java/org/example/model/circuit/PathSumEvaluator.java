@@ -0,0 +1,262 @@
+package org.example.model.circuit;
+
+import javafx.util.Pair;
+import org.example.model.gate.Gate;
+import org.example.model.gate.GateResolver;
+import org.example.model.qubit.Complex;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Амплитуда <x|C|0> как сумма Фейнмана по путям: базисное состояние проходит схему гейт за гейтом,
+// ветвление происходит только там, где столбец матрицы гейта имеет несколько ненулевых элементов
+// (H и подобные). Вектор состояния не хранится: на путь приходится одно состояние long и одна амплитуда.
+public class PathSumEvaluator {
+    public static final int MAX_QUBITS = 63;
+    // Для гейтов до этой арности переходы вычисляются заранее
+    private static final int TABLE_ARITY = 10;
+    // Пока на пути меньше ветвлений, ветви выполняются параллельно
+    private static final int SPLIT_DEPTH = 10;
+
+    // Переходы одного гейта: для входа col - выходы rows[col] с коэффициентами re/im.
+    // delta != 0 - прибавление delta ко всему числу на кубитах qubits.
+    private static final class Step {
+        final int[] qubits;
+        final int[][] rows;
+        final double[][] re;
+        final double[][] im;
+        final Gate gate;
+        final int delta;
+        final boolean branching;
+
+        Step(int[] qubits, int[][] rows, double[][] re, double[][] im, Gate gate, int delta, boolean branching) {
+            this.qubits = qubits;
+            this.rows = rows;
+            this.re = re;
+            this.im = im;
+            this.gate = gate;
+            this.delta = delta;
+            this.branching = branching;
+        }
+    }
+
+    private final int numQubits;
+    private final Step[] steps;
+    // Кубиты, для которых гейт g - последний: после него их значение должно совпасть с искомым
+    private final long[] finishingMask;
+    private final long untouchedMask;
+    private final int branchingGateCount;
+
+    public PathSumEvaluator(CircuitLog log) {
+        if (log.size() > MAX_QUBITS) {
+            throw new IllegalArgumentException("Сумма по путям поддерживает регистры до " + MAX_QUBITS + " кубитов");
+        }
+        if (log.getMeasurementCount() > 0) {
+            throw new IllegalArgumentException("В регистре выполнялись измерения; сумма по путям вычисляется только для унитарной схемы");
+        }
+        this.numQubits = log.size();
+        List<CircuitLog.Operation> operations = log.getOperations();
+        this.steps = new Step[operations.size()];
+        Map<String, ColumnTable> tables = new HashMap<>();
+        int branching = 0;
+        int[] lastGate = new int[numQubits];
+        Arrays.fill(lastGate, -1);
+        for (int g = 0; g < steps.length; g++) {
+            steps[g] = compile(operations.get(g), tables);
+            if (steps[g].branching) {
+                branching++;
+            }
+            for (int q : steps[g].qubits) {
+                lastGate[q] = g;
+            }
+        }
+        this.branchingGateCount = branching;
+        this.finishingMask = new long[steps.length];
+        long untouched = 0;
+        for (int q = 0; q < numQubits; q++) {
+            if (lastGate[q] < 0) {
+                untouched |= 1L << q;
+            } else {
+                finishingMask[lastGate[q]] |= 1L << q;
+            }
+        }
+        this.untouchedMask = untouched;
+    }
+
+    private static Step compile(CircuitLog.Operation operation, Map<String, ColumnTable> tables) {
+        int[] qubits = operation.qubits();
+        int arity = qubits.length;
+        if ("INC".equals(operation.gateName()) || "DEC".equals(operation.gateName())) {
+            return new Step(qubits, null, null, null, null, "INC".equals(operation.gateName()) ? 1 : -1, false);
+        }
+        if (arity > 30) {
+            throw new IllegalArgumentException("Гейт " + operation.gateName() + " на " + arity + " кубитах не поддерживается суммой по путям");
+        }
+        Gate localGate = operation.isOracle()
+                ? GateResolver.resolveLocalOracle(operation.gateName(), arity - 1, operation.markedStates())
+                : GateResolver.resolveLocal(operation.gateName(), arity, operation.phase());
+        if (localGate == null) {
+            throw new IllegalArgumentException("Неизвестный гейт: " + operation.gateName());
+        }
+        if (arity > TABLE_ARITY) {
+            return new Step(qubits, null, null, null, localGate, 0, true);
+        }
+        String key = (operation.isOracle() ? "oracle:" + operation.gateName() + operation.markedStates() : operation.gateName())
+                + "/" + arity + "/" + operation.phase();
+        ColumnTable table = tables.computeIfAbsent(key, k -> ColumnTable.of(localGate, arity));
+        return new Step(qubits, table.rows, table.re, table.im, null, 0, table.branching);
+    }
+
+    public int size() {
+        return numQubits;
+    }
+
+    // Число путей не превосходит 2^(арность) в степени числа ветвящихся гейтов
+    public int getBranchingGateCount() {
+        return branchingGateCount;
+    }
+
+    // Амплитуда <bits|C|0>, бит q строки bits - значение кубита q
+    public Complex amplitude(long bits) {
+        if ((bits & untouchedMask) != 0) {
+            return Complex.getZero();
+        }
+        double[] sum = ForkJoinPool.commonPool().invoke(new PathTask(bits, 0, 0L, 1, 0, 0));
+        return new Complex(sum[0], sum[1]);
+    }
+
+    private static int gather(long state, int[] qubits) {
+        int value = 0;
+        for (int m = 0; m < qubits.length; m++) {
+            value |= (int) ((state >>> qubits[m]) & 1) << m;
+        }
+        return value;
+    }
+
+    private static long scatter(long state, int[] qubits, int value) {
+        for (int m = 0; m < qubits.length; m++) {
+            long bit = 1L << qubits[m];
+            state = ((value >>> m) & 1) == 1 ? state | bit : state & ~bit;
+        }
+        return state;
+    }
+
+    private static long add(long state, int[] qubits, int delta) {
+        long value = 0;
+        for (int m = 0; m < qubits.length; m++) {
+            value |= ((state >>> qubits[m]) & 1) << m;
+        }
+        value += delta;
+        for (int m = 0; m < qubits.length; m++) {
+            long bit = 1L << qubits[m];
+            state = ((value >>> m) & 1) == 1 ? state | bit : state & ~bit;
+        }
+        return state;
+    }
+
+    // Продолжение пути с гейта start из состояния state с накопленной амплитудой (re, im)
+    private final class PathTask extends RecursiveTask<double[]> {
+        private final long target;
+        private final int start;
+        private final long initialState;
+        private final double initialRe;
+        private final double initialIm;
+        private final int depth;
+
+        PathTask(long target, int start, long state, double re, double im, int depth) {
+            this.target = target;
+            this.start = start;
+            this.initialState = state;
+            this.initialRe = re;
+            this.initialIm = im;
+            this.depth = depth;
+        }
+
+        @Override
+        protected double[] compute() {
+            long state = initialState;
+            double re = initialRe;
+            double im = initialIm;
+            for (int g = start; g < steps.length; g++) {
+                Step step = steps[g];
+                if (step.delta != 0) {
+                    state = add(state, step.qubits, step.delta);
+                } else {
+                    int from = gather(state, step.qubits);
+                    int[] rows;
+                    double[] coefRe;
+                    double[] coefIm;
+                    if (step.rows != null) {
+                        rows = step.rows[from];
+                        coefRe = step.re[from];
+                        coefIm = step.im[from];
+                    } else {
+                        Pair<Integer, Complex>[] tos = step.gate.getTosAndItsCoefs(from);
+                        rows = new int[tos.length];
+                        coefRe = new double[tos.length];
+                        coefIm = new double[tos.length];
+                        for (int i = 0; i < tos.length; i++) {
+                            rows[i] = tos[i].getKey();
+                            coefRe[i] = tos[i].getValue().getReal();
+                            coefIm[i] = tos[i].getValue().getImaginary();
+                        }
+                    }
+                    if (rows.length == 0) {
+                        return new double[2];
+                    }
+                    if (rows.length > 1) {
+                        return branch(g, state, re, im, rows, coefRe, coefIm);
+                    }
+                    state = scatter(state, step.qubits, rows[0]);
+                    double newRe = re * coefRe[0] - im * coefIm[0];
+                    im = re * coefIm[0] + im * coefRe[0];
+                    re = newRe;
+                }
+                if (((state ^ target) & finishingMask[g]) != 0) {
+                    return new double[2];
+                }
+            }
+            return state == target ? new double[]{re, im} : new double[2];
+        }
+
+        private double[] branch(int g, long state, double re, double im, int[] rows, double[] coefRe, double[] coefIm) {
+            Step step = steps[g];
+            PathTask[] children = new PathTask[rows.length];
+            int count = 0;
+            for (int i = 0; i < rows.length; i++) {
+                long next = scatter(state, step.qubits, rows[i]);
+                if (((next ^ target) & finishingMask[g]) != 0) {
+                    continue;
+                }
+                children[count++] = new PathTask(target, g + 1, next,
+                        re * coefRe[i] - im * coefIm[i], re * coefIm[i] + im * coefRe[i], depth + 1);
+            }
+            double[] sum = new double[2];
+            if (depth < SPLIT_DEPTH) {
+                for (int i = 1; i < count; i++) {
+                    children[i].fork();
+                }
+                if (count > 0) {
+                    accumulate(sum, children[0].compute());
+                }
+                for (int i = 1; i < count; i++) {
+                    accumulate(sum, children[i].join());
+                }
+            } else {
+                for (int i = 0; i < count; i++) {
+                    accumulate(sum, children[i].compute());
+                }
+            }
+            return sum;
+        }
+
+        private void accumulate(double[] sum, double[] part) {
+            sum[0] += part[0];
+            sum[1] += part[1];
+        }
+    }
+}
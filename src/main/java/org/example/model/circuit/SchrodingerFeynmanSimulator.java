@@ -0,0 +1,480 @@
+package org.example.model.circuit;
+
+import javafx.util.Pair;
+import org.example.model.gate.Gate;
+import org.example.model.gate.GateResolver;
+import org.example.model.qubit.Complex;
+import org.example.model.qubit.QubitRegister;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Гибрид Шрёдингера–Фейнмана: кубиты делятся на две половины, каждая моделируется вектором состояния.
+// Гейт, задевающий обе половины, раскладывается по Шмидту в сумму sum_k A_k ⊗ B_k, и каждая комбинация
+// слагаемых по всем таким гейтам - отдельный путь. Амплитуда - сумма по путям произведений амплитуд половин.
+// Память - два вектора по 2^(n/2) на путь вместо 2^n, время растёт как произведение рангов разрезанных гейтов.
+public class SchrodingerFeynmanSimulator {
+    public static final int MAX_QUBITS = 63;
+    public static final int MAX_HALF_QUBITS = 30;
+    // Пока ветвлений на пути меньше, пути выполняются параллельно
+    private static final int SPLIT_DEPTH = 8;
+    private static final double RANK_TOLERANCE = 1e-10;
+
+    // Оператор на одной половине: таблица столбцов на позициях positions либо прибавление delta к числу на positions.
+    // carry: -1 - без условия, 0 - только входы без переноса за старший бит, 1 - только вход с переносом
+    private record HalfOperation(int[] positions, ColumnTable table, int delta, int carry) {
+    }
+
+    // Слагаемые гейта: termsA[k] ⊗ termsB[k]; null - тождественный оператор на половине
+    private record Step(HalfOperation[] termsA, HalfOperation[] termsB) {
+        int rank() {
+            return termsA.length;
+        }
+    }
+
+    private final int numQubits;
+    private final long maskA;
+    private final int sizeA;
+    private final int sizeB;
+    private final Step[] steps;
+    private final int crossingGateCount;
+    private final double pathCount;
+    private final double estimatedOperations;
+
+    // Кубиты с установленным битом в maskA образуют первую половину, остальные - вторую
+    public SchrodingerFeynmanSimulator(CircuitLog log, long maskA) {
+        if (log.size() > MAX_QUBITS) {
+            throw new IllegalArgumentException("Гибридный режим поддерживает регистры до " + MAX_QUBITS + " кубитов");
+        }
+        if (log.getMeasurementCount() > 0) {
+            throw new IllegalArgumentException("В регистре выполнялись измерения; гибридный режим применим только к унитарной схеме");
+        }
+        this.numQubits = log.size();
+        this.maskA = maskA & ((1L << numQubits) - 1);
+        this.sizeA = Long.bitCount(this.maskA);
+        this.sizeB = numQubits - sizeA;
+        if (sizeA == 0 || sizeB == 0) {
+            throw new IllegalArgumentException("Обе части разбиения должны содержать кубиты");
+        }
+        if (sizeA > MAX_HALF_QUBITS || sizeB > MAX_HALF_QUBITS) {
+            throw new IllegalArgumentException("Каждая часть разбиения должна содержать не более " + MAX_HALF_QUBITS
+                    + " кубитов, получено " + sizeA + " и " + sizeB);
+        }
+
+        int[] position = new int[numQubits];
+        int nextA = 0;
+        int nextB = 0;
+        for (int q = 0; q < numQubits; q++) {
+            position[q] = inA(q) ? nextA++ : nextB++;
+        }
+
+        List<CircuitLog.Operation> operations = log.getOperations();
+        this.steps = new Step[operations.size()];
+        Map<String, ColumnTable> tables = new HashMap<>();
+        Map<String, Step> decompositions = new HashMap<>();
+        int crossing = 0;
+        double paths = 1;
+        double operationsA = 0;
+        double operationsB = 0;
+        for (int g = 0; g < steps.length; g++) {
+            steps[g] = compile(operations.get(g), position, tables, decompositions);
+            if (steps[g].rank() > 1) {
+                crossing++;
+                paths *= steps[g].rank();
+            }
+            operationsA += steps[g].termsA()[0] != null ? 1 : 0;
+            operationsB += steps[g].termsB()[0] != null ? 1 : 0;
+        }
+        this.crossingGateCount = crossing;
+        this.pathCount = paths;
+        this.estimatedOperations = paths * (operationsA * Math.pow(2, sizeA) + operationsB * Math.pow(2, sizeB));
+    }
+
+    private boolean inA(int qubit) {
+        return ((maskA >>> qubit) & 1) == 1;
+    }
+
+    private Step compile(CircuitLog.Operation operation, int[] position,
+                         Map<String, ColumnTable> tables, Map<String, Step> decompositions) {
+        int[] qubits = operation.qubits();
+        int arity = qubits.length;
+        long localMaskA = 0;
+        for (int m = 0; m < arity; m++) {
+            if (inA(qubits[m])) {
+                localMaskA |= 1L << m;
+            }
+        }
+        int[] positionsA = positionsOf(qubits, position, localMaskA, true);
+        int[] positionsB = positionsOf(qubits, position, localMaskA, false);
+
+        if ("INC".equals(operation.gateName()) || "DEC".equals(operation.gateName())) {
+            return compileIncrement("INC".equals(operation.gateName()) ? 1 : -1, positionsA, positionsB, localMaskA, arity);
+        }
+        if (arity > MAX_HALF_QUBITS) {
+            throw new IllegalArgumentException("Гейт " + operation.gateName() + " на " + arity + " кубитах не поддерживается гибридным режимом");
+        }
+        String key = (operation.isOracle() ? "oracle:" + operation.gateName() + operation.markedStates() : operation.gateName())
+                + "/" + arity + "/" + operation.phase();
+        ColumnTable table = tables.get(key);
+        if (table == null) {
+            Gate localGate = operation.isOracle()
+                    ? GateResolver.resolveLocalOracle(operation.gateName(), arity - 1, operation.markedStates())
+                    : GateResolver.resolveLocal(operation.gateName(), arity, operation.phase());
+            if (localGate == null) {
+                throw new IllegalArgumentException("Неизвестный гейт: " + operation.gateName());
+            }
+            table = ColumnTable.of(localGate, arity);
+            tables.put(key, table);
+        }
+
+        if (positionsB.length == 0) {
+            return new Step(new HalfOperation[]{new HalfOperation(positionsA, table, 0, -1)}, new HalfOperation[]{null});
+        }
+        if (positionsA.length == 0) {
+            return new Step(new HalfOperation[]{null}, new HalfOperation[]{new HalfOperation(positionsB, table, 0, -1)});
+        }
+        // Разложение зависит только от матрицы и того, какие локальные кубиты попали в первую половину
+        Step factors = decompositions.get(key + "|" + localMaskA);
+        if (factors == null) {
+            factors = decompose(table, arity, localMaskA);
+            decompositions.put(key + "|" + localMaskA, factors);
+        }
+        HalfOperation[] termsA = new HalfOperation[factors.rank()];
+        HalfOperation[] termsB = new HalfOperation[factors.rank()];
+        for (int k = 0; k < factors.rank(); k++) {
+            termsA[k] = new HalfOperation(positionsA, factors.termsA()[k].table(), 0, -1);
+            termsB[k] = new HalfOperation(positionsB, factors.termsB()[k].table(), 0, -1);
+        }
+        return new Step(termsA, termsB);
+    }
+
+    private static int[] positionsOf(int[] qubits, int[] position, long localMaskA, boolean a) {
+        int[] positions = new int[Long.bitCount(a ? localMaskA : ~localMaskA & ((1L << qubits.length) - 1))];
+        int count = 0;
+        for (int m = 0; m < qubits.length; m++) {
+            if ((((localMaskA >>> m) & 1) == 1) == a) {
+                positions[count++] = position[qubits[m]];
+            }
+        }
+        return positions;
+    }
+
+    // Прибавление к числу, разрезанному на младшую и старшую части: младшая часть прибавляет всегда,
+    // старшая - только при переносе из младшей. Поэтому ранг разреза равен 2.
+    private static Step compileIncrement(int delta, int[] positionsA, int[] positionsB, long localMaskA, int arity) {
+        if (positionsB.length == 0) {
+            return new Step(new HalfOperation[]{new HalfOperation(positionsA, null, delta, -1)}, new HalfOperation[]{null});
+        }
+        if (positionsA.length == 0) {
+            return new Step(new HalfOperation[]{null}, new HalfOperation[]{new HalfOperation(positionsB, null, delta, -1)});
+        }
+        long lowMask = (1L << positionsA.length) - 1;
+        long highMask = ((1L << arity) - 1) & ~((1L << positionsB.length) - 1);
+        if (localMaskA == lowMask) {
+            return new Step(
+                    new HalfOperation[]{new HalfOperation(positionsA, null, delta, 0), new HalfOperation(positionsA, null, delta, 1)},
+                    new HalfOperation[]{null, new HalfOperation(positionsB, null, delta, -1)});
+        }
+        if (localMaskA == highMask) {
+            return new Step(
+                    new HalfOperation[]{null, new HalfOperation(positionsA, null, delta, -1)},
+                    new HalfOperation[]{new HalfOperation(positionsB, null, delta, 0), new HalfOperation(positionsB, null, delta, 1)});
+        }
+        throw new IllegalArgumentException("INC/DEC в гибридном режиме требуют разбиения регистра на младшие и старшие кубиты");
+    }
+
+    // Операторное разложение Шмидта: матрица U переупорядочивается в M[(iA,jA),(iB,jB)],
+    // строки M ортогонализуются Грамом-Шмидтом, число базисных векторов - ранг разреза.
+    private static Step decompose(ColumnTable table, int arity, long localMaskA) {
+        int dim = 1 << arity;
+        int bitsA = Long.bitCount(localMaskA);
+        int bitsB = arity - bitsA;
+        int dimA = 1 << bitsA;
+        int dimB = 1 << bitsB;
+        int rowsM = dimA * dimA;
+        int columnsM = dimB * dimB;
+        double[][] mRe = new double[rowsM][columnsM];
+        double[][] mIm = new double[rowsM][columnsM];
+        for (int j = 0; j < dim; j++) {
+            int jA = split(j, arity, localMaskA, true);
+            int jB = split(j, arity, localMaskA, false);
+            for (int t = 0; t < table.rows[j].length; t++) {
+                int i = table.rows[j][t];
+                int row = split(i, arity, localMaskA, true) * dimA + jA;
+                int column = split(i, arity, localMaskA, false) * dimB + jB;
+                mRe[row][column] = table.re[j][t];
+                mIm[row][column] = table.im[j][t];
+            }
+        }
+
+        List<double[]> basisRe = new ArrayList<>();
+        List<double[]> basisIm = new ArrayList<>();
+        double[][] coefRe = new double[rowsM][];
+        double[][] coefIm = new double[rowsM][];
+        for (int row = 0; row < rowsM; row++) {
+            double[] re = mRe[row].clone();
+            double[] im = mIm[row].clone();
+            double[] cRe = new double[columnsM];
+            double[] cIm = new double[columnsM];
+            for (int k = 0; k < basisRe.size(); k++) {
+                double[] vRe = basisRe.get(k);
+                double[] vIm = basisIm.get(k);
+                // <v_k, r> = sum conj(v) r
+                double dotRe = 0;
+                double dotIm = 0;
+                for (int c = 0; c < columnsM; c++) {
+                    dotRe += vRe[c] * re[c] + vIm[c] * im[c];
+                    dotIm += vRe[c] * im[c] - vIm[c] * re[c];
+                }
+                cRe[k] = dotRe;
+                cIm[k] = dotIm;
+                for (int c = 0; c < columnsM; c++) {
+                    re[c] -= dotRe * vRe[c] - dotIm * vIm[c];
+                    im[c] -= dotRe * vIm[c] + dotIm * vRe[c];
+                }
+            }
+            double norm = 0;
+            for (int c = 0; c < columnsM; c++) {
+                norm += re[c] * re[c] + im[c] * im[c];
+            }
+            norm = Math.sqrt(norm);
+            if (norm > RANK_TOLERANCE) {
+                for (int c = 0; c < columnsM; c++) {
+                    re[c] /= norm;
+                    im[c] /= norm;
+                }
+                cRe[basisRe.size()] = norm;
+                basisRe.add(re);
+                basisIm.add(im);
+            }
+            coefRe[row] = cRe;
+            coefIm[row] = cIm;
+        }
+
+        int rank = basisRe.size();
+        HalfOperation[] termsA = new HalfOperation[rank];
+        HalfOperation[] termsB = new HalfOperation[rank];
+        for (int k = 0; k < rank; k++) {
+            double[] aRe = new double[rowsM];
+            double[] aIm = new double[rowsM];
+            for (int row = 0; row < rowsM; row++) {
+                aRe[row] = coefRe[row][k];
+                aIm[row] = coefIm[row][k];
+            }
+            termsA[k] = new HalfOperation(null, ColumnTable.ofDense(dimA, aRe, aIm), 0, -1);
+            termsB[k] = new HalfOperation(null, ColumnTable.ofDense(dimB, basisRe.get(k), basisIm.get(k)), 0, -1);
+        }
+        return new Step(termsA, termsB);
+    }
+
+    // Биты локального индекса, попавшие в первую (a = true) или вторую половину, в порядке возрастания
+    private static int split(int local, int arity, long localMaskA, boolean a) {
+        int value = 0;
+        int count = 0;
+        for (int m = 0; m < arity; m++) {
+            if ((((localMaskA >>> m) & 1) == 1) == a) {
+                value |= ((local >>> m) & 1) << count++;
+            }
+        }
+        return value;
+    }
+
+    public int getCrossingGateCount() {
+        return crossingGateCount;
+    }
+
+    public double getPathCount() {
+        return pathCount;
+    }
+
+    public double getEstimatedOperations() {
+        return estimatedOperations;
+    }
+
+    public Complex amplitude(long bits) {
+        return amplitudes(new long[]{bits})[0];
+    }
+
+    // Амплитуды <bits|C|0> для набора базисных состояний за один проход по путям
+    public Complex[] amplitudes(long[] bits) {
+        long[] targetA = new long[bits.length];
+        long[] targetB = new long[bits.length];
+        for (int t = 0; t < bits.length; t++) {
+            int countA = 0;
+            int countB = 0;
+            for (int q = 0; q < numQubits; q++) {
+                long bit = (bits[t] >>> q) & 1;
+                if (inA(q)) {
+                    targetA[t] |= bit << countA++;
+                } else {
+                    targetB[t] |= bit << countB++;
+                }
+            }
+        }
+        double[] sum = ForkJoinPool.commonPool().invoke(
+                new PathTask(0, newHalf("A", sizeA), newHalf("B", sizeB), targetA, targetB, 0));
+        Complex[] result = new Complex[bits.length];
+        for (int t = 0; t < bits.length; t++) {
+            result[t] = new Complex(sum[2 * t], sum[2 * t + 1]);
+        }
+        return result;
+    }
+
+    private static QubitRegister newHalf(String name, int size) {
+        return new QubitRegister(name, size);
+    }
+
+    private static QubitRegister copyOf(QubitRegister half) {
+        QubitRegister copy = newHalf(half.getName(), half.size());
+        copy.setStates(half.getStates().clone());
+        copy.setAmplitudes(half.getAmplitudes().clone());
+        return copy;
+    }
+
+    private static void apply(QubitRegister half, HalfOperation operation) {
+        if (operation != null) {
+            new HalfGate(half, operation).apply();
+        }
+    }
+
+    public String describe() {
+        return String.format("Гибрид Шрёдингера–Фейнмана: кубитов %d+%d, разрезанных гейтов %d, путей %.0f, оценка ~%.3g операций",
+                sizeA, sizeB, crossingGateCount, pathCount, estimatedOperations);
+    }
+
+    // Продолжение путей с шага start; половины принадлежат задаче и изменяются на месте
+    private final class PathTask extends RecursiveTask<double[]> {
+        private final int start;
+        private final QubitRegister halfA;
+        private final QubitRegister halfB;
+        private final long[] targetA;
+        private final long[] targetB;
+        private final int depth;
+
+        PathTask(int start, QubitRegister halfA, QubitRegister halfB, long[] targetA, long[] targetB, int depth) {
+            this.start = start;
+            this.halfA = halfA;
+            this.halfB = halfB;
+            this.targetA = targetA;
+            this.targetB = targetB;
+            this.depth = depth;
+        }
+
+        @Override
+        protected double[] compute() {
+            for (int g = start; g < steps.length; g++) {
+                Step step = steps[g];
+                if (step.rank() > 1) {
+                    return branch(g);
+                }
+                apply(halfA, step.termsA()[0]);
+                apply(halfB, step.termsB()[0]);
+            }
+            double[] sum = new double[2 * targetA.length];
+            for (int t = 0; t < targetA.length; t++) {
+                Complex product = halfA.getAmplitudes().get((int) targetA[t]).multiply(halfB.getAmplitudes().get((int) targetB[t]));
+                sum[2 * t] = product.getReal();
+                sum[2 * t + 1] = product.getImaginary();
+            }
+            return sum;
+        }
+
+        private double[] branch(int g) {
+            Step step = steps[g];
+            List<PathTask> children = new ArrayList<>(step.rank());
+            for (int k = 0; k < step.rank(); k++) {
+                // Последнее слагаемое забирает половины этой задачи без копирования
+                boolean last = k == step.rank() - 1;
+                QubitRegister nextA = last ? halfA : copyOf(halfA);
+                QubitRegister nextB = last ? halfB : copyOf(halfB);
+                apply(nextA, step.termsA()[k]);
+                if (nextA.getStates().isEmpty()) {
+                    continue;
+                }
+                apply(nextB, step.termsB()[k]);
+                if (nextB.getStates().isEmpty()) {
+                    continue;
+                }
+                children.add(new PathTask(g + 1, nextA, nextB, targetA, targetB, depth + 1));
+            }
+            double[] sum = new double[2 * targetA.length];
+            if (depth < SPLIT_DEPTH) {
+                for (int i = 1; i < children.size(); i++) {
+                    children.get(i).fork();
+                }
+                if (!children.isEmpty()) {
+                    accumulate(sum, children.get(0).compute());
+                }
+                for (int i = 1; i < children.size(); i++) {
+                    accumulate(sum, children.get(i).join());
+                }
+            } else {
+                for (PathTask child : children) {
+                    accumulate(sum, child.compute());
+                }
+            }
+            return sum;
+        }
+
+        private void accumulate(double[] sum, double[] part) {
+            for (int i = 0; i < sum.length; i++) {
+                sum[i] += part[i];
+            }
+        }
+    }
+
+    // Оператор половины в виде гейта, чтобы применять его штатным проходом Gate.apply по вектору состояния
+    private static final class HalfGate extends Gate {
+        private final HalfOperation operation;
+
+        HalfGate(QubitRegister half, HalfOperation operation) {
+            super(half, boxed(operation.positions()));
+            this.operation = operation;
+        }
+
+        private static Integer[] boxed(int[] positions) {
+            Integer[] indices = new Integer[positions.length];
+            for (int i = 0; i < positions.length; i++) {
+                indices[i] = positions[i];
+            }
+            return indices;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Pair<Integer, Complex>[] getTosAndItsCoefs(Integer state) {
+            int[] positions = operation.positions();
+            int local = 0;
+            for (int m = 0; m < positions.length; m++) {
+                local |= ((state >>> positions[m]) & 1) << m;
+            }
+            if (operation.table() == null) {
+                int max = (int) ((1L << positions.length) - 1);
+                int boundary = operation.delta() > 0 ? max : 0;
+                if (operation.carry() >= 0 && (local == boundary) != (operation.carry() == 1)) {
+                    return new Pair[0];
+                }
+                return new Pair[]{new Pair<>(scatter(state, positions, (local + operation.delta()) & max), Complex.getOne())};
+            }
+            ColumnTable table = operation.table();
+            int[] rows = table.rows[local];
+            Pair<Integer, Complex>[] tos = new Pair[rows.length];
+            for (int t = 0; t < rows.length; t++) {
+                tos[t] = new Pair<>(scatter(state, positions, rows[t]), new Complex(table.re[local][t], table.im[local][t]));
+            }
+            return tos;
+        }
+
+        private static int scatter(int state, int[] positions, int value) {
+            for (int m = 0; m < positions.length; m++) {
+                int bit = 1 << positions[m];
+                state = ((value >>> m) & 1) == 1 ? state | bit : state & ~bit;
+            }
+            return state;
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package org.example.model.gate;
 
 import javafx.util.Pair;
+import org.example.model.gate.instances.pauli.X;
+import org.example.model.gate.instances.pauli.Z;
 import org.example.model.qubit.Complex;
 import org.example.model.qubit.QubitRegister;
 
+import java.util.Arrays;
+
 public class ControlledGate extends Gate {
     private final Gate gateToControl;
     private final Integer[] controlQubitsIndices;
@@ -14,6 +18,38 @@ public class ControlledGate extends Gate {
         this.controlQubitsIndices = controlQubitsIndices;
     }
 
+    public Gate getGateToControl() {
+        return gateToControl;
+    }
+
+    public Integer[] getControlQubitsIndices() {
+        return controlQubitsIndices;
+    }
+
+    @Override
+    protected Integer[] getTouchedQubitsIndices() {
+        Integer[] baseQubits = gateToControl.getTouchedQubitsIndices();
+        Integer[] touched = Arrays.copyOf(controlQubitsIndices, controlQubitsIndices.length + baseQubits.length);
+        System.arraycopy(baseQubits, 0, touched, controlQubitsIndices.length, baseQubits.length);
+        return touched;
+    }
+
+    @Override
+    protected boolean conjugatePauliFrame() {
+        if (controlQubitsIndices.length != 1 || gateToControl.targetQubitsIndices.length != 1) {
+            return false;
+        }
+        if (gateToControl instanceof X) {
+            targetRegister.conjugatePauliFrameByCx(controlQubitsIndices[0], gateToControl.targetQubitsIndices[0]);
+            return true;
+        }
+        if (gateToControl instanceof Z) {
+            targetRegister.conjugatePauliFrameByCz(controlQubitsIndices[0], gateToControl.targetQubitsIndices[0]);
+            return true;
+        }
+        return false;
+    }
+
     public Pair<Integer, Complex>[] getTosAndItsCoefs(Integer state) {
         if ((state >> controlQubitsIndices[0]) % 2 == 1) {
             return gateToControl.getTosAndItsCoefs(state);
@@ -22,6 +58,25 @@ public class ControlledGate extends Gate {
         }
     }
 
+    @Override
+    protected double[] singleQubitMatrix() {
+        return gateToControl.singleQubitMatrix();
+    }
+
+    @Override
+    protected int controlMask() {
+        int mask = gateToControl.controlMask();
+        for (Integer control : controlQubitsIndices) {
+            mask |= 1 << control;
+        }
+        return mask;
+    }
+
+    @Override
+    protected boolean hasRealCoefficients() {
+        return gateToControl.hasRealCoefficients();
+    }
+
     @Override
     public String toString() {
         return "C" + gateToControl.toString();
@@ -4,23 +4,23 @@ import javafx.util.Pair;
 import org.example.model.qubit.ChunkedComplexArray;
 import org.example.model.qubit.Complex;
 import org.example.model.qubit.QubitRegister;
+import org.example.model.qubit.SupportSet;
 
 import java.io.Serializable;
-import java.util.BitSet;
 
 public abstract class Gate implements Serializable {
+    // Порог Complex.equals, ниже которого амплитуда считается нулевой
+    private static final double ZERO_TOLERANCE = 1e-9;
+
     protected final Integer[] targetQubitsIndices;
     protected final QubitRegister targetRegister;
-    protected final GateTrace trace;
-    protected final BitSet newState;
-    protected final ChunkedComplexArray newAmplitudes;
+    // Буферы следующего состояния выдаёт регистр на время apply()
+    protected SupportSet newState;
+    protected ChunkedComplexArray newAmplitudes;
 
     protected Gate(QubitRegister register, Integer[] targetQubitsIndices) {
         this.targetQubitsIndices = targetQubitsIndices;
         this.targetRegister = register;
-        this.trace = new GateTrace();
-        this.newState = new BitSet(register.getStates().length());
-        this.newAmplitudes = new ChunkedComplexArray();
     }
 
     protected void addAmplitude(Integer from, Integer to, Complex amplitude) {
@@ -37,24 +37,110 @@ public abstract class Gate implements Serializable {
                 newState.set(to, false);
             }
         }
+    }
+
+    // Вещественное ядро: то же, что addAmplitude, но без комплексной арифметики
+    protected void addRealAmplitude(int from, int to, double amplitude) {
+        if (Math.abs(amplitude) < ZERO_TOLERANCE) {
+            return;
+        }
 
-        //add trace
-        trace.addAmplitude(from, to, amplitude);
+        if (!newState.get(to)) {
+            newState.set(to, true);
+            newAmplitudes.setReal(to, amplitude);
+        } else {
+            double sum = newAmplitudes.getReal(to) + amplitude;
+            newAmplitudes.setReal(to, sum);
+            if (Math.abs(sum) < ZERO_TOLERANCE) {
+                newState.set(to, false);
+            }
+        }
     }
 
     public abstract Pair<Integer, Complex>[] getTosAndItsCoefs(Integer state);
 
+    // Все коэффициенты матрицы гейта вещественные: вещественное состояние остаётся вещественным
+    protected boolean hasRealCoefficients() {
+        return false;
+    }
+
+    // Гейт действует только на свой единственный целевой кубит, одинаково для любых значений остальных
+    protected boolean actsOnSingleQubit() {
+        return false;
+    }
+
+    // Матрица 2x2 однокубитного гейта в формате кадров QubitRegister, для прочих гейтов null
+    protected double[] singleQubitMatrix() {
+        if (!actsOnSingleQubit()) {
+            return null;
+        }
+        int target = targetQubitsIndices[0];
+        double[] matrix = new double[8];
+        for (int col = 0; col < 2; col++) {
+            for (Pair<Integer, Complex> to : getTosAndItsCoefs(col << target)) {
+                int row = (to.getKey() >> target) & 1;
+                matrix[(row * 2 + col) * 2] += to.getValue().getReal();
+                matrix[(row * 2 + col) * 2 + 1] += to.getValue().getImaginary();
+            }
+        }
+        return matrix;
+    }
+
+    // Биты управляющих кубитов, при которых действует singleQubitMatrix()
+    protected int controlMask() {
+        return 0;
+    }
+
+    public Integer[] getTargetQubitsIndices() {
+        return targetQubitsIndices;
+    }
+
+    // Все кубиты, от которых зависит действие гейта: перед применением сворачиваются только их кадры
+    protected Integer[] getTouchedQubitsIndices() {
+        return targetQubitsIndices;
+    }
+
+    // Клиффордовы гейты переносят рамку Паули через себя вместо её применения к амплитудам
+    protected boolean conjugatePauliFrame() {
+        return false;
+    }
+
+    // Трасса для QGantt ленивая: переходы строятся по запросу из показанного состояния до гейта,
+    // поэтому ни ядро слияния, ни общее ядро не делают для неё лишних проходов по носителю
     public GateTrace apply() {
-        BitSet oldState = targetRegister.getStates();
-        ChunkedComplexArray oldAmplitudes = targetRegister.getAmplitudes();
+        Integer[] touched = getTouchedQubitsIndices();
+        targetRegister.foldOperatorFrames(touched);
+        if (!conjugatePauliFrame()) {
+            targetRegister.materializePauliFrame(touched);
+        }
+        double[] matrix = singleQubitMatrix();
+        if (matrix != null) {
+            // Однокубитный, возможно контролируемый, гейт - слиянием отсортированных потоков
+            targetRegister.applySingleQubitMatrix(controlMask(), targetQubitsIndices[0], matrix, ZERO_TOLERANCE);
+            return GateTrace.of(this);
+        }
+        SupportSet oldState = targetRegister.getStoredStates();
+        ChunkedComplexArray oldAmplitudes = targetRegister.getStoredAmplitudes();
+        newState = targetRegister.takeStatesBuffer();
+        newAmplitudes = targetRegister.takeAmplitudesBuffer();
 
-        for (int i = oldState.nextSetBit(0); i >= 0; i = oldState.nextSetBit(i + 1)) {
-            for (Pair<Integer, Complex> toWithCoef : getTosAndItsCoefs(i)) {
-                addAmplitude(i, toWithCoef.getKey(), oldAmplitudes.get(i).multiply(toWithCoef.getValue()));
+        if (oldAmplitudes.isReal() && hasRealCoefficients()) {
+            for (int i = oldState.nextSetBit(0); i >= 0; i = oldState.nextSetBit(i + 1)) {
+                double amplitude = oldAmplitudes.getReal(i);
+                for (Pair<Integer, Complex> toWithCoef : getTosAndItsCoefs(i)) {
+                    addRealAmplitude(i, toWithCoef.getKey(), amplitude * toWithCoef.getValue().getReal());
+                }
+            }
+        } else {
+            for (int i = oldState.nextSetBit(0); i >= 0; i = oldState.nextSetBit(i + 1)) {
+                for (Pair<Integer, Complex> toWithCoef : getTosAndItsCoefs(i)) {
+                    addAmplitude(i, toWithCoef.getKey(), oldAmplitudes.get(i).multiply(toWithCoef.getValue()));
+                }
             }
         }
-        targetRegister.setStates(newState);
-        targetRegister.setAmplitudes(newAmplitudes);
-        return this.trace;
+        targetRegister.swapBuffers(newState, newAmplitudes);
+        newState = null;
+        newAmplitudes = null;
+        return GateTrace.of(this);
     }
 }
@@ -4,8 +4,11 @@ import org.example.model.gate.instances.*;
 import org.example.model.gate.instances.pauli.X;
 import org.example.model.gate.instances.pauli.Y;
 import org.example.model.gate.instances.pauli.Z;
+import org.example.model.gate.oracle.OracleGate;
 import org.example.model.qubit.QubitRegister;
 
+import java.util.Set;
+
 public class GateResolver {
 
     public static Gate resolveByName(String name, QubitRegister register, Integer[] indices, double phase) {
@@ -37,4 +40,32 @@ public class GateResolver {
             default -> null;
         };
     }
+
+    // INC/DEC работают со всем реальным регистром, а не с указанными операндами
+    public static boolean actsOnWholeRegister(String name) {
+        return name.equals("INC") || name.equals("DEC");
+    }
+
+    // Гейт на локальных кубитах 0..arity-1 вспомогательного регистра.
+    // Используется бэкендами, которые сами отображают локальные кубиты на абсолютные.
+    public static Gate resolveLocal(String name, int arity, double phase) {
+        QubitRegister localRegister = new QubitRegister("local", arity);
+        Integer[] localIndices = new Integer[arity];
+        for (int i = 0; i < arity; i++) {
+            localIndices[i] = i;
+        }
+        return resolveByName(name, localRegister, localIndices, phase);
+    }
+
+    // Матрица 2x2 однокубитного гейта в формате кадров QubitRegister; null для прочих гейтов
+    public static double[] singleQubitMatrix(String name, double phase) {
+        Gate gate = resolveLocal(name, 1, phase);
+        return gate == null ? null : gate.singleQubitMatrix();
+    }
+
+    // Оракул на локальных кубитах: вход 0..inputSize-1, ancilla - inputSize
+    public static Gate resolveLocalOracle(String oracleName, int inputSize, Set<Integer> markedStates) {
+        QubitRegister localRegister = new QubitRegister("local", inputSize + 1);
+        return new OracleGate(oracleName, localRegister, 0, inputSize, inputSize, markedStates);
+    }
 }
@@ -1,5 +1,6 @@
 package org.example.model.gate;
 
+import javafx.util.Pair;
 import lombok.Getter;
 import org.example.model.qubit.Complex;
 
@@ -10,9 +11,21 @@ import java.util.Map;
 public class GateTrace implements Serializable {
     @Getter
     private final Map<Integer, Map<Integer, Complex>> trace;
+    // Гейт, переходы которого строятся только по запросу QGantt: при применении гейта трасса не вычисляется
+    private final transient Gate gate;
 
     public GateTrace() {
         trace = new HashMap<>();
+        gate = null;
+    }
+
+    private GateTrace(Gate gate) {
+        trace = new HashMap<>();
+        this.gate = gate;
+    }
+
+    public static GateTrace of(Gate gate) {
+        return new GateTrace(gate);
     }
 
     public void addAmplitude(Integer stateFrom, Integer stateTo, Complex amplitude) {
@@ -23,4 +36,26 @@ public class GateTrace implements Serializable {
 
         fromMap.put(stateTo, amplitude);
     }
+
+    // Переходы из показанного состояния before с вкладами амплитуд. Коэффициенты гейта не зависят от состояния регистра,
+    // поэтому достаточно его матрицы и состояния до применения; у трассы без гейта возвращаются записанные переходы.
+    public Map<Integer, Map<Integer, Complex>> traceFrom(Map<Integer, Complex> before) {
+        if (gate == null) {
+            return trace;
+        }
+        Map<Integer, Map<Integer, Complex>> transitions = new HashMap<>();
+        for (Map.Entry<Integer, Complex> entry : before.entrySet()) {
+            Map<Integer, Complex> fromMap = new HashMap<>(2);
+            for (Pair<Integer, Complex> toWithCoef : gate.getTosAndItsCoefs(entry.getKey())) {
+                Complex contribution = entry.getValue().multiply(toWithCoef.getValue());
+                if (!contribution.equals(Complex.getZero())) {
+                    fromMap.put(toWithCoef.getKey(), contribution);
+                }
+            }
+            if (!fromMap.isEmpty()) {
+                transitions.put(entry.getKey(), fromMap);
+            }
+        }
+        return transitions;
+    }
 }
@@ -0,0 +1,117 @@
+package org.example.model.gate;
+
+import javafx.util.Pair;
+import org.example.model.qubit.Complex;
+
+import java.io.Serializable;
+
+// Матрица гейта на его локальных кубитах (2^arity x 2^arity), построенная через getTosAndItsCoefs.
+// Хранится построчно в разреженном виде: для строки j - столбцы и коэффициенты ненулевых элементов.
+public class LocalOperator implements Serializable {
+    private final int arity;
+    private final int[][] columns;
+    private final double[][] re;
+    private final double[][] im;
+
+    private LocalOperator(int arity, int[][] columns, double[][] re, double[][] im) {
+        this.arity = arity;
+        this.columns = columns;
+        this.re = re;
+        this.im = im;
+    }
+
+    public static LocalOperator of(Gate localGate, int arity) {
+        int dim = 1 << arity;
+        double[] denseRe = new double[dim * dim];
+        double[] denseIm = new double[dim * dim];
+        for (int from = 0; from < dim; from++) {
+            for (Pair<Integer, Complex> toWithCoef : localGate.getTosAndItsCoefs(from)) {
+                int to = toWithCoef.getKey();
+                if (to < 0 || to >= dim) {
+                    throw new IllegalArgumentException("Гейт " + localGate + " выходит за пределы своих " + arity + " локальных кубитов");
+                }
+                denseRe[to * dim + from] += toWithCoef.getValue().getReal();
+                denseIm[to * dim + from] += toWithCoef.getValue().getImaginary();
+            }
+        }
+
+        int[][] columns = new int[dim][];
+        double[][] re = new double[dim][];
+        double[][] im = new double[dim][];
+        for (int row = 0; row < dim; row++) {
+            int count = 0;
+            for (int col = 0; col < dim; col++) {
+                if (denseRe[row * dim + col] != 0.0 || denseIm[row * dim + col] != 0.0) {
+                    count++;
+                }
+            }
+            columns[row] = new int[count];
+            re[row] = new double[count];
+            im[row] = new double[count];
+            int k = 0;
+            for (int col = 0; col < dim; col++) {
+                if (denseRe[row * dim + col] != 0.0 || denseIm[row * dim + col] != 0.0) {
+                    columns[row][k] = col;
+                    re[row][k] = denseRe[row * dim + col];
+                    im[row][k] = denseIm[row * dim + col];
+                    k++;
+                }
+            }
+        }
+        return new LocalOperator(arity, columns, re, im);
+    }
+
+    public int getArity() {
+        return arity;
+    }
+
+    public int getDimension() {
+        return 1 << arity;
+    }
+
+    public int[] getColumns(int row) {
+        return columns[row];
+    }
+
+    public double[] getReal(int row) {
+        return re[row];
+    }
+
+    public double[] getImaginary(int row) {
+        return im[row];
+    }
+
+    public Complex get(int row, int col) {
+        for (int k = 0; k < columns[row].length; k++) {
+            if (columns[row][k] == col) {
+                return new Complex(re[row][k], im[row][k]);
+            }
+        }
+        return Complex.getZero();
+    }
+
+    // Смещения строк/столбцов полного пространства для каждого локального базисного состояния
+    public static int[] localOffsets(int[] qubits) {
+        int[] offsets = new int[1 << qubits.length];
+        for (int local = 0; local < offsets.length; local++) {
+            int offset = 0;
+            for (int m = 0; m < qubits.length; m++) {
+                if (((local >> m) & 1) == 1) {
+                    offset |= 1 << qubits[m];
+                }
+            }
+            offsets[local] = offset;
+        }
+        return offsets;
+    }
+
+    // g-й индекс полного пространства, у которого биты на позициях qubits равны нулю
+    public static int insertZeroBits(int g, int[] sortedQubits) {
+        int result = g;
+        for (int q : sortedQubits) {
+            int low = result & ((1 << q) - 1);
+            result = ((result >> q) << (q + 1)) | low;
+        }
+        return result;
+    }
+}
@@ -26,6 +26,16 @@ public class H extends Gate {
         }
     }
 
+    @Override
+    protected boolean hasRealCoefficients() {
+        return true;
+    }
+
+    @Override
+    protected boolean actsOnSingleQubit() {
+        return true;
+    }
+
     @Override
     public String toString() {
         return "H";
@@ -5,6 +5,8 @@ import org.example.model.gate.Gate;
 import org.example.model.qubit.Complex;
 import org.example.model.qubit.QubitRegister;
 
+import java.util.stream.IntStream;
+
 public class Increment extends Gate {
     private final boolean increment;
 
@@ -13,6 +15,16 @@ public class Increment extends Gate {
         this.increment = increment;
     }
 
+    public boolean isIncrement() {
+        return increment;
+    }
+
+    // Прибавление действует на весь реальный регистр
+    @Override
+    protected Integer[] getTouchedQubitsIndices() {
+        return IntStream.range(0, targetRegister.size()).boxed().toArray(Integer[]::new);
+    }
+
     public Pair<Integer, Complex>[] getTosAndItsCoefs(Integer state) {
         int numOfStates = 1 << targetRegister.size();
         if (increment) {
@@ -22,6 +34,11 @@ public class Increment extends Gate {
         }
     }
 
+    @Override
+    protected boolean hasRealCoefficients() {
+        return true;
+    }
+
     @Override
     public String toString() {
         if (this.increment) {
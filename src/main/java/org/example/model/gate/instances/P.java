@@ -21,6 +21,11 @@ public class P extends Gate {
         }
     }
 
+    @Override
+    protected boolean actsOnSingleQubit() {
+        return true;
+    }
+
     @Override
     public String toString() {
         return "P";
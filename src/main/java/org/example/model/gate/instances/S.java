@@ -19,6 +19,11 @@ public class S extends Gate {
         }
     }
 
+    @Override
+    protected boolean actsOnSingleQubit() {
+        return true;
+    }
+
     @Override
     public String toString() {
         return "S";
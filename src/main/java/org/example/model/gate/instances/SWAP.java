@@ -10,6 +10,12 @@ public class SWAP extends Gate {
         super(register, targetQubitsIncices);
     }
 
+    @Override
+    protected boolean conjugatePauliFrame() {
+        targetRegister.conjugatePauliFrameBySwap(targetQubitsIndices[0], targetQubitsIndices[1]);
+        return true;
+    }
+
     @Override
     public Pair<Integer, Complex>[] getTosAndItsCoefs(Integer state) {
         Integer id1 = targetQubitsIndices[0];
@@ -21,6 +27,11 @@ public class SWAP extends Gate {
         }
     }
 
+    @Override
+    protected boolean hasRealCoefficients() {
+        return true;
+    }
+
     @Override
     public String toString() {
         return "SWAP";
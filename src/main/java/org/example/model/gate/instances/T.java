@@ -19,6 +19,11 @@ public class T extends Gate {
         }
     }
 
+    @Override
+    protected boolean actsOnSingleQubit() {
+        return true;
+    }
+
     @Override
     public String toString() {
         return "T";
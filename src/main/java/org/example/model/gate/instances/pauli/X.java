@@ -15,6 +15,16 @@ public class X extends Gate {
         return new Pair[]{new Pair<>(state ^ (1 << targetQubitsIndices[0]), Complex.getOne())};
     }
 
+    @Override
+    protected boolean hasRealCoefficients() {
+        return true;
+    }
+
+    @Override
+    protected boolean actsOnSingleQubit() {
+        return true;
+    }
+
     @Override
     public String toString() {
         return "X";
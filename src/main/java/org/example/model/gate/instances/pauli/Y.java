@@ -18,6 +18,11 @@ public class Y extends Gate {
         }
     }
 
+    @Override
+    protected boolean actsOnSingleQubit() {
+        return true;
+    }
+
     @Override
     public String toString() {
         return "Y";
@@ -18,6 +18,16 @@ public class Z extends Gate {
         }
     }
 
+    @Override
+    protected boolean hasRealCoefficients() {
+        return true;
+    }
+
+    @Override
+    protected boolean actsOnSingleQubit() {
+        return true;
+    }
+
     @Override
     public String toString() {
         return "Z";
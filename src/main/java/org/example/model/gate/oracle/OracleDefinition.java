@@ -2,17 +2,95 @@ package org.example.model.gate.oracle;
 
 import lombok.Getter;
 
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
 import java.io.Serializable;
+import java.util.HashSet;
 import java.util.Set;
 
 @Getter
 public class OracleDefinition implements Serializable {
     private final String name;
+    // Размер входа из первой строки CSV; 0, если определение задано без файла
+    private final int inputSize;
     private final Set<Integer> statesWhereOutputIsOne;
 
     public OracleDefinition(String name, Set<Integer> statesWhereOutputIsOne) {
+        this(name, 0, statesWhereOutputIsOne);
+    }
+
+    public OracleDefinition(String name, int inputSize, Set<Integer> statesWhereOutputIsOne) {
         this.name = name;
+        this.inputSize = inputSize;
         this.statesWhereOutputIsOne = statesWhereOutputIsOne;
     }
 
-}
\ No newline at end of file
+    // Первая непустая строка CSV - размер входа, остальные - десятичные входы с выходом 1. Строки с # пропускаются.
+    public static OracleDefinition fromCsv(String oracleName, String csvPath) {
+        Set<Integer> statesWhereOutputIsOne = new HashSet<>();
+        int inputSize = -1;
+        int maxStateValue = -1;
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(csvPath))) {
+            String line;
+            boolean firstLine = true;
+
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                if (firstLine) {
+                    try {
+                        inputSize = Integer.parseInt(line);
+                        if (inputSize <= 0) {
+                            throw new IllegalArgumentException("Размер входа (inputSize) в первой строке CSV должен быть положительным целым числом.");
+                        }
+                        firstLine = false;
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Первая непустая строка CSV файла '" + csvPath + "' должна содержать размер входа (inputSize) как целое число.", e);
+                    }
+                } else {
+                    if (inputSize == -1) {
+                        // Эта ошибка не должна возникать, если первая строка прочитана правильно
+                        throw new IllegalStateException("Размер входа (inputSize) не был определен перед чтением состояний.");
+                    }
+                    try {
+                        int stateDecimal = Integer.parseInt(line);
+                        if (stateDecimal < 0) {
+                            throw new IllegalArgumentException("Десятичное состояние '" + line + "' в CSV не может быть отрицательным.");
+                        }
+                        if (stateDecimal >= (1 << inputSize)) {
+                            throw new IllegalArgumentException("Десятичное состояние " + stateDecimal + " в CSV файле превышает максимальное значение для " + inputSize + " кубитов (" + ((1 << inputSize) - 1) + ").");
+                        }
+
+                        if (!statesWhereOutputIsOne.add(stateDecimal)) {
+                            System.err.println("Предупреждение: Дублирующееся десятичное состояние " + stateDecimal + " в CSV файле '" + csvPath + "' для оракула '" + oracleName + "'.");
+                        }
+                        maxStateValue = Math.max(maxStateValue, stateDecimal);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Неверный формат десятичного состояния '" + line + "' в CSV файле '" + csvPath + "'. Ожидается целое число.", e);
+                    }
+                }
+            }
+        } catch (FileNotFoundException e) {
+            throw new RuntimeException("Ошибка: Файл CSV для оракула '" + oracleName + "' не найден: " + csvPath, e);
+        } catch (IOException e) {
+            throw new RuntimeException("Ошибка чтения CSV файла для оракула '" + oracleName + "': " + csvPath, e);
+        }
+
+        if (inputSize == -1) {
+            throw new IllegalArgumentException("CSV файл '" + csvPath + "' не содержит определения размера входа (inputSize) в первой строке.");
+        }
+
+        if (maxStateValue != -1 && maxStateValue >= (1 << inputSize)) {
+            throw new IllegalStateException("Внутренняя ошибка: максимальное состояние не соответствует inputSize.");
+        }
+
+        return new OracleDefinition(oracleName, inputSize, statesWhereOutputIsOne);
+    }
+
+}
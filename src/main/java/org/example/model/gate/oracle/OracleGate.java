@@ -63,6 +63,11 @@ public class OracleGate extends Gate {
         return result;
     }
 
+    @Override
+    protected boolean hasRealCoefficients() {
+        return true;
+    }
+
     @Override
     public String toString() {
         return this.oracleName;
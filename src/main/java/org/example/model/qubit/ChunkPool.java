@@ -0,0 +1,54 @@
+package org.example.model.qubit;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+// Освобождённые массивы чанков одного размера. Гейт строит новый массив амплитуд и выбрасывает старый;
+// через пул чанки старого массива достаются новому без выделения памяти. Пул не потокобезопасен:
+// его делят только массивы одного регистра.
+final class ChunkPool {
+    // Больше не удерживаем: после схлопывания носителя измерением память должна освобождаться
+    private static final int MAX_POOLED = 4096;
+
+    private final int chunkSize;
+    private final ArrayDeque<double[]> doubleChunks = new ArrayDeque<>();
+    private final ArrayDeque<byte[]> byteChunks = new ArrayDeque<>();
+
+    ChunkPool(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    int getChunkSize() {
+        return chunkSize;
+    }
+
+    // Обнулённый массив
+    double[] takeDoubles() {
+        double[] chunk = doubleChunks.pollLast();
+        return chunk != null ? chunk : new double[chunkSize];
+    }
+
+    byte[] takeBytes() {
+        byte[] chunk = byteChunks.pollLast();
+        return chunk != null ? chunk : new byte[chunkSize];
+    }
+
+    // Массив обнуляется при возврате, чтобы взятие было O(1)
+    void release(double[] chunk) {
+        if (chunk != null && chunk.length == chunkSize && doubleChunks.size() < MAX_POOLED) {
+            Arrays.fill(chunk, 0.0);
+            doubleChunks.addLast(chunk);
+        }
+    }
+
+    void release(byte[] chunk) {
+        if (chunk != null && chunk.length == chunkSize && byteChunks.size() < MAX_POOLED) {
+            Arrays.fill(chunk, (byte) 0);
+            byteChunks.addLast(chunk);
+        }
+    }
+
+    int pooledCount() {
+        return doubleChunks.size() + byteChunks.size();
+    }
+}
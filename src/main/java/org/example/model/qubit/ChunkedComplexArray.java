@@ -1,48 +1,485 @@
 package org.example.model.qubit;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Map;
 
+// Амплитуды хранятся чанками. Пока различных значений немного (равномерные суперпозиции, итерации Гровера),
+// массив сжат: словарь различных амплитуд и номер класса (byte) на состояние. Когда классов становится
+// слишком много, массив навсегда (в том числе после clear() и в newEmpty()) переходит к явному хранению
+// примитивными double: повторные попытки сжатия на каждом гейте обходятся дороже, чем дают. В явном режиме мнимые части
+// не хранятся, пока все амплитуды вещественные; первая ненулевая мнимая часть переводит массив в комплексный.
+// Каждый чанк знает число своих ненулевых элементов: опустевший чанк освобождается за O(1)
+// и возвращается в пул, общий для массивов одного регистра.
 public class ChunkedComplexArray implements Serializable, Cloneable {
-    private final HashMap<Integer, Complex[]> innerArray;
-    private final int CHUNK_SIZE = 32;
+    static final int DEFAULT_CHUNK_SIZE = 32;
+    private static final int MIN_CHUNK_SHIFT = 3;
+    private static final int MAX_CHUNK_SHIFT = 8;
+    // В регистрах шире этого носитель заведомо разрежен
+    private static final int SPARSE_REGISTER_QUBITS = 20;
+    private static final int SPARSE_CHUNK_SIZE = 16;
+    // Номера классов 1..MAX_CLASSES помещаются в беззнаковый byte, класс 0 - нулевая амплитуда
+    private static final int MAX_CLASSES = 255;
+    // Открытая адресация по точным битам амплитуды: таблица заполнена не более чем наполовину
+    private static final int CLASS_SLOTS = 512;
+
+    // Номера классов в сжатом режиме либо вещественные и мнимые части в явном
+    private static final class Chunk implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        byte[] classes;
+        double[] re;
+        // null - массив вещественный
+        double[] im;
+        int occupied;
+    }
+
+    private final int chunkShift;
+    private final int chunkMask;
+    private HashMap<Integer, Chunk> chunks;
+    private transient ChunkPool pool;
+
+    // Сжатый режим: словарь не null, пока массив сжат
+    private double[] classRe;
+    private double[] classIm;
+    private int classCount;
+    // Индекс словаря: биты re и im и номер класса в слоте, 0 - слот свободен
+    private long[] slotRe;
+    private long[] slotIm;
+    private int[] slotClass;
+    // false - словарь однажды переполнился, массив и его пустые копии хранятся явно
+    private boolean compressible = true;
+
+    // Явный режим: у чанков есть мнимые части
+    private boolean complex;
 
     public ChunkedComplexArray() {
-        innerArray = new HashMap<>();
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    public ChunkedComplexArray(int chunkSize) {
+        this(chunkSize, null);
+    }
+
+    private ChunkedComplexArray(int chunkSize, ChunkPool pool) {
+        if (chunkSize < 1 || Integer.bitCount(chunkSize) != 1) {
+            throw new IllegalArgumentException("Размер чанка должен быть степенью двойки: " + chunkSize);
+        }
+        this.chunkShift = Integer.numberOfTrailingZeros(chunkSize);
+        this.chunkMask = chunkSize - 1;
+        this.pool = pool;
+        resetClasses();
+    }
+
+    // Маленькие регистры обычно плотные: крупный чанк сокращает число записей в таблице.
+    // В широких регистрах мелкий чанк не тратит память на нули вокруг редких состояний.
+    public static int chunkSizeFor(int numQubits) {
+        if (numQubits > SPARSE_REGISTER_QUBITS) {
+            return SPARSE_CHUNK_SIZE;
+        }
+        return 1 << Math.max(MIN_CHUNK_SHIFT, Math.min(MAX_CHUNK_SHIFT, numQubits - 4));
+    }
+
+    // Пустой массив с тем же размером чанка и общим пулом
+    public ChunkedComplexArray newEmpty() {
+        ChunkedComplexArray array = new ChunkedComplexArray(getChunkSize(), pool());
+        if (!compressible) {
+            array.disableCompression();
+        }
+        return array;
+    }
+
+    public int getChunkSize() {
+        return chunkMask + 1;
+    }
+
+    private ChunkPool pool() {
+        if (pool == null) {
+            pool = new ChunkPool(getChunkSize());
+        }
+        return pool;
+    }
+
+    int getChunkCount() {
+        return chunks.size();
+    }
+
+    int getPooledCount() {
+        return pool == null ? 0 : pool.pooledCount();
+    }
+
+    // Очистка без выделения памяти: словарь и таблица чанков переиспользуются
+    private void resetClasses() {
+        if (chunks == null) {
+            chunks = new HashMap<>();
+        } else {
+            chunks.clear();
+        }
+        complex = false;
+        if (!compressible) {
+            return;
+        }
+        if (classRe == null) {
+            classRe = new double[MAX_CLASSES + 1];
+            classIm = new double[MAX_CLASSES + 1];
+            slotRe = new long[CLASS_SLOTS];
+            slotIm = new long[CLASS_SLOTS];
+            slotClass = new int[CLASS_SLOTS];
+        } else {
+            Arrays.fill(slotClass, 0);
+        }
+        classCount = 1;
+    }
+
+    // Пустой массив без словаря классов
+    private void disableCompression() {
+        compressible = false;
+        classRe = null;
+        classIm = null;
+        slotRe = null;
+        slotIm = null;
+        slotClass = null;
+    }
+
+    public boolean isCompressed() {
+        return slotClass != null;
+    }
+
+    public int getClassCount() {
+        return isCompressed() ? classCount - 1 : -1;
+    }
+
+    public boolean isReal() {
+        if (isCompressed()) {
+            for (int c = 1; c < classCount; c++) {
+                if (classIm[c] != 0.0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return !complex;
     }
 
     public void set(int id, Complex value) {
-        if (!innerArray.containsKey(id / CHUNK_SIZE)) {
-            Complex[] newChunk = new Complex[CHUNK_SIZE];
-            for (int i = 0; i < CHUNK_SIZE; i++) {
-                newChunk[i] = Complex.getZero();
-            }
-            innerArray.put(id / CHUNK_SIZE, newChunk);
-        }
-        Complex[] chunk = innerArray.get(id / CHUNK_SIZE);
-        chunk[id % CHUNK_SIZE] = value;
-        if (value.isZero()) {
-            boolean isAllZero = true;
-            for (int i = 0; i < CHUNK_SIZE; i++) {
-                if (!chunk[i].isZero()) {
-                    isAllZero = false;
-                    break;
+        put(id, value.getReal(), value.getImaginary());
+    }
+
+    // Запись вещественной амплитуды для вещественных ядер гейтов
+    public void setReal(int id, double value) {
+        put(id, value, 0.0);
+    }
+
+    private void put(int id, double re, double im) {
+        int chunkId = id >>> chunkShift;
+        int offset = id & chunkMask;
+        if (isCompressed()) {
+            int amplitudeClass = classOf(re, im);
+            if (amplitudeClass >= 0) {
+                Chunk chunk = chunks.get(chunkId);
+                if (chunk == null) {
+                    if (amplitudeClass == 0) {
+                        return;
+                    }
+                    chunk = new Chunk();
+                    chunk.classes = pool().takeBytes();
+                    chunks.put(chunkId, chunk);
                 }
+                boolean wasOccupied = chunk.classes[offset] != 0;
+                chunk.classes[offset] = (byte) amplitudeClass;
+                updateOccupancy(chunkId, chunk, wasOccupied, amplitudeClass != 0);
+                return;
             }
-            if (isAllZero) {
-                innerArray.remove(id / CHUNK_SIZE);
+            expand();
+            compressible = false;
+        }
+        if (im != 0.0 && !complex) {
+            promoteToComplex();
+        }
+        Chunk chunk = chunks.get(chunkId);
+        if (chunk == null) {
+            if (re == 0.0 && im == 0.0) {
+                return;
             }
+            chunk = newExplicitChunk();
+            chunks.put(chunkId, chunk);
+        }
+        boolean wasOccupied = chunk.re[offset] != 0.0 || (chunk.im != null && chunk.im[offset] != 0.0);
+        chunk.re[offset] = re;
+        if (chunk.im != null) {
+            chunk.im[offset] = im;
+        }
+        updateOccupancy(chunkId, chunk, wasOccupied, re != 0.0 || im != 0.0);
+    }
+
+    private void updateOccupancy(int chunkId, Chunk chunk, boolean wasOccupied, boolean isOccupied) {
+        if (wasOccupied == isOccupied) {
+            return;
+        }
+        chunk.occupied += isOccupied ? 1 : -1;
+        if (chunk.occupied == 0) {
+            chunks.remove(chunkId);
+            releaseChunk(chunk);
         }
     }
 
+    private Chunk newExplicitChunk() {
+        Chunk chunk = new Chunk();
+        chunk.re = pool().takeDoubles();
+        chunk.im = complex ? pool().takeDoubles() : null;
+        return chunk;
+    }
+
+    private void releaseChunk(Chunk chunk) {
+        ChunkPool chunkPool = pool();
+        chunkPool.release(chunk.classes);
+        chunkPool.release(chunk.re);
+        chunkPool.release(chunk.im);
+    }
+
+    // Номер класса амплитуды, новый класс при необходимости; -1, если классы закончились.
+    // Классы различаются точными битами значения, -0.0 и 0.0 совпадают; поиск не выделяет памяти.
+    private int classOf(double re, double im) {
+        if (re == 0.0 && im == 0.0) {
+            return 0;
+        }
+        long reBits = Double.doubleToLongBits(re + 0.0);
+        long imBits = Double.doubleToLongBits(im + 0.0);
+        int slot = slotOf(reBits, imBits);
+        if (slotClass[slot] != 0) {
+            return slotClass[slot];
+        }
+        if (classCount > MAX_CLASSES) {
+            return -1;
+        }
+        classRe[classCount] = re;
+        classIm[classCount] = im;
+        slotRe[slot] = reBits;
+        slotIm[slot] = imBits;
+        slotClass[slot] = classCount;
+        return classCount++;
+    }
+
+    // Слот с этими битами либо свободный слот, куда их следует записать
+    private int slotOf(long reBits, long imBits) {
+        long hash = (reBits * 31 + imBits) * 0x9E3779B97F4A7C15L;
+        int mask = CLASS_SLOTS - 1;
+        int slot = (int) (hash >>> 32) & mask;
+        while (slotClass[slot] != 0 && (slotRe[slot] != reBits || slotIm[slot] != imBits)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // Переход к явному хранению, массивы номеров классов возвращаются в пул
+    private void expand() {
+        complex = !isReal();
+        for (Chunk chunk : chunks.values()) {
+            chunk.re = pool().takeDoubles();
+            chunk.im = complex ? pool().takeDoubles() : null;
+            for (int i = 0; i < chunk.classes.length; i++) {
+                chunk.re[i] = classRe[chunk.classes[i] & 0xFF];
+                if (chunk.im != null) {
+                    chunk.im[i] = classIm[chunk.classes[i] & 0xFF];
+                }
+            }
+            pool().release(chunk.classes);
+            chunk.classes = null;
+        }
+        classRe = null;
+        classIm = null;
+        slotRe = null;
+        slotIm = null;
+        slotClass = null;
+    }
+
+    private void promoteToComplex() {
+        complex = true;
+        chunks.values().forEach(chunk -> chunk.im = pool().takeDoubles());
+    }
+
     public void clear() {
-        innerArray.clear();
+        release();
+        resetClasses();
+    }
+
+    // Возвращает все чанки в пул, массив становится пустым. Для массива, который регистр заменил новым.
+    public void release() {
+        chunks.values().forEach(this::releaseChunk);
+        chunks.clear();
     }
 
     public Complex get(int id) {
-        if (!innerArray.containsKey(id / CHUNK_SIZE)) {
+        Chunk chunk = chunks.get(id >>> chunkShift);
+        if (chunk == null) {
             return Complex.getZero();
         }
-        return innerArray.get(id / CHUNK_SIZE)[id % CHUNK_SIZE];
+        int offset = id & chunkMask;
+        if (isCompressed()) {
+            int amplitudeClass = chunk.classes[offset] & 0xFF;
+            return new Complex(classRe[amplitudeClass], classIm[amplitudeClass]);
+        }
+        return new Complex(chunk.re[offset], chunk.im == null ? 0.0 : chunk.im[offset]);
+    }
+
+    public double getReal(int id) {
+        Chunk chunk = chunks.get(id >>> chunkShift);
+        if (chunk == null) {
+            return 0.0;
+        }
+        return isCompressed() ? classRe[chunk.classes[id & chunkMask] & 0xFF] : chunk.re[id & chunkMask];
+    }
+
+    double getImaginary(int id) {
+        Chunk chunk = chunks.get(id >>> chunkShift);
+        if (chunk == null) {
+            return 0.0;
+        }
+        if (isCompressed()) {
+            return classIm[chunk.classes[id & chunkMask] & 0xFF];
+        }
+        return chunk.im == null ? 0.0 : chunk.im[id & chunkMask];
+    }
+
+    // Массив из ненулевых амплитуд с возрастающими индексами, размер чанка и пул - как у like.
+    // Пока хватает классов, заполняется сжатый словарь; после перехода в явный режим оставшиеся амплитуды
+    // пишутся в чанки последовательно, без поиска на каждую.
+    static ChunkedComplexArray ofSorted(ChunkedComplexArray like, int[] ids, double[] re, double[] im, int size) {
+        ChunkedComplexArray array = like.newEmpty();
+        putSorted(array, ids, re, im, size);
+        return array;
+    }
+
+    // То же в пустой массив array, например запасной буфер регистра
+    static void putSorted(ChunkedComplexArray array, int[] ids, double[] re, double[] im, int size) {
+        int k = 0;
+        while (k < size && array.isCompressed()) {
+            array.put(ids[k], re[k], im == null ? 0.0 : im[k]);
+            k++;
+        }
+        if (k == size) {
+            return;
+        }
+        boolean hasImaginary = false;
+        for (int j = k; j < size && im != null && !hasImaginary; j++) {
+            hasImaginary = im[j] != 0.0;
+        }
+        if (hasImaginary && !array.complex) {
+            array.promoteToComplex();
+        }
+        int chunkId = -1;
+        Chunk chunk = null;
+        for (; k < size; k++) {
+            if (ids[k] >>> array.chunkShift != chunkId) {
+                chunkId = ids[k] >>> array.chunkShift;
+                chunk = array.chunks.get(chunkId);
+                if (chunk == null) {
+                    chunk = array.newExplicitChunk();
+                    array.chunks.put(chunkId, chunk);
+                }
+            }
+            int offset = ids[k] & array.chunkMask;
+            double imaginary = im == null ? 0.0 : im[k];
+            boolean wasOccupied = chunk.re[offset] != 0.0 || (chunk.im != null && chunk.im[offset] != 0.0);
+            chunk.re[offset] = re[k];
+            if (chunk.im != null) {
+                chunk.im[offset] = imaginary;
+            }
+            if (!wasOccupied && (re[k] != 0.0 || imaginary != 0.0)) {
+                chunk.occupied++;
+            }
+        }
+    }
+
+    // Умножение всех амплитуд на множитель; в сжатом режиме - за O(число классов)
+    public void scaleAll(Complex factor) {
+        if (isCompressed()) {
+            // Совпавшие после умножения классы остаются в словаре, в индекс попадает первый из них
+            Arrays.fill(slotClass, 0);
+            for (int c = 1; c < classCount; c++) {
+                Complex scaled = new Complex(classRe[c], classIm[c]).multiply(factor);
+                classRe[c] = scaled.getReal();
+                classIm[c] = scaled.getImaginary();
+                long reBits = Double.doubleToLongBits(classRe[c] + 0.0);
+                long imBits = Double.doubleToLongBits(classIm[c] + 0.0);
+                int slot = slotOf(reBits, imBits);
+                if (slotClass[slot] == 0) {
+                    slotRe[slot] = reBits;
+                    slotIm[slot] = imBits;
+                    slotClass[slot] = c;
+                }
+            }
+            return;
+        }
+        if (factor.getImaginary() != 0.0 && !complex) {
+            promoteToComplex();
+        }
+        for (Chunk chunk : chunks.values()) {
+            for (int i = 0; i < chunk.re.length; i++) {
+                double re = chunk.re[i];
+                double im = chunk.im == null ? 0.0 : chunk.im[i];
+                chunk.re[i] = re * factor.getReal() - im * factor.getImaginary();
+                if (chunk.im != null) {
+                    chunk.im[i] = re * factor.getImaginary() + im * factor.getReal();
+                }
+            }
+        }
+    }
+
+    // Массовая вставка готовых чанков длины getChunkSize() без проверок на ноль, чанки не должны пересекаться
+    // с уже имеющимися. imaginary == null - вставляемые амплитуды вещественные. Вставка переводит массив в явный режим.
+    void putChunks(Map<Integer, double[]> real, Map<Integer, double[]> imaginary) {
+        if (isCompressed()) {
+            expand();
+        }
+        if (imaginary != null && !complex) {
+            promoteToComplex();
+        }
+        real.forEach((chunkId, realChunk) -> {
+            Chunk chunk = new Chunk();
+            chunk.re = realChunk;
+            if (complex) {
+                chunk.im = imaginary == null ? pool().takeDoubles() : imaginary.get(chunkId);
+            }
+            for (int i = 0; i < realChunk.length; i++) {
+                if (realChunk[i] != 0.0 || (chunk.im != null && chunk.im[i] != 0.0)) {
+                    chunk.occupied++;
+                }
+            }
+            if (chunk.occupied > 0) {
+                chunks.put(chunkId, chunk);
+            } else {
+                // Полностью нулевой чанк не хранится, его массивы возвращаются в пул
+                releaseChunk(chunk);
+            }
+        });
+    }
+
+    // Копия получает собственный пул: копии уходят в другие потоки и истории эмуляции
+    @Override
+    public ChunkedComplexArray clone() {
+        ChunkedComplexArray copy = new ChunkedComplexArray(getChunkSize());
+        chunks.forEach((chunkId, chunk) -> {
+            Chunk chunkCopy = new Chunk();
+            chunkCopy.classes = chunk.classes == null ? null : chunk.classes.clone();
+            chunkCopy.re = chunk.re == null ? null : chunk.re.clone();
+            chunkCopy.im = chunk.im == null ? null : chunk.im.clone();
+            chunkCopy.occupied = chunk.occupied;
+            copy.chunks.put(chunkId, chunkCopy);
+        });
+        copy.complex = complex;
+        if (isCompressed()) {
+            copy.classRe = classRe.clone();
+            copy.classIm = classIm.clone();
+            copy.classCount = classCount;
+            copy.slotRe = slotRe.clone();
+            copy.slotIm = slotIm.clone();
+            copy.slotClass = slotClass.clone();
+        } else {
+            copy.disableCompression();
+        }
+        copy.compressible = compressible;
+        return copy;
     }
 }
@@ -1,21 +1,45 @@
 package org.example.model.qubit;
 
+import javafx.util.Pair;
 import lombok.Getter;
 import lombok.Setter;
+import org.example.model.gate.Gate;
+import org.example.model.gate.instances.pauli.X;
+import org.example.model.gate.instances.pauli.Y;
+import org.example.model.gate.instances.pauli.Z;
+import org.example.model.qubit.backend.BackendFactory;
+import org.example.model.qubit.backend.RegisterBackend;
 
 import java.io.Serializable;
-import java.util.BitSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Random;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
 
 public class QubitRegister implements Serializable {
+    // Допустимое отклонение амплитуды при проверке разложения в тензорное произведение
+    private static final double FACTOR_TOLERANCE = 1e-9;
+    // Коэффициенты кадра и амплитуды меньше этого порога при сворачивании считаются нулевыми
+    private static final double FRAME_TOLERANCE = 1e-15;
+    // Множитель регистра сворачивается в амплитуды, если его модуль выходит из [1/2, 2]. Пороги ядер
+    // (Gate.ZERO_TOLERANCE, Complex.equals) абсолютные, поэтому хранимые амплитуды должны оставаться
+    // близки к нормированным; фаза с модулем 1 остаётся отложенной сколько угодно долго.
+    private static final double MIN_SCALE_MODULUS_SQUARED = 0.25;
+    private static final double MAX_SCALE_MODULUS_SQUARED = 4;
+    // Начиная с такого размера носителя результата тензорное произведение считается параллельно
+    private static final int PARALLEL_JOIN_THRESHOLD = 1 << 14;
+
     private final /* final */ int numQubits;
 
     @Getter
     @Setter
-    private BitSet states;
+    private SupportSet states;
 
-    @Getter
-    @Setter
     private ChunkedComplexArray amplitudes;
 
     @Getter
@@ -27,7 +51,32 @@ public class QubitRegister implements Serializable {
     @Getter
     private final Integer offsetInRealRegister;
 
+    // null - обычное разреженное хранение (states + amplitudes)
+    private final RegisterBackend backend;
+
+    // Отложенные однокубитные операторы реального регистра: полное состояние равно (x) frames[q] |states>.
+    // Кадр кубита - матрица 2x2 {a, b; c, d} в виде {a_re, a_im, b_re, b_im, c_re, c_im, d_re, d_im},
+    // null - тождественный. Кадр сворачивается в амплитуды, только когда кубит нужен другой операции.
+    private double[][] frames;
+    // Запасные буферы реального регистра: гейт строит в них следующее состояние, прежнее становится запасным
+    private transient SupportSet spareStates;
+    private transient ChunkedComplexArray spareAmplitudes;
+    // Рабочие массивы ядра слияния: вход и результат, переиспользуются от гейта к гейту
+    private transient SortedSparseState sortedSource;
+    private transient SortedSparseState sortedResult;
+    // Ленивая рамка Паули между кадрами и хранимым состоянием: X^pauliX * Z^pauliZ.
+    // Полное состояние равно scale * (x) frames[q] * P |states>; у кубита с кадром биты рамки Паули не хранятся.
+    private long pauliX;
+    private long pauliZ;
+    // Общий комплексный множитель: нормировка после измерения и глобальные фазы за O(1)
+    private Complex scale = Complex.getOne();
+
     public QubitRegister(String name, int numQubits) {
+        this(name, numQubits, new Random());
+    }
+
+    // Генератор задаёт исходы измерений, например для воспроизводимых серий запусков
+    public QubitRegister(String name, int numQubits, Random random) {
         if (name == null || name.isEmpty()) {
             throw new IllegalArgumentException("Имя регистра не может быть пустым");
         }
@@ -36,13 +85,34 @@ public class QubitRegister implements Serializable {
         }
         this.name = name;
         this.numQubits = numQubits;
-        this.states = new BitSet(1 << numQubits);
-        this.states.set(0, true);
-        this.amplitudes = new ChunkedComplexArray();
+        this.states = new SupportSet();
+        this.states.set(0);
+        this.amplitudes = new ChunkedComplexArray(ChunkedComplexArray.chunkSizeFor(numQubits));
         this.amplitudes.set(0, Complex.getOne());
+        this.random = random;
+        this.realRegister = this;
+        this.offsetInRealRegister = 0;
+        this.backend = null;
+    }
+
+    public QubitRegister(String name, int numQubits, RegisterBackend backend) {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("Имя регистра не может быть пустым");
+        }
+        if (numQubits <= 0) {
+            throw new IllegalArgumentException("Количество кубитов должно быть положительным");
+        }
+        if (backend == null || backend.size() != numQubits) {
+            throw new IllegalArgumentException("Бэкенд регистра " + name + " должен иметь " + numQubits + " кубитов");
+        }
+        this.name = name;
+        this.numQubits = numQubits;
+        this.states = null;
+        this.amplitudes = null;
         this.random = new Random();
         this.realRegister = this;
         this.offsetInRealRegister = 0;
+        this.backend = backend;
     }
 
     public QubitRegister(String name, int numQubits, QubitRegister realRegister, int offsetInRealRegister) {
@@ -70,6 +140,7 @@ public class QubitRegister implements Serializable {
         this.states = null;
         this.amplitudes = null;
         this.random = null;
+        this.backend = null;
     }
 
     public int size() {
@@ -80,14 +151,404 @@ public class QubitRegister implements Serializable {
         return this.realRegister.numQubits;
     }
 
-    public BitSet getStates() {
+    // Полное состояние: все отложенные кадры сворачиваются
+    public SupportSet getStates() {
+        this.realRegister.foldAllFrames();
         return this.realRegister.states;
     }
 
     public ChunkedComplexArray getAmplitudes() {
+        this.realRegister.foldAllFrames();
+        return this.realRegister.amplitudes;
+    }
+
+    // Хранимое состояние без отложенных кадров. Корректно для кубитов, чьи кадры свёрнуты через foldFrames:
+    // кадры остальных кубитов коммутируют с операциями на этих кубитах.
+    public SupportSet getStoredStates() {
+        return this.realRegister.states;
+    }
+
+    public ChunkedComplexArray getStoredAmplitudes() {
         return this.realRegister.amplitudes;
     }
 
+    // Чанки заменённого массива возвращаются в пул и достаются следующему массиву регистра
+    public void setAmplitudes(ChunkedComplexArray amplitudes) {
+        if (this.amplitudes != null && this.amplitudes != amplitudes) {
+            this.amplitudes.release();
+        }
+        this.amplitudes = amplitudes;
+    }
+
+    // Пустой массив для нового состояния регистра: тот же размер чанка и общий пул
+    public ChunkedComplexArray newAmplitudes() {
+        ChunkedComplexArray stored = this.realRegister.amplitudes;
+        return stored == null ? new ChunkedComplexArray(ChunkedComplexArray.chunkSizeFor(numQubits)) : stored.newEmpty();
+    }
+
+    // Пустые буферы для следующего состояния реального регистра. Выделяются один раз,
+    // дальше гейты поочерёдно переключаются между ними и хранимым состоянием.
+    public SupportSet takeStatesBuffer() {
+        QubitRegister real = this.realRegister;
+        SupportSet buffer = real.spareStates;
+        real.spareStates = null;
+        return buffer != null ? buffer : new SupportSet();
+    }
+
+    public ChunkedComplexArray takeAmplitudesBuffer() {
+        QubitRegister real = this.realRegister;
+        ChunkedComplexArray buffer = real.spareAmplitudes;
+        real.spareAmplitudes = null;
+        return buffer != null ? buffer : real.newAmplitudes();
+    }
+
+    // Делает буферы из takeStatesBuffer/takeAmplitudesBuffer хранимым состоянием. Прежнее состояние
+    // очищается целиком (чанки уходят в пул) и становится запасными буферами.
+    public void swapBuffers(SupportSet states, ChunkedComplexArray amplitudes) {
+        QubitRegister real = this.realRegister;
+        SupportSet oldStates = real.states;
+        ChunkedComplexArray oldAmplitudes = real.amplitudes;
+        real.states = states;
+        real.amplitudes = amplitudes;
+        if (oldStates != null && oldStates != states) {
+            oldStates.clear();
+            real.spareStates = oldStates;
+        }
+        if (oldAmplitudes != null && oldAmplitudes != amplitudes) {
+            oldAmplitudes.clear();
+            real.spareAmplitudes = oldAmplitudes;
+        }
+    }
+
+    public boolean hasPendingFrames() {
+        QubitRegister real = this.realRegister;
+        return real.frames != null || real.hasPauliFrame() || !real.hasUnitScale();
+    }
+
+    // Отложенный X рамки Паули инвертирует значение кубита в хранимом состоянии
+    public int pendingPauliX(int realIndex) {
+        return (int) ((this.realRegister.pauliX >>> realIndex) & 1);
+    }
+
+    private boolean hasUnitScale() {
+        return scale.getReal() == 1.0 && scale.getImaginary() == 0.0;
+    }
+
+    // Глобальный множитель реального регистра, например фаза гейта на классических кубитах
+    public void multiplyScale(Complex factor) {
+        QubitRegister real = this.realRegister;
+        real.scale = real.scale.multiply(factor);
+        double modulusSquared = real.scale.modulusSquared();
+        if (modulusSquared < MIN_SCALE_MODULUS_SQUARED || modulusSquared > MAX_SCALE_MODULUS_SQUARED) {
+            real.applyScale();
+        }
+    }
+
+    private void applyScale() {
+        if (hasUnitScale()) {
+            return;
+        }
+        Complex factor = scale;
+        scale = Complex.getOne();
+        amplitudes.scaleAll(factor);
+    }
+
+    private boolean hasPauliFrame() {
+        return pauliX != 0 || pauliZ != 0;
+    }
+
+    // Однокубитный гейт откладывается в кадр кубита реального регистра за O(1)
+    public void deferSingleQubitGate(int realIndex, Gate localGate) {
+        QubitRegister real = this.realRegister;
+        if (real.backend != null) {
+            throw new IllegalStateException("Кадры поддерживаются только для разреженного хранения");
+        }
+        if (realIndex < 0 || realIndex >= real.numQubits) {
+            throw new IndexOutOfBoundsException("Индекс " + realIndex + " вне границ реального регистра " + real.name + " размера " + real.numQubits);
+        }
+        double[] gate = new double[8];
+        for (int col = 0; col < 2; col++) {
+            for (Pair<Integer, Complex> to : localGate.getTosAndItsCoefs(col)) {
+                gate[(to.getKey() * 2 + col) * 2] += to.getValue().getReal();
+                gate[(to.getKey() * 2 + col) * 2 + 1] += to.getValue().getImaginary();
+            }
+        }
+        if (real.frames == null) {
+            real.frames = new double[real.numQubits][];
+        }
+        if (real.frames[realIndex] == null && localGate instanceof X) {
+            real.applyPauliX(1L << realIndex);
+        } else if (real.frames[realIndex] == null && localGate instanceof Z) {
+            real.applyPauliZ(1L << realIndex);
+        } else if (real.frames[realIndex] == null && localGate instanceof Y) {
+            // Y = i X Z
+            real.applyPauliZ(1L << realIndex);
+            real.applyPauliX(1L << realIndex);
+            real.multiplyScale(new Complex(0, 1));
+        } else {
+            double[] frame = real.frames[realIndex];
+            real.frames[realIndex] = frame == null ? gate : multiply(gate, frame);
+            if (isIdentity(real.frames[realIndex])) {
+                real.frames[realIndex] = null;
+            }
+        }
+        if (Arrays.stream(real.frames).allMatch(Objects::isNull)) {
+            real.frames = null;
+        }
+    }
+
+    // X_q * X^x Z^z = X^(x ^ q) Z^z
+    private void applyPauliX(long mask) {
+        pauliX ^= mask;
+    }
+
+    // Z_q * X^x Z^z = (-1)^(x_q) X^x Z^(z ^ q)
+    private void applyPauliZ(long mask) {
+        if ((pauliX & mask) != 0) {
+            multiplyScale(new Complex(-1));
+        }
+        pauliZ ^= mask;
+    }
+
+    // Сопряжение рамки Паули через клиффордовы гейты: G P = P' G, хранимое состояние рамку не затрагивает.
+    // Кадры кубитов гейта должны быть уже свёрнуты.
+    public void conjugatePauliFrameByCx(int control, int target) {
+        QubitRegister real = this.realRegister;
+        // CX X_c CX = X_c X_t, CX Z_t CX = Z_c Z_t
+        real.pauliX ^= ((real.pauliX >>> control) & 1) << target;
+        real.pauliZ ^= ((real.pauliZ >>> target) & 1) << control;
+    }
+
+    public void conjugatePauliFrameByCz(int a, int b) {
+        QubitRegister real = this.realRegister;
+        long xa = (real.pauliX >>> a) & 1;
+        long xb = (real.pauliX >>> b) & 1;
+        // CZ X_a CZ = X_a Z_b; X_a Z_b Z_a X_b = -X_a X_b Z_a Z_b
+        if (xa == 1 && xb == 1) {
+            real.multiplyScale(new Complex(-1));
+        }
+        real.pauliZ ^= (xa << b) | (xb << a);
+    }
+
+    public void conjugatePauliFrameBySwap(int a, int b) {
+        QubitRegister real = this.realRegister;
+        real.pauliX = swapBits(real.pauliX, a, b);
+        real.pauliZ = swapBits(real.pauliZ, a, b);
+    }
+
+    private static long swapBits(long mask, int a, int b) {
+        long differ = ((mask >>> a) ^ (mask >>> b)) & 1;
+        return mask ^ (differ << a | differ << b);
+    }
+
+    // Применяет к хранимому состоянию часть рамки Паули на указанных кубитах
+    public void materializePauliFrame(Integer[] realIndices) {
+        QubitRegister real = this.realRegister;
+        long mask = 0;
+        for (Integer realIndex : realIndices) {
+            mask |= 1L << realIndex;
+        }
+        real.materializePauli(mask);
+    }
+
+    private void materializePauli(long mask) {
+        long x = pauliX & mask;
+        long z = pauliZ & mask;
+        if (x == 0 && z == 0) {
+            return;
+        }
+        pauliX &= ~mask;
+        pauliZ &= ~mask;
+        SupportSet movedStates = takeStatesBuffer();
+        ChunkedComplexArray movedAmplitudes = takeAmplitudesBuffer();
+        for (int i = states.nextSetBit(0); i >= 0; i = states.nextSetBit(i + 1)) {
+            Complex amplitude = amplitudes.get(i);
+            if ((Long.bitCount(z & i) & 1) == 1) {
+                amplitude = amplitude.multiply(new Complex(-1));
+            }
+            int to = (int) (i ^ x);
+            movedStates.set(to);
+            movedAmplitudes.set(to, amplitude);
+        }
+        swapBuffers(movedStates, movedAmplitudes);
+    }
+
+    // Сворачивает кадры и рамку Паули указанных кубитов реального регистра в амплитуды
+    public void foldFrames(Integer[] realIndices) {
+        foldOperatorFrames(realIndices);
+        materializePauliFrame(realIndices);
+    }
+
+    // Сворачивает только кадры указанных кубитов, рамка Паули остальных битов не трогается
+    public void foldOperatorFrames(Integer[] realIndices) {
+        QubitRegister real = this.realRegister;
+        if (real.frames == null) {
+            return;
+        }
+        for (Integer realIndex : realIndices) {
+            real.foldFrame(realIndex);
+        }
+    }
+
+    private void foldAllFrames() {
+        if (frames == null && !hasPauliFrame() && hasUnitScale()) {
+            return;
+        }
+        for (int q = 0; q < numQubits; q++) {
+            foldFrame(q);
+        }
+        materializePauli(-1L);
+        applyScale();
+    }
+
+    private void foldFrame(int q) {
+        double[] frame = frames == null ? null : frames[q];
+        if (frame == null) {
+            return;
+        }
+        frames[q] = null;
+        if (Arrays.stream(frames).allMatch(Objects::isNull)) {
+            frames = null;
+        }
+        // Биты рамки Паули этого кубита поглощаются кадром: F * X^x Z^z
+        long bit = 1L << q;
+        if (((pauliX | pauliZ) & bit) != 0) {
+            double sign = (pauliZ & bit) != 0 ? -1 : 1;
+            double[] pauli = (pauliX & bit) != 0
+                    ? new double[]{0, 0, sign, 0, 1, 0, 0, 0}
+                    : new double[]{1, 0, 0, 0, 0, 0, sign, 0};
+            frame = multiply(frame, pauli);
+            pauliX &= ~bit;
+            pauliZ &= ~bit;
+        }
+        storeSorted(loadSorted().applySingleQubit(0, q, frame, FRAME_TOLERANCE, sortedResult()));
+    }
+
+    // Контролируемый однокубитный оператор в формате кадров на хранимом состоянии реального регистра:
+    // слияние отсортированных потоков вместо обхода носителя с поиском по чанкам.
+    // Кадры и рамка Паули затронутых кубитов должны быть уже свёрнуты.
+    public void applySingleQubitMatrix(int controlMask, int target, double[] matrix, double tolerance) {
+        QubitRegister real = this.realRegister;
+        real.storeSorted(real.loadSorted().applySingleQubit(controlMask, target, matrix, tolerance, real.sortedResult()));
+    }
+
+    // Хранимое состояние реального регистра в рабочем отсортированном виде
+    private SortedSparseState loadSorted() {
+        if (sortedSource == null) {
+            sortedSource = new SortedSparseState();
+        }
+        return sortedSource.load(states, amplitudes);
+    }
+
+    private SortedSparseState sortedResult() {
+        if (sortedResult == null) {
+            sortedResult = new SortedSparseState();
+        }
+        return sortedResult;
+    }
+
+    // Отсортированное состояние записывается в запасные буферы, которые затем становятся хранимым состоянием
+    private void storeSorted(SortedSparseState sorted) {
+        SupportSet nextStates = takeStatesBuffer();
+        ChunkedComplexArray nextAmplitudes = takeAmplitudesBuffer();
+        sorted.writeTo(nextStates, nextAmplitudes);
+        swapBuffers(nextStates, nextAmplitudes);
+    }
+
+    // Перестановка базисных состояний реального регистра (прибавление, обмен, оракулы) без таблиц переходов:
+    // каждая амплитуда переносится в запасные буферы на место permutation(i)
+    public void applyPermutation(IntUnaryOperator permutation) {
+        QubitRegister real = this.realRegister;
+        if (real.backend != null) {
+            throw new IllegalStateException("Перестановки поддерживаются только для разреженного хранения");
+        }
+        real.foldAllFrames();
+        SupportSet states = real.states;
+        ChunkedComplexArray amplitudes = real.amplitudes;
+        SupportSet movedStates = real.takeStatesBuffer();
+        ChunkedComplexArray movedAmplitudes = real.takeAmplitudesBuffer();
+        if (amplitudes.isReal()) {
+            states.forEach(i -> {
+                int to = permutation.applyAsInt(i);
+                movedStates.set(to);
+                movedAmplitudes.setReal(to, amplitudes.getReal(i));
+            });
+        } else {
+            states.forEach(i -> {
+                int to = permutation.applyAsInt(i);
+                movedStates.set(to);
+                movedAmplitudes.set(to, amplitudes.get(i));
+            });
+        }
+        real.swapBuffers(movedStates, movedAmplitudes);
+    }
+
+    // Реальный регистр со свёрнутыми кадрами, хранимое состояние не меняется
+    public QubitRegister withFramesFolded() {
+        QubitRegister real = this.realRegister;
+        if (!real.hasPendingFrames()) {
+            return real;
+        }
+        QubitRegister copy = real.copy();
+        copy.foldAllFrames();
+        return copy;
+    }
+
+    // Независимая копия реального регистра с отложенными кадрами и тем же генератором исходов,
+    // например состояние перед первым измерением, от которого начинается каждый запуск серии
+    public QubitRegister copy() {
+        QubitRegister real = this.realRegister;
+        if (real.backend != null) {
+            throw new IllegalStateException("Копируются только регистры с разреженным хранением");
+        }
+        QubitRegister copy = new QubitRegister(real.name, real.numQubits, real.random);
+        copy.states = real.states.clone();
+        copy.amplitudes = real.amplitudes.clone();
+        if (real.frames != null) {
+            copy.frames = new double[real.frames.length][];
+            for (int q = 0; q < real.frames.length; q++) {
+                copy.frames[q] = real.frames[q] == null ? null : real.frames[q].clone();
+            }
+        }
+        copy.pauliX = real.pauliX;
+        copy.pauliZ = real.pauliZ;
+        copy.scale = real.scale;
+        return copy;
+    }
+
+    private static double[] multiply(double[] left, double[] right) {
+        double[] product = new double[8];
+        for (int row = 0; row < 2; row++) {
+            for (int col = 0; col < 2; col++) {
+                double re = 0;
+                double im = 0;
+                for (int k = 0; k < 2; k++) {
+                    int l = (row * 2 + k) * 2;
+                    int r = (k * 2 + col) * 2;
+                    re += left[l] * right[r] - left[l + 1] * right[r + 1];
+                    im += left[l] * right[r + 1] + left[l + 1] * right[r];
+                }
+                product[(row * 2 + col) * 2] = re;
+                product[(row * 2 + col) * 2 + 1] = im;
+            }
+        }
+        return product;
+    }
+
+    private static boolean isIdentity(double[] frame) {
+        double[] identity = {1, 0, 0, 0, 0, 0, 1, 0};
+        for (int i = 0; i < identity.length; i++) {
+            if (Math.abs(frame[i] - identity[i]) > FACTOR_TOLERANCE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public RegisterBackend getBackend() {
+        return this.realRegister.backend;
+    }
+
     public Integer sampleQubit(int nominalIndex) {
         if (nominalIndex < 0 || nominalIndex >= this.numQubits) {
             throw new IndexOutOfBoundsException("Индекс " + nominalIndex + " вне границ номинального регистра " + name + " размера " + numQubits);
@@ -111,18 +572,29 @@ public class QubitRegister implements Serializable {
         if (realIndex < 0 || realIndex >= this.numQubits) {
             throw new IndexOutOfBoundsException("Индекс " + realIndex + " вне границ реального регистра " + name + " размера " + numQubits);
         }
+        if (this.backend != null) {
+            return this.backend.sample(realIndex, this.random);
+        }
+        // Рамка Паули остаётся: Z не влияет на исход, X лишь инвертирует его
+        foldOperatorFrames(new Integer[]{realIndex});
+        int flip = (int) ((this.pauliX >>> realIndex) & 1);
 
         double zeroProb = 0;
+        double totalWeight = 0;
         for (int i = this.states.nextSetBit(0); i >= 0; i = this.states.nextSetBit(i + 1)) {
+            double weight = this.amplitudes.get(i).modulusSquared();
+            totalWeight += weight;
             if (((i >> realIndex) & 1) == 0) {
-                zeroProb += this.amplitudes.get(i).modulusSquared();
+                zeroProb += weight;
             }
         }
+        // Хранимое состояние нормировано с точностью до множителя scale
+        zeroProb = totalWeight > 0 ? zeroProb / totalWeight : 1;
 
         if (this.random.nextDouble() <= zeroProb) {
-            return 0;
+            return flip;
         } else {
-            return 1;
+            return 1 - flip;
         }
     }
 
@@ -133,13 +605,23 @@ public class QubitRegister implements Serializable {
         if (realIndex < 0 || realIndex >= this.numQubits) {
             throw new IndexOutOfBoundsException("Индекс " + realIndex + " вне границ реального регистра " + name + " размера " + numQubits);
         }
-
-        double zeroProb = 0;
-        for (int i = this.states.nextSetBit(0); i >= 0; i = this.states.nextSetBit(i + 1)) {
-            if (((i >> realIndex) & 1) == 0) {
-                zeroProb += this.amplitudes.get(i).modulusSquared();
+        if (this.backend != null) {
+            return this.backend.measure(realIndex, this.random);
+        }
+        foldOperatorFrames(new Integer[]{realIndex});
+
+        SortedSparseState sorted = loadSorted();
+        double zeroWeight = 0;
+        double totalWeight = 0;
+        for (int k = 0; k < sorted.size; k++) {
+            double weight = sorted.weight(k);
+            totalWeight += weight;
+            if (((sorted.indices[k] >> realIndex) & 1) == 0) {
+                zeroWeight += weight;
             }
         }
+        // Хранимое состояние нормировано с точностью до множителя scale
+        double zeroProb = totalWeight > 0 ? zeroWeight / totalWeight : 1;
 
         int measuredValue;
         if (this.random.nextDouble() <= zeroProb) {
@@ -148,40 +630,94 @@ public class QubitRegister implements Serializable {
             measuredValue = 1;
         }
 
-        double normFactorSquared = 0;
-        BitSet statesToRemove = new BitSet();
-        for (int i = this.states.nextSetBit(0); i >= 0; i = this.states.nextSetBit(i + 1)) {
-            if (((i >> realIndex) & 1) != measuredValue) {
-                statesToRemove.set(i);
-            } else {
-                normFactorSquared += this.amplitudes.get(i).modulusSquared();
-            }
-        }
+        // Фильтрация по исходу - проход сжатия отсортированного массива
+        sorted.retainBit(realIndex, measuredValue);
+        storeSorted(sorted);
+        double normFactorSquared = measuredValue == 0 ? zeroWeight : totalWeight - zeroWeight;
 
-        for (int i = statesToRemove.nextSetBit(0); i >= 0; i = statesToRemove.nextSetBit(i + 1)) {
-            this.states.clear(i);
-            this.amplitudes.set(i, Complex.getZero());
+        if (normFactorSquared > 1e-12 * totalWeight) {
+            // Нормировка переносится в множитель: |scale|^2 * normFactorSquared = 1, фаза scale сохраняется
+            double modulus = Math.sqrt(this.scale.modulusSquared());
+            multiplyScale(new Complex(1.0 / (modulus * Math.sqrt(normFactorSquared)), 0.0));
+        } else {
+            this.states.clear();
         }
 
-        if (normFactorSquared > 1e-12) {
-            double normFactor = Math.sqrt(normFactorSquared);
-            Complex normComplex = new Complex(normFactor, 0.0);
-            for (int i = this.states.nextSetBit(0); i >= 0; i = this.states.nextSetBit(i + 1)) {
-                Complex oldAmplitude = this.amplitudes.get(i);
-                this.amplitudes.set(i, oldAmplitude.divide(normComplex));
+        // X из рамки Паули инвертирует хранимый исход, проекция с рамкой коммутирует
+        return measuredValue ^ (int) ((this.pauliX >>> realIndex) & 1);
+    }
+
+    // Отсечение хранимых амплитуд с вероятностью меньше доли threshold от нормы, а при beamWidth > 0 -
+    // всех, кроме beamWidth наибольших. Рамки унитарны, поэтому доля отброшенной вероятности та же,
+    // что у полного состояния. Наибольшая амплитуда не отбрасывается никогда.
+    // Возвращает отброшенную долю, остаток перенормируется через scale.
+    public double prune(double threshold, int beamWidth) {
+        if (this.realRegister != this || this.backend != null) {
+            throw new IllegalStateException("Отсечение амплитуд возможно только для реального регистра без бэкенда");
+        }
+        int count = this.states.cardinality();
+        if (count <= 1 || (threshold <= 0 && (beamWidth <= 0 || count <= beamWidth))) {
+            return 0;
+        }
+        int[] ids = new int[count];
+        double[] weights = new double[count];
+        double totalWeight = 0;
+        double maxWeight = 0;
+        int k = 0;
+        for (int i = this.states.nextSetBit(0); i >= 0; i = this.states.nextSetBit(i + 1)) {
+            ids[k] = i;
+            weights[k] = this.amplitudes.get(i).modulusSquared();
+            totalWeight += weights[k];
+            maxWeight = Math.max(maxWeight, weights[k]);
+            k++;
+        }
+        double cutoff = Math.min(threshold * totalWeight, maxWeight);
+        // В режиме луча равные k-й по величине амплитуды сохраняются в порядке индексов, пока не наберётся beamWidth
+        boolean beam = beamWidth > 0 && count > beamWidth;
+        double beamCutoff = 0;
+        int tiesToKeep = 0;
+        if (beam) {
+            double[] sorted = weights.clone();
+            Arrays.sort(sorted);
+            beamCutoff = sorted[count - beamWidth];
+            for (int j = count - beamWidth; j < count && sorted[j] == beamCutoff; j++) {
+                tiesToKeep++;
             }
-        } else {
-            this.states.clear();
         }
 
-        return measuredValue;
+        double discardedWeight = 0;
+        for (int j = 0; j < count; j++) {
+            boolean drop = weights[j] < cutoff;
+            if (!drop && beam) {
+                if (weights[j] < beamCutoff) {
+                    drop = true;
+                } else if (weights[j] == beamCutoff) {
+                    drop = tiesToKeep-- <= 0;
+                }
+            }
+            if (drop) {
+                discardedWeight += weights[j];
+                this.states.clear(ids[j]);
+                this.amplitudes.set(ids[j], Complex.getZero());
+            }
+        }
+        if (discardedWeight == 0 || totalWeight == 0) {
+            return 0;
+        }
+        double discarded = discardedWeight / totalWeight;
+        multiplyScale(new Complex(1.0 / Math.sqrt(1 - discarded), 0.0));
+        return discarded;
     }
 
     @Override
     public String toString() {
         QubitRegister regToPrint = this.realRegister;
+        if (regToPrint.backend != null) {
+            return regToPrint.backend.toString();
+        }
+        regToPrint = regToPrint.withFramesFolded();
         StringBuilder sb = new StringBuilder();
-        BitSet currentStates = regToPrint.getStates();
+        SupportSet currentStates = regToPrint.getStates();
         ChunkedComplexArray currentAmplitudes = regToPrint.getAmplitudes();
         int sizeToPrint = regToPrint.numQubits;
 
@@ -212,37 +748,190 @@ public class QubitRegister implements Serializable {
         int size2 = reg2.size();
         int joinedSize = size1 + size2;
 
-        QubitRegister joinedRegister = new QubitRegister(newRealName, joinedSize);
-
-        BitSet states1 = reg1.getStates();
-        ChunkedComplexArray amps1 = reg1.getAmplitudes();
-        BitSet states2 = reg2.getStates();
-        ChunkedComplexArray amps2 = reg2.getAmplitudes();
+        if (reg1.getBackend() != null || reg2.getBackend() != null) {
+            return new QubitRegister(newRealName, joinedSize, BackendFactory.tensorProduct(reg1, reg2));
+        }
 
-        BitSet joinedStates = joinedRegister.getStates();
-        ChunkedComplexArray joinedAmps = joinedRegister.getAmplitudes();
-        joinedStates.clear();
-        joinedAmps.set(0, Complex.getZero());
+        // Носители обоих регистров и амплитуды второго распаковываются в примитивные массивы один раз
+        // Отложенные кадры не сворачиваются, а переносятся в объединённый регистр
+        int[] support1 = reg1.getStoredStates().toArray();
+        int[] support2 = reg2.getStoredStates().toArray();
+        ChunkedComplexArray amps1 = reg1.getStoredAmplitudes();
+        ChunkedComplexArray amps2 = reg2.getStoredAmplitudes();
+        double[] re2 = new double[support2.length];
+        double[] im2 = new double[support2.length];
+        for (int j = 0; j < support2.length; j++) {
+            Complex amplitude = amps2.get(support2[j]);
+            re2[j] = amplitude.getReal();
+            im2[j] = amplitude.getImaginary();
+        }
 
-        int factor = (1 << size2);
-        for (int s1 = states1.nextSetBit(0); s1 >= 0; s1 = states1.nextSetBit(s1 + 1)) {
-            Complex amp1 = amps1.get(s1);
-            if (amp1 == null || amp1.equals(Complex.getZero())) continue;
+        // Группы состояний первого регистра, чьи блоки s1 * 2^size2 попадают в общие чанки амплитуд.
+        // Разные группы пишут в непересекающиеся чанки, поэтому считаются параллельно.
+        ChunkedComplexArray joinedAmps = new ChunkedComplexArray(ChunkedComplexArray.chunkSizeFor(joinedSize));
+        int chunkSize = joinedAmps.getChunkSize();
+        int groupShift = Math.max(0, Integer.numberOfTrailingZeros(chunkSize) - size2);
+        List<Integer> groupStarts = new ArrayList<>();
+        for (int i = 0; i < support1.length; i++) {
+            if (i == 0 || support1[i] >> groupShift != support1[i - 1] >> groupShift) {
+                groupStarts.add(i);
+            }
+        }
+        groupStarts.add(support1.length);
 
-            for (int s2 = states2.nextSetBit(0); s2 >= 0; s2 = states2.nextSetBit(s2 + 1)) {
-                Complex amp2 = amps2.get(s2);
-                if (amp2 == null || amp2.equals(Complex.getZero())) continue;
+        IntStream groups = IntStream.range(0, groupStarts.size() - 1);
+        if ((long) support1.length * support2.length >= PARALLEL_JOIN_THRESHOLD) {
+            groups = groups.parallel();
+        }
+        // Произведение вещественных регистров остаётся вещественным, мнимые чанки не создаются
+        boolean real = amps1.isReal() && amps2.isReal();
+        List<List<Map<Integer, double[]>>> groupChunks = groups.mapToObj(g -> {
+            Map<Integer, double[]> realChunks = new HashMap<>();
+            Map<Integer, double[]> imaginaryChunks = real ? null : new HashMap<>();
+            for (int i = groupStarts.get(g); i < groupStarts.get(g + 1); i++) {
+                Complex amp1 = amps1.get(support1[i]);
+                double re1 = amp1.getReal();
+                double im1 = amp1.getImaginary();
+                int base = support1[i] << size2;
+                double[] realChunk = null;
+                double[] imaginaryChunk = null;
+                int chunkId = -1;
+                for (int j = 0; j < support2.length; j++) {
+                    int joinedIndex = base | support2[j];
+                    if (joinedIndex / chunkSize != chunkId) {
+                        chunkId = joinedIndex / chunkSize;
+                        realChunk = realChunks.computeIfAbsent(chunkId, id -> new double[chunkSize]);
+                        if (!real) {
+                            imaginaryChunk = imaginaryChunks.computeIfAbsent(chunkId, id -> new double[chunkSize]);
+                        }
+                    }
+                    int k = joinedIndex % chunkSize;
+                    realChunk[k] = re1 * re2[j] - im1 * im2[j];
+                    if (!real) {
+                        imaginaryChunk[k] = re1 * im2[j] + im1 * re2[j];
+                    }
+                }
+            }
+            // Мнимые чанки вещественного произведения - null, поэтому не List.of
+            return Arrays.asList(realChunks, imaginaryChunks);
+        }).toList();
+
+        // Объединённый регистр продолжает последовательность исходов первого множителя
+        QubitRegister joinedRegister = new QubitRegister(newRealName, joinedSize, reg1.random);
+        groupChunks.forEach(chunks -> joinedAmps.putChunks(chunks.get(0), chunks.get(1)));
+        // Индексы произведения перебираются по возрастанию: носитель дописывается в конец своих контейнеров
+        SupportSet joinedStates = new SupportSet();
+        for (int s1 : support1) {
+            int base = s1 << size2;
+            for (int s2 : support2) {
+                joinedStates.set(base | s2);
+            }
+        }
+        joinedRegister.setStates(joinedStates);
+        joinedRegister.setAmplitudes(joinedAmps);
+        joinedRegister.pauliX = reg1.pauliX << size2 | reg2.pauliX;
+        joinedRegister.pauliZ = reg1.pauliZ << size2 | reg2.pauliZ;
+        joinedRegister.scale = reg1.scale.multiply(reg2.scale);
+        if (reg1.frames != null || reg2.frames != null) {
+            joinedRegister.frames = new double[joinedSize][];
+            if (reg2.frames != null) {
+                System.arraycopy(reg2.frames, 0, joinedRegister.frames, 0, size2);
+            }
+            if (reg1.frames != null) {
+                System.arraycopy(reg1.frames, 0, joinedRegister.frames, size2, size1);
+            }
+        }
+        return joinedRegister;
+    }
 
-                int joinedIndex = s1 * factor + s2;
-                Complex joinedAmplitude = amp1.multiply(amp2);
+    // Обратная операция к tensorProduct: отделяет кубиты [offset, offset + size) реального регистра,
+    // если состояние на них не запутано с остальными. Возвращает {part, rest} или null.
+    // Проверка по носителю: носитель должен быть декартовым произведением проекций,
+    // а каждая амплитуда - равна psi(s, r0) * psi(s0, r) / psi(s0, r0).
+    // Кадры и рамка Паули - произведение однокубитных операторов и на разделимость не влияют, поэтому
+    // проверяется хранимое состояние, а отложенное не сворачивается и переходит к частям вместе с их кубитами.
+    public static QubitRegister[] factorOut(QubitRegister real, int offset, int size, String partName, String restName) {
+        if (real.getRealRegister() != real || real.getBackend() != null) {
+            throw new IllegalArgumentException("Разделять можно только реальные регистры без альтернативного бэкенда.");
+        }
+        int restSize = real.numQubits - size;
+        if (size <= 0 || restSize <= 0 || offset < 0 || offset + size > real.numQubits) {
+            throw new IllegalArgumentException("Неверные границы отделяемой части: offset " + offset + ", size " + size);
+        }
+        SupportSet states = real.states;
+        ChunkedComplexArray amplitudes = real.amplitudes;
+        int first = states.nextSetBit(0);
+        if (first < 0) {
+            return null;
+        }
+        int partMask = (1 << size) - 1;
+        int lowMask = (1 << offset) - 1;
+        int s0 = (first >> offset) & partMask;
+        int r0 = (first & lowMask) | ((first >> (offset + size)) << offset);
+        Complex a0 = amplitudes.get(first);
+
+        Map<Integer, Complex> part = new HashMap<>();
+        Map<Integer, Complex> rest = new HashMap<>();
+        int supportSize = 0;
+        for (int i = first; i >= 0; i = states.nextSetBit(i + 1)) {
+            int s = (i >> offset) & partMask;
+            int r = (i & lowMask) | ((i >> (offset + size)) << offset);
+            if (r == r0) {
+                part.put(s, amplitudes.get(i));
+            }
+            if (s == s0) {
+                rest.put(r, amplitudes.get(i));
+            }
+            supportSize++;
+        }
+        if ((long) part.size() * rest.size() != supportSize) {
+            return null;
+        }
+        for (int i = first; i >= 0; i = states.nextSetBit(i + 1)) {
+            int s = (i >> offset) & partMask;
+            int r = (i & lowMask) | ((i >> (offset + size)) << offset);
+            Complex ps = part.get(s);
+            Complex pr = rest.get(r);
+            if (ps == null || pr == null
+                    || amplitudes.get(i).subtract(ps.multiply(pr).divide(a0)).modulusSquared() > FACTOR_TOLERANCE * FACTOR_TOLERANCE) {
+                return null;
+            }
+        }
 
-                if (!joinedAmplitude.equals(Complex.getZero())) {
-                    joinedStates.set(joinedIndex);
-                    joinedAmps.set(joinedIndex, joinedAmplitude);
+        // psi = part(s) * rest(r) / a0; part нормируется, остальной множитель переносится в rest.
+        // Части измеряются тем же генератором, что и исходный регистр
+        double partNorm = Math.sqrt(part.values().stream().mapToDouble(Complex::modulusSquared).sum());
+        Complex restScale = new Complex(partNorm, 0.0).divide(a0);
+        QubitRegister partRegister = new QubitRegister(partName, size, real.random);
+        QubitRegister restRegister = new QubitRegister(restName, restSize, real.random);
+        fill(partRegister, part, new Complex(1.0 / partNorm, 0.0));
+        fill(restRegister, rest, restScale);
+        for (int q = 0; q < real.numQubits; q++) {
+            boolean inPart = q >= offset && q < offset + size;
+            QubitRegister target = inPart ? partRegister : restRegister;
+            int index = inPart ? q - offset : q < offset ? q : q - size;
+            target.pauliX |= ((real.pauliX >>> q) & 1) << index;
+            target.pauliZ |= ((real.pauliZ >>> q) & 1) << index;
+            double[] frame = real.frames == null ? null : real.frames[q];
+            if (frame != null) {
+                if (target.frames == null) {
+                    target.frames = new double[target.numQubits][];
                 }
+                target.frames[index] = frame;
             }
         }
-        System.out.println("Вычислено тензорное произведение для " + newRealName);
-        return joinedRegister;
+        restRegister.scale = real.scale;
+        return new QubitRegister[]{partRegister, restRegister};
+    }
+
+    private static void fill(QubitRegister register, Map<Integer, Complex> values, Complex scale) {
+        SupportSet states = new SupportSet();
+        ChunkedComplexArray amplitudes = register.newAmplitudes();
+        values.forEach((state, amplitude) -> {
+            states.set(state);
+            amplitudes.set(state, amplitude.multiply(scale));
+        });
+        register.setStates(states);
+        register.setAmplitudes(amplitudes);
     }
 }
@@ -0,0 +1,263 @@
+package org.example.model.qubit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+// Разреженное состояние в виде отсортированного массива индексов с параллельными массивами re/im.
+// Однокубитные операторы - линейное слияние потоков bit=0 и bit=1, фильтрация по измерению - проход сжатия.
+// Порядок обхода детерминирован, доступ к памяти последовательный, диапазоны индексов считаются независимо.
+// Массивы переиспользуются: регистр держит два таких состояния и загружает в них носитель перед каждым слиянием.
+final class SortedSparseState {
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    int[] indices;
+    double[] re;
+    // null - все амплитуды вещественные
+    double[] im;
+    int size;
+    // Мнимые части сохраняются и для вещественного состояния (im == null), чтобы не выделять их заново
+    private double[] imBuffer = new double[0];
+    // Половины bit=1 сегментов во время слияния, по позициям входа
+    private int[] upperIndices = new int[0];
+    private double[] upperRe = new double[0];
+    private double[] upperIm = new double[0];
+
+    SortedSparseState() {
+        indices = new int[0];
+        re = new double[0];
+    }
+
+    static SortedSparseState of(SupportSet states, ChunkedComplexArray amplitudes) {
+        return new SortedSparseState().load(states, amplitudes);
+    }
+
+    // Загружает носитель и амплитуды, прежнее содержимое теряется
+    SortedSparseState load(SupportSet states, ChunkedComplexArray amplitudes) {
+        int count = states.cardinality();
+        ensureCapacity(count, !amplitudes.isReal());
+        int[] indices = this.indices;
+        double[] re = this.re;
+        double[] im = this.im;
+        int[] k = {0};
+        states.forEach(i -> {
+            indices[k[0]] = i;
+            re[k[0]] = amplitudes.getReal(i);
+            if (im != null) {
+                im[k[0]] = amplitudes.getImaginary(i);
+            }
+            k[0]++;
+        });
+        size = count;
+        return this;
+    }
+
+    // Массивы вмещают не меньше capacity элементов; содержимое при росте не копируется
+    private void ensureCapacity(int capacity, boolean complex) {
+        if (indices.length < capacity) {
+            int grown = Math.max(capacity, indices.length + (indices.length >> 1));
+            indices = new int[grown];
+            re = new double[grown];
+        }
+        if (complex && imBuffer.length < capacity) {
+            imBuffer = new double[indices.length];
+        }
+        im = complex ? imBuffer : null;
+    }
+
+    private void ensureUpperCapacity(int capacity) {
+        if (upperIndices.length < capacity) {
+            upperIndices = new int[capacity];
+            upperRe = new double[capacity];
+            upperIm = new double[capacity];
+        }
+    }
+
+    SupportSet toStates() {
+        return SupportSet.fromSorted(indices, size);
+    }
+
+    // Размер чанка и пул берутся у массива like, обычно исходного
+    ChunkedComplexArray toAmplitudes(ChunkedComplexArray like) {
+        return ChunkedComplexArray.ofSorted(like, indices, re, im, size);
+    }
+
+    // Записывает состояние в пустые буферы регистра
+    void writeTo(SupportSet states, ChunkedComplexArray amplitudes) {
+        states.addSorted(indices, size);
+        ChunkedComplexArray.putSorted(amplitudes, indices, re, im, size);
+    }
+
+    double weight(int k) {
+        double imaginary = im == null ? 0.0 : im[k];
+        return re[k] * re[k] + imaginary * imaginary;
+    }
+
+    // Оставляет только состояния со значением value кубита bit, на месте
+    void retainBit(int bit, int value) {
+        int kept = 0;
+        for (int k = 0; k < size; k++) {
+            if (((indices[k] >>> bit) & 1) == value) {
+                indices[kept] = indices[k];
+                re[kept] = re[k];
+                if (im != null) {
+                    im[kept] = im[k];
+                }
+                kept++;
+            }
+        }
+        size = kept;
+    }
+
+    // Контролируемый однокубитный оператор matrix (формат кадров QubitRegister) на кубите target.
+    // Состояния с общими битами выше target образуют непрерывный сегмент: сначала половина bit=0, затем bit=1.
+    // Обе половины сливаются по младшим битам, результат снова отсортирован. Амплитуды, у которых
+    // обе части по модулю меньше tolerance, отбрасываются. Сегменты независимы и делятся между потоками.
+    SortedSparseState applySingleQubit(int controlMask, int target, double[] matrix, double tolerance) {
+        return applySingleQubit(controlMask, target, matrix, tolerance, new SortedSparseState());
+    }
+
+    // То же с результатом в out: массивы out и вспомогательные массивы этого состояния переиспользуются
+    SortedSparseState applySingleQubit(int controlMask, int target, double[] matrix, double tolerance, SortedSparseState out) {
+        boolean real = im == null && matrix[1] == 0.0 && matrix[3] == 0.0 && matrix[5] == 0.0 && matrix[7] == 0.0;
+        out.ensureCapacity(2 * size, !real);
+        ensureUpperCapacity(size);
+        if (size < PARALLEL_THRESHOLD) {
+            out.size = applyRange(0, size, controlMask, target, matrix, tolerance, out, 0);
+            return out;
+        }
+        int parts = Runtime.getRuntime().availableProcessors() * 4;
+        List<Integer> bounds = new ArrayList<>();
+        bounds.add(0);
+        for (int p = 1; p < parts; p++) {
+            int bound = Math.max((int) ((long) size * p / parts), bounds.get(bounds.size() - 1));
+            while (bound > 0 && bound < size && indices[bound] >>> target >>> 1 == indices[bound - 1] >>> target >>> 1) {
+                bound++;
+            }
+            if (bound > bounds.get(bounds.size() - 1) && bound < size) {
+                bounds.add(bound);
+            }
+        }
+        bounds.add(size);
+        // Диапазон from..to пишет не больше 2 * (to - from) элементов начиная с 2 * from, затем результаты сдвигаются встык
+        int[] counts = IntStream.range(0, bounds.size() - 1).parallel()
+                .map(p -> applyRange(bounds.get(p), bounds.get(p + 1), controlMask, target, matrix, tolerance, out, 2 * bounds.get(p)))
+                .toArray();
+        int n = 0;
+        for (int p = 0; p < counts.length; p++) {
+            int start = 2 * bounds.get(p);
+            System.arraycopy(out.indices, start, out.indices, n, counts[p]);
+            System.arraycopy(out.re, start, out.re, n, counts[p]);
+            if (out.im != null) {
+                System.arraycopy(out.im, start, out.im, n, counts[p]);
+            }
+            n += counts[p];
+        }
+        out.size = n;
+        return out;
+    }
+
+    // Сливает входные позиции from..to в out начиная с outStart, возвращает число записанных элементов
+    private int applyRange(int from, int to, int controlMask, int target, double[] matrix, double tolerance,
+                           SortedSparseState out, int outStart) {
+        int bit = 1 << target;
+        int[] outIndices = out.indices;
+        double[] outRe = out.re;
+        double[] outIm = out.im;
+        // Половина bit=1 текущего сегмента дописывается после половины bit=0; диапазон занимает свои позиции from..to
+        int[] upperIndices = this.upperIndices;
+        double[] upperRe = this.upperRe;
+        double[] upperIm = outIm == null ? null : this.upperIm;
+        int n = outStart;
+        int start = from;
+        while (start < to) {
+            int high = indices[start] >>> target >>> 1;
+            int mid = start;
+            while (mid < to && (indices[mid] & bit) == 0 && indices[mid] >>> target >>> 1 == high) {
+                mid++;
+            }
+            int end = mid;
+            while (end < to && indices[end] >>> target >>> 1 == high) {
+                end++;
+            }
+            int upper = from;
+            int a = start;
+            int b = mid;
+            while (a < mid || b < end) {
+                boolean hasA;
+                boolean hasB;
+                int index;
+                if (b >= end || (a < mid && indices[a] < (indices[b] & ~bit))) {
+                    hasA = true;
+                    hasB = false;
+                    index = indices[a];
+                } else {
+                    index = indices[b] & ~bit;
+                    hasA = a < mid && indices[a] == index;
+                    hasB = true;
+                }
+                if ((index & controlMask) != controlMask) {
+                    // Управляющие кубиты не установлены: амплитуды переносятся без изменений
+                    if (hasA) {
+                        outIndices[n] = index;
+                        outRe[n] = re[a];
+                        if (outIm != null) {
+                            outIm[n] = im == null ? 0.0 : im[a];
+                        }
+                        n++;
+                        a++;
+                    }
+                    if (hasB) {
+                        upperIndices[upper] = index | bit;
+                        upperRe[upper] = re[b];
+                        if (upperIm != null) {
+                            upperIm[upper] = im == null ? 0.0 : im[b];
+                        }
+                        upper++;
+                        b++;
+                    }
+                    continue;
+                }
+                double re0 = hasA ? re[a] : 0.0;
+                double im0 = hasA && im != null ? im[a] : 0.0;
+                double re1 = hasB ? re[b] : 0.0;
+                double im1 = hasB && im != null ? im[b] : 0.0;
+                double newRe0 = matrix[0] * re0 - matrix[1] * im0 + matrix[2] * re1 - matrix[3] * im1;
+                double newIm0 = matrix[0] * im0 + matrix[1] * re0 + matrix[2] * im1 + matrix[3] * re1;
+                double newRe1 = matrix[4] * re0 - matrix[5] * im0 + matrix[6] * re1 - matrix[7] * im1;
+                double newIm1 = matrix[4] * im0 + matrix[5] * re0 + matrix[6] * im1 + matrix[7] * re1;
+                if (Math.abs(newRe0) >= tolerance || Math.abs(newIm0) >= tolerance) {
+                    outIndices[n] = index;
+                    outRe[n] = newRe0;
+                    if (outIm != null) {
+                        outIm[n] = newIm0;
+                    }
+                    n++;
+                }
+                if (Math.abs(newRe1) >= tolerance || Math.abs(newIm1) >= tolerance) {
+                    upperIndices[upper] = index | bit;
+                    upperRe[upper] = newRe1;
+                    if (upperIm != null) {
+                        upperIm[upper] = newIm1;
+                    }
+                    upper++;
+                }
+                if (hasA) {
+                    a++;
+                }
+                if (hasB) {
+                    b++;
+                }
+            }
+            System.arraycopy(upperIndices, from, outIndices, n, upper - from);
+            System.arraycopy(upperRe, from, outRe, n, upper - from);
+            if (outIm != null) {
+                System.arraycopy(upperIm, from, outIm, n, upper - from);
+            }
+            n += upper - from;
+            start = end;
+        }
+        return n - outStart;
+    }
+
+}
@@ -0,0 +1,790 @@
+package org.example.model.qubit;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+// Носитель состояния - множество занятых базисных состояний в духе Roaring. Индексы делятся на блоки по 2^16,
+// каждый блок хранится самым компактным контейнером: отсортированным массивом (до 4096 элементов),
+// битовой картой на 2^16 бит или списком интервалов. Память пропорциональна носителю, а не 2^n.
+// Интерфейс повторяет используемую часть BitSet.
+public class SupportSet implements Serializable, Cloneable {
+    private static final long serialVersionUID = 1L;
+    private static final int ARRAY_MAX = 4096;
+    private static final int BITMAP_WORDS = 1 << 10;
+    // Маски битов 0..5 внутри 64-битного слова: единицы там, где бит равен 1
+    private static final long[] BIT_PATTERNS = {
+            0xAAAAAAAAAAAAAAAAL, 0xCCCCCCCCCCCCCCCCL, 0xF0F0F0F0F0F0F0F0L,
+            0xFF00FF00FF00FF00L, 0xFFFF0000FFFF0000L, 0xFFFFFFFF00000000L
+    };
+
+    // Ключи блоков (старшие 16 бит индекса) по возрастанию и их контейнеры
+    private char[] keys;
+    private Container[] containers;
+    private int containerCount;
+
+    public SupportSet() {
+        keys = new char[4];
+        containers = new Container[4];
+    }
+
+    // Множество из size возрастающих индексов, контейнеры строятся сразу нужного вида
+    public static SupportSet fromSorted(int[] indices, int size) {
+        SupportSet set = new SupportSet();
+        set.addSorted(indices, size);
+        return set;
+    }
+
+    // Заполняет пустое множество size возрастающими индексами, массивы блоков переиспользуются
+    void addSorted(int[] indices, int size) {
+        if (containerCount != 0) {
+            throw new IllegalStateException("Отсортированные индексы добавляются только в пустое множество");
+        }
+        int start = 0;
+        while (start < size) {
+            int key = indices[start] >>> 16;
+            int end = start + 1;
+            while (end < size && indices[end] >>> 16 == key) {
+                end++;
+            }
+            insertContainer(containerCount, (char) key, Container.fromSorted(indices, start, end));
+            start = end;
+        }
+    }
+
+    int getContainerCount() {
+        return containerCount;
+    }
+
+    // Позиция блока key или -(точка вставки) - 1
+    private int findKey(int key) {
+        if (containerCount > 0 && keys[containerCount - 1] == key) {
+            return containerCount - 1;
+        }
+        return Arrays.binarySearch(keys, 0, containerCount, (char) key);
+    }
+
+    // Пустой контейнер-массив: оставшийся после clear() в первой свободной ячейке или новый
+    private Container spareArrayContainer() {
+        if (containerCount < containers.length && containers[containerCount] instanceof ArrayContainer spare) {
+            containers[containerCount] = null;
+            spare.cardinality = 0;
+            return spare;
+        }
+        return new ArrayContainer();
+    }
+
+    private void insertContainer(int position, char key, Container container) {
+        if (containerCount == keys.length) {
+            keys = Arrays.copyOf(keys, containerCount * 2);
+            containers = Arrays.copyOf(containers, containerCount * 2);
+        }
+        System.arraycopy(keys, position, keys, position + 1, containerCount - position);
+        System.arraycopy(containers, position, containers, position + 1, containerCount - position);
+        keys[position] = key;
+        containers[position] = container;
+        containerCount++;
+    }
+
+    private void removeContainer(int position) {
+        System.arraycopy(keys, position + 1, keys, position, containerCount - position - 1);
+        System.arraycopy(containers, position + 1, containers, position, containerCount - position - 1);
+        containerCount--;
+        containers[containerCount] = null;
+    }
+
+    private static void checkIndex(int index) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("Индекс состояния не может быть отрицательным: " + index);
+        }
+    }
+
+    public boolean get(int index) {
+        checkIndex(index);
+        int position = findKey(index >>> 16);
+        return position >= 0 && containers[position].contains(index & 0xFFFF);
+    }
+
+    public void set(int index) {
+        checkIndex(index);
+        int position = findKey(index >>> 16);
+        if (position >= 0) {
+            containers[position] = containers[position].add(index & 0xFFFF);
+        } else {
+            insertContainer(-position - 1, (char) (index >>> 16), spareArrayContainer().add(index & 0xFFFF));
+        }
+    }
+
+    public void set(int index, boolean value) {
+        if (value) {
+            set(index);
+        } else {
+            clear(index);
+        }
+    }
+
+    public void clear(int index) {
+        checkIndex(index);
+        int position = findKey(index >>> 16);
+        if (position < 0) {
+            return;
+        }
+        Container container = containers[position].remove(index & 0xFFFF);
+        if (container.cardinality() == 0) {
+            removeContainer(position);
+        } else {
+            containers[position] = container;
+        }
+    }
+
+    // Массивы блоков остаются: буфер следующего состояния заполняется заново без выделения памяти,
+    // а контейнеры-массивы за containerCount переиспользуются для новых блоков
+    public void clear() {
+        containerCount = 0;
+    }
+
+    public int cardinality() {
+        int cardinality = 0;
+        for (int c = 0; c < containerCount; c++) {
+            cardinality += containers[c].cardinality();
+        }
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return containerCount == 0;
+    }
+
+    // Наименьший элемент не меньше from, -1 если такого нет
+    public int nextSetBit(int from) {
+        checkIndex(from);
+        int position = findKey(from >>> 16);
+        if (position >= 0) {
+            int low = containers[position].next(from & 0xFFFF);
+            if (low >= 0) {
+                return keys[position] << 16 | low;
+            }
+            position++;
+        } else {
+            position = -position - 1;
+        }
+        return position < containerCount ? keys[position] << 16 | containers[position].next(0) : -1;
+    }
+
+    // Наибольший элемент плюс один, как у BitSet
+    public int length() {
+        if (containerCount == 0) {
+            return 0;
+        }
+        return (keys[containerCount - 1] << 16 | containers[containerCount - 1].last()) + 1;
+    }
+
+    public void forEach(IntConsumer consumer) {
+        for (int c = 0; c < containerCount; c++) {
+            containers[c].forEach(keys[c] << 16, consumer);
+        }
+    }
+
+    public int[] toArray() {
+        int[] result = new int[cardinality()];
+        int[] position = {0};
+        forEach(index -> result[position[0]++] = index);
+        return result;
+    }
+
+    public IntStream stream() {
+        return Arrays.stream(toArray());
+    }
+
+    // Есть ли в множестве индекс со значением value бита bit. Блоки отбрасываются по ключу,
+    // битовые карты проверяются словами, без перебора элементов.
+    public boolean hasBit(int bit, int value) {
+        for (int c = 0; c < containerCount; c++) {
+            if (bit >= 16) {
+                if (((keys[c] >>> (bit - 16)) & 1) == value) {
+                    return true;
+                }
+            } else if (containers[c].hasBit(bit, value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Объединение на месте, как BitSet.or
+    public void or(SupportSet other) {
+        char[] mergedKeys = new char[containerCount + other.containerCount];
+        Container[] merged = new Container[containerCount + other.containerCount];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < containerCount || j < other.containerCount) {
+            if (j >= other.containerCount || (i < containerCount && keys[i] < other.keys[j])) {
+                mergedKeys[n] = keys[i];
+                merged[n++] = containers[i++];
+            } else if (i >= containerCount || other.keys[j] < keys[i]) {
+                mergedKeys[n] = other.keys[j];
+                merged[n++] = other.containers[j++].copy();
+            } else {
+                mergedKeys[n] = keys[i];
+                merged[n++] = containers[i++].or(other.containers[j++]);
+            }
+        }
+        keys = n == 0 ? new char[4] : mergedKeys;
+        containers = n == 0 ? new Container[4] : merged;
+        containerCount = n;
+    }
+
+    // Пересечение на месте, как BitSet.and
+    public void and(SupportSet other) {
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < containerCount && j < other.containerCount) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (other.keys[j] < keys[i]) {
+                j++;
+            } else {
+                Container intersection = containers[i].and(other.containers[j]);
+                if (intersection.cardinality() > 0) {
+                    keys[n] = keys[i];
+                    containers[n++] = intersection;
+                }
+                i++;
+                j++;
+            }
+        }
+        Arrays.fill(containers, n, containerCount, null);
+        containerCount = n;
+    }
+
+    @Override
+    public SupportSet clone() {
+        SupportSet copy = new SupportSet();
+        copy.keys = Arrays.copyOf(keys, Math.max(4, containerCount));
+        copy.containers = new Container[copy.keys.length];
+        for (int c = 0; c < containerCount; c++) {
+            copy.containers[c] = containers[c].copy();
+        }
+        copy.containerCount = containerCount;
+        return copy;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof SupportSet that) || cardinality() != that.cardinality()) {
+            return false;
+        }
+        return Arrays.equals(toArray(), that.toArray());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(toArray());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach(index -> sb.append(sb.length() > 1 ? ", " : "").append(index));
+        return sb.append("}").toString();
+    }
+
+    // Контейнер одного блока: младшие 16 бит индексов
+    private abstract static class Container implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        abstract boolean contains(int low);
+
+        // Изменения возвращают контейнер, который может оказаться другого вида
+        abstract Container add(int low);
+
+        abstract Container remove(int low);
+
+        abstract int cardinality();
+
+        // Наименьший элемент не меньше from, -1 если такого нет
+        abstract int next(int from);
+
+        abstract int last();
+
+        abstract void forEach(int base, IntConsumer consumer);
+
+        abstract void addTo(long[] words);
+
+        abstract boolean hasBit(int bit, int value);
+
+        abstract Container copy();
+
+        Container or(Container other) {
+            long[] words = new long[BITMAP_WORDS];
+            addTo(words);
+            other.addTo(words);
+            return fromWords(words);
+        }
+
+        Container and(Container other) {
+            long[] words = new long[BITMAP_WORDS];
+            long[] otherWords = new long[BITMAP_WORDS];
+            addTo(words);
+            other.addTo(otherWords);
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                words[w] &= otherWords[w];
+            }
+            return fromWords(words);
+        }
+
+        // Самый компактный вид: массив - 2 байта на элемент, карта - 8 КБ, интервалы - 4 байта на интервал
+        static Container fromWords(long[] words) {
+            int cardinality = 0;
+            int runs = 0;
+            long carry = 0;
+            for (long word : words) {
+                cardinality += Long.bitCount(word);
+                runs += Long.bitCount(word & ~(word << 1 | carry));
+                carry = word >>> 63;
+            }
+            if (4 * runs < Math.min(2 * cardinality, 8 * BITMAP_WORDS)) {
+                return RunContainer.fromWords(words, runs);
+            }
+            if (cardinality <= ARRAY_MAX) {
+                return ArrayContainer.fromWords(words, cardinality);
+            }
+            return new BitmapContainer(words, cardinality);
+        }
+
+        static Container fromSorted(int[] indices, int from, int to) {
+            int cardinality = to - from;
+            int runs = 1;
+            for (int k = from + 1; k < to; k++) {
+                if (indices[k] != indices[k - 1] + 1) {
+                    runs++;
+                }
+            }
+            if (4 * runs < Math.min(2 * cardinality, 8 * BITMAP_WORDS)) {
+                RunContainer container = new RunContainer(runs);
+                for (int k = from; k < to; k++) {
+                    if (k == from || indices[k] != indices[k - 1] + 1) {
+                        container.starts[container.runs] = (char) indices[k];
+                        container.lengths[container.runs++] = 0;
+                    } else {
+                        container.lengths[container.runs - 1]++;
+                    }
+                }
+                return container;
+            }
+            if (cardinality <= ARRAY_MAX) {
+                ArrayContainer container = new ArrayContainer(cardinality);
+                for (int k = from; k < to; k++) {
+                    container.values[container.cardinality++] = (char) indices[k];
+                }
+                return container;
+            }
+            long[] words = new long[BITMAP_WORDS];
+            for (int k = from; k < to; k++) {
+                words[(indices[k] & 0xFFFF) >>> 6] |= 1L << indices[k];
+            }
+            return new BitmapContainer(words, cardinality);
+        }
+    }
+
+    private static final class ArrayContainer extends Container {
+        private static final long serialVersionUID = 1L;
+
+        private char[] values;
+        private int cardinality;
+
+        ArrayContainer() {
+            this(4);
+        }
+
+        ArrayContainer(int capacity) {
+            values = new char[Math.max(capacity, 1)];
+        }
+
+        static ArrayContainer fromWords(long[] words, int cardinality) {
+            ArrayContainer container = new ArrayContainer(cardinality);
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                for (long word = words[w]; word != 0; word &= word - 1) {
+                    container.values[container.cardinality++] = (char) (w << 6 | Long.numberOfTrailingZeros(word));
+                }
+            }
+            return container;
+        }
+
+        @Override
+        boolean contains(int low) {
+            return Arrays.binarySearch(values, 0, cardinality, (char) low) >= 0;
+        }
+
+        @Override
+        Container add(int low) {
+            // Добавление по возрастанию - без двоичного поиска и сдвигов
+            int position = cardinality == 0 || values[cardinality - 1] < low
+                    ? -cardinality - 1
+                    : Arrays.binarySearch(values, 0, cardinality, (char) low);
+            if (position >= 0) {
+                return this;
+            }
+            if (cardinality == ARRAY_MAX) {
+                long[] words = new long[BITMAP_WORDS];
+                addTo(words);
+                return new BitmapContainer(words, cardinality).add(low);
+            }
+            position = -position - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, cardinality * 2));
+            }
+            System.arraycopy(values, position, values, position + 1, cardinality - position);
+            values[position] = (char) low;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(int low) {
+            int position = Arrays.binarySearch(values, 0, cardinality, (char) low);
+            if (position >= 0) {
+                System.arraycopy(values, position + 1, values, position, cardinality - position - 1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        int next(int from) {
+            int position = Arrays.binarySearch(values, 0, cardinality, (char) from);
+            if (position >= 0) {
+                return from;
+            }
+            position = -position - 1;
+            return position < cardinality ? values[position] : -1;
+        }
+
+        @Override
+        int last() {
+            return values[cardinality - 1];
+        }
+
+        @Override
+        void forEach(int base, IntConsumer consumer) {
+            for (int k = 0; k < cardinality; k++) {
+                consumer.accept(base | values[k]);
+            }
+        }
+
+        @Override
+        void addTo(long[] words) {
+            for (int k = 0; k < cardinality; k++) {
+                words[values[k] >>> 6] |= 1L << values[k];
+            }
+        }
+
+        @Override
+        boolean hasBit(int bit, int value) {
+            for (int k = 0; k < cardinality; k++) {
+                if (((values[k] >>> bit) & 1) == value) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        Container copy() {
+            ArrayContainer copy = new ArrayContainer(0);
+            copy.values = Arrays.copyOf(values, Math.max(cardinality, 1));
+            copy.cardinality = cardinality;
+            return copy;
+        }
+
+        // Два массива объединяются и пересекаются слиянием
+        @Override
+        Container or(Container other) {
+            if (!(other instanceof ArrayContainer that) || cardinality + that.cardinality > ARRAY_MAX) {
+                return super.or(other);
+            }
+            ArrayContainer result = new ArrayContainer(cardinality + that.cardinality);
+            int i = 0;
+            int j = 0;
+            while (i < cardinality || j < that.cardinality) {
+                char next;
+                if (j >= that.cardinality || (i < cardinality && values[i] < that.values[j])) {
+                    next = values[i++];
+                } else if (i >= cardinality || that.values[j] < values[i]) {
+                    next = that.values[j++];
+                } else {
+                    next = values[i++];
+                    j++;
+                }
+                result.values[result.cardinality++] = next;
+            }
+            return result;
+        }
+
+        @Override
+        Container and(Container other) {
+            ArrayContainer result = new ArrayContainer(cardinality);
+            for (int k = 0; k < cardinality; k++) {
+                if (other.contains(values[k])) {
+                    result.values[result.cardinality++] = values[k];
+                }
+            }
+            return result;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] words;
+        private int cardinality;
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        boolean contains(int low) {
+            return (words[low >>> 6] & 1L << low) != 0;
+        }
+
+        @Override
+        Container add(int low) {
+            if (!contains(low)) {
+                words[low >>> 6] |= 1L << low;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(int low) {
+            if (contains(low)) {
+                words[low >>> 6] &= ~(1L << low);
+                cardinality--;
+                if (cardinality <= ARRAY_MAX) {
+                    return ArrayContainer.fromWords(words, cardinality);
+                }
+            }
+            return this;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        int next(int from) {
+            int w = from >>> 6;
+            long word = words[w] & -1L << from;
+            while (word == 0) {
+                if (++w == BITMAP_WORDS) {
+                    return -1;
+                }
+                word = words[w];
+            }
+            return w << 6 | Long.numberOfTrailingZeros(word);
+        }
+
+        @Override
+        int last() {
+            int w = BITMAP_WORDS - 1;
+            while (words[w] == 0) {
+                w--;
+            }
+            return w << 6 | 63 - Long.numberOfLeadingZeros(words[w]);
+        }
+
+        @Override
+        void forEach(int base, IntConsumer consumer) {
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                for (long word = words[w]; word != 0; word &= word - 1) {
+                    consumer.accept(base | w << 6 | Long.numberOfTrailingZeros(word));
+                }
+            }
+        }
+
+        @Override
+        void addTo(long[] target) {
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                target[w] |= words[w];
+            }
+        }
+
+        @Override
+        boolean hasBit(int bit, int value) {
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                long mask;
+                if (bit < 6) {
+                    mask = value == 1 ? BIT_PATTERNS[bit] : ~BIT_PATTERNS[bit];
+                } else {
+                    mask = ((w >>> (bit - 6)) & 1) == value ? -1L : 0L;
+                }
+                if ((words[w] & mask) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+    }
+
+    // Интервалы [starts[r], starts[r] + lengths[r]]. Такие контейнеры получаются при массовом построении
+    // (равномерные суперпозиции); точечное изменение переводит контейнер в массив или карту.
+    private static final class RunContainer extends Container {
+        private static final long serialVersionUID = 1L;
+
+        private final char[] starts;
+        private final char[] lengths;
+        private int runs;
+
+        RunContainer(int capacity) {
+            starts = new char[capacity];
+            lengths = new char[capacity];
+        }
+
+        static RunContainer fromWords(long[] words, int runs) {
+            RunContainer container = new RunContainer(runs);
+            int value = 0;
+            while (value < 1 << 16) {
+                int w = value >>> 6;
+                long word = words[w] & -1L << value;
+                while (word == 0 && ++w < BITMAP_WORDS) {
+                    word = words[w];
+                }
+                if (word == 0) {
+                    break;
+                }
+                int start = w << 6 | Long.numberOfTrailingZeros(word);
+                // Конец интервала - первый нулевой бит после start
+                w = start >>> 6;
+                long inverted = ~words[w] & -1L << start;
+                while (inverted == 0 && ++w < BITMAP_WORDS) {
+                    inverted = ~words[w];
+                }
+                int end = inverted == 0 ? 1 << 16 : w << 6 | Long.numberOfTrailingZeros(inverted);
+                container.starts[container.runs] = (char) start;
+                container.lengths[container.runs++] = (char) (end - start - 1);
+                value = end;
+            }
+            return container;
+        }
+
+        // Номер интервала с наибольшим началом не больше low, -1 если такого нет
+        private int runBefore(int low) {
+            int position = Arrays.binarySearch(starts, 0, runs, (char) low);
+            return position >= 0 ? position : -position - 2;
+        }
+
+        private Container toCompact() {
+            long[] words = new long[BITMAP_WORDS];
+            addTo(words);
+            int cardinality = cardinality();
+            return cardinality <= ARRAY_MAX ? ArrayContainer.fromWords(words, cardinality) : new BitmapContainer(words, cardinality);
+        }
+
+        @Override
+        boolean contains(int low) {
+            int r = runBefore(low);
+            return r >= 0 && low <= starts[r] + lengths[r];
+        }
+
+        @Override
+        Container add(int low) {
+            return contains(low) ? this : toCompact().add(low);
+        }
+
+        @Override
+        Container remove(int low) {
+            return contains(low) ? toCompact().remove(low) : this;
+        }
+
+        @Override
+        int cardinality() {
+            int cardinality = 0;
+            for (int r = 0; r < runs; r++) {
+                cardinality += lengths[r] + 1;
+            }
+            return cardinality;
+        }
+
+        @Override
+        int next(int from) {
+            int r = runBefore(from);
+            if (r >= 0 && from <= starts[r] + lengths[r]) {
+                return from;
+            }
+            return r + 1 < runs ? starts[r + 1] : -1;
+        }
+
+        @Override
+        int last() {
+            return starts[runs - 1] + lengths[runs - 1];
+        }
+
+        @Override
+        void forEach(int base, IntConsumer consumer) {
+            for (int r = 0; r < runs; r++) {
+                for (int low = starts[r]; low <= starts[r] + lengths[r]; low++) {
+                    consumer.accept(base | low);
+                }
+            }
+        }
+
+        @Override
+        void addTo(long[] words) {
+            for (int r = 0; r < runs; r++) {
+                int start = starts[r];
+                int end = start + lengths[r];
+                int firstWord = start >>> 6;
+                int lastWord = end >>> 6;
+                for (int w = firstWord; w <= lastWord; w++) {
+                    long mask = -1L;
+                    if (w == firstWord) {
+                        mask &= -1L << start;
+                    }
+                    if (w == lastWord) {
+                        mask &= -1L >>> (63 - (end & 63));
+                    }
+                    words[w] |= mask;
+                }
+            }
+        }
+
+        // Интервал короче 2^bit меняет бит не более одного раза, поэтому достаточно концов
+        @Override
+        boolean hasBit(int bit, int value) {
+            for (int r = 0; r < runs; r++) {
+                int start = starts[r];
+                int end = start + lengths[r];
+                if (end - start >= 1 << bit || ((start >>> bit) & 1) == value || ((end >>> bit) & 1) == value) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        Container copy() {
+            RunContainer copy = new RunContainer(runs);
+            System.arraycopy(starts, 0, copy.starts, 0, runs);
+            System.arraycopy(lengths, 0, copy.lengths, 0, runs);
+            copy.runs = runs;
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.example.model.qubit.backend;
+
+import org.example.model.qubit.ChunkedComplexArray;
+import org.example.model.qubit.Complex;
+import org.example.model.qubit.QubitRegister;
+import org.example.model.qubit.SupportSet;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class BackendFactory {
+    public static final String DENSITY = "DENSITY";
+    public static final String STABILIZER = "STABILIZER";
+    public static final String EXTENDED_STABILIZER = "EXTENDED_STABILIZER";
+    public static final String MPS = "MPS";
+    public static final String DECISION_DIAGRAM = "DD";
+    public static final String TENSOR_NETWORK = "TENSOR_NETWORK";
+
+    public static String normalizeType(String type) {
+        String upperType = type.toUpperCase();
+        return switch (upperType) {
+            case "DENSITY", "DM" -> DENSITY;
+            case "STABILIZER", "CHP" -> STABILIZER;
+            case "EXTENDED_STABILIZER", "EXTENDED" -> EXTENDED_STABILIZER;
+            case "MPS" -> MPS;
+            case "DD", "QMDD", "DECISION_DIAGRAM" -> DECISION_DIAGRAM;
+            case "TENSOR_NETWORK", "TN" -> TENSOR_NETWORK;
+            default -> throw new IllegalArgumentException("Неизвестный тип бэкенда: " + type);
+        };
+    }
+
+    public static RegisterBackend create(String type, int numQubits) {
+        return create(type, numQubits, Collections.emptyList());
+    }
+
+    // Числовые параметры бэкенда из CR ... AS TYPE(p1, p2, ...)
+    public static RegisterBackend create(String type, int numQubits, List<Double> parameters) {
+        String normalizedType = normalizeType(type);
+        if (normalizedType.equals(MPS)) {
+            return MpsBackend.withParameters(numQubits, parameters);
+        }
+        if (!parameters.isEmpty()) {
+            throw new IllegalArgumentException("Бэкенд " + normalizedType + " не принимает параметров");
+        }
+        return switch (normalizedType) {
+            case DENSITY -> new DensityMatrixBackend(numQubits);
+            case STABILIZER -> new StabilizerBackend(numQubits);
+            case EXTENDED_STABILIZER -> new ExtendedStabilizerBackend(numQubits);
+            case DECISION_DIAGRAM -> new DecisionDiagramBackend(numQubits);
+            case TENSOR_NETWORK -> new TensorNetworkBackend(numQubits);
+            default -> throw new IllegalArgumentException("Неизвестный тип бэкенда: " + type);
+        };
+    }
+
+    public static RegisterBackend fromPureState(String type, int numQubits, Map<Integer, Complex> amplitudes) {
+        return switch (normalizeType(type)) {
+            case DENSITY -> DensityMatrixBackend.fromPureState(numQubits, amplitudes);
+            case STABILIZER -> StabilizerBackend.fromPureState(numQubits, amplitudes);
+            case EXTENDED_STABILIZER -> ExtendedStabilizerBackend.fromPureState(numQubits, amplitudes);
+            case MPS -> MpsBackend.fromPureState(numQubits, amplitudes);
+            case DECISION_DIAGRAM -> DecisionDiagramBackend.fromPureState(numQubits, amplitudes);
+            case TENSOR_NETWORK -> TensorNetworkBackend.fromPureState(numQubits, amplitudes);
+            default -> throw new IllegalArgumentException("Неизвестный тип бэкенда: " + type);
+        };
+    }
+
+    // Объединение двух реальных регистров, хотя бы один из которых использует бэкенд
+    public static RegisterBackend tensorProduct(QubitRegister high, QubitRegister low) {
+        RegisterBackend highBackend = high.getBackend();
+        RegisterBackend lowBackend = low.getBackend();
+        String type = highBackend != null ? highBackend.getType() : lowBackend.getType();
+
+        if (highBackend != null && lowBackend != null && !highBackend.getType().equals(lowBackend.getType())) {
+            throw new IllegalArgumentException("Нельзя объединить регистры с разными бэкендами: "
+                    + highBackend.getType() + " и " + lowBackend.getType());
+        }
+        if (highBackend == null) {
+            highBackend = lowBackend.createCompatible(high.size(), stateVectorOf(high));
+        }
+        if (lowBackend == null) {
+            lowBackend = highBackend.createCompatible(low.size(), stateVectorOf(low));
+        }
+        return highBackend.tensorProduct(lowBackend);
+    }
+
+    public static Map<Integer, Complex> stateVectorOf(QubitRegister register) {
+        Map<Integer, Complex> state = new HashMap<>();
+        SupportSet states = register.getStates();
+        ChunkedComplexArray amplitudes = register.getAmplitudes();
+        for (int i = states.nextSetBit(0); i >= 0; i = states.nextSetBit(i + 1)) {
+            Complex amplitude = amplitudes.get(i);
+            if (!amplitude.isZero()) {
+                state.put(i, amplitude);
+            }
+        }
+        return state;
+    }
+}
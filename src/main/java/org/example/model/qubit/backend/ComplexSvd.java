@@ -0,0 +1,173 @@
+package org.example.model.qubit.backend;
+
+import java.util.Arrays;
+
+// Сингулярное разложение комплексной матрицы A (m x n, построчно) = U S Vh
+// односторонним методом Якоби: столбцы ортогонализуются попарными вращениями.
+// Сингулярные числа упорядочены по убыванию, нулевые отбрасываются.
+class ComplexSvd {
+    private static final int MAX_SWEEPS = 60;
+    private static final double TOLERANCE = 1e-15;
+
+    final int rows;
+    final int rank;
+    final int cols;
+    // U: rows x rank, Vh: rank x cols
+    final double[] uRe;
+    final double[] uIm;
+    final double[] singularValues;
+    final double[] vhRe;
+    final double[] vhIm;
+
+    private ComplexSvd(int rows, int rank, int cols, double[] uRe, double[] uIm, double[] singularValues, double[] vhRe, double[] vhIm) {
+        this.rows = rows;
+        this.rank = rank;
+        this.cols = cols;
+        this.uRe = uRe;
+        this.uIm = uIm;
+        this.singularValues = singularValues;
+        this.vhRe = vhRe;
+        this.vhIm = vhIm;
+    }
+
+    static ComplexSvd of(int m, int n, double[] re, double[] im) {
+        if (m >= n) {
+            return decomposeTall(m, n, re, im);
+        }
+        // A = (A^+)^+ = (U' S V'^+)^+ = V' S U'^+
+        double[] tRe = new double[n * m];
+        double[] tIm = new double[n * m];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                tRe[j * m + i] = re[i * n + j];
+                tIm[j * m + i] = -im[i * n + j];
+            }
+        }
+        ComplexSvd t = decomposeTall(n, m, tRe, tIm);
+        int k = t.rank;
+        double[] uRe = new double[m * k];
+        double[] uIm = new double[m * k];
+        double[] vhRe = new double[k * n];
+        double[] vhIm = new double[k * n];
+        for (int a = 0; a < k; a++) {
+            for (int i = 0; i < m; i++) {
+                uRe[i * k + a] = t.vhRe[a * m + i];
+                uIm[i * k + a] = -t.vhIm[a * m + i];
+            }
+            for (int j = 0; j < n; j++) {
+                vhRe[a * n + j] = t.uRe[j * k + a];
+                vhIm[a * n + j] = -t.uIm[j * k + a];
+            }
+        }
+        return new ComplexSvd(m, k, n, uRe, uIm, t.singularValues, vhRe, vhIm);
+    }
+
+    private static ComplexSvd decomposeTall(int m, int n, double[] re, double[] im) {
+        // столбцы A и V хранятся отдельно, чтобы вращения шли по непрерывной памяти
+        double[][] aRe = new double[n][m];
+        double[][] aIm = new double[n][m];
+        double[][] vRe = new double[n][n];
+        double[][] vIm = new double[n][n];
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < m; i++) {
+                aRe[j][i] = re[i * n + j];
+                aIm[j][i] = im[i * n + j];
+            }
+            vRe[j][j] = 1.0;
+        }
+
+        for (int sweep = 0; sweep < MAX_SWEEPS; sweep++) {
+            boolean rotated = false;
+            for (int p = 0; p < n - 1; p++) {
+                for (int q = p + 1; q < n; q++) {
+                    double alpha = 0;
+                    double beta = 0;
+                    double gammaRe = 0;
+                    double gammaIm = 0;
+                    for (int i = 0; i < m; i++) {
+                        alpha += aRe[p][i] * aRe[p][i] + aIm[p][i] * aIm[p][i];
+                        beta += aRe[q][i] * aRe[q][i] + aIm[q][i] * aIm[q][i];
+                        // conj(a_p) * a_q
+                        gammaRe += aRe[p][i] * aRe[q][i] + aIm[p][i] * aIm[q][i];
+                        gammaIm += aRe[p][i] * aIm[q][i] - aIm[p][i] * aRe[q][i];
+                    }
+                    double gamma = Math.hypot(gammaRe, gammaIm);
+                    if (gamma <= TOLERANCE * Math.sqrt(alpha * beta) || gamma == 0.0) {
+                        continue;
+                    }
+                    rotated = true;
+                    // a_q умножается на e^{-i phi}, после чего вращение вещественное
+                    double phaseRe = gammaRe / gamma;
+                    double phaseIm = -gammaIm / gamma;
+                    double zeta = (beta - alpha) / (2 * gamma);
+                    double t = Math.signum(zeta) / (Math.abs(zeta) + Math.sqrt(1 + zeta * zeta));
+                    if (zeta == 0.0) {
+                        t = 1.0;
+                    }
+                    double c = 1 / Math.sqrt(1 + t * t);
+                    double s = c * t;
+                    rotate(aRe[p], aIm[p], aRe[q], aIm[q], phaseRe, phaseIm, c, s);
+                    rotate(vRe[p], vIm[p], vRe[q], vIm[q], phaseRe, phaseIm, c, s);
+                }
+            }
+            if (!rotated) {
+                break;
+            }
+        }
+
+        double[] norms = new double[n];
+        Integer[] order = new Integer[n];
+        double maxNorm = 0;
+        for (int j = 0; j < n; j++) {
+            double sum = 0;
+            for (int i = 0; i < m; i++) {
+                sum += aRe[j][i] * aRe[j][i] + aIm[j][i] * aIm[j][i];
+            }
+            norms[j] = Math.sqrt(sum);
+            order[j] = j;
+            maxNorm = Math.max(maxNorm, norms[j]);
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(norms[b], norms[a]));
+        int k = 0;
+        while (k < n && norms[order[k]] > 1e-14 * maxNorm && norms[order[k]] > 0) {
+            k++;
+        }
+        k = Math.max(k, 1);
+
+        double[] uRe = new double[m * k];
+        double[] uIm = new double[m * k];
+        double[] sigma = new double[k];
+        double[] vhRe = new double[k * n];
+        double[] vhIm = new double[k * n];
+        for (int a = 0; a < k; a++) {
+            int j = order[a];
+            sigma[a] = norms[j];
+            double inverse = norms[j] > 0 ? 1 / norms[j] : 0;
+            for (int i = 0; i < m; i++) {
+                uRe[i * k + a] = aRe[j][i] * inverse;
+                uIm[i * k + a] = aIm[j][i] * inverse;
+            }
+            // Vh = V^+: строка a - сопряжённый столбец j матрицы V
+            for (int c = 0; c < n; c++) {
+                vhRe[a * n + c] = vRe[j][c];
+                vhIm[a * n + c] = -vIm[j][c];
+            }
+        }
+        return new ComplexSvd(m, k, n, uRe, uIm, sigma, vhRe, vhIm);
+    }
+
+    // (x, y) -> (c x - s e^{-i phi} y, s x + c e^{-i phi} y), e^{-i phi} = phaseRe + i phaseIm
+    private static void rotate(double[] xRe, double[] xIm, double[] yRe, double[] yIm,
+                               double phaseRe, double phaseIm, double c, double s) {
+        for (int i = 0; i < xRe.length; i++) {
+            double yr = yRe[i] * phaseRe - yIm[i] * phaseIm;
+            double yi = yRe[i] * phaseIm + yIm[i] * phaseRe;
+            double xr = xRe[i];
+            double xi = xIm[i];
+            xRe[i] = c * xr - s * yr;
+            xIm[i] = c * xi - s * yi;
+            yRe[i] = s * xr + c * yr;
+            yIm[i] = s * xi + c * yi;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.model.qubit.backend;
+
+import java.util.Arrays;
+
+// Кэш результатов операций над диаграммами с прямым отображением: при коллизии
+// старая запись вытесняется. Ключ - четыре long (идентификаторы узлов и квантованный вес).
+final class ComputeTable {
+    private final int mask;
+    private final long[] keyA;
+    private final long[] keyB;
+    private final long[] keyC;
+    private final long[] keyD;
+    private final DdEdge[] values;
+    private long hits;
+    private long lookups;
+
+    ComputeTable(int sizeLog2) {
+        int size = 1 << sizeLog2;
+        this.mask = size - 1;
+        this.keyA = new long[size];
+        this.keyB = new long[size];
+        this.keyC = new long[size];
+        this.keyD = new long[size];
+        this.values = new DdEdge[size];
+    }
+
+    private int slot(long a, long b, long c, long d) {
+        long h = a * 0x9E3779B97F4A7C15L + b * 0xC2B2AE3D27D4EB4FL + c * 0x165667B19E3779F9L + d * 0x27D4EB2F165667C5L;
+        return (int) (h ^ (h >>> 29)) & mask;
+    }
+
+    DdEdge get(long a, long b, long c, long d) {
+        lookups++;
+        int i = slot(a, b, c, d);
+        DdEdge value = values[i];
+        if (value != null && keyA[i] == a && keyB[i] == b && keyC[i] == c && keyD[i] == d) {
+            hits++;
+            return value;
+        }
+        return null;
+    }
+
+    void put(long a, long b, long c, long d, DdEdge value) {
+        int i = slot(a, b, c, d);
+        keyA[i] = a;
+        keyB[i] = b;
+        keyC[i] = c;
+        keyD[i] = d;
+        values[i] = value;
+    }
+
+    void clear() {
+        Arrays.fill(values, null);
+    }
+
+    double getHitRate() {
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+}
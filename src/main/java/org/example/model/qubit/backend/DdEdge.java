@@ -0,0 +1,30 @@
+package org.example.model.qubit.backend;
+
+import java.io.Serializable;
+
+// Ребро с комплексным весом. Нулевое ребро всегда ведёт в терминал.
+final class DdEdge implements Serializable {
+    static final double TOLERANCE = 1e-13;
+
+    final double re;
+    final double im;
+    final DdNode node;
+
+    DdEdge(double re, double im, DdNode node) {
+        this.re = re;
+        this.im = im;
+        this.node = node;
+    }
+
+    boolean isZero() {
+        return re * re + im * im <= TOLERANCE * TOLERANCE;
+    }
+
+    double modulusSquared() {
+        return re * re + im * im;
+    }
+
+    DdEdge scaled(double factorRe, double factorIm) {
+        return new DdEdge(re * factorRe - im * factorIm, re * factorIm + im * factorRe, node);
+    }
+}
@@ -0,0 +1,21 @@
+package org.example.model.qubit.backend;
+
+import java.io.Serializable;
+
+// Узел диаграммы решений. Уровень узла - номер кубита, терминал имеет уровень -1.
+// Вектор: 2 ребра (значение кубита), матрица: 4 ребра (строка * 2 + столбец).
+final class DdNode implements Serializable {
+    final int id;
+    final int level;
+    final DdEdge[] edges;
+
+    DdNode(int id, int level, DdEdge[] edges) {
+        this.id = id;
+        this.level = level;
+        this.edges = edges;
+    }
+
+    boolean isTerminal() {
+        return level < 0;
+    }
+}
@@ -0,0 +1,286 @@
+package org.example.model.qubit.backend;
+
+import org.example.model.gate.Gate;
+import org.example.model.gate.LocalOperator;
+import org.example.model.gate.instances.Increment;
+import org.example.model.qubit.Complex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Бэкенд на диаграммах решений (QMDD): одинаковые поддеревья вектора состояния хранятся
+// один раз, поэтому структурированные состояния (суперпозиции, результаты арифметики)
+// занимают память, пропорциональную числу узлов, а не числу ненулевых амплитуд.
+public class DecisionDiagramBackend implements RegisterBackend {
+    public static final int MAX_GATE_QUBITS = 12;
+    // Выше этого числа ненулевых амплитуд снимок состояния не строится
+    public static final int MAX_SNAPSHOT_STATES = 1 << 16;
+    public static final int MAX_SNAPSHOT_QUBITS = 30;
+
+    private final int numQubits;
+    private final DecisionDiagramPackage dd;
+    private DdEdge root;
+    // Число узлов состояния после каждого гейта
+    private final List<Integer> nodeCountHistory = new ArrayList<>();
+    private int maxNodeCount;
+
+    public DecisionDiagramBackend(int numQubits) {
+        this(numQubits, new DecisionDiagramPackage(), null);
+        Map<Integer, Complex> ground = new HashMap<>();
+        ground.put(0, Complex.getOne());
+        this.root = dd.fromAmplitudes(numQubits, ground);
+        this.maxNodeCount = getNodeCount();
+    }
+
+    private DecisionDiagramBackend(int numQubits, DecisionDiagramPackage dd, DdEdge root) {
+        if (numQubits <= 0) {
+            throw new IllegalArgumentException("Размер регистра должен быть положительным");
+        }
+        this.numQubits = numQubits;
+        this.dd = dd;
+        this.root = root;
+    }
+
+    public static DecisionDiagramBackend fromPureState(int numQubits, Map<Integer, Complex> amplitudes) {
+        DecisionDiagramPackage dd = new DecisionDiagramPackage();
+        DecisionDiagramBackend backend = new DecisionDiagramBackend(numQubits, dd, dd.fromAmplitudes(numQubits, amplitudes));
+        if (backend.root.isZero()) {
+            throw new IllegalArgumentException("Нулевой вектор не является состоянием");
+        }
+        backend.maxNodeCount = backend.getNodeCount();
+        return backend;
+    }
+
+    @Override
+    public String getType() {
+        return BackendFactory.DECISION_DIAGRAM;
+    }
+
+    @Override
+    public int size() {
+        return numQubits;
+    }
+
+    public int getNodeCount() {
+        return DecisionDiagramPackage.countNodes(root);
+    }
+
+    public int getMaxNodeCount() {
+        return maxNodeCount;
+    }
+
+    public List<Integer> getNodeCountHistory() {
+        return Collections.unmodifiableList(nodeCountHistory);
+    }
+
+    // Число ненулевых амплитуд - размер, который занял бы разреженный вектор
+    public double countNonZeroAmplitudes() {
+        return countPaths(root.node, new HashMap<>());
+    }
+
+    private static double countPaths(DdNode node, Map<Integer, Double> memo) {
+        if (node.isTerminal()) {
+            return 1;
+        }
+        Double cached = memo.get(node.id);
+        if (cached != null) {
+            return cached;
+        }
+        double count = 0;
+        for (DdEdge edge : node.edges) {
+            if (!edge.isZero()) {
+                count += countPaths(edge.node, memo);
+            }
+        }
+        memo.put(node.id, count);
+        return count;
+    }
+
+    @Override
+    public void apply(Gate localGate, int[] qubits) {
+        DdEdge matrix;
+        if (localGate instanceof Increment increment && isWholeRegisterInOrder(qubits)) {
+            matrix = dd.incrementMatrix(numQubits, increment.isIncrement());
+        } else {
+            if (qubits.length > MAX_GATE_QUBITS) {
+                throw new IllegalArgumentException("Диаграммы решений не поддерживают гейты более чем на " + MAX_GATE_QUBITS + " кубитах, запрошено " + qubits.length);
+            }
+            for (int qubit : qubits) {
+                checkQubit(qubit);
+            }
+            matrix = dd.gateMatrix(LocalOperator.of(localGate, qubits.length), qubits, numQubits);
+        }
+        root = dd.multiply(matrix, root);
+        dd.collectGarbageIfNeeded(root);
+        recordNodeCount();
+    }
+
+    private boolean isWholeRegisterInOrder(int[] qubits) {
+        if (qubits.length != numQubits) {
+            return false;
+        }
+        for (int m = 0; m < qubits.length; m++) {
+            if (qubits[m] != m) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void recordNodeCount() {
+        int count = getNodeCount();
+        nodeCountHistory.add(count);
+        maxNodeCount = Math.max(maxNodeCount, count);
+    }
+
+    // Вероятности исходов 0 и 1 для кубита
+    public double[] getOutcomeProbabilities(int qubit) {
+        checkQubit(qubit);
+        Map<Integer, Double> norms = new HashMap<>();
+        double p0 = root.modulusSquared() * probabilityOfZero(root.node, qubit, norms, new HashMap<>());
+        double total = root.modulusSquared() * norm(root.node, norms);
+        p0 = Math.min(1.0, p0 / total);
+        return new double[]{p0, 1.0 - p0};
+    }
+
+    // Квадрат нормы поддерева при единичном входящем весе
+    private static double norm(DdNode node, Map<Integer, Double> memo) {
+        if (node.isTerminal()) {
+            return 1;
+        }
+        Double cached = memo.get(node.id);
+        if (cached != null) {
+            return cached;
+        }
+        double sum = 0;
+        for (DdEdge edge : node.edges) {
+            if (!edge.isZero()) {
+                sum += edge.modulusSquared() * norm(edge.node, memo);
+            }
+        }
+        memo.put(node.id, sum);
+        return sum;
+    }
+
+    private static double probabilityOfZero(DdNode node, int qubit, Map<Integer, Double> norms, Map<Integer, Double> memo) {
+        DdEdge low = node.edges[0];
+        if (node.level == qubit) {
+            return low.isZero() ? 0 : low.modulusSquared() * norm(low.node, norms);
+        }
+        Double cached = memo.get(node.id);
+        if (cached != null) {
+            return cached;
+        }
+        double sum = 0;
+        for (DdEdge edge : node.edges) {
+            if (!edge.isZero()) {
+                sum += edge.modulusSquared() * probabilityOfZero(edge.node, qubit, norms, memo);
+            }
+        }
+        memo.put(node.id, sum);
+        return sum;
+    }
+
+    @Override
+    public int sample(int qubit, Random random) {
+        return random.nextDouble() <= getOutcomeProbabilities(qubit)[0] ? 0 : 1;
+    }
+
+    @Override
+    public int measure(int qubit, Random random) {
+        double[] probabilities = getOutcomeProbabilities(qubit);
+        int measuredValue = random.nextDouble() <= probabilities[0] ? 0 : 1;
+        DdEdge projected = project(root, qubit, measuredValue, new HashMap<>());
+        double scale = 1 / Math.sqrt(probabilities[measuredValue]);
+        root = projected.scaled(scale, 0);
+        dd.collectGarbageIfNeeded(root);
+        recordNodeCount();
+        return measuredValue;
+    }
+
+    // Обнуление ветви кубита, противоположной результату измерения
+    private DdEdge project(DdEdge edge, int qubit, int value, Map<Integer, DdEdge> memo) {
+        if (edge.isZero()) {
+            return dd.zero();
+        }
+        DdNode node = edge.node;
+        DdEdge unit = memo.get(node.id);
+        if (unit == null) {
+            DdEdge[] children = new DdEdge[2];
+            if (node.level == qubit) {
+                children[value] = node.edges[value];
+                children[1 - value] = dd.zero();
+            } else {
+                children[0] = project(node.edges[0], qubit, value, memo);
+                children[1] = project(node.edges[1], qubit, value, memo);
+            }
+            unit = dd.makeNode(node.level, children);
+            memo.put(node.id, unit);
+        }
+        return unit.scaled(edge.re, edge.im);
+    }
+
+    @Override
+    public Map<Integer, Complex> getStateSnapshot() {
+        Map<Integer, Complex> snapshot = new HashMap<>();
+        if (numQubits > MAX_SNAPSHOT_QUBITS || countNonZeroAmplitudes() > MAX_SNAPSHOT_STATES) {
+            return snapshot;
+        }
+        collectAmplitudes(root, root.re, root.im, 0, snapshot);
+        return snapshot;
+    }
+
+    private static void collectAmplitudes(DdEdge edge, double re, double im, int state, Map<Integer, Complex> snapshot) {
+        DdNode node = edge.node;
+        if (node.isTerminal()) {
+            if (re * re + im * im > 1e-12) {
+                snapshot.put(state, new Complex(re, im));
+            }
+            return;
+        }
+        for (int bit = 0; bit < 2; bit++) {
+            DdEdge child = node.edges[bit];
+            if (!child.isZero()) {
+                collectAmplitudes(child, re * child.re - im * child.im, re * child.im + im * child.re,
+                        state | (bit << node.level), snapshot);
+            }
+        }
+    }
+
+    // Терминал старшей диаграммы заменяется корнем младшей, уровни старшей сдвигаются
+    @Override
+    public RegisterBackend tensorProduct(RegisterBackend lower) {
+        if (!(lower instanceof DecisionDiagramBackend other)) {
+            throw new IllegalArgumentException("Диаграмму решений можно объединить только с диаграммой решений");
+        }
+        DecisionDiagramPackage joinedDd = new DecisionDiagramPackage();
+        DdEdge lowRoot = joinedDd.importEdge(other.root, 0, joinedDd.one(), new HashMap<>());
+        DdEdge joinedRoot = joinedDd.importEdge(root, other.numQubits, lowRoot, new HashMap<>());
+        DecisionDiagramBackend joined = new DecisionDiagramBackend(numQubits + other.numQubits, joinedDd, joinedRoot);
+        joined.maxNodeCount = joined.getNodeCount();
+        return joined;
+    }
+
+    private void checkQubit(int qubit) {
+        if (qubit < 0 || qubit >= numQubits) {
+            throw new IndexOutOfBoundsException("Индекс " + qubit + " вне границ регистра размера " + numQubits);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        Map<Integer, Complex> snapshot = getStateSnapshot();
+        snapshot.keySet().stream().sorted().forEach(state -> {
+            String binaryState = String.format("%" + numQubits + "s", Integer.toBinaryString(state)).replace(' ', '0');
+            sb.append("|").append(binaryState).append(">: ").append(snapshot.get(state)).append("\n");
+        });
+        sb.append(String.format("DD: узлов %d (максимум %d), ненулевых амплитуд %.0f, уникальная таблица %d, попадания в кэш умножения %.1f%%%n",
+                getNodeCount(), maxNodeCount, countNonZeroAmplitudes(), dd.getUniqueTableSize(), 100 * dd.getMultiplyHitRate()));
+        return sb.toString();
+    }
+}
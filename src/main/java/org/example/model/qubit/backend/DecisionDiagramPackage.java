@@ -0,0 +1,368 @@
+package org.example.model.qubit.backend;
+
+import org.example.model.gate.LocalOperator;
+import org.example.model.qubit.Complex;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Хранилище узлов диаграмм решений (QMDD): уникальная таблица обеспечивает разделение
+// одинаковых поддеревьев, кэши сложения и умножения - повторное использование результатов.
+// Диаграммы квазиредуцированные: каждый путь проходит все уровни, кроме нулевых рёбер.
+class DecisionDiagramPackage implements Serializable {
+    private static final int INITIAL_GC_THRESHOLD = 1 << 16;
+    private static final int COMPUTE_TABLE_SIZE_LOG2 = 16;
+    // Шаг квантования весов в ключах уникальной таблицы и кэшей
+    private static final double KEY_RESOLUTION = 1e-10;
+
+    private final DdNode terminal = new DdNode(0, -1, new DdEdge[0]);
+    private final DdEdge zero = new DdEdge(0, 0, terminal);
+    private final DdEdge one = new DdEdge(1, 0, terminal);
+    private Map<NodeKey, DdNode> uniqueTable = new HashMap<>();
+    private final List<DdNode> identities = new ArrayList<>();
+    private int nextId = 1;
+    private int gcThreshold = INITIAL_GC_THRESHOLD;
+    private int garbageCollections;
+
+    private transient ComputeTable addTable;
+    private transient ComputeTable multiplyTable;
+
+    private static final class NodeKey implements Serializable {
+        private final int level;
+        private final long[] data;
+        private final int hash;
+
+        NodeKey(int level, DdEdge[] edges) {
+            this.level = level;
+            this.data = new long[edges.length * 3];
+            for (int i = 0; i < edges.length; i++) {
+                data[3 * i] = edges[i].node.id;
+                data[3 * i + 1] = quantize(edges[i].re);
+                data[3 * i + 2] = quantize(edges[i].im);
+            }
+            this.hash = 31 * level + Arrays.hashCode(data);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof NodeKey key && key.level == level && Arrays.equals(key.data, data);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static long quantize(double value) {
+        return Math.round(value / KEY_RESOLUTION);
+    }
+
+    DdEdge zero() {
+        return zero;
+    }
+
+    DdEdge one() {
+        return one;
+    }
+
+    private ComputeTable addTable() {
+        if (addTable == null) {
+            addTable = new ComputeTable(COMPUTE_TABLE_SIZE_LOG2);
+        }
+        return addTable;
+    }
+
+    private ComputeTable multiplyTable() {
+        if (multiplyTable == null) {
+            multiplyTable = new ComputeTable(COMPUTE_TABLE_SIZE_LOG2);
+        }
+        return multiplyTable;
+    }
+
+    int getUniqueTableSize() {
+        return uniqueTable.size();
+    }
+
+    int getGarbageCollections() {
+        return garbageCollections;
+    }
+
+    double getAddHitRate() {
+        return addTable().getHitRate();
+    }
+
+    double getMultiplyHitRate() {
+        return multiplyTable().getHitRate();
+    }
+
+    // Нормализация: все веса делятся на вес ребра с наибольшим модулем, который выносится на входящее ребро
+    DdEdge makeNode(int level, DdEdge[] edges) {
+        int best = -1;
+        double bestModulus = 0;
+        for (int i = 0; i < edges.length; i++) {
+            if (edges[i].isZero()) {
+                edges[i] = zero;
+                continue;
+            }
+            double modulus = edges[i].modulusSquared();
+            if (best < 0 || modulus > bestModulus * (1 + 1e-9)) {
+                best = i;
+                bestModulus = modulus;
+            }
+        }
+        if (best < 0) {
+            return zero;
+        }
+        double wRe = edges[best].re;
+        double wIm = edges[best].im;
+        // 1 / w = conj(w) / |w|^2
+        double invRe = wRe / bestModulus;
+        double invIm = -wIm / bestModulus;
+        DdEdge[] normalized = new DdEdge[edges.length];
+        for (int i = 0; i < edges.length; i++) {
+            normalized[i] = i == best
+                    ? new DdEdge(1, 0, edges[i].node)
+                    : edges[i] == zero ? zero : edges[i].scaled(invRe, invIm);
+        }
+        NodeKey key = new NodeKey(level, normalized);
+        DdNode node = uniqueTable.get(key);
+        if (node == null) {
+            node = new DdNode(nextId++, level, normalized);
+            uniqueTable.put(key, node);
+        }
+        return new DdEdge(wRe, wIm, node);
+    }
+
+    DdEdge add(DdEdge a, DdEdge b) {
+        if (a.isZero()) {
+            return b;
+        }
+        if (b.isZero()) {
+            return a;
+        }
+        if (a.node == b.node) {
+            DdEdge sum = new DdEdge(a.re + b.re, a.im + b.im, a.node);
+            return sum.isZero() ? zero : sum;
+        }
+        // a + b = w_a (A + (w_b / w_a) B)
+        double modulus = a.modulusSquared();
+        double ratioRe = (b.re * a.re + b.im * a.im) / modulus;
+        double ratioIm = (b.im * a.re - b.re * a.im) / modulus;
+        long qRe = quantize(ratioRe);
+        long qIm = quantize(ratioIm);
+        DdEdge cached = addTable().get(a.node.id, b.node.id, qRe, qIm);
+        if (cached == null) {
+            DdEdge[] children = new DdEdge[a.node.edges.length];
+            for (int i = 0; i < children.length; i++) {
+                children[i] = add(a.node.edges[i], b.node.edges[i].scaled(ratioRe, ratioIm));
+            }
+            cached = makeNode(a.node.level, children);
+            addTable().put(a.node.id, b.node.id, qRe, qIm, cached);
+        }
+        return cached.scaled(a.re, a.im);
+    }
+
+    // Матрица (4 ребра на узел) на вектор (2 ребра на узел)
+    DdEdge multiply(DdEdge matrix, DdEdge vector) {
+        if (matrix.isZero() || vector.isZero()) {
+            return zero;
+        }
+        double wRe = matrix.re * vector.re - matrix.im * vector.im;
+        double wIm = matrix.re * vector.im + matrix.im * vector.re;
+        if (matrix.node.isTerminal() || matrix.node == identity(matrix.node.level).node) {
+            return new DdEdge(wRe, wIm, vector.node);
+        }
+        DdEdge cached = multiplyTable().get(matrix.node.id, vector.node.id, 0, 0);
+        if (cached == null) {
+            DdEdge[] children = new DdEdge[2];
+            for (int row = 0; row < 2; row++) {
+                DdEdge sum = zero;
+                for (int col = 0; col < 2; col++) {
+                    sum = add(sum, multiply(matrix.node.edges[row * 2 + col], vector.node.edges[col]));
+                }
+                children[row] = sum;
+            }
+            cached = makeNode(matrix.node.level, children);
+            multiplyTable().put(matrix.node.id, vector.node.id, 0, 0, cached);
+        }
+        return cached.scaled(wRe, wIm);
+    }
+
+    // Единичная матрица на уровнях 0..level
+    DdEdge identity(int level) {
+        if (level < 0) {
+            return one;
+        }
+        while (identities.size() <= level) {
+            int next = identities.size();
+            DdEdge lower = identity(next - 1);
+            identities.add(makeNode(next, new DdEdge[]{lower, zero, zero, lower}).node);
+        }
+        return new DdEdge(1, 0, identities.get(level));
+    }
+
+    // Матрица локального гейта на кубитах qubits регистра из numQubits кубитов
+    DdEdge gateMatrix(LocalOperator operator, int[] qubits, int numQubits) {
+        int[] localOfLevel = new int[numQubits];
+        Arrays.fill(localOfLevel, -1);
+        int lowest = numQubits;
+        for (int m = 0; m < qubits.length; m++) {
+            localOfLevel[qubits[m]] = m;
+            lowest = Math.min(lowest, qubits[m]);
+        }
+        return buildGate(operator, localOfLevel, lowest, numQubits - 1, 0, 0, new HashMap<>());
+    }
+
+    private DdEdge buildGate(LocalOperator operator, int[] localOfLevel, int lowest, int level, int row, int col, Map<Long, DdEdge> memo) {
+        if (level < lowest) {
+            Complex entry = operator.get(row, col);
+            if (entry.modulusSquared() <= DdEdge.TOLERANCE * DdEdge.TOLERANCE) {
+                return zero;
+            }
+            return identity(level).scaled(entry.getReal(), entry.getImaginary());
+        }
+        long key = ((long) level << 42) | ((long) row << 21) | col;
+        DdEdge cached = memo.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        DdEdge[] children = new DdEdge[4];
+        int m = localOfLevel[level];
+        if (m >= 0) {
+            for (int rb = 0; rb < 2; rb++) {
+                for (int cb = 0; cb < 2; cb++) {
+                    children[rb * 2 + cb] = buildGate(operator, localOfLevel, lowest, level - 1, row | (rb << m), col | (cb << m), memo);
+                }
+            }
+        } else {
+            DdEdge sub = buildGate(operator, localOfLevel, lowest, level - 1, row, col, memo);
+            children[0] = sub;
+            children[1] = zero;
+            children[2] = zero;
+            children[3] = sub;
+        }
+        DdEdge result = makeNode(level, children);
+        memo.put(key, result);
+        return result;
+    }
+
+    // Прибавление (вычитание) единицы по модулю 2^numQubits за O(n) узлов.
+    // Inc_L = [[N, W], [W, N]], N_L = [[N, 0], [W, N]], W_L = [[0, W], [0, 0]],
+    // где N - часть без переполнения младших разрядов, W = |0..0><1..1| - перенос.
+    DdEdge incrementMatrix(int numQubits, boolean increment) {
+        DdEdge noCarry = zero;
+        DdEdge carry = one;
+        DdEdge result = null;
+        for (int level = 0; level < numQubits; level++) {
+            result = makeNode(level, arrange(noCarry, carry, carry, noCarry, increment));
+            DdEdge nextNoCarry = makeNode(level, arrange(noCarry, zero, carry, noCarry, increment));
+            DdEdge nextCarry = makeNode(level, arrange(zero, carry, zero, zero, increment));
+            noCarry = nextNoCarry;
+            carry = nextCarry;
+        }
+        return result;
+    }
+
+    // Для вычитания используется транспонированная матрица
+    private static DdEdge[] arrange(DdEdge m00, DdEdge m01, DdEdge m10, DdEdge m11, boolean increment) {
+        return increment ? new DdEdge[]{m00, m01, m10, m11} : new DdEdge[]{m00, m10, m01, m11};
+    }
+
+    // Вектор из разреженного состояния
+    DdEdge fromAmplitudes(int numQubits, Map<Integer, Complex> amplitudes) {
+        List<Map.Entry<Integer, Complex>> entries = new ArrayList<>(amplitudes.entrySet());
+        return buildVector(numQubits - 1, entries);
+    }
+
+    private DdEdge buildVector(int level, List<Map.Entry<Integer, Complex>> entries) {
+        if (entries.isEmpty()) {
+            return zero;
+        }
+        if (level < 0) {
+            Complex amplitude = entries.get(0).getValue();
+            DdEdge edge = new DdEdge(amplitude.getReal(), amplitude.getImaginary(), terminal);
+            return edge.isZero() ? zero : edge;
+        }
+        List<Map.Entry<Integer, Complex>> low = new ArrayList<>();
+        List<Map.Entry<Integer, Complex>> high = new ArrayList<>();
+        for (Map.Entry<Integer, Complex> entry : entries) {
+            (((entry.getKey() >> level) & 1) == 0 ? low : high).add(entry);
+        }
+        return makeNode(level, new DdEdge[]{buildVector(level - 1, low), buildVector(level - 1, high)});
+    }
+
+    // Перенос диаграммы из другого хранилища со сдвигом уровней; терминал заменяется на bottom
+    DdEdge importEdge(DdEdge edge, int shift, DdEdge bottom, Map<Integer, DdEdge> memo) {
+        if (edge.isZero()) {
+            return zero;
+        }
+        if (edge.node.isTerminal()) {
+            return bottom.scaled(edge.re, edge.im);
+        }
+        DdEdge unit = memo.get(edge.node.id);
+        if (unit == null) {
+            DdEdge[] children = new DdEdge[edge.node.edges.length];
+            for (int i = 0; i < children.length; i++) {
+                children[i] = importEdge(edge.node.edges[i], shift, bottom, memo);
+            }
+            unit = makeNode(edge.node.level + shift, children);
+            memo.put(edge.node.id, unit);
+        }
+        return unit.scaled(edge.re, edge.im);
+    }
+
+    // Сборка мусора: в уникальной таблице остаются только узлы, достижимые из корней
+    // и единичных матриц. Кэши очищаются, так как могут ссылаться на удалённые узлы.
+    void collectGarbageIfNeeded(DdEdge... roots) {
+        if (uniqueTable.size() <= gcThreshold) {
+            return;
+        }
+        Map<NodeKey, DdNode> live = new HashMap<>();
+        Deque<DdNode> stack = new ArrayDeque<>();
+        for (DdEdge root : roots) {
+            stack.push(root.node);
+        }
+        stack.addAll(identities);
+        while (!stack.isEmpty()) {
+            DdNode node = stack.pop();
+            if (node.isTerminal()) {
+                continue;
+            }
+            NodeKey key = new NodeKey(node.level, node.edges);
+            if (live.putIfAbsent(key, node) == null) {
+                for (DdEdge child : node.edges) {
+                    stack.push(child.node);
+                }
+            }
+        }
+        uniqueTable = live;
+        addTable().clear();
+        multiplyTable().clear();
+        gcThreshold = Math.max(INITIAL_GC_THRESHOLD, 2 * live.size());
+        garbageCollections++;
+    }
+
+    // Число различных нетерминальных узлов, достижимых из ребра
+    static int countNodes(DdEdge root) {
+        Map<Integer, Boolean> visited = new HashMap<>();
+        Deque<DdNode> stack = new ArrayDeque<>();
+        stack.push(root.node);
+        while (!stack.isEmpty()) {
+            DdNode node = stack.pop();
+            if (node.isTerminal() || visited.put(node.id, Boolean.TRUE) != null) {
+                continue;
+            }
+            for (DdEdge child : node.edges) {
+                stack.push(child.node);
+            }
+        }
+        return visited.size();
+    }
+}
@@ -0,0 +1,271 @@
+package org.example.model.qubit.backend;
+
+import org.example.model.gate.Gate;
+import org.example.model.gate.LocalOperator;
+import org.example.model.qubit.Complex;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+// Матрица плотности rho (2^n x 2^n) в двух плоских массивах re/im, построчно.
+// Гейт U действует сопряжением: rho -> U rho U^+.
+public class DensityMatrixBackend implements RegisterBackend {
+    public static final int MAX_QUBITS = 12;
+    private static final int COLUMN_BLOCK = 256;
+
+    private final int numQubits;
+    private final int dim;
+    private double[] re;
+    private double[] im;
+
+    public DensityMatrixBackend(int numQubits) {
+        if (numQubits <= 0) {
+            throw new IllegalArgumentException("Количество кубитов должно быть положительным");
+        }
+        if (numQubits > MAX_QUBITS) {
+            throw new IllegalArgumentException("Бэкенд матрицы плотности поддерживает не более " + MAX_QUBITS + " кубитов, запрошено " + numQubits);
+        }
+        this.numQubits = numQubits;
+        this.dim = 1 << numQubits;
+        this.re = new double[dim * dim];
+        this.im = new double[dim * dim];
+        this.re[0] = 1.0;
+    }
+
+    public static DensityMatrixBackend fromPureState(int numQubits, Map<Integer, Complex> amplitudes) {
+        DensityMatrixBackend backend = new DensityMatrixBackend(numQubits);
+        backend.re[0] = 0.0;
+        int n = backend.dim;
+        for (Map.Entry<Integer, Complex> row : amplitudes.entrySet()) {
+            Complex a = row.getValue();
+            for (Map.Entry<Integer, Complex> col : amplitudes.entrySet()) {
+                Complex b = col.getValue();
+                // a * conj(b)
+                backend.re[row.getKey() * n + col.getKey()] = a.getReal() * b.getReal() + a.getImaginary() * b.getImaginary();
+                backend.im[row.getKey() * n + col.getKey()] = a.getImaginary() * b.getReal() - a.getReal() * b.getImaginary();
+            }
+        }
+        return backend;
+    }
+
+    @Override
+    public String getType() {
+        return BackendFactory.DENSITY;
+    }
+
+    @Override
+    public int size() {
+        return numQubits;
+    }
+
+    public Complex get(int row, int col) {
+        return new Complex(re[row * dim + col], im[row * dim + col]);
+    }
+
+    @Override
+    public void apply(Gate localGate, int[] qubits) {
+        LocalOperator operator = LocalOperator.of(localGate, qubits.length);
+        // U rho, затем (U rho)^+ = rho U^+, затем U (rho U^+)
+        leftMultiply(operator, qubits);
+        conjugateTranspose();
+        leftMultiply(operator, qubits);
+    }
+
+    private void leftMultiply(LocalOperator operator, int[] qubits) {
+        int localDim = operator.getDimension();
+        int[] offsets = LocalOperator.localOffsets(qubits);
+        int[] sortedQubits = qubits.clone();
+        Arrays.sort(sortedQubits);
+        int groups = dim / localDim;
+
+        IntStream.range(0, groups).parallel().forEach(g -> {
+            int base = LocalOperator.insertZeroBits(g, sortedQubits);
+            int block = Math.min(COLUMN_BLOCK, dim);
+            double[] bufRe = new double[localDim * block];
+            double[] bufIm = new double[localDim * block];
+
+            for (int c0 = 0; c0 < dim; c0 += block) {
+                int width = Math.min(block, dim - c0);
+                Arrays.fill(bufRe, 0.0);
+                Arrays.fill(bufIm, 0.0);
+                for (int j = 0; j < localDim; j++) {
+                    int[] cols = operator.getColumns(j);
+                    double[] uRe = operator.getReal(j);
+                    double[] uIm = operator.getImaginary(j);
+                    int out = j * block;
+                    for (int t = 0; t < cols.length; t++) {
+                        double ur = uRe[t];
+                        double ui = uIm[t];
+                        int src = (base | offsets[cols[t]]) * dim + c0;
+                        for (int c = 0; c < width; c++) {
+                            double xr = re[src + c];
+                            double xi = im[src + c];
+                            bufRe[out + c] += ur * xr - ui * xi;
+                            bufIm[out + c] += ur * xi + ui * xr;
+                        }
+                    }
+                }
+                for (int j = 0; j < localDim; j++) {
+                    int dst = (base | offsets[j]) * dim + c0;
+                    System.arraycopy(bufRe, j * block, re, dst, width);
+                    System.arraycopy(bufIm, j * block, im, dst, width);
+                }
+            }
+        });
+    }
+
+    private void conjugateTranspose() {
+        IntStream.range(0, dim).parallel().forEach(i -> {
+            int diagonal = i * dim + i;
+            im[diagonal] = -im[diagonal];
+            for (int j = i + 1; j < dim; j++) {
+                int upper = i * dim + j;
+                int lower = j * dim + i;
+                double tmpRe = re[upper];
+                double tmpIm = im[upper];
+                re[upper] = re[lower];
+                im[upper] = -im[lower];
+                re[lower] = tmpRe;
+                im[lower] = -tmpIm;
+            }
+        });
+    }
+
+    // Точные вероятности исходов 0 и 1 для кубита
+    public double[] getOutcomeProbabilities(int qubit) {
+        checkQubit(qubit);
+        double zeroProb = 0;
+        double oneProb = 0;
+        for (int i = 0; i < dim; i++) {
+            if (((i >> qubit) & 1) == 0) {
+                zeroProb += re[i * dim + i];
+            } else {
+                oneProb += re[i * dim + i];
+            }
+        }
+        return new double[]{zeroProb, oneProb};
+    }
+
+    public double[] getDiagonal() {
+        double[] diagonal = new double[dim];
+        for (int i = 0; i < dim; i++) {
+            diagonal[i] = re[i * dim + i];
+        }
+        return diagonal;
+    }
+
+    public double getPurity() {
+        // Tr(rho^2) = sum |rho_ij|^2 для эрмитовой rho
+        return IntStream.range(0, dim).parallel().mapToDouble(i -> {
+            double sum = 0;
+            for (int j = 0; j < dim; j++) {
+                sum += re[i * dim + j] * re[i * dim + j] + im[i * dim + j] * im[i * dim + j];
+            }
+            return sum;
+        }).sum();
+    }
+
+    @Override
+    public int sample(int qubit, Random random) {
+        double zeroProb = getOutcomeProbabilities(qubit)[0];
+        return random.nextDouble() <= zeroProb ? 0 : 1;
+    }
+
+    @Override
+    public int measure(int qubit, Random random) {
+        double[] probabilities = getOutcomeProbabilities(qubit);
+        int measuredValue = random.nextDouble() <= probabilities[0] ? 0 : 1;
+        double norm = probabilities[measuredValue];
+
+        if (norm <= 1e-12) {
+            Arrays.fill(re, 0.0);
+            Arrays.fill(im, 0.0);
+            return measuredValue;
+        }
+        double scale = 1.0 / norm;
+        IntStream.range(0, dim).parallel().forEach(i -> {
+            int rowStart = i * dim;
+            if (((i >> qubit) & 1) != measuredValue) {
+                Arrays.fill(re, rowStart, rowStart + dim, 0.0);
+                Arrays.fill(im, rowStart, rowStart + dim, 0.0);
+                return;
+            }
+            for (int j = 0; j < dim; j++) {
+                if (((j >> qubit) & 1) != measuredValue) {
+                    re[rowStart + j] = 0.0;
+                    im[rowStart + j] = 0.0;
+                } else {
+                    re[rowStart + j] *= scale;
+                    im[rowStart + j] *= scale;
+                }
+            }
+        });
+        return measuredValue;
+    }
+
+    // Смешанное состояние не выражается амплитудами, поэтому для отображения
+    // используется sqrt(rho_ii): модуль в квадрате совпадает с вероятностью состояния.
+    @Override
+    public Map<Integer, Complex> getStateSnapshot() {
+        Map<Integer, Complex> snapshot = new HashMap<>();
+        for (int i = 0; i < dim; i++) {
+            double probability = re[i * dim + i];
+            if (probability > 1e-12) {
+                snapshot.put(i, new Complex(Math.sqrt(probability)));
+            }
+        }
+        return snapshot;
+    }
+
+    @Override
+    public RegisterBackend tensorProduct(RegisterBackend lower) {
+        if (!(lower instanceof DensityMatrixBackend other)) {
+            throw new IllegalArgumentException("Матрицу плотности можно объединить только с матрицей плотности");
+        }
+        DensityMatrixBackend joined = new DensityMatrixBackend(this.numQubits + other.numQubits);
+        joined.re[0] = 0.0;
+        int lowBits = other.numQubits;
+        int lowDim = other.dim;
+        int joinedDim = joined.dim;
+
+        IntStream.range(0, joinedDim).parallel().forEach(row -> {
+            int highRow = row >> lowBits;
+            int lowRow = row & (lowDim - 1);
+            for (int col = 0; col < joinedDim; col++) {
+                int a = highRow * dim + (col >> lowBits);
+                int b = lowRow * lowDim + (col & (lowDim - 1));
+                joined.re[row * joinedDim + col] = re[a] * other.re[b] - im[a] * other.im[b];
+                joined.im[row * joinedDim + col] = re[a] * other.im[b] + im[a] * other.re[b];
+            }
+        });
+        return joined;
+    }
+
+    private void checkQubit(int qubit) {
+        if (qubit < 0 || qubit >= numQubits) {
+            throw new IndexOutOfBoundsException("Индекс " + qubit + " вне границ матрицы плотности размера " + numQubits);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < dim; i++) {
+            double probability = re[i * dim + i];
+            if (Math.abs(probability) > 1e-12) {
+                String binaryState = String.format("%" + numQubits + "s", Integer.toBinaryString(i)).replace(' ', '0');
+                sb.append("|").append(binaryState).append("><").append(binaryState).append("|: ")
+                        .append(new Complex(probability, im[i * dim + i])).append("\n");
+            }
+        }
+        if (sb.length() == 0) {
+            String binaryState = String.format("%" + numQubits + "s", 0).replace(' ', '0');
+            sb.append("|").append(binaryState).append("><").append(binaryState).append("|: ")
+                    .append(Complex.getZero()).append("\n");
+        }
+        return sb.toString();
+    }
+}
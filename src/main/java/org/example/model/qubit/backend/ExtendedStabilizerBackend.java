@@ -0,0 +1,322 @@
+package org.example.model.qubit.backend;
+
+import org.example.model.gate.Gate;
+import org.example.model.gate.LocalOperator;
+import org.example.model.qubit.Complex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Расширенный стабилизаторный бэкенд: |psi> = sum_d c_d D^d |phi>, где |phi> задано таблицей,
+// D^d - произведение дестабилизаторов с индексами из d. Векторы D^d|phi> ортонормированы.
+// Гейты Клиффорда меняют только таблицу, неклиффордовы гейты раскладываются по Z-строкам
+// и увеличивают число слагаемых, поэтому стоимость растёт экспоненциально только по T-count.
+public class ExtendedStabilizerBackend implements RegisterBackend {
+    // Максимальная арность неклиффордова гейта: разложение по Z-строкам содержит до 2^k слагаемых
+    public static final int MAX_NON_CLIFFORD_ARITY = 10;
+    private static final double EPSILON = 1e-12;
+
+    private final StabilizerTableau tableau;
+    private Map<BitSet, Complex> terms;
+
+    public ExtendedStabilizerBackend(int numQubits) {
+        this(new StabilizerTableau(numQubits), new HashMap<>());
+        terms.put(new BitSet(numQubits), Complex.getOne());
+    }
+
+    private ExtendedStabilizerBackend(StabilizerTableau tableau, Map<BitSet, Complex> terms) {
+        this.tableau = tableau;
+        this.terms = terms;
+    }
+
+    public static ExtendedStabilizerBackend fromPureState(int numQubits, Map<Integer, Complex> amplitudes) {
+        if (amplitudes.size() != 1) {
+            throw new IllegalArgumentException("Расширенный стабилизаторный бэкенд можно построить только из базисного состояния");
+        }
+        int state = amplitudes.keySet().iterator().next();
+        ExtendedStabilizerBackend backend = new ExtendedStabilizerBackend(numQubits);
+        for (int q = 0; q < numQubits; q++) {
+            if (((state >> q) & 1) == 1) {
+                backend.tableau.x(q);
+            }
+        }
+        return backend;
+    }
+
+    @Override
+    public String getType() {
+        return BackendFactory.EXTENDED_STABILIZER;
+    }
+
+    @Override
+    public int size() {
+        return tableau.size();
+    }
+
+    // Число слагаемых в разложении (стабилизаторный ранг текущего представления)
+    public int getRank() {
+        return terms.size();
+    }
+
+    @Override
+    public void apply(Gate localGate, int[] qubits) {
+        if (tableau.applyGate(localGate, qubits)) {
+            return;
+        }
+        if (qubits.length > MAX_NON_CLIFFORD_ARITY) {
+            throw new IllegalArgumentException("Неклиффордов гейт на " + qubits.length + " кубитах не поддерживается расширенным стабилизаторным бэкендом (максимум " + MAX_NON_CLIFFORD_ARITY + ")");
+        }
+        LocalOperator operator = LocalOperator.of(localGate, qubits.length);
+        double[][] diagonal = diagonalOf(operator, -1);
+        if (diagonal != null) {
+            applyDiagonal(diagonal[0], diagonal[1], qubits);
+            return;
+        }
+        // Гейты вида C..CX и оракулы диагональны после H на целевом кубите
+        for (int t = 0; t < qubits.length; t++) {
+            diagonal = diagonalOf(operator, t);
+            if (diagonal != null) {
+                tableau.h(qubits[t]);
+                applyDiagonal(diagonal[0], diagonal[1], qubits);
+                tableau.h(qubits[t]);
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Гейт " + localGate.getClass().getSimpleName() + " не является гейтом Клиффорда и не приводится к диагональному виду");
+    }
+
+    // Диагональ матрицы H_t U H_t (или U при t = -1), либо null, если матрица не диагональна
+    private static double[][] diagonalOf(LocalOperator operator, int t) {
+        int dim = operator.getDimension();
+        int bit = t < 0 ? 0 : 1 << t;
+        double scale = t < 0 ? 1.0 : 0.5;
+        double[] diagRe = new double[dim];
+        double[] diagIm = new double[dim];
+        double[] rowRe = new double[dim];
+        double[] rowIm = new double[dim];
+
+        for (int r = 0; r < dim; r++) {
+            Arrays.fill(rowRe, 0.0);
+            Arrays.fill(rowIm, 0.0);
+            for (int rr = 0; rr < (t < 0 ? 1 : 2); rr++) {
+                int source = r ^ (rr * bit);
+                double rowSign = (r & source & bit) != 0 ? -1.0 : 1.0;
+                int[] cols = operator.getColumns(source);
+                double[] re = operator.getReal(source);
+                double[] im = operator.getImaginary(source);
+                for (int k = 0; k < cols.length; k++) {
+                    for (int cc = 0; cc < (t < 0 ? 1 : 2); cc++) {
+                        int c = cols[k] ^ (cc * bit);
+                        double sign = rowSign * ((cols[k] & c & bit) != 0 ? -1.0 : 1.0) * scale;
+                        rowRe[c] += sign * re[k];
+                        rowIm[c] += sign * im[k];
+                    }
+                }
+            }
+            for (int c = 0; c < dim; c++) {
+                if (c != r && rowRe[c] * rowRe[c] + rowIm[c] * rowIm[c] > EPSILON) {
+                    return null;
+                }
+            }
+            diagRe[r] = rowRe[r];
+            diagIm[r] = rowIm[r];
+        }
+        return new double[][]{diagRe, diagIm};
+    }
+
+    // diag(g) = sum_s g_s Z^s, g_s = 2^-k sum_y g(y) (-1)^(s.y) - преобразование Уолша-Адамара
+    private void applyDiagonal(double[] diagRe, double[] diagIm, int[] qubits) {
+        int dim = diagRe.length;
+        double[] re = diagRe.clone();
+        double[] im = diagIm.clone();
+        for (int half = 1; half < dim; half <<= 1) {
+            for (int i = 0; i < dim; i++) {
+                if ((i & half) == 0) {
+                    double aRe = re[i];
+                    double aIm = im[i];
+                    re[i] = aRe + re[i | half];
+                    im[i] = aIm + im[i | half];
+                    re[i | half] = aRe - re[i | half];
+                    im[i | half] = aIm - im[i | half];
+                }
+            }
+        }
+
+        List<Complex> coefficients = new ArrayList<>();
+        List<StabilizerTableau.Decomposition> paulis = new ArrayList<>();
+        for (int s = 0; s < dim; s++) {
+            Complex coefficient = new Complex(re[s] / dim, im[s] / dim);
+            if (coefficient.modulusSquared() <= EPSILON * EPSILON) {
+                continue;
+            }
+            int[] zQubits = new int[Integer.bitCount(s)];
+            int count = 0;
+            for (int m = 0; m < qubits.length; m++) {
+                if (((s >> m) & 1) == 1) {
+                    zQubits[count++] = qubits[m];
+                }
+            }
+            coefficients.add(coefficient);
+            paulis.add(tableau.decomposeZ(zQubits));
+        }
+        applyPauliSum(coefficients, paulis);
+    }
+
+    // |psi> -> sum_j coef_j P_j |psi>, где P_j = i^w D^a S^b:
+    // P_j D^d |phi> = i^w (-1)^(b.d) D^(a^d) |phi>
+    private void applyPauliSum(List<Complex> coefficients, List<StabilizerTableau.Decomposition> paulis) {
+        Map<BitSet, Complex> next = new HashMap<>();
+        for (Map.Entry<BitSet, Complex> term : terms.entrySet()) {
+            BitSet d = term.getKey();
+            for (int j = 0; j < paulis.size(); j++) {
+                StabilizerTableau.Decomposition pauli = paulis.get(j);
+                BitSet label = (BitSet) d.clone();
+                label.xor(pauli.getDestabilizers());
+                Complex value = term.getValue().multiply(coefficients.get(j)).multiply(phaseOf(pauli, d));
+                next.merge(label, value, Complex::add);
+            }
+        }
+        next.values().removeIf(value -> value.modulusSquared() <= EPSILON * EPSILON);
+        terms = next;
+    }
+
+    private static Complex phaseOf(StabilizerTableau.Decomposition pauli, BitSet d) {
+        BitSet overlap = (BitSet) pauli.getStabilizers().clone();
+        overlap.and(d);
+        int power = (pauli.getPhase() + 2 * overlap.cardinality()) & 3;
+        return switch (power) {
+            case 0 -> Complex.getOne();
+            case 1 -> new Complex(0, 1);
+            case 2 -> new Complex(-1);
+            default -> new Complex(0, -1);
+        };
+    }
+
+    private double norm() {
+        double norm = 0;
+        for (Complex value : terms.values()) {
+            norm += value.modulusSquared();
+        }
+        return norm;
+    }
+
+    // <psi|Z_q|psi> / <psi|psi> = sum_d conj(c_(d^a)) c_d i^w (-1)^(b.d) / sum |c_d|^2
+    private double expectationZ(StabilizerTableau.Decomposition z) {
+        double sum = 0;
+        for (Map.Entry<BitSet, Complex> term : terms.entrySet()) {
+            BitSet partner = (BitSet) term.getKey().clone();
+            partner.xor(z.getDestabilizers());
+            Complex other = terms.get(partner);
+            if (other == null) {
+                continue;
+            }
+            Complex value = term.getValue().multiply(phaseOf(z, term.getKey()));
+            sum += other.getReal() * value.getReal() + other.getImaginary() * value.getImaginary();
+        }
+        return sum / norm();
+    }
+
+    private double zeroProbability(StabilizerTableau.Decomposition z) {
+        return Math.min(1.0, Math.max(0.0, (1 + expectationZ(z)) / 2));
+    }
+
+    @Override
+    public int sample(int qubit, Random random) {
+        checkQubit(qubit);
+        return random.nextDouble() <= zeroProbability(tableau.decomposeZ(qubit)) ? 0 : 1;
+    }
+
+    // Проекция (I +- Z_q)/2 выражается в том же базисе, таблица не меняется
+    @Override
+    public int measure(int qubit, Random random) {
+        checkQubit(qubit);
+        StabilizerTableau.Decomposition z = tableau.decomposeZ(qubit);
+        double zeroProb = zeroProbability(z);
+        int measuredValue = random.nextDouble() <= zeroProb ? 0 : 1;
+
+        applyPauliSum(
+                List.of(new Complex(0.5), new Complex(measuredValue == 0 ? 0.5 : -0.5)),
+                List.of(tableau.decomposeZ(), z));
+        double scale = 1.0 / Math.sqrt(norm());
+        terms.replaceAll((label, value) -> value.multiply(new Complex(scale)));
+        return measuredValue;
+    }
+
+    @Override
+    public Map<Integer, Complex> getStateSnapshot() {
+        int n = tableau.size();
+        if (n > StabilizerBackend.MAX_SNAPSHOT_QUBITS) {
+            return new HashMap<>();
+        }
+        double[][] phi = tableau.toStateVector();
+        int dim = 1 << n;
+        double[] re = new double[dim];
+        double[] im = new double[dim];
+        for (Map.Entry<BitSet, Complex> term : terms.entrySet()) {
+            double[] vRe = phi[0];
+            double[] vIm = phi[1];
+            BitSet d = term.getKey();
+            for (int i = d.nextSetBit(0); i >= 0; i = d.nextSetBit(i + 1)) {
+                double[] nextRe = new double[dim];
+                double[] nextIm = new double[dim];
+                tableau.addRowTimesVector(i, vRe, vIm, nextRe, nextIm);
+                vRe = nextRe;
+                vIm = nextIm;
+            }
+            double cRe = term.getValue().getReal();
+            double cIm = term.getValue().getImaginary();
+            for (int y = 0; y < dim; y++) {
+                re[y] += cRe * vRe[y] - cIm * vIm[y];
+                im[y] += cRe * vIm[y] + cIm * vRe[y];
+            }
+        }
+        return StabilizerBackend.toSnapshot(re, im);
+    }
+
+    // Дестабилизаторы младшего регистра занимают индексы 0..n2-1 объединённой таблицы
+    @Override
+    public RegisterBackend tensorProduct(RegisterBackend lower) {
+        if (!(lower instanceof ExtendedStabilizerBackend other)) {
+            throw new IllegalArgumentException("Расширенный стабилизаторный регистр можно объединить только с таким же регистром");
+        }
+        int lowBits = other.size();
+        Map<BitSet, Complex> joinedTerms = new HashMap<>();
+        for (Map.Entry<BitSet, Complex> high : terms.entrySet()) {
+            for (Map.Entry<BitSet, Complex> low : other.terms.entrySet()) {
+                BitSet label = (BitSet) low.getKey().clone();
+                BitSet highLabel = high.getKey();
+                for (int i = highLabel.nextSetBit(0); i >= 0; i = highLabel.nextSetBit(i + 1)) {
+                    label.set(lowBits + i);
+                }
+                joinedTerms.put(label, high.getValue().multiply(low.getValue()));
+            }
+        }
+        return new ExtendedStabilizerBackend(tableau.tensorProduct(other.tableau), joinedTerms);
+    }
+
+    private void checkQubit(int qubit) {
+        if (qubit < 0 || qubit >= tableau.size()) {
+            throw new IndexOutOfBoundsException("Индекс " + qubit + " вне границ регистра размера " + tableau.size());
+        }
+    }
+
+    @Override
+    public String toString() {
+        int n = tableau.size();
+        if (n > StabilizerBackend.MAX_SNAPSHOT_QUBITS) {
+            return "Расширенное стабилизаторное состояние из " + n + " кубитов, слагаемых: " + terms.size() + "\n";
+        }
+        StringBuilder sb = new StringBuilder();
+        Map<Integer, Complex> snapshot = getStateSnapshot();
+        snapshot.keySet().stream().sorted().forEach(state -> {
+            String binaryState = String.format("%" + n + "s", Integer.toBinaryString(state)).replace(' ', '0');
+            sb.append("|").append(binaryState).append(">: ").append(snapshot.get(state)).append("\n");
+        });
+        return sb.toString();
+    }
+}
@@ -0,0 +1,541 @@
+package org.example.model.qubit.backend;
+
+import org.example.model.gate.Gate;
+import org.example.model.gate.LocalOperator;
+import org.example.model.qubit.Complex;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Матричное произведение состояний: узел j хранит тензор A[l][s][r] кубита qubitAtSite[j].
+// Представление смешанно-каноническое с центром ортогональности center, поэтому усечение
+// сингулярных чисел при разложении в центре оптимально. Многокубитные гейты применяются
+// после сдвига кубитов в соседние узлы обменами; обратно кубиты не возвращаются,
+// соответствие кубитов и узлов хранится в siteOfQubit/qubitAtSite.
+public class MpsBackend implements RegisterBackend {
+    public static final int DEFAULT_MAX_BOND_DIMENSION = 64;
+    public static final double DEFAULT_TRUNCATION_THRESHOLD = 1e-12;
+    // Гейт на k кубитах сворачивается в тензор с 2^k физическими индексами
+    public static final int MAX_GATE_QUBITS = 10;
+    // Выше этого размера вектор состояния для отображения не строится
+    public static final int MAX_SNAPSHOT_QUBITS = 16;
+    private static final int MAX_PURE_STATE_QUBITS = 24;
+
+    private final int numQubits;
+    private final int maxBondDimension;
+    private final double truncationThreshold;
+    private Site[] sites;
+    private final int[] siteOfQubit;
+    private final int[] qubitAtSite;
+    private int center;
+
+    // Ошибка усечения (отброшенный вес) для каждого применённого гейта
+    private final List<Double> gateTruncationErrors = new ArrayList<>();
+    private double totalTruncationError;
+    private double currentGateError;
+
+    // Тензор узла, индекс ((l * 2 + s) * right + r)
+    private static class Site implements Serializable {
+        final int left;
+        final int right;
+        final double[] re;
+        final double[] im;
+
+        Site(int left, int right) {
+            this(left, right, new double[left * 2 * right], new double[left * 2 * right]);
+        }
+
+        Site(int left, int right, double[] re, double[] im) {
+            this.left = left;
+            this.right = right;
+            this.re = re;
+            this.im = im;
+        }
+    }
+
+    public MpsBackend(int numQubits) {
+        this(numQubits, DEFAULT_MAX_BOND_DIMENSION, DEFAULT_TRUNCATION_THRESHOLD);
+    }
+
+    public MpsBackend(int numQubits, int maxBondDimension, double truncationThreshold) {
+        if (numQubits <= 0) {
+            throw new IllegalArgumentException("Количество кубитов должно быть положительным");
+        }
+        if (maxBondDimension <= 0) {
+            throw new IllegalArgumentException("Максимальная размерность связи должна быть положительной");
+        }
+        if (truncationThreshold < 0) {
+            throw new IllegalArgumentException("Порог усечения не может быть отрицательным");
+        }
+        this.numQubits = numQubits;
+        this.maxBondDimension = maxBondDimension;
+        this.truncationThreshold = truncationThreshold;
+        this.sites = new Site[numQubits];
+        this.siteOfQubit = new int[numQubits];
+        this.qubitAtSite = new int[numQubits];
+        for (int j = 0; j < numQubits; j++) {
+            sites[j] = new Site(1, 1);
+            sites[j].re[0] = 1.0;
+            siteOfQubit[j] = j;
+            qubitAtSite[j] = j;
+        }
+        this.center = 0;
+    }
+
+    // Параметры: [максимальная размерность связи, порог усечения]
+    public static MpsBackend withParameters(int numQubits, List<Double> parameters) {
+        int maxBond = parameters.size() > 0 ? parameters.get(0).intValue() : DEFAULT_MAX_BOND_DIMENSION;
+        double threshold = parameters.size() > 1 ? parameters.get(1) : DEFAULT_TRUNCATION_THRESHOLD;
+        if (parameters.size() > 2) {
+            throw new IllegalArgumentException("MPS принимает не более двух параметров: размерность связи и порог усечения");
+        }
+        return new MpsBackend(numQubits, maxBond, threshold);
+    }
+
+    public static MpsBackend fromPureState(int numQubits, Map<Integer, Complex> amplitudes) {
+        return fromPureState(numQubits, amplitudes, DEFAULT_MAX_BOND_DIMENSION, DEFAULT_TRUNCATION_THRESHOLD);
+    }
+
+    public static MpsBackend fromPureState(int numQubits, Map<Integer, Complex> amplitudes, int maxBondDimension, double truncationThreshold) {
+        if (numQubits > MAX_PURE_STATE_QUBITS) {
+            throw new IllegalArgumentException("Нельзя построить MPS из вектора состояния более чем на " + MAX_PURE_STATE_QUBITS + " кубитах");
+        }
+        MpsBackend backend = new MpsBackend(numQubits, maxBondDimension, truncationThreshold);
+        int dim = 1 << numQubits;
+        double[] re = new double[dim];
+        double[] im = new double[dim];
+        for (Map.Entry<Integer, Complex> entry : amplitudes.entrySet()) {
+            // узел 0 - старший бит индекса блока
+            int block = Integer.reverse(entry.getKey()) >>> (Integer.SIZE - numQubits);
+            re[block] = entry.getValue().getReal();
+            im[block] = entry.getValue().getImaginary();
+        }
+        backend.split(re, im, 1, 0, numQubits, 1);
+        backend.totalTruncationError = backend.currentGateError;
+        return backend;
+    }
+
+    @Override
+    public RegisterBackend createCompatible(int numQubits, Map<Integer, Complex> amplitudes) {
+        return fromPureState(numQubits, amplitudes, maxBondDimension, truncationThreshold);
+    }
+
+    @Override
+    public String getType() {
+        return BackendFactory.MPS;
+    }
+
+    @Override
+    public int size() {
+        return numQubits;
+    }
+
+    public int getMaxBondDimension() {
+        return maxBondDimension;
+    }
+
+    public double getTruncationThreshold() {
+        return truncationThreshold;
+    }
+
+    // Наибольшая из текущих размерностей связей
+    public int getCurrentBondDimension() {
+        int result = 1;
+        for (Site site : sites) {
+            result = Math.max(result, site.right);
+        }
+        return result;
+    }
+
+    public List<Double> getGateTruncationErrors() {
+        return Collections.unmodifiableList(gateTruncationErrors);
+    }
+
+    public double getLastGateTruncationError() {
+        return gateTruncationErrors.isEmpty() ? 0.0 : gateTruncationErrors.get(gateTruncationErrors.size() - 1);
+    }
+
+    public double getTotalTruncationError() {
+        return totalTruncationError;
+    }
+
+    public int getSiteOfQubit(int qubit) {
+        return siteOfQubit[qubit];
+    }
+
+    @Override
+    public void apply(Gate localGate, int[] qubits) {
+        int k = qubits.length;
+        if (k > MAX_GATE_QUBITS) {
+            throw new IllegalArgumentException("MPS не поддерживает гейты более чем на " + MAX_GATE_QUBITS + " кубитах, запрошено " + k);
+        }
+        LocalOperator operator = LocalOperator.of(localGate, k);
+        currentGateError = 0;
+
+        // локальные кубиты по возрастанию узлов
+        Integer[] order = new Integer[k];
+        for (int m = 0; m < k; m++) {
+            order[m] = m;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(siteOfQubit[qubits[a]], siteOfQubit[qubits[b]]));
+        int start = siteOfQubit[qubits[order[0]]];
+        for (int j = 1; j < k; j++) {
+            int qubit = qubits[order[j]];
+            while (siteOfQubit[qubit] > start + j) {
+                swapSites(siteOfQubit[qubit] - 1);
+            }
+        }
+
+        // индекс блока: узел start - старший бит; локальный кубит order[j] в позиции k-1-j
+        int localDim = 1 << k;
+        int[] localToBlock = new int[localDim];
+        for (int local = 0; local < localDim; local++) {
+            int block = 0;
+            for (int j = 0; j < k; j++) {
+                if (((local >> order[j]) & 1) == 1) {
+                    block |= 1 << (k - 1 - j);
+                }
+            }
+            localToBlock[local] = block;
+        }
+
+        moveCenter(start);
+        double[][] theta = contract(start, k);
+        int left = sites[start].left;
+        int right = sites[start + k - 1].right;
+        double[] outRe = new double[theta[0].length];
+        double[] outIm = new double[theta[1].length];
+        for (int l = 0; l < left; l++) {
+            for (int row = 0; row < localDim; row++) {
+                int[] cols = operator.getColumns(row);
+                double[] uRe = operator.getReal(row);
+                double[] uIm = operator.getImaginary(row);
+                int dst = (l * localDim + localToBlock[row]) * right;
+                for (int t = 0; t < cols.length; t++) {
+                    int src = (l * localDim + localToBlock[cols[t]]) * right;
+                    for (int r = 0; r < right; r++) {
+                        double xr = theta[0][src + r];
+                        double xi = theta[1][src + r];
+                        outRe[dst + r] += uRe[t] * xr - uIm[t] * xi;
+                        outIm[dst + r] += uRe[t] * xi + uIm[t] * xr;
+                    }
+                }
+            }
+        }
+        split(outRe, outIm, left, start, k, right);
+
+        gateTruncationErrors.add(currentGateError);
+        totalTruncationError += currentGateError;
+    }
+
+    // Обмен кубитов в узлах s и s+1
+    private void swapSites(int s) {
+        moveCenter(s);
+        double[][] theta = contract(s, 2);
+        int left = sites[s].left;
+        int right = sites[s + 1].right;
+        double[] re = new double[theta[0].length];
+        double[] im = new double[theta[1].length];
+        for (int l = 0; l < left; l++) {
+            for (int b = 0; b < 4; b++) {
+                int swapped = ((b & 1) << 1) | (b >> 1);
+                System.arraycopy(theta[0], (l * 4 + b) * right, re, (l * 4 + swapped) * right, right);
+                System.arraycopy(theta[1], (l * 4 + b) * right, im, (l * 4 + swapped) * right, right);
+            }
+        }
+        split(re, im, left, s, 2, right);
+
+        int qubitA = qubitAtSite[s];
+        int qubitB = qubitAtSite[s + 1];
+        qubitAtSite[s] = qubitB;
+        qubitAtSite[s + 1] = qubitA;
+        siteOfQubit[qubitA] = s + 1;
+        siteOfQubit[qubitB] = s;
+    }
+
+    // Свёртка узлов start..start+k-1 в тензор (left, 2^k, right)
+    private double[][] contract(int start, int k) {
+        Site first = sites[start];
+        double[] re = first.re.clone();
+        double[] im = first.im.clone();
+        int rows = first.left * 2;
+        for (int j = 1; j < k; j++) {
+            Site next = sites[start + j];
+            int inner = next.left;
+            int cols = 2 * next.right;
+            double[] nextRe = new double[rows * cols];
+            double[] nextIm = new double[rows * cols];
+            multiply(re, im, rows, inner, next.re, next.im, cols, nextRe, nextIm);
+            re = nextRe;
+            im = nextIm;
+            rows *= 2;
+        }
+        return new double[][]{re, im};
+    }
+
+    // Разложение тензора (left, 2^k, right) обратно в k узлов последовательными SVD слева направо.
+    // Центр ортогональности оказывается в последнем узле блока.
+    private void split(double[] re, double[] im, int left, int start, int k, int right) {
+        int rowDim = left;
+        int rest = (1 << k) * right;
+        for (int j = 0; j < k - 1; j++) {
+            int rows = rowDim * 2;
+            rest /= 2;
+            ComplexSvd svd = ComplexSvd.of(rows, rest, re, im);
+            int keep = truncatedRank(svd.singularValues);
+            double kept = 0;
+            for (int a = 0; a < keep; a++) {
+                kept += svd.singularValues[a] * svd.singularValues[a];
+            }
+            double total = 0;
+            for (double sigma : svd.singularValues) {
+                total += sigma * sigma;
+            }
+            // отброшенный вес учитывается как ошибка, оставшаяся часть перенормируется
+            double scale = kept > 0 ? Math.sqrt(total / kept) : 1.0;
+
+            Site site = new Site(rowDim, keep);
+            for (int row = 0; row < rows; row++) {
+                System.arraycopy(svd.uRe, row * svd.rank, site.re, row * keep, keep);
+                System.arraycopy(svd.uIm, row * svd.rank, site.im, row * keep, keep);
+            }
+            sites[start + j] = site;
+
+            double[] nextRe = new double[keep * rest];
+            double[] nextIm = new double[keep * rest];
+            for (int a = 0; a < keep; a++) {
+                double sigma = svd.singularValues[a] * scale;
+                for (int c = 0; c < rest; c++) {
+                    nextRe[a * rest + c] = sigma * svd.vhRe[a * rest + c];
+                    nextIm[a * rest + c] = sigma * svd.vhIm[a * rest + c];
+                }
+            }
+            if (total > 0) {
+                currentGateError += (total - kept) / total;
+            }
+            re = nextRe;
+            im = nextIm;
+            rowDim = keep;
+        }
+        sites[start + k - 1] = new Site(rowDim, right, re, im);
+        center = start + k - 1;
+    }
+
+    // Число сохраняемых сингулярных чисел: не больше maxBondDimension,
+    // отбрасываемый относительный вес не превышает truncationThreshold
+    private int truncatedRank(double[] singularValues) {
+        double total = 0;
+        for (double sigma : singularValues) {
+            total += sigma * sigma;
+        }
+        int keep = singularValues.length;
+        double discarded = 0;
+        while (keep > 1) {
+            double weight = singularValues[keep - 1] * singularValues[keep - 1];
+            if ((discarded + weight) / total > truncationThreshold) {
+                break;
+            }
+            discarded += weight;
+            keep--;
+        }
+        return Math.min(keep, maxBondDimension);
+    }
+
+    // Сдвиг центра ортогональности точными SVD (отбрасываются только нулевые сингулярные числа)
+    private void moveCenter(int target) {
+        while (center < target) {
+            Site site = sites[center];
+            ComplexSvd svd = ComplexSvd.of(site.left * 2, site.right, site.re, site.im);
+            int k = svd.rank;
+            sites[center] = new Site(site.left, k, svd.uRe, svd.uIm);
+            double[] svRe = scaledRows(svd.vhRe, svd.singularValues, site.right);
+            double[] svIm = scaledRows(svd.vhIm, svd.singularValues, site.right);
+            Site next = sites[center + 1];
+            Site merged = new Site(k, next.right);
+            multiply(svRe, svIm, k, site.right, next.re, next.im, 2 * next.right, merged.re, merged.im);
+            sites[center + 1] = merged;
+            center++;
+        }
+        while (center > target) {
+            Site site = sites[center];
+            ComplexSvd svd = ComplexSvd.of(site.left, 2 * site.right, site.re, site.im);
+            int k = svd.rank;
+            sites[center] = new Site(k, site.right, svd.vhRe, svd.vhIm);
+            // U S: столбец a умножается на sigma_a
+            double[] usRe = new double[site.left * k];
+            double[] usIm = new double[site.left * k];
+            for (int i = 0; i < site.left; i++) {
+                for (int a = 0; a < k; a++) {
+                    usRe[i * k + a] = svd.uRe[i * k + a] * svd.singularValues[a];
+                    usIm[i * k + a] = svd.uIm[i * k + a] * svd.singularValues[a];
+                }
+            }
+            Site previous = sites[center - 1];
+            Site merged = new Site(previous.left, k);
+            multiply(previous.re, previous.im, previous.left * 2, previous.right, usRe, usIm, k, merged.re, merged.im);
+            sites[center - 1] = merged;
+            center--;
+        }
+    }
+
+    private static double[] scaledRows(double[] matrix, double[] factors, int cols) {
+        double[] result = new double[factors.length * cols];
+        for (int a = 0; a < factors.length; a++) {
+            for (int c = 0; c < cols; c++) {
+                result[a * cols + c] = matrix[a * cols + c] * factors[a];
+            }
+        }
+        return result;
+    }
+
+    // C (rows x cols) = A (rows x inner) * B (inner x cols)
+    private static void multiply(double[] aRe, double[] aIm, int rows, int inner,
+                                 double[] bRe, double[] bIm, int cols,
+                                 double[] cRe, double[] cIm) {
+        for (int i = 0; i < rows; i++) {
+            for (int t = 0; t < inner; t++) {
+                double ar = aRe[i * inner + t];
+                double ai = aIm[i * inner + t];
+                if (ar == 0.0 && ai == 0.0) {
+                    continue;
+                }
+                int bRow = t * cols;
+                int cRow = i * cols;
+                for (int j = 0; j < cols; j++) {
+                    double br = bRe[bRow + j];
+                    double bi = bIm[bRow + j];
+                    cRe[cRow + j] += ar * br - ai * bi;
+                    cIm[cRow + j] += ar * bi + ai * br;
+                }
+            }
+        }
+    }
+
+    // Вероятности исходов кубита: в центре ортогональности они локальны
+    public double[] getOutcomeProbabilities(int qubit) {
+        checkQubit(qubit);
+        int site = siteOfQubit[qubit];
+        moveCenter(site);
+        Site tensor = sites[site];
+        double[] weights = new double[2];
+        for (int l = 0; l < tensor.left; l++) {
+            for (int s = 0; s < 2; s++) {
+                int offset = (l * 2 + s) * tensor.right;
+                for (int r = 0; r < tensor.right; r++) {
+                    weights[s] += tensor.re[offset + r] * tensor.re[offset + r] + tensor.im[offset + r] * tensor.im[offset + r];
+                }
+            }
+        }
+        double total = weights[0] + weights[1];
+        return new double[]{weights[0] / total, weights[1] / total};
+    }
+
+    @Override
+    public int sample(int qubit, Random random) {
+        return random.nextDouble() <= getOutcomeProbabilities(qubit)[0] ? 0 : 1;
+    }
+
+    @Override
+    public int measure(int qubit, Random random) {
+        double[] probabilities = getOutcomeProbabilities(qubit);
+        int measuredValue = random.nextDouble() <= probabilities[0] ? 0 : 1;
+        Site tensor = sites[siteOfQubit[qubit]];
+        double scale = probabilities[measuredValue] > 0 ? 1.0 / Math.sqrt(probabilities[measuredValue]) : 0.0;
+        for (int l = 0; l < tensor.left; l++) {
+            for (int s = 0; s < 2; s++) {
+                int offset = (l * 2 + s) * tensor.right;
+                for (int r = 0; r < tensor.right; r++) {
+                    if (s == measuredValue) {
+                        tensor.re[offset + r] *= scale;
+                        tensor.im[offset + r] *= scale;
+                    } else {
+                        tensor.re[offset + r] = 0.0;
+                        tensor.im[offset + r] = 0.0;
+                    }
+                }
+            }
+        }
+        return measuredValue;
+    }
+
+    // Полная свёртка цепочки, только для небольших регистров
+    @Override
+    public Map<Integer, Complex> getStateSnapshot() {
+        Map<Integer, Complex> snapshot = new HashMap<>();
+        if (numQubits > MAX_SNAPSHOT_QUBITS) {
+            return snapshot;
+        }
+        double[][] vector = contract(0, numQubits);
+        for (int block = 0; block < vector[0].length; block++) {
+            double re = vector[0][block];
+            double im = vector[1][block];
+            if (re * re + im * im > 1e-12) {
+                int state = 0;
+                for (int j = 0; j < numQubits; j++) {
+                    if (((block >> (numQubits - 1 - j)) & 1) == 1) {
+                        state |= 1 << qubitAtSite[j];
+                    }
+                }
+                snapshot.put(state, new Complex(re, im));
+            }
+        }
+        return snapshot;
+    }
+
+    // Узлы младшего регистра идут первыми, связь между регистрами имеет размерность 1
+    @Override
+    public RegisterBackend tensorProduct(RegisterBackend lower) {
+        if (!(lower instanceof MpsBackend other)) {
+            throw new IllegalArgumentException("MPS можно объединить только с MPS");
+        }
+        MpsBackend joined = new MpsBackend(numQubits + other.numQubits, maxBondDimension, truncationThreshold);
+        int lowBits = other.numQubits;
+        for (int j = 0; j < lowBits; j++) {
+            joined.sites[j] = copyOf(other.sites[j]);
+            joined.qubitAtSite[j] = other.qubitAtSite[j];
+        }
+        for (int j = 0; j < numQubits; j++) {
+            joined.sites[lowBits + j] = copyOf(sites[j]);
+            joined.qubitAtSite[lowBits + j] = qubitAtSite[j] + lowBits;
+        }
+        for (int j = 0; j < joined.numQubits; j++) {
+            joined.siteOfQubit[joined.qubitAtSite[j]] = j;
+        }
+        // приведение к каноническому виду: проход справа налево
+        joined.center = joined.numQubits - 1;
+        joined.moveCenter(0);
+        joined.totalTruncationError = totalTruncationError + other.totalTruncationError;
+        return joined;
+    }
+
+    private static Site copyOf(Site site) {
+        return new Site(site.left, site.right, site.re.clone(), site.im.clone());
+    }
+
+    private void checkQubit(int qubit) {
+        if (qubit < 0 || qubit >= numQubits) {
+            throw new IndexOutOfBoundsException("Индекс " + qubit + " вне границ MPS размера " + numQubits);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        if (numQubits <= MAX_SNAPSHOT_QUBITS) {
+            Map<Integer, Complex> snapshot = getStateSnapshot();
+            snapshot.keySet().stream().sorted().forEach(state -> {
+                String binaryState = String.format("%" + numQubits + "s", Integer.toBinaryString(state)).replace(' ', '0');
+                sb.append("|").append(binaryState).append(">: ").append(snapshot.get(state)).append("\n");
+            });
+        }
+        sb.append(String.format("MPS: кубитов %d, размерность связи %d/%d, ошибка усечения гейта %.3e, накопленная %.3e%n",
+                numQubits, getCurrentBondDimension(), maxBondDimension, getLastGateTruncationError(), totalTruncationError));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,34 @@
+package org.example.model.qubit.backend;
+
+import org.example.model.gate.Gate;
+import org.example.model.qubit.Complex;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Random;
+
+// Альтернативное хранилище состояния реального регистра.
+// Гейты передаются в локальной форме (кубиты 0..k-1 вспомогательного регистра),
+// qubits[m] - абсолютный индекс в реальном регистре для локального кубита m.
+public interface RegisterBackend extends Serializable {
+    String getType();
+
+    int size();
+
+    void apply(Gate localGate, int[] qubits);
+
+    int measure(int qubit, Random random);
+
+    int sample(int qubit, Random random);
+
+    // Состояние для отображения: базисное состояние -> амплитуда
+    Map<Integer, Complex> getStateSnapshot();
+
+    // Тензорное произведение: this - старшие кубиты, lower - младшие
+    RegisterBackend tensorProduct(RegisterBackend lower);
+
+    // Бэкенд того же типа и с теми же настройками для чистого состояния другого регистра
+    default RegisterBackend createCompatible(int numQubits, Map<Integer, Complex> amplitudes) {
+        return BackendFactory.fromPureState(getType(), numQubits, amplitudes);
+    }
+}
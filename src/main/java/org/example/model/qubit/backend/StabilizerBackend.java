@@ -0,0 +1,154 @@
+package org.example.model.qubit.backend;
+
+import org.example.model.gate.Gate;
+import org.example.model.qubit.Complex;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+// Бэкенд на таблице стабилизаторов (CHP): только гейты Клиффорда и измерения,
+// память O(n^2) бит, гейт O(n), измерение O(n^2).
+public class StabilizerBackend implements RegisterBackend {
+    // Выше этого размера вектор состояния для отображения не строится
+    public static final int MAX_SNAPSHOT_QUBITS = 16;
+
+    private final StabilizerTableau tableau;
+
+    public StabilizerBackend(int numQubits) {
+        this(new StabilizerTableau(numQubits));
+    }
+
+    StabilizerBackend(StabilizerTableau tableau) {
+        this.tableau = tableau;
+    }
+
+    // Табличное представление есть только у стабилизаторных состояний, поэтому
+    // из вектора состояния принимается лишь базисное состояние
+    public static StabilizerBackend fromPureState(int numQubits, Map<Integer, Complex> amplitudes) {
+        if (amplitudes.size() != 1) {
+            throw new IllegalArgumentException("Стабилизаторный бэкенд можно построить только из базисного состояния");
+        }
+        int state = amplitudes.keySet().iterator().next();
+        StabilizerBackend backend = new StabilizerBackend(numQubits);
+        for (int q = 0; q < numQubits; q++) {
+            if (((state >> q) & 1) == 1) {
+                backend.tableau.x(q);
+            }
+        }
+        return backend;
+    }
+
+    public StabilizerTableau getTableau() {
+        return tableau;
+    }
+
+    @Override
+    public String getType() {
+        return BackendFactory.STABILIZER;
+    }
+
+    @Override
+    public int size() {
+        return tableau.size();
+    }
+
+    @Override
+    public void apply(Gate localGate, int[] qubits) {
+        if (!tableau.applyGate(localGate, qubits)) {
+            throw new IllegalArgumentException("Гейт " + localGate.getClass().getSimpleName() + " не является гейтом Клиффорда и не поддерживается стабилизаторным бэкендом");
+        }
+    }
+
+    @Override
+    public int measure(int qubit, Random random) {
+        checkQubit(qubit);
+        return tableau.measure(qubit, random);
+    }
+
+    @Override
+    public int sample(int qubit, Random random) {
+        checkQubit(qubit);
+        if (tableau.findAnticommutingStabilizer(qubit) < 0) {
+            return tableau.deterministicOutcome(qubit);
+        }
+        return random.nextDouble() <= 0.5 ? 0 : 1;
+    }
+
+    public String[] getStabilizerStrings() {
+        int n = tableau.size();
+        String[] result = new String[n];
+        for (int i = 0; i < n; i++) {
+            result[i] = tableau.rowToString(n + i);
+        }
+        return result;
+    }
+
+    @Override
+    public Map<Integer, Complex> getStateSnapshot() {
+        if (tableau.size() > MAX_SNAPSHOT_QUBITS) {
+            return new HashMap<>();
+        }
+        double[][] vector = tableau.toStateVector();
+        return toSnapshot(vector[0], vector[1]);
+    }
+
+    // Нормированный снимок состояния; глобальная фаза выбирается так,
+    // чтобы первая ненулевая амплитуда была положительной
+    static Map<Integer, Complex> toSnapshot(double[] re, double[] im) {
+        Map<Integer, Complex> snapshot = new HashMap<>();
+        double norm = 0;
+        int first = -1;
+        for (int y = 0; y < re.length; y++) {
+            double probability = re[y] * re[y] + im[y] * im[y];
+            if (probability > 1e-12) {
+                norm += probability;
+                if (first < 0) {
+                    first = y;
+                }
+            }
+        }
+        if (first < 0) {
+            return snapshot;
+        }
+        double modulus = Math.sqrt(re[first] * re[first] + im[first] * im[first]);
+        // деление на sqrt(norm) и на фазу первой амплитуды
+        double cr = re[first] / modulus / Math.sqrt(norm);
+        double ci = -im[first] / modulus / Math.sqrt(norm);
+        for (int y = 0; y < re.length; y++) {
+            if (re[y] * re[y] + im[y] * im[y] > 1e-12) {
+                snapshot.put(y, new Complex(re[y] * cr - im[y] * ci, re[y] * ci + im[y] * cr));
+            }
+        }
+        return snapshot;
+    }
+
+    @Override
+    public RegisterBackend tensorProduct(RegisterBackend lower) {
+        if (!(lower instanceof StabilizerBackend other)) {
+            throw new IllegalArgumentException("Стабилизаторный регистр можно объединить только со стабилизаторным");
+        }
+        return new StabilizerBackend(tableau.tensorProduct(other.tableau));
+    }
+
+    private void checkQubit(int qubit) {
+        if (qubit < 0 || qubit >= tableau.size()) {
+            throw new IndexOutOfBoundsException("Индекс " + qubit + " вне границ регистра размера " + tableau.size());
+        }
+    }
+
+    @Override
+    public String toString() {
+        int n = tableau.size();
+        if (n > MAX_SNAPSHOT_QUBITS) {
+            return "Стабилизаторное состояние из " + n + " кубитов\n";
+        }
+        StringBuilder sb = new StringBuilder();
+        Map<Integer, Complex> snapshot = getStateSnapshot();
+        snapshot.keySet().stream().sorted().forEach(state -> {
+            String binaryState = String.format("%" + n + "s", Integer.toBinaryString(state)).replace(' ', '0');
+            sb.append("|").append(binaryState).append(">: ").append(snapshot.get(state)).append("\n");
+        });
+        return sb.toString();
+    }
+}
@@ -0,0 +1,521 @@
+package org.example.model.qubit.backend;
+
+import org.example.model.gate.ControlledGate;
+import org.example.model.gate.Gate;
+import org.example.model.gate.instances.H;
+import org.example.model.gate.instances.S;
+import org.example.model.gate.instances.SWAP;
+import org.example.model.gate.instances.pauli.X;
+import org.example.model.gate.instances.pauli.Y;
+import org.example.model.gate.instances.pauli.Z;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+// Таблица Ааронсона-Готтесмана: строки 0..n-1 - дестабилизаторы, n..2n-1 - стабилизаторы.
+// Строка хранится как i^phase * X^x * Z^z (все X левее всех Z), x и z упакованы в long[].
+public class StabilizerTableau implements Serializable, Cloneable {
+    private final int numQubits;
+    private final int words;
+    private long[][] x;
+    private long[][] z;
+    private int[] phase;
+
+    public StabilizerTableau(int numQubits) {
+        if (numQubits <= 0) {
+            throw new IllegalArgumentException("Количество кубитов должно быть положительным");
+        }
+        this.numQubits = numQubits;
+        this.words = (numQubits + 63) >>> 6;
+        this.x = new long[2 * numQubits][words];
+        this.z = new long[2 * numQubits][words];
+        this.phase = new int[2 * numQubits];
+        for (int i = 0; i < numQubits; i++) {
+            flip(x[i], i);
+            flip(z[numQubits + i], i);
+        }
+    }
+
+    public int size() {
+        return numQubits;
+    }
+
+    public int getWords() {
+        return words;
+    }
+
+    static long bit(long[] row, int q) {
+        return (row[q >>> 6] >>> q) & 1L;
+    }
+
+    static void flip(long[] row, int q) {
+        row[q >>> 6] ^= 1L << q;
+    }
+
+    public long[] getX(int row) {
+        return x[row];
+    }
+
+    public long[] getZ(int row) {
+        return z[row];
+    }
+
+    public int getPhase(int row) {
+        return phase[row];
+    }
+
+    // ---- Гейты Клиффорда: сопряжение каждой строки U P U^+ ----
+
+    public void h(int q) {
+        int w = q >>> 6;
+        long mask = 1L << q;
+        for (int i = 0; i < 2 * numQubits; i++) {
+            long xb = x[i][w] & mask;
+            long zb = z[i][w] & mask;
+            if (xb != 0 && zb != 0) {
+                phase[i] = (phase[i] + 2) & 3;
+            }
+            x[i][w] = (x[i][w] & ~mask) | zb;
+            z[i][w] = (z[i][w] & ~mask) | xb;
+        }
+    }
+
+    public void s(int q) {
+        int w = q >>> 6;
+        long mask = 1L << q;
+        for (int i = 0; i < 2 * numQubits; i++) {
+            if ((x[i][w] & mask) != 0) {
+                phase[i] = (phase[i] + 1) & 3;
+                z[i][w] ^= mask;
+            }
+        }
+    }
+
+    public void sdg(int q) {
+        int w = q >>> 6;
+        long mask = 1L << q;
+        for (int i = 0; i < 2 * numQubits; i++) {
+            if ((x[i][w] & mask) != 0) {
+                phase[i] = (phase[i] + 3) & 3;
+                z[i][w] ^= mask;
+            }
+        }
+    }
+
+    public void x(int q) {
+        int w = q >>> 6;
+        long mask = 1L << q;
+        for (int i = 0; i < 2 * numQubits; i++) {
+            if ((z[i][w] & mask) != 0) {
+                phase[i] = (phase[i] + 2) & 3;
+            }
+        }
+    }
+
+    public void z(int q) {
+        int w = q >>> 6;
+        long mask = 1L << q;
+        for (int i = 0; i < 2 * numQubits; i++) {
+            if ((x[i][w] & mask) != 0) {
+                phase[i] = (phase[i] + 2) & 3;
+            }
+        }
+    }
+
+    public void y(int q) {
+        int w = q >>> 6;
+        long mask = 1L << q;
+        for (int i = 0; i < 2 * numQubits; i++) {
+            if (((x[i][w] ^ z[i][w]) & mask) != 0) {
+                phase[i] = (phase[i] + 2) & 3;
+            }
+        }
+    }
+
+    public void cx(int control, int target) {
+        for (int i = 0; i < 2 * numQubits; i++) {
+            if (bit(x[i], control) != 0) {
+                flip(x[i], target);
+            }
+            if (bit(z[i], target) != 0) {
+                flip(z[i], control);
+            }
+        }
+    }
+
+    public void cz(int a, int b) {
+        for (int i = 0; i < 2 * numQubits; i++) {
+            long xa = bit(x[i], a);
+            long xb = bit(x[i], b);
+            if (xa != 0 && xb != 0) {
+                phase[i] = (phase[i] + 2) & 3;
+            }
+            if (xa != 0) {
+                flip(z[i], b);
+            }
+            if (xb != 0) {
+                flip(z[i], a);
+            }
+        }
+    }
+
+    public void swap(int a, int b) {
+        for (int i = 0; i < 2 * numQubits; i++) {
+            if (bit(x[i], a) != bit(x[i], b)) {
+                flip(x[i], a);
+                flip(x[i], b);
+            }
+            if (bit(z[i], a) != bit(z[i], b)) {
+                flip(z[i], a);
+                flip(z[i], b);
+            }
+        }
+    }
+
+    // Применяет локальный гейт, если он из группы Клиффорда. Возвращает false для остальных гейтов.
+    public boolean applyGate(Gate localGate, int[] qubits) {
+        if (localGate instanceof ControlledGate controlled) {
+            Gate inner = controlled.getGateToControl();
+            if (inner instanceof ControlledGate) {
+                return false;
+            }
+            int control = qubits[controlled.getControlQubitsIndices()[0]];
+            int target = qubits[inner.getTargetQubitsIndices()[0]];
+            if (inner instanceof X) {
+                cx(control, target);
+            } else if (inner instanceof Z) {
+                cz(control, target);
+            } else if (inner instanceof Y) {
+                // CY = S_t CX S_t^+
+                sdg(target);
+                cx(control, target);
+                s(target);
+            } else {
+                return false;
+            }
+            return true;
+        }
+
+        if (localGate instanceof SWAP) {
+            swap(qubits[localGate.getTargetQubitsIndices()[0]], qubits[localGate.getTargetQubitsIndices()[1]]);
+            return true;
+        }
+        if (!(localGate instanceof H || localGate instanceof S
+                || localGate instanceof X || localGate instanceof Y || localGate instanceof Z)) {
+            return false;
+        }
+        int q = qubits[localGate.getTargetQubitsIndices()[0]];
+        if (localGate instanceof H) {
+            h(q);
+        } else if (localGate instanceof S) {
+            s(q);
+        } else if (localGate instanceof X) {
+            x(q);
+        } else if (localGate instanceof Y) {
+            y(q);
+        } else {
+            z(q);
+        }
+        return true;
+    }
+
+    // ---- Операции со строками ----
+
+    // target <- source * target (для коммутирующих строк порядок не важен)
+    void multiplyRowInto(int target, int source) {
+        phase[target] = productPhase(phase[source], x[source], z[source], phase[target], x[target], z[target]);
+        for (int w = 0; w < words; w++) {
+            x[target][w] ^= x[source][w];
+            z[target][w] ^= z[source][w];
+        }
+    }
+
+    // (i^k1 X^x1 Z^z1)(i^k2 X^x2 Z^z2) = i^(k1+k2) (-1)^(z1.x2) X^(x1^x2) Z^(z1^z2)
+    static int productPhase(int k1, long[] x1, long[] z1, int k2, long[] x2, long[] z2) {
+        int sign = 0;
+        for (int w = 0; w < x1.length; w++) {
+            sign += Long.bitCount(z1[w] & x2[w]);
+        }
+        return (k1 + k2 + 2 * sign) & 3;
+    }
+
+    // Антикоммутирует ли строка row с оператором X^px Z^pz
+    boolean anticommutes(int row, long[] px, long[] pz) {
+        int count = 0;
+        for (int w = 0; w < words; w++) {
+            count += Long.bitCount(x[row][w] & pz[w]) + Long.bitCount(z[row][w] & px[w]);
+        }
+        return (count & 1) == 1;
+    }
+
+    // Индекс стабилизатора, антикоммутирующего с Z_q, или -1, если результат измерения детерминирован
+    public int findAnticommutingStabilizer(int q) {
+        for (int i = numQubits; i < 2 * numQubits; i++) {
+            if (bit(x[i], q) != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Результат измерения Z_q, если он детерминирован: Z_q = +-(произведение стабилизаторов)
+    public int deterministicOutcome(int q) {
+        int k = 0;
+        long[] accX = new long[words];
+        long[] accZ = new long[words];
+        for (int i = 0; i < numQubits; i++) {
+            if (bit(x[i], q) != 0) {
+                k = multiplyInto(k, accX, accZ, numQubits + i);
+            }
+        }
+        // произведение = i^k Z_q, состояние - собственный вектор с +1, значит Z_q = (-1)^(k/2)
+        return (k >> 1) & 1;
+    }
+
+    public int measure(int q, Random random) {
+        int p = findAnticommutingStabilizer(q);
+        if (p < 0) {
+            return deterministicOutcome(q);
+        }
+        int outcome = random.nextDouble() <= 0.5 ? 0 : 1;
+        collapse(q, p, outcome);
+        return outcome;
+    }
+
+    // Случайный исход: стабилизатор p заменяется на (-1)^outcome Z_q
+    public void collapse(int q, int p, int outcome) {
+        for (int i = 0; i < 2 * numQubits; i++) {
+            if (i != p && i != p - numQubits && bit(x[i], q) != 0) {
+                multiplyRowInto(i, p);
+            }
+        }
+        int destabilizer = p - numQubits;
+        System.arraycopy(x[p], 0, x[destabilizer], 0, words);
+        System.arraycopy(z[p], 0, z[destabilizer], 0, words);
+        phase[destabilizer] = phase[p];
+
+        Arrays.fill(x[p], 0L);
+        Arrays.fill(z[p], 0L);
+        flip(z[p], q);
+        phase[p] = 2 * outcome;
+    }
+
+    // Разложение паули-оператора i^pk X^px Z^pz = i^phase D^a S^b, где D^a и S^b - произведения
+    // дестабилизаторов и стабилизаторов по возрастанию индексов. a_i = 1, если оператор
+    // антикоммутирует с S_i, b_i = 1, если антикоммутирует с D_i.
+    public Decomposition decompose(long[] px, long[] pz, int pk) {
+        BitSet a = new BitSet(numQubits);
+        BitSet b = new BitSet(numQubits);
+        for (int i = 0; i < numQubits; i++) {
+            if (anticommutes(numQubits + i, px, pz)) {
+                a.set(i);
+            }
+            if (anticommutes(i, px, pz)) {
+                b.set(i);
+            }
+        }
+        int k = 0;
+        long[] accX = new long[words];
+        long[] accZ = new long[words];
+        for (int i = a.nextSetBit(0); i >= 0; i = a.nextSetBit(i + 1)) {
+            k = multiplyInto(k, accX, accZ, i);
+        }
+        for (int i = b.nextSetBit(0); i >= 0; i = b.nextSetBit(i + 1)) {
+            k = multiplyInto(k, accX, accZ, numQubits + i);
+        }
+        if (!Arrays.equals(accX, px) || !Arrays.equals(accZ, pz)) {
+            throw new IllegalStateException("Таблица стабилизаторов не образует базис группы Паули");
+        }
+        return new Decomposition(a, b, (pk - k) & 3);
+    }
+
+    // acc <- acc * row, возвращает новую фазу acc
+    private int multiplyInto(int k, long[] accX, long[] accZ, int row) {
+        int result = productPhase(k, accX, accZ, phase[row], x[row], z[row]);
+        for (int w = 0; w < words; w++) {
+            accX[w] ^= x[row][w];
+            accZ[w] ^= z[row][w];
+        }
+        return result;
+    }
+
+    // Z на заданных кубитах
+    public Decomposition decomposeZ(int... qubits) {
+        long[] px = new long[words];
+        long[] pz = new long[words];
+        for (int q : qubits) {
+            flip(pz, q);
+        }
+        return decompose(px, pz, 0);
+    }
+
+    public static class Decomposition implements Serializable {
+        private final BitSet destabilizers;
+        private final BitSet stabilizers;
+        private final int phase;
+
+        Decomposition(BitSet destabilizers, BitSet stabilizers, int phase) {
+            this.destabilizers = destabilizers;
+            this.stabilizers = stabilizers;
+            this.phase = phase;
+        }
+
+        public BitSet getDestabilizers() {
+            return destabilizers;
+        }
+
+        public BitSet getStabilizers() {
+            return stabilizers;
+        }
+
+        public int getPhase() {
+            return phase;
+        }
+    }
+
+    // Базисное состояние с ненулевой амплитудой: измерения копии таблицы, случайные исходы полагаются нулевыми
+    public int supportState() {
+        StabilizerTableau copy = clone();
+        int state = 0;
+        for (int q = 0; q < numQubits; q++) {
+            int p = copy.findAnticommutingStabilizer(q);
+            if (p >= 0) {
+                copy.collapse(q, p, 0);
+            } else if (copy.deterministicOutcome(q) == 1) {
+                state |= 1 << q;
+            }
+        }
+        return state;
+    }
+
+    // Прибавляет к out строку row, применённую к вектору (re, im):
+    // i^k X^x Z^z |y> = i^k (-1)^(z.y) |y ^ x>
+    public void addRowTimesVector(int row, double[] re, double[] im, double[] outRe, double[] outIm) {
+        int xMask = (int) x[row][0];
+        int zMask = (int) z[row][0];
+        for (int y = 0; y < re.length; y++) {
+            if (re[y] == 0.0 && im[y] == 0.0) {
+                continue;
+            }
+            int power = (phase[row] + 2 * Integer.bitCount(zMask & y)) & 3;
+            double r = re[y];
+            double m = im[y];
+            switch (power) {
+                case 0 -> {
+                    outRe[y ^ xMask] += r;
+                    outIm[y ^ xMask] += m;
+                }
+                case 1 -> {
+                    outRe[y ^ xMask] -= m;
+                    outIm[y ^ xMask] += r;
+                }
+                case 2 -> {
+                    outRe[y ^ xMask] -= r;
+                    outIm[y ^ xMask] -= m;
+                }
+                default -> {
+                    outRe[y ^ xMask] += m;
+                    outIm[y ^ xMask] -= r;
+                }
+            }
+        }
+    }
+
+    // Вектор стабилизаторного состояния |phi> ~ prod (I + S_i)/2 |x>, x - любое состояние из носителя.
+    // Возвращает {re, im} с точностью до глобальной фазы, без нормировки; только для небольших n.
+    public double[][] toStateVector() {
+        int dim = 1 << numQubits;
+        double[] re = new double[dim];
+        double[] im = new double[dim];
+        re[supportState()] = 1.0;
+        for (int i = numQubits; i < 2 * numQubits; i++) {
+            double[] nextRe = re.clone();
+            double[] nextIm = im.clone();
+            addRowTimesVector(i, re, im, nextRe, nextIm);
+            re = nextRe;
+            im = nextIm;
+        }
+        return new double[][]{re, im};
+    }
+
+    // Блочно-диагональное объединение: this - старшие кубиты, lower - младшие
+    public StabilizerTableau tensorProduct(StabilizerTableau lower) {
+        int n1 = this.numQubits;
+        int n2 = lower.numQubits;
+        StabilizerTableau joined = new StabilizerTableau(n1 + n2);
+        int n = n1 + n2;
+        for (int i = 0; i < 2 * n; i++) {
+            Arrays.fill(joined.x[i], 0L);
+            Arrays.fill(joined.z[i], 0L);
+        }
+        for (int half = 0; half < 2; half++) {
+            for (int i = 0; i < n2; i++) {
+                int src = half * n2 + i;
+                int dst = half * n + i;
+                copyShifted(lower.x[src], joined.x[dst], n2, 0);
+                copyShifted(lower.z[src], joined.z[dst], n2, 0);
+                joined.phase[dst] = lower.phase[src];
+            }
+            for (int i = 0; i < n1; i++) {
+                int src = half * n1 + i;
+                int dst = half * n + n2 + i;
+                copyShifted(this.x[src], joined.x[dst], n1, n2);
+                copyShifted(this.z[src], joined.z[dst], n1, n2);
+                joined.phase[dst] = this.phase[src];
+            }
+        }
+        return joined;
+    }
+
+    private static void copyShifted(long[] src, long[] dst, int bits, int shift) {
+        for (int q = 0; q < bits; q++) {
+            if (bit(src, q) != 0) {
+                flip(dst, q + shift);
+            }
+        }
+    }
+
+    // Строка стабилизатора i в виде "+XZI..." (старший кубит слева, как в |...>)
+    public String rowToString(int row) {
+        StringBuilder sb = new StringBuilder();
+        // i^phase X^x Z^z, где пары X Z на одном кубите дают Y = iXZ
+        int yCount = 0;
+        for (int q = 0; q < numQubits; q++) {
+            if (bit(x[row], q) != 0 && bit(z[row], q) != 0) {
+                yCount++;
+            }
+        }
+        int k = (phase[row] - yCount) & 3;
+        sb.append(switch (k) {
+            case 0 -> "+";
+            case 1 -> "+i";
+            case 2 -> "-";
+            default -> "-i";
+        });
+        for (int q = numQubits - 1; q >= 0; q--) {
+            long xb = bit(x[row], q);
+            long zb = bit(z[row], q);
+            sb.append(xb != 0 ? (zb != 0 ? 'Y' : 'X') : (zb != 0 ? 'Z' : 'I'));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public StabilizerTableau clone() {
+        try {
+            StabilizerTableau copy = (StabilizerTableau) super.clone();
+            copy.x = new long[x.length][];
+            copy.z = new long[z.length][];
+            for (int i = 0; i < x.length; i++) {
+                copy.x[i] = x[i].clone();
+                copy.z[i] = z[i].clone();
+            }
+            copy.phase = phase.clone();
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
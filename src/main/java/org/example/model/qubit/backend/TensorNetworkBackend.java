@@ -0,0 +1,122 @@
+package org.example.model.qubit.backend;
+
+import org.example.model.gate.Gate;
+import org.example.model.gate.GateResolver;
+import org.example.model.gate.LocalOperator;
+import org.example.model.qubit.Complex;
+import org.example.model.tensor.ContractionPlan;
+import org.example.model.tensor.TensorNetwork;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+// Бэкенд на тензорной сети: гейты только добавляются в сеть, а измерения и амплитуды
+// вычисляются свёрткой. Подходит для широких неглубоких схем, где вектор состояния не помещается в память.
+public class TensorNetworkBackend implements RegisterBackend {
+    // Выше этого размера вектор состояния для отображения не строится
+    public static final int MAX_SNAPSHOT_QUBITS = 16;
+
+    private final TensorNetwork network;
+
+    public TensorNetworkBackend(int numQubits) {
+        this(new TensorNetwork(numQubits));
+    }
+
+    private TensorNetworkBackend(TensorNetwork network) {
+        this.network = network;
+    }
+
+    // Начальное состояние сети - |0...0>, поэтому принимается лишь базисное состояние
+    public static TensorNetworkBackend fromPureState(int numQubits, Map<Integer, Complex> amplitudes) {
+        if (amplitudes.size() != 1) {
+            throw new IllegalArgumentException("Тензорную сеть можно построить только из базисного состояния");
+        }
+        int state = amplitudes.keySet().iterator().next();
+        TensorNetworkBackend backend = new TensorNetworkBackend(numQubits);
+        LocalOperator x = LocalOperator.of(GateResolver.resolveLocal("X", 1, 0), 1);
+        for (int q = 0; q < numQubits; q++) {
+            if (((state >> q) & 1) == 1) {
+                backend.network.applyGate(x, new int[]{q});
+            }
+        }
+        return backend;
+    }
+
+    public TensorNetwork getNetwork() {
+        return network;
+    }
+
+    @Override
+    public String getType() {
+        return BackendFactory.TENSOR_NETWORK;
+    }
+
+    @Override
+    public int size() {
+        return network.size();
+    }
+
+    @Override
+    public void apply(Gate localGate, int[] qubits) {
+        network.applyGate(LocalOperator.of(localGate, qubits.length), qubits);
+    }
+
+    public Complex amplitude(long bits) {
+        return network.amplitude(bits);
+    }
+
+    public ContractionPlan planAmplitude() {
+        return network.planAmplitude();
+    }
+
+    public double[] getOutcomeProbabilities(int qubit) {
+        Map<Integer, Integer> fixed = new HashMap<>();
+        fixed.put(qubit, 0);
+        double p0 = Math.min(1.0, network.probability(fixed));
+        return new double[]{p0, 1.0 - p0};
+    }
+
+    @Override
+    public int sample(int qubit, Random random) {
+        return random.nextDouble() <= getOutcomeProbabilities(qubit)[0] ? 0 : 1;
+    }
+
+    // Коллапс - проектор в конце провода с нормировкой 1/sqrt(p)
+    @Override
+    public int measure(int qubit, Random random) {
+        double[] probabilities = getOutcomeProbabilities(qubit);
+        int measuredValue = random.nextDouble() <= probabilities[0] ? 0 : 1;
+        network.project(qubit, measuredValue, 1 / Math.sqrt(probabilities[measuredValue]));
+        return measuredValue;
+    }
+
+    @Override
+    public Map<Integer, Complex> getStateSnapshot() {
+        if (network.size() > MAX_SNAPSHOT_QUBITS) {
+            return new HashMap<>();
+        }
+        return network.amplitudes();
+    }
+
+    @Override
+    public RegisterBackend tensorProduct(RegisterBackend lower) {
+        if (!(lower instanceof TensorNetworkBackend other)) {
+            throw new IllegalArgumentException("Тензорную сеть можно объединить только с тензорной сетью");
+        }
+        return new TensorNetworkBackend(network.tensorProduct(other.network));
+    }
+
+    @Override
+    public String toString() {
+        int n = network.size();
+        StringBuilder sb = new StringBuilder();
+        Map<Integer, Complex> snapshot = getStateSnapshot();
+        snapshot.keySet().stream().sorted().forEach(state -> {
+            String binaryState = String.format("%" + n + "s", Integer.toBinaryString(state)).replace(' ', '0');
+            sb.append("|").append(binaryState).append(">: ").append(snapshot.get(state)).append("\n");
+        });
+        sb.append("TN: кубитов ").append(n).append(", тензоров ").append(network.getTensorCount()).append("\n");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.model.tensor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Выполнение плана свёрток в пуле ForkJoin: шаги одного уровня дерева свёрток независимы
+// и запускаются параллельно, крупные свёртки дополнительно делятся по элементам результата.
+final class ContractionExecutor {
+    // Промежуточный тензор большего ранга занял бы больше 1 ГБ
+    static final int MAX_RANK = 26;
+
+    private ContractionExecutor() {
+    }
+
+    static Tensor execute(ContractionPlan plan, List<Tensor> tensors) {
+        if (plan.getMaxRank() > MAX_RANK) {
+            throw new IllegalArgumentException("Свёртка требует тензора ранга " + plan.getMaxRank()
+                    + ", допустимо не более " + MAX_RANK);
+        }
+        int leafCount = plan.getLeafCount();
+        if (leafCount == 0) {
+            return Tensor.scalar(1, 0);
+        }
+        int steps = plan.getStepCount();
+        Tensor[] results = new Tensor[leafCount + steps];
+        int[] level = new int[leafCount + steps];
+        List<List<Integer>> stepsByLevel = new ArrayList<>();
+        for (int t = 0; t < leafCount; t++) {
+            results[t] = tensors.get(t);
+        }
+        for (int s = 0; s < steps; s++) {
+            int depth = Math.max(level[plan.getLeft()[s]], level[plan.getRight()[s]]) + 1;
+            level[leafCount + s] = depth;
+            while (stepsByLevel.size() < depth) {
+                stepsByLevel.add(new ArrayList<>());
+            }
+            stepsByLevel.get(depth - 1).add(s);
+        }
+        for (List<Integer> independentSteps : stepsByLevel) {
+            List<RecursiveAction> actions = new ArrayList<>();
+            for (int s : independentSteps) {
+                int a = plan.getLeft()[s];
+                int b = plan.getRight()[s];
+                int c = leafCount + s;
+                actions.add(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        results[c] = Tensor.contract(results[a], results[b]);
+                        results[a] = null;
+                        results[b] = null;
+                    }
+                });
+            }
+            ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(actions);
+                }
+            });
+        }
+        return results[results.length - 1];
+    }
+}
@@ -0,0 +1,35 @@
+package org.example.model.tensor;
+
+import lombok.Getter;
+
+// Порядок попарных свёрток сети: шаг s сворачивает тензоры left[s] и right[s] в тензор leafCount + s.
+// Исходные тензоры имеют номера 0..leafCount-1.
+@Getter
+public class ContractionPlan {
+    private final int leafCount;
+    private final int[] left;
+    private final int[] right;
+    // Комплексное умножение со сложением считается за 8 операций
+    private final double estimatedFlops;
+    private final double peakMemoryBytes;
+    private final int maxRank;
+
+    ContractionPlan(int leafCount, int[] left, int[] right, double estimatedFlops, double peakMemoryBytes, int maxRank) {
+        this.leafCount = leafCount;
+        this.left = left;
+        this.right = right;
+        this.estimatedFlops = estimatedFlops;
+        this.peakMemoryBytes = peakMemoryBytes;
+        this.maxRank = maxRank;
+    }
+
+    public int getStepCount() {
+        return left.length;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Тензорная сеть: тензоров %d, свёрток %d, оценка ~%.3g FLOP, пиковая память ~%.3g КБ, максимальный ранг %d%n",
+                leafCount, left.length, estimatedFlops, peakMemoryBytes / 1024, maxRank);
+    }
+}
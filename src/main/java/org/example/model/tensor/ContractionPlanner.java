@@ -0,0 +1,180 @@
+package org.example.model.tensor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+// Жадный выбор порядка свёрток: на каждом шаге сворачивается пара соседних тензоров,
+// меньше всего увеличивающая суммарный размер. Дополнительные попытки добавляют к оценке
+// случайный шум, из всех попыток выбирается порядок с наименьшим числом операций.
+final class ContractionPlanner {
+    private static final double NOISE = 0.5;
+    private static final int BYTES_PER_ELEMENT = 16;
+
+    private ContractionPlanner() {
+    }
+
+    private record Candidate(double score, int a, int b) {
+    }
+
+    static ContractionPlan plan(List<int[]> tensorLabels, int trials, long seed) {
+        Random random = new Random(seed);
+        ContractionPlan best = null;
+        for (int trial = 0; trial < Math.max(1, trials); trial++) {
+            ContractionPlan plan = planOnce(tensorLabels, trial == 0 ? null : random);
+            if (best == null || plan.getEstimatedFlops() < best.getEstimatedFlops()
+                    || plan.getEstimatedFlops() == best.getEstimatedFlops() && plan.getPeakMemoryBytes() < best.getPeakMemoryBytes()) {
+                best = plan;
+            }
+        }
+        return best;
+    }
+
+    private static ContractionPlan planOnce(List<int[]> tensorLabels, Random random) {
+        int leafCount = tensorLabels.size();
+        int total = Math.max(1, 2 * leafCount - 1);
+        int[][] labels = new int[total][];
+        boolean[] live = new boolean[total];
+        Map<Integer, int[]> owners = new HashMap<>();
+        double liveElements = 0;
+        int maxRank = 0;
+        for (int t = 0; t < leafCount; t++) {
+            labels[t] = tensorLabels.get(t).clone();
+            Arrays.sort(labels[t]);
+            live[t] = true;
+            liveElements += Math.pow(2, labels[t].length);
+            maxRank = Math.max(maxRank, labels[t].length);
+            for (int label : labels[t]) {
+                int[] pair = owners.computeIfAbsent(label, l -> new int[]{-1, -1});
+                pair[pair[0] < 0 ? 0 : 1] = t;
+            }
+        }
+
+        PriorityQueue<Candidate> queue = new PriorityQueue<>((x, y) -> Double.compare(x.score(), y.score()));
+        for (int[] pair : owners.values()) {
+            if (pair[1] >= 0) {
+                queue.add(candidate(labels, pair[0], pair[1], random));
+            }
+        }
+
+        int[] left = new int[Math.max(0, leafCount - 1)];
+        int[] right = new int[left.length];
+        int steps = 0;
+        double flops = 0;
+        double peak = liveElements;
+        while (steps < left.length) {
+            int a;
+            int b;
+            Candidate next = queue.poll();
+            if (next != null) {
+                if (!live[next.a()] || !live[next.b()]) {
+                    continue;
+                }
+                a = next.a();
+                b = next.b();
+            } else {
+                // несвязные компоненты: внешнее произведение двух наименьших тензоров
+                int[] smallest = twoSmallest(labels, live);
+                a = smallest[0];
+                b = smallest[1];
+            }
+            int c = leafCount + steps;
+            labels[c] = symmetricDifference(labels[a], labels[b]);
+            int union = labels[a].length + labels[b].length - (labels[a].length + labels[b].length - labels[c].length) / 2;
+            flops += 8 * Math.pow(2, union);
+            liveElements += Math.pow(2, labels[c].length);
+            peak = Math.max(peak, liveElements);
+            liveElements -= Math.pow(2, labels[a].length) + Math.pow(2, labels[b].length);
+            maxRank = Math.max(maxRank, labels[c].length);
+            live[a] = false;
+            live[b] = false;
+            live[c] = true;
+            left[steps] = a;
+            right[steps] = b;
+            steps++;
+
+            List<Integer> neighbours = new ArrayList<>();
+            for (int label : labels[c]) {
+                int[] pair = owners.get(label);
+                if (pair[0] == a || pair[0] == b) {
+                    pair[0] = c;
+                } else if (pair[1] == a || pair[1] == b) {
+                    pair[1] = c;
+                }
+                int other = pair[0] == c ? pair[1] : pair[0];
+                if (other >= 0 && !neighbours.contains(other)) {
+                    neighbours.add(other);
+                    queue.add(candidate(labels, c, other, random));
+                }
+            }
+        }
+        return new ContractionPlan(leafCount, left, right, flops, peak * BYTES_PER_ELEMENT, maxRank);
+    }
+
+    // Изменение суммарного размера при свёртке a и b
+    private static Candidate candidate(int[][] labels, int a, int b, Random random) {
+        double sizeA = Math.pow(2, labels[a].length);
+        double sizeB = Math.pow(2, labels[b].length);
+        double sizeC = Math.pow(2, symmetricDifferenceSize(labels[a], labels[b]));
+        double score = sizeC - sizeA - sizeB;
+        if (random != null) {
+            score += NOISE * (sizeA + sizeB) * random.nextGaussian();
+        }
+        return new Candidate(score, a, b);
+    }
+
+    private static int[] twoSmallest(int[][] labels, boolean[] live) {
+        int first = -1;
+        int second = -1;
+        for (int t = 0; t < live.length; t++) {
+            if (!live[t]) {
+                continue;
+            }
+            if (first < 0 || labels[t].length < labels[first].length) {
+                second = first;
+                first = t;
+            } else if (second < 0 || labels[t].length < labels[second].length) {
+                second = t;
+            }
+        }
+        return new int[]{first, second};
+    }
+
+    private static int symmetricDifferenceSize(int[] a, int[] b) {
+        int common = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] == b[j]) {
+                common++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return a.length + b.length - 2 * common;
+    }
+
+    private static int[] symmetricDifference(int[] a, int[] b) {
+        int[] result = new int[symmetricDifferenceSize(a, b)];
+        int k = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length || j < b.length) {
+            if (j >= b.length || i < a.length && a[i] < b[j]) {
+                result[k++] = a[i++];
+            } else if (i >= a.length || b[j] < a[i]) {
+                result[k++] = b[j++];
+            } else {
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,184 @@
+package org.example.model.tensor;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+// Тензор с индексами размерности 2. Бит i плоского индекса соответствует метке labels[i].
+final class Tensor implements Serializable {
+    // Ниже этого объёма работы свёртка не делится на подзадачи
+    private static final int PARALLEL_THRESHOLD = 1 << 15;
+
+    final int[] labels;
+    final double[] re;
+    final double[] im;
+
+    Tensor(int[] labels, double[] re, double[] im) {
+        this.labels = labels;
+        this.re = re;
+        this.im = im;
+    }
+
+    static Tensor scalar(double re, double im) {
+        return new Tensor(new int[0], new double[]{re}, new double[]{im});
+    }
+
+    int rank() {
+        return labels.length;
+    }
+
+    int positionOf(int label) {
+        for (int i = 0; i < labels.length; i++) {
+            if (labels[i] == label) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Срез: индекс с меткой label фиксируется значением value
+    Tensor fix(int label, int value) {
+        int position = positionOf(label);
+        if (position < 0) {
+            return this;
+        }
+        int[] newLabels = new int[labels.length - 1];
+        for (int i = 0, j = 0; i < labels.length; i++) {
+            if (i != position) {
+                newLabels[j++] = labels[i];
+            }
+        }
+        int size = 1 << newLabels.length;
+        int lowMask = (1 << position) - 1;
+        double[] newRe = new double[size];
+        double[] newIm = new double[size];
+        for (int x = 0; x < size; x++) {
+            int source = (x & lowMask) | (value << position) | ((x & ~lowMask) << 1);
+            newRe[x] = re[source];
+            newIm[x] = im[source];
+        }
+        return new Tensor(newLabels, newRe, newIm);
+    }
+
+    Tensor relabel(int[] newLabels) {
+        return new Tensor(newLabels, re, im);
+    }
+
+    Tensor conjugate(int[] newLabels) {
+        double[] negated = new double[im.length];
+        for (int i = 0; i < im.length; i++) {
+            negated[i] = -im[i];
+        }
+        return new Tensor(newLabels, re, negated);
+    }
+
+    // Свёртка по всем общим меткам; метки результата - свободные метки a, затем свободные метки b
+    static Tensor contract(Tensor a, Tensor b) {
+        int[] sharedA = new int[Math.min(a.rank(), b.rank())];
+        int[] sharedB = new int[sharedA.length];
+        int shared = 0;
+        boolean[] sharedInB = new boolean[b.rank()];
+        int[] freeA = new int[a.rank()];
+        int freeACount = 0;
+        for (int i = 0; i < a.rank(); i++) {
+            int j = b.positionOf(a.labels[i]);
+            if (j >= 0) {
+                sharedA[shared] = i;
+                sharedB[shared] = j;
+                sharedInB[j] = true;
+                shared++;
+            } else {
+                freeA[freeACount++] = i;
+            }
+        }
+        int[] freeB = new int[b.rank() - shared];
+        int freeBCount = 0;
+        for (int j = 0; j < b.rank(); j++) {
+            if (!sharedInB[j]) {
+                freeB[freeBCount++] = j;
+            }
+        }
+        freeA = Arrays.copyOf(freeA, freeACount);
+        int[] resultLabels = new int[freeACount + freeBCount];
+        for (int i = 0; i < freeACount; i++) {
+            resultLabels[i] = a.labels[freeA[i]];
+        }
+        for (int j = 0; j < freeBCount; j++) {
+            resultLabels[freeACount + j] = b.labels[freeB[j]];
+        }
+
+        Kernel kernel = new Kernel(a, b, scatter(freeA), scatter(freeB),
+                scatter(Arrays.copyOf(sharedA, shared)), scatter(Arrays.copyOf(sharedB, shared)),
+                freeACount, new double[1 << resultLabels.length], new double[1 << resultLabels.length],
+                0, 1 << resultLabels.length);
+        kernel.invoke();
+        return new Tensor(resultLabels, kernel.resultRe, kernel.resultIm);
+    }
+
+    // table[x] - смещение в тензоре, куда попадают биты x, разложенные по позициям positions
+    private static int[] scatter(int[] positions) {
+        int[] table = new int[1 << positions.length];
+        for (int x = 1; x < table.length; x++) {
+            table[x] = table[x & (x - 1)] | (1 << positions[Integer.numberOfTrailingZeros(x)]);
+        }
+        return table;
+    }
+
+    private static final class Kernel extends RecursiveAction {
+        private final Tensor a;
+        private final Tensor b;
+        private final int[] scatterA;
+        private final int[] scatterB;
+        private final int[] sharedOffsetsA;
+        private final int[] sharedOffsetsB;
+        private final int freeABits;
+        private final double[] resultRe;
+        private final double[] resultIm;
+        private final int from;
+        private final int to;
+
+        Kernel(Tensor a, Tensor b, int[] scatterA, int[] scatterB, int[] sharedOffsetsA, int[] sharedOffsetsB,
+               int freeABits, double[] resultRe, double[] resultIm, int from, int to) {
+            this.a = a;
+            this.b = b;
+            this.scatterA = scatterA;
+            this.scatterB = scatterB;
+            this.sharedOffsetsA = sharedOffsetsA;
+            this.sharedOffsetsB = sharedOffsetsB;
+            this.freeABits = freeABits;
+            this.resultRe = resultRe;
+            this.resultIm = resultIm;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if ((long) (to - from) * sharedOffsetsA.length > PARALLEL_THRESHOLD && to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Kernel(a, b, scatterA, scatterB, sharedOffsetsA, sharedOffsetsB, freeABits, resultRe, resultIm, from, middle),
+                        new Kernel(a, b, scatterA, scatterB, sharedOffsetsA, sharedOffsetsB, freeABits, resultRe, resultIm, middle, to));
+                return;
+            }
+            int maskA = (1 << freeABits) - 1;
+            for (int r = from; r < to; r++) {
+                int baseA = scatterA[r & maskA];
+                int baseB = scatterB[r >>> freeABits];
+                double sumRe = 0;
+                double sumIm = 0;
+                for (int k = 0; k < sharedOffsetsA.length; k++) {
+                    int ia = baseA | sharedOffsetsA[k];
+                    int ib = baseB | sharedOffsetsB[k];
+                    double ar = a.re[ia];
+                    double ai = a.im[ia];
+                    double br = b.re[ib];
+                    double bi = b.im[ib];
+                    sumRe += ar * br - ai * bi;
+                    sumIm += ar * bi + ai * br;
+                }
+                resultRe[r] = sumRe;
+                resultIm[r] = sumIm;
+            }
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package org.example.model.tensor;
+
+import org.example.model.gate.LocalOperator;
+import org.example.model.qubit.Complex;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Схема как тензорная сеть: каждый гейт - тензор с выходными и входными метками,
+// кубит - цепочка меток от начального |0> до текущего открытого провода.
+// Состояние не хранится; амплитуды и вероятности получаются свёрткой сети.
+public class TensorNetwork implements Serializable {
+    public static final int MAX_GATE_QUBITS = 12;
+    // Число попыток случайного жадного поиска порядка свёрток
+    private static final int SMALL_NETWORK_TRIALS = 16;
+    private static final int LARGE_NETWORK_TRIALS = 2;
+    private static final int LARGE_NETWORK_SIZE = 256;
+    private static final long PLANNER_SEED = 17;
+
+    private static final class Node implements Serializable {
+        final Tensor tensor;
+        // Метки 0..arity-1 выходные, arity..2*arity-1 входные
+        final int arity;
+        final boolean unitary;
+
+        Node(Tensor tensor, int arity, boolean unitary) {
+            this.tensor = tensor;
+            this.arity = arity;
+            this.unitary = unitary;
+        }
+    }
+
+    private final int numQubits;
+    private final List<Node> nodes = new ArrayList<>();
+    private final int[] inputLabels;
+    private final int[] wires;
+    private int nextLabel;
+
+    public TensorNetwork(int numQubits) {
+        if (numQubits <= 0) {
+            throw new IllegalArgumentException("Размер регистра должен быть положительным");
+        }
+        this.numQubits = numQubits;
+        this.inputLabels = new int[numQubits];
+        this.wires = new int[numQubits];
+        for (int q = 0; q < numQubits; q++) {
+            inputLabels[q] = nextLabel;
+            wires[q] = nextLabel++;
+        }
+    }
+
+    public int size() {
+        return numQubits;
+    }
+
+    public int getTensorCount() {
+        return nodes.size();
+    }
+
+    public void applyGate(LocalOperator operator, int[] qubits) {
+        int k = qubits.length;
+        if (k > MAX_GATE_QUBITS) {
+            throw new IllegalArgumentException("Тензорная сеть не поддерживает гейты более чем на " + MAX_GATE_QUBITS + " кубитах, запрошено " + k);
+        }
+        int dim = 1 << k;
+        double[] re = new double[dim * dim];
+        double[] im = new double[dim * dim];
+        for (int row = 0; row < dim; row++) {
+            int[] columns = operator.getColumns(row);
+            double[] rowRe = operator.getReal(row);
+            double[] rowIm = operator.getImaginary(row);
+            for (int j = 0; j < columns.length; j++) {
+                re[row | (columns[j] << k)] = rowRe[j];
+                im[row | (columns[j] << k)] = rowIm[j];
+            }
+        }
+        addNode(re, im, qubits, true);
+    }
+
+    // Проектор |value><value| на кубит с множителем scale (для нормировки после измерения)
+    public void project(int qubit, int value, double scale) {
+        checkQubit(qubit);
+        double[] re = new double[4];
+        re[value | (value << 1)] = scale;
+        addNode(re, new double[4], new int[]{qubit}, false);
+    }
+
+    private void addNode(double[] re, double[] im, int[] qubits, boolean unitary) {
+        int k = qubits.length;
+        int[] labels = new int[2 * k];
+        for (int m = 0; m < k; m++) {
+            checkQubit(qubits[m]);
+            labels[k + m] = wires[qubits[m]];
+        }
+        for (int m = 0; m < k; m++) {
+            labels[m] = nextLabel;
+            wires[qubits[m]] = nextLabel++;
+        }
+        nodes.add(new Node(new Tensor(labels, re, im), k, unitary));
+    }
+
+    // Сеть на объединённом регистре: кубиты lower идут первыми
+    public TensorNetwork tensorProduct(TensorNetwork lower) {
+        TensorNetwork joined = new TensorNetwork(numQubits + lower.numQubits);
+        joined.nodes.addAll(lower.nodes);
+        int shift = lower.nextLabel;
+        for (Node node : nodes) {
+            int[] labels = node.tensor.labels.clone();
+            for (int i = 0; i < labels.length; i++) {
+                labels[i] += shift;
+            }
+            joined.nodes.add(new Node(node.tensor.relabel(labels), node.arity, node.unitary));
+        }
+        for (int q = 0; q < lower.numQubits; q++) {
+            joined.inputLabels[q] = lower.inputLabels[q];
+            joined.wires[q] = lower.wires[q];
+        }
+        for (int q = 0; q < numQubits; q++) {
+            joined.inputLabels[lower.numQubits + q] = inputLabels[q] + shift;
+            joined.wires[lower.numQubits + q] = wires[q] + shift;
+        }
+        joined.nextLabel = shift + nextLabel;
+        return joined;
+    }
+
+    // Сеть для запроса: список тензоров и скалярный множитель (ноль, если запрос заведомо нулевой)
+    private static final class Query {
+        final List<Tensor> tensors = new ArrayList<>();
+        boolean zero;
+    }
+
+    // <bits|C|0>: все входы и выходы зафиксированы, сеть замкнута
+    private Query amplitudeQuery(long bits) {
+        Map<Integer, Integer> fixed = new HashMap<>();
+        for (int q = 0; q < numQubits; q++) {
+            fixed.put(inputLabels[q], 0);
+        }
+        Query query = new Query();
+        for (int q = 0; q < numQubits; q++) {
+            int value = (int) ((bits >>> q) & 1);
+            if (wires[q] == inputLabels[q]) {
+                // к кубиту не применялось гейтов
+                query.zero |= value != 0;
+            } else {
+                fixed.put(wires[q], value);
+            }
+        }
+        for (Node node : nodes) {
+            query.tensors.add(fixAll(node.tensor, fixed));
+        }
+        return query;
+    }
+
+    // Сеть <psi|P|psi> для вероятности исхода fixedOutputs (кубит -> значение): вторая копия
+    // сопряжена, незафиксированные выходы соединены с копией. Унитарные гейты вне обратного
+    // светового конуса зафиксированных кубитов сокращаются с сопряжёнными и отбрасываются.
+    private Query probabilityQuery(Map<Integer, Integer> fixedOutputs) {
+        Set<Integer> shared = new HashSet<>();
+        Map<Integer, Integer> fixed = new HashMap<>();
+        for (int q = 0; q < numQubits; q++) {
+            Integer value = fixedOutputs.get(q);
+            if (value == null) {
+                shared.add(wires[q]);
+            } else {
+                fixed.put(wires[q], value);
+            }
+        }
+        List<Node> kept = new ArrayList<>();
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            Node node = nodes.get(i);
+            int[] labels = node.tensor.labels;
+            boolean outputsShared = true;
+            for (int m = 0; m < node.arity; m++) {
+                outputsShared &= shared.contains(labels[m]);
+            }
+            if (node.unitary && outputsShared) {
+                for (int m = 0; m < node.arity; m++) {
+                    shared.remove(labels[m]);
+                    shared.add(labels[node.arity + m]);
+                }
+            } else {
+                kept.add(node);
+            }
+        }
+
+        int offset = nextLabel;
+        Query query = new Query();
+        Map<Integer, Integer> fixedCopy = new HashMap<>();
+        for (Map.Entry<Integer, Integer> entry : fixed.entrySet()) {
+            fixedCopy.put(entry.getKey() + offset, entry.getValue());
+        }
+        for (int q = 0; q < numQubits; q++) {
+            if (!shared.contains(inputLabels[q])) {
+                fixed.put(inputLabels[q], 0);
+                fixedCopy.put(inputLabels[q] + offset, 0);
+            }
+            // кубит без гейтов, зафиксированный в 1
+            Integer value = fixedOutputs.get(q);
+            if (wires[q] == inputLabels[q] && value != null && value != 0) {
+                query.zero = true;
+            }
+        }
+        for (Node node : kept) {
+            int[] copyLabels = node.tensor.labels.clone();
+            for (int i = 0; i < copyLabels.length; i++) {
+                if (!shared.contains(copyLabels[i])) {
+                    copyLabels[i] += offset;
+                }
+            }
+            query.tensors.add(fixAll(node.tensor, fixed));
+            query.tensors.add(fixAll(node.tensor.conjugate(copyLabels), fixedCopy));
+        }
+        return query;
+    }
+
+    private static Tensor fixAll(Tensor tensor, Map<Integer, Integer> fixed) {
+        Tensor result = tensor;
+        for (int label : tensor.labels) {
+            Integer value = fixed.get(label);
+            if (value != null) {
+                result = result.fix(label, value);
+            }
+        }
+        return result;
+    }
+
+    private static ContractionPlan plan(List<Tensor> tensors) {
+        List<int[]> labels = new ArrayList<>();
+        for (Tensor tensor : tensors) {
+            labels.add(tensor.labels);
+        }
+        int trials = tensors.size() > LARGE_NETWORK_SIZE ? LARGE_NETWORK_TRIALS : SMALL_NETWORK_TRIALS;
+        return ContractionPlanner.plan(labels, trials, PLANNER_SEED);
+    }
+
+    // Оценка стоимости одной амплитуды до свёртки
+    public ContractionPlan planAmplitude() {
+        return plan(amplitudeQuery(0).tensors);
+    }
+
+    // Та же оценка только по структуре схемы (список кубитов каждого гейта), без построения тензоров
+    public static ContractionPlan planAmplitude(int numQubits, List<int[]> gateQubits) {
+        int[] wires = new int[numQubits];
+        int nextLabel = 0;
+        for (int q = 0; q < numQubits; q++) {
+            wires[q] = nextLabel++;
+        }
+        Set<Integer> boundary = new HashSet<>();
+        for (int q = 0; q < numQubits; q++) {
+            boundary.add(wires[q]);
+        }
+        List<int[]> labels = new ArrayList<>();
+        for (int[] qubits : gateQubits) {
+            int[] gateLabels = new int[2 * qubits.length];
+            for (int m = 0; m < qubits.length; m++) {
+                gateLabels[qubits.length + m] = wires[qubits[m]];
+                gateLabels[m] = nextLabel;
+                wires[qubits[m]] = nextLabel++;
+            }
+            labels.add(gateLabels);
+        }
+        for (int q = 0; q < numQubits; q++) {
+            boundary.add(wires[q]);
+        }
+        // входы и выходы зафиксированы и в свёртке не участвуют
+        List<int[]> internal = new ArrayList<>();
+        for (int[] gateLabels : labels) {
+            internal.add(Arrays.stream(gateLabels).filter(label -> !boundary.contains(label)).toArray());
+        }
+        int trials = internal.size() > LARGE_NETWORK_SIZE ? LARGE_NETWORK_TRIALS : SMALL_NETWORK_TRIALS;
+        return ContractionPlanner.plan(internal, trials, PLANNER_SEED);
+    }
+
+    public ContractionPlan planProbability(Map<Integer, Integer> fixedOutputs) {
+        return plan(probabilityQuery(fixedOutputs).tensors);
+    }
+
+    // Амплитуда <bits|C|0>, бит q строки bits - значение кубита q
+    public Complex amplitude(long bits) {
+        Query query = amplitudeQuery(bits);
+        if (query.zero) {
+            return Complex.getZero();
+        }
+        Tensor result = ContractionExecutor.execute(plan(query.tensors), query.tensors);
+        return new Complex(result.re[0], result.im[0]);
+    }
+
+    // Маргинальная вероятность того, что кубиты из fixedOutputs имеют указанные значения
+    public double probability(Map<Integer, Integer> fixedOutputs) {
+        for (int qubit : fixedOutputs.keySet()) {
+            checkQubit(qubit);
+        }
+        Query query = probabilityQuery(fixedOutputs);
+        if (query.zero) {
+            return 0;
+        }
+        Tensor result = ContractionExecutor.execute(plan(query.tensors), query.tensors);
+        return Math.max(0, result.re[0]);
+    }
+
+    // Все амплитуды: выходные провода остаются открытыми
+    public Map<Integer, Complex> amplitudes() {
+        if (numQubits > 30) {
+            throw new IllegalArgumentException("Полный вектор состояния доступен только для регистров до 30 кубитов");
+        }
+        Map<Integer, Integer> fixed = new HashMap<>();
+        List<Tensor> tensors = new ArrayList<>();
+        for (int q = 0; q < numQubits; q++) {
+            if (wires[q] == inputLabels[q]) {
+                // кубит без гейтов остаётся в |0>
+                tensors.add(new Tensor(new int[]{wires[q]}, new double[]{1, 0}, new double[2]));
+            } else {
+                fixed.put(inputLabels[q], 0);
+            }
+        }
+        for (Node node : nodes) {
+            tensors.add(fixAll(node.tensor, fixed));
+        }
+        Tensor result = ContractionExecutor.execute(plan(tensors), tensors);
+        int[] positionOfQubit = new int[numQubits];
+        for (int q = 0; q < numQubits; q++) {
+            positionOfQubit[q] = result.positionOf(wires[q]);
+        }
+        Map<Integer, Complex> state = new HashMap<>();
+        for (int x = 0; x < result.re.length; x++) {
+            if (result.re[x] * result.re[x] + result.im[x] * result.im[x] > 1e-24) {
+                int basisState = 0;
+                for (int q = 0; q < numQubits; q++) {
+                    basisState |= ((x >>> positionOfQubit[q]) & 1) << q;
+                }
+                state.put(basisState, new Complex(result.re[x], result.im[x]));
+            }
+        }
+        return state;
+    }
+
+    private void checkQubit(int qubit) {
+        if (qubit < 0 || qubit >= numQubits) {
+            throw new IndexOutOfBoundsException("Индекс " + qubit + " вне границ регистра размера " + numQubits);
+        }
+    }
+}
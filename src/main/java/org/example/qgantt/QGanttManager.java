@@ -154,8 +154,13 @@ public class QGanttManager {
                 new HashMap<>() :
                 registerData.stateHistory.get(registerData.stateHistory.size() - 1);
         transitionMapForVis.clear();
-        if (trace != null && trace.getTrace() != null) {
-            for (Map.Entry<Integer, Map<Integer, Complex>> fromEntry : trace.getTrace().entrySet()) {
+        if (trace != null) {
+            // Переходы строятся от показанного предыдущего состояния: сам гейт трассу при применении не вычисляет
+            Map<Integer, Complex> previousStateMapInt = new HashMap<>();
+            for (Map.Entry<String, Complex> entry : previousStateMap.entrySet()) {
+                previousStateMapInt.put(Integer.parseInt(entry.getKey(), 2), entry.getValue());
+            }
+            for (Map.Entry<Integer, Map<Integer, Complex>> fromEntry : trace.traceFrom(previousStateMapInt).entrySet()) {
                 String fromStateBinary = String.format("%" + registerData.numQubits + "s",
                         Integer.toBinaryString(fromEntry.getKey())).replace(' ', '0');
                 if (!previousStateMap.containsKey(fromStateBinary)) continue;
@@ -9,7 +9,8 @@ public class Command {
         APPLY_GATE,
         MEASURE,
         DEFINE_ORACLE_CSV,
-        APPLY_ORACLE
+        APPLY_ORACLE,
+        AMPLITUDE
     }
 
     private final CommandType type;
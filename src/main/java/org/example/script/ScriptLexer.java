@@ -0,0 +1,250 @@
+package org.example.script;
+
+// Лексер скрипта: курсор по тексту, который разбирает лексемы по запросу ScriptParser.
+// Объекты лексем не создаются; позиция (строка, столбец) считается по ходу для сообщений об ошибках.
+// Пробелы внутри команды значимы (q[0] нельзя писать как q [0]), поэтому их пропускает сам парсер.
+final class ScriptLexer {
+    private final String text;
+    private final int length;
+    private int position;
+    private int line = 1;
+    private int lineStart;
+
+    // Имена регистров и гейтов повторяются от строки к строке: одна строка на имя
+    private String[] names = new String[256];
+    private int nameCount;
+
+    ScriptLexer(String text) {
+        this.text = text;
+        this.length = text.length();
+    }
+
+    boolean atEnd() {
+        return position >= length;
+    }
+
+    boolean atLineEnd() {
+        return position >= length || text.charAt(position) == '\n';
+    }
+
+    // '\n' в конце строки и в конце текста
+    char peek() {
+        return atLineEnd() ? '\n' : text.charAt(position);
+    }
+
+    int position() {
+        return position;
+    }
+
+    boolean skipSpaces() {
+        int start = position;
+        while (position < length) {
+            char c = text.charAt(position);
+            if (c != ' ' && c != '\t' && c != '\r' && c != '\f') {
+                break;
+            }
+            position++;
+        }
+        return position > start;
+    }
+
+    void nextLine() {
+        while (position < length && text.charAt(position) != '\n') {
+            position++;
+        }
+        if (position < length) {
+            position++;
+            line++;
+            lineStart = position;
+        }
+    }
+
+    boolean accept(char c) {
+        if (peek() == c) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    void expect(char c) {
+        if (!accept(c)) {
+            throw error("Ожидается '" + c + "'" + found());
+        }
+    }
+
+    void requireSpace(String what) {
+        if (!skipSpaces() || atLineEnd()) {
+            throw error("Ожидается " + what + found());
+        }
+    }
+
+    static boolean isWordChar(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_';
+    }
+
+    static boolean isLetter(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
+    }
+
+    // Слово из букв, цифр и '_' (имена регистров могут начинаться с цифры)
+    String word(String what) {
+        int start = position;
+        while (position < length && isWordChar(text.charAt(position))) {
+            position++;
+        }
+        if (position == start) {
+            throw error("Ожидается " + what + found());
+        }
+        return intern(start, position);
+    }
+
+    // Ключевое слово без учёта регистра, за которым не продолжается слово
+    boolean acceptKeyword(String keyword) {
+        int end = position + keyword.length();
+        if (end > length || !text.regionMatches(true, position, keyword, 0, keyword.length())
+                || end < length && isWordChar(text.charAt(end))) {
+            return false;
+        }
+        position = end;
+        return true;
+    }
+
+    int integer(String what) {
+        int start = position;
+        int value = 0;
+        while (position < length) {
+            char c = text.charAt(position);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            if (value > (Integer.MAX_VALUE - (c - '0')) / 10) {
+                throw errorAt(start, "Слишком большое число: " + what);
+            }
+            value = value * 10 + (c - '0');
+            position++;
+        }
+        if (position == start) {
+            throw error("Ожидается " + what + " (целое неотрицательное число)" + found());
+        }
+        return value;
+    }
+
+    // Десятичное число со знаком и порядком: 0.7, -.5, 1e-10
+    double number(String what) {
+        int start = position;
+        if (peek() == '+' || peek() == '-') {
+            position++;
+        }
+        int digits = skipDigits();
+        if (accept('.')) {
+            digits += skipDigits();
+        }
+        if (digits > 0 && (peek() == 'e' || peek() == 'E')) {
+            int mark = position++;
+            if (peek() == '+' || peek() == '-') {
+                position++;
+            }
+            if (skipDigits() == 0) {
+                position = mark;
+            }
+        }
+        if (digits == 0) {
+            position = start;
+            throw error("Ожидается " + what + " (число)" + found());
+        }
+        return Double.parseDouble(text.substring(start, position));
+    }
+
+    private int skipDigits() {
+        int start = position;
+        while (position < length && text.charAt(position) >= '0' && text.charAt(position) <= '9') {
+            position++;
+        }
+        return position - start;
+    }
+
+    // Строка в двойных кавычках в пределах строки скрипта
+    String quoted(String what) {
+        if (peek() != '"') {
+            throw error("Ожидается " + what + " в двойных кавычках" + found());
+        }
+        int start = ++position;
+        while (!atLineEnd() && text.charAt(position) != '"') {
+            position++;
+        }
+        if (atLineEnd()) {
+            throw errorAt(start - 1, "Не закрыта кавычка: " + what);
+        }
+        return text.substring(start, position++);
+    }
+
+    // Последовательность '0' и '1'
+    String bits(String what) {
+        int start = position;
+        while (position < length && (text.charAt(position) == '0' || text.charAt(position) == '1')) {
+            position++;
+        }
+        if (position == start) {
+            throw error("Ожидается " + what + " (биты 0 и 1)" + found());
+        }
+        return intern(start, position);
+    }
+
+    IllegalArgumentException error(String message) {
+        return errorAt(position, message);
+    }
+
+    IllegalArgumentException errorAt(int at, String message) {
+        return new IllegalArgumentException("Строка " + line + ", столбец " + (at - lineStart + 1) + ": " + message);
+    }
+
+    private String found() {
+        if (atLineEnd()) {
+            return ", найден конец строки";
+        }
+        int end = position;
+        while (end < length && end - position < 20 && !Character.isWhitespace(text.charAt(end))) {
+            end++;
+        }
+        return ", найдено '" + text.substring(position, Math.max(end, position + 1)) + "'";
+    }
+
+    private String intern(int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        int mask = names.length - 1;
+        int slot = (hash ^ hash >>> 16) & mask;
+        int size = end - start;
+        for (String name = names[slot]; name != null; name = names[slot]) {
+            if (name.length() == size && text.regionMatches(start, name, 0, size)) {
+                return name;
+            }
+            slot = (slot + 1) & mask;
+        }
+        String name = text.substring(start, end);
+        names[slot] = name;
+        if (++nameCount * 2 > names.length) {
+            rehash();
+        }
+        return name;
+    }
+
+    private void rehash() {
+        String[] old = names;
+        names = new String[old.length * 2];
+        int mask = names.length - 1;
+        for (String name : old) {
+            if (name != null) {
+                int hash = name.hashCode();
+                int slot = (hash ^ hash >>> 16) & mask;
+                while (names[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                names[slot] = name;
+            }
+        }
+    }
+}
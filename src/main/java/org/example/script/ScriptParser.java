@@ -0,0 +1,293 @@
+package org.example.script;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Разбор всего скрипта за один проход: рекурсивный спуск поверх ScriptLexer без регулярных выражений.
+// Единственная реализация грамматики (описание в Parser, который разбирает отдельные строки через этот класс);
+// ошибки сообщаются со строкой и столбцом. Реальные регистры нумеруются в пределах скрипта: real_reg_0, real_reg_1, ...
+public final class ScriptParser {
+    // Операнды из стольких первых индексов регистра кэшируются
+    private static final int CACHED_INDICES = 1024;
+
+    private final ScriptLexer lexer;
+    private int realRegisterCounter = 0;
+    // Операнд register[index] неизменяем и повторяется от строки к строке: один объект на пару,
+    // большой скрипт не держит в памяти по словарю на каждый операнд
+    private final Map<String, List<Map<String, Object>>> operands = new HashMap<>();
+
+    private ScriptParser(String script, int realRegisterCounter) {
+        this.lexer = new ScriptLexer(script);
+        this.realRegisterCounter = realRegisterCounter;
+    }
+
+    public static List<Command> parse(String script) {
+        return new ScriptParser(script, 0).parseScript(false);
+    }
+
+    // Команды по строкам: элемент i - команда строки i, null для пустой строки и комментария
+    public static List<Command> parseLines(String script) {
+        return new ScriptParser(script, 0).parseScript(true);
+    }
+
+    // Одна строка скрипта, null - пустая строка или комментарий. Реальный регистр CR получает номер realRegisterNumber.
+    public static Command parseLine(String line, int realRegisterNumber) {
+        ScriptParser parser = new ScriptParser(line, realRegisterNumber);
+        Command command = parser.parseLineCommand();
+        parser.lexer.nextLine();
+        if (!parser.lexer.atEnd()) {
+            throw parser.lexer.error("Ожидается одна строка скрипта");
+        }
+        return command;
+    }
+
+    private List<Command> parseScript(boolean byLine) {
+        List<Command> commands = new ArrayList<>();
+        while (!lexer.atEnd()) {
+            Command command = parseLineCommand();
+            if (command != null || byLine) {
+                commands.add(command);
+            }
+            lexer.nextLine();
+        }
+        return commands;
+    }
+
+    private Command parseLineCommand() {
+        lexer.skipSpaces();
+        if (lexer.atLineEnd() || lexer.peek() == '#') {
+            return null;
+        }
+        Command command = parseCommand();
+        lexer.skipSpaces();
+        if (!lexer.atLineEnd()) {
+            throw lexer.error("Лишние символы в конце команды: '" + lexer.peek() + "'");
+        }
+        return command;
+    }
+
+    private Command parseCommand() {
+        int start = lexer.position();
+        if (!ScriptLexer.isLetter(lexer.peek())) {
+            throw lexer.error("Неизвестная команда: команда должна начинаться с буквы");
+        }
+        String keyword = lexer.word("имя команды");
+        if (keyword.equalsIgnoreCase("CR")) {
+            return parseCreateRegister();
+        }
+        if (keyword.equalsIgnoreCase("M")) {
+            lexer.requireSpace("измеряемый кубит");
+            return new Command(Command.CommandType.MEASURE, parseOperand());
+        }
+        if (keyword.equalsIgnoreCase("DEFINE_ORACLE_CSV")) {
+            return parseDefineOracleCsv();
+        }
+        if (keyword.equalsIgnoreCase("APPLY_ORACLE")) {
+            return parseApplyOracle();
+        }
+        if (keyword.equalsIgnoreCase("AMPLITUDE")) {
+            return parseAmplitude(start);
+        }
+        return parseApplyGate(keyword);
+    }
+
+    private Command parseCreateRegister() {
+        lexer.requireSpace("определение регистра name[size]");
+        List<Map<String, Object>> nominalRegisters = new ArrayList<>(2);
+        int totalSize = 0;
+        boolean spaced;
+        do {
+            lexer.skipSpaces();
+            int at = lexer.position();
+            String name = lexer.word("имя регистра");
+            lexer.expect('[');
+            int sizeAt = lexer.position();
+            int size = lexer.integer("размер регистра '" + name + "'");
+            lexer.expect(']');
+            if (size <= 0) {
+                throw lexer.errorAt(sizeAt, "Размер регистра '" + name + "' должен быть положительным числом");
+            }
+            for (Map<String, Object> nominal : nominalRegisters) {
+                if (nominal.get("name").equals(name)) {
+                    throw lexer.errorAt(at, "Имя номинального регистра должно быть уникальным в рамках одной команды CR: " + name);
+                }
+            }
+            Map<String, Object> nominalSpec = new HashMap<>();
+            nominalSpec.put("name", name);
+            nominalSpec.put("size", size);
+            nominalRegisters.add(nominalSpec);
+            totalSize += size;
+            spaced = lexer.skipSpaces();
+        } while (lexer.accept(','));
+
+        int offsetBase = totalSize;
+        for (Map<String, Object> nominalSpec : nominalRegisters) {
+            offsetBase -= (Integer) nominalSpec.get("size");
+            nominalSpec.put("offset", offsetBase);
+        }
+
+        Map<String, Object> commandArgs = new HashMap<>();
+        commandArgs.put("realRegisterName", "real_reg_" + (realRegisterCounter++));
+        commandArgs.put("realRegisterSize", totalSize);
+        commandArgs.put("nominalRegisters", nominalRegisters);
+        if (spaced && lexer.acceptKeyword("AS")) {
+            lexer.requireSpace("имя бэкенда");
+            int at = lexer.position();
+            String backend = lexer.word("имя бэкенда");
+            for (int i = 0; i < backend.length(); i++) {
+                if (!ScriptLexer.isLetter(backend.charAt(i)) && backend.charAt(i) != '_') {
+                    throw lexer.errorAt(at, "Неверное имя бэкенда: '" + backend + "'");
+                }
+            }
+            List<Double> backendParameters = new ArrayList<>();
+            lexer.skipSpaces();
+            if (lexer.accept('(')) {
+                lexer.skipSpaces();
+                if (!lexer.accept(')')) {
+                    do {
+                        lexer.skipSpaces();
+                        backendParameters.add(lexer.number("параметр бэкенда " + backend.toUpperCase()));
+                        lexer.skipSpaces();
+                    } while (lexer.accept(','));
+                    lexer.expect(')');
+                }
+            }
+            commandArgs.put("backend", backend.toUpperCase());
+            commandArgs.put("backendParameters", backendParameters);
+        }
+        return new Command(Command.CommandType.CREATE_REGISTER, commandArgs);
+    }
+
+    private Command parseApplyGate(String gate) {
+        Map<String, Object> commandArgs = new HashMap<>(4);
+        commandArgs.put("gate", gate);
+        boolean phaseGate = gate.equalsIgnoreCase("P");
+        if (phaseGate) {
+            lexer.requireSpace("фаза гейта P. Формат: P <phase> <register[index]>");
+            commandArgs.put("phase", lexer.number("фаза гейта P"));
+        }
+        List<Map<String, Object>> operands = new ArrayList<>(3);
+        int at = lexer.position();
+        while (lexer.skipSpaces() && !lexer.atLineEnd()) {
+            at = lexer.position();
+            operands.add(parseOperand());
+        }
+        if (operands.isEmpty()) {
+            throw lexer.error("Не указаны операнды для гейта " + gate);
+        }
+        if (phaseGate && operands.size() != 1) {
+            throw lexer.errorAt(at, "Гейт P должен применяться ровно к одному кубиту.");
+        }
+        commandArgs.put("operands", operands);
+        return new Command(Command.CommandType.APPLY_GATE, commandArgs);
+    }
+
+    private Map<String, Object> parseOperand() {
+        String registerName = lexer.word("операнд register[index]");
+        lexer.expect('[');
+        int index = lexer.integer("индекс кубита");
+        lexer.expect(']');
+        if (index >= CACHED_INDICES) {
+            return Map.of("register", registerName, "index", index);
+        }
+        List<Map<String, Object>> byIndex = operands.computeIfAbsent(registerName, name -> new ArrayList<>());
+        while (byIndex.size() <= index) {
+            byIndex.add(null);
+        }
+        Map<String, Object> operand = byIndex.get(index);
+        if (operand == null) {
+            operand = Map.of("register", registerName, "index", index);
+            byIndex.set(index, operand);
+        }
+        return operand;
+    }
+
+    private Command parseDefineOracleCsv() {
+        lexer.requireSpace("имя оракула. Формат: DEFINE_ORACLE_CSV OracleName \"path/to/file.csv\"");
+        String oracleName = lexer.word("имя оракула");
+        lexer.requireSpace("путь к CSV файлу");
+        int at = lexer.position();
+        String csvPath = lexer.quoted("путь к CSV файлу");
+        if (csvPath.isEmpty()) {
+            throw lexer.errorAt(at, "Путь к CSV файлу не может быть пустым для DEFINE_ORACLE_CSV.");
+        }
+        Map<String, Object> args = new HashMap<>();
+        args.put("oracleName", oracleName);
+        args.put("csvPath", csvPath);
+        return new Command(Command.CommandType.DEFINE_ORACLE_CSV, args);
+    }
+
+    private Command parseApplyOracle() {
+        lexer.requireSpace("имя оракула. Формат: APPLY_ORACLE OracleName InputReg -> AncillaReg[Index]");
+        String oracleName = lexer.word("имя оракула");
+        lexer.requireSpace("входной регистр");
+        String inputRegisterName = lexer.word("входной регистр");
+        lexer.skipSpaces();
+        lexer.expect('-');
+        lexer.expect('>');
+        lexer.skipSpaces();
+        String ancillaRegName = lexer.word("регистр ancilla");
+        lexer.expect('[');
+        int ancillaIndex = lexer.integer("индекс кубита ancilla");
+        lexer.expect(']');
+        Map<String, Object> args = new HashMap<>();
+        args.put("oracleName", oracleName);
+        args.put("inputRegisterName", inputRegisterName);
+        args.put("ancillaRegisterName", ancillaRegName);
+        args.put("ancillaIndex", ancillaIndex);
+        return new Command(Command.CommandType.APPLY_ORACLE, args);
+    }
+
+    // AMPLITUDE name1=bits1 name2=bits2 ... [SPLIT name1, ...]; значения разделяются пробелами или запятыми
+    private Command parseAmplitude(int start) {
+        Map<String, String> values = new LinkedHashMap<>();
+        List<String> split = null;
+        while (skipSeparators()) {
+            int at = lexer.position();
+            if (lexer.acceptKeyword("SPLIT")) {
+                if (split != null) {
+                    throw lexer.errorAt(at, "SPLIT указан в AMPLITUDE дважды");
+                }
+                split = new ArrayList<>();
+            } else if (split != null) {
+                split.add(lexer.word("имя регистра в SPLIT"));
+            } else {
+                String name = lexer.word("значение регистра name=0101");
+                lexer.expect('=');
+                if (values.put(name, lexer.bits("значение регистра '" + name + "'")) != null) {
+                    throw lexer.errorAt(at, "Регистр '" + name + "' указан в AMPLITUDE дважды");
+                }
+            }
+        }
+        if (split != null && split.isEmpty()) {
+            throw lexer.error("После SPLIT должны быть указаны регистры первой половины");
+        }
+        if (values.isEmpty()) {
+            throw lexer.errorAt(start, "Неверный формат AMPLITUDE. Ожидается: AMPLITUDE name=0101 ...");
+        }
+        Map<String, Object> args = new HashMap<>();
+        args.put("values", values);
+        if (split != null) {
+            args.put("split", split);
+        }
+        return new Command(Command.CommandType.AMPLITUDE, args);
+    }
+
+    // Пропускает пробелы и запятые; true, если в строке есть следующий элемент
+    private boolean skipSeparators() {
+        boolean separated = false;
+        while (lexer.skipSpaces() | lexer.accept(',')) {
+            separated = true;
+        }
+        if (lexer.atLineEnd()) {
+            return false;
+        }
+        if (!separated) {
+            throw lexer.error("Ожидается пробел или запятая между значениями AMPLITUDE");
+        }
+        return true;
+    }
+}
@@ -12,8 +12,8 @@ import java.util.regex.Pattern;
 
 public class SyntaxHighlighter {
     private static final Set<String> OPERATIONS = new HashSet<>(Set.of(
-            "CR", "CQ", "H", "X", "Y", "Z", "S", "T", "P",
-            "SWAP", "INC", "DEC", "NOT",
+            "CR", "CQ", "AS", "H", "X", "Y", "Z", "S", "T", "P",
+            "SWAP", "INC", "DEC", "NOT", "AMPLITUDE", "SPLIT",
             "CX", "CNOT", "CCNOT", "CY", "CZ", "CH", "CS", "CT"
     ));
 
@@ -0,0 +1,72 @@
+package org.example;
+
+import org.example.model.circuit.CircuitFile;
+import org.example.model.circuit.CompiledCircuit;
+import org.example.script.ScriptParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchRunnerTest {
+
+    private static int run(ByteArrayOutputStream out, ByteArrayOutputStream err, String... args) {
+        return BatchRunner.run(args, new PrintStream(out, true, StandardCharsets.UTF_8),
+                new PrintStream(err, true, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testShotsOfScript(@TempDir Path tempDir) throws IOException {
+        Path script = tempDir.resolve("bell.txt");
+        Files.writeString(script, "CR q[2]\nH q[0]\nCX q[0] q[1]\nM q[0]\nM q[1]\n");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        assertEquals(0, run(out, err, "--shots", "500", script.toString(), "3"));
+        String report = out.toString(StandardCharsets.UTF_8);
+        assertTrue(report.startsWith("Серия из 500 запусков, кубитов: 2, измерений: 2"), report);
+        int total = 0;
+        for (String line : report.split("\n")) {
+            if (line.startsWith("00: ") || line.startsWith("11: ")) {
+                total += Integer.parseInt(line.substring(4));
+            }
+        }
+        assertEquals(500, total, "Исходы Белла только 00 и 11: " + report);
+        assertEquals("", err.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testShotsOfCompiledFileMatchScript(@TempDir Path tempDir) throws IOException {
+        String text = "CR q[3]\nH q[0]\nCX q[0] q[2]\nH q[1]\nM q[0]\nM q[1]\nM q[2]\n";
+        Path script = tempDir.resolve("circuit.txt");
+        Files.writeString(script, text);
+        Path compiled = tempDir.resolve("circuit.qcir");
+        CircuitFile.write(CompiledCircuit.compile(ScriptParser.parse(text)), compiled);
+
+        // Открытый файл выполняется сам, результат совпадает с компиляцией исходного скрипта
+        ByteArrayOutputStream fromScript = new ByteArrayOutputStream();
+        ByteArrayOutputStream fromFile = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        assertEquals(0, run(fromScript, err, "--shots", "400", script.toString(), "11"));
+        assertEquals(0, run(fromFile, err, "--shots", "400", compiled.toString(), "11"));
+        assertEquals(fromScript.toString(StandardCharsets.UTF_8), fromFile.toString(StandardCharsets.UTF_8));
+        assertEquals("", err.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testBadArguments(@TempDir Path tempDir) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        assertEquals(1, run(out, err, "--shots", "10"));
+        assertEquals(1, run(out, err, "--shots", "many", "script.txt"));
+        assertEquals(1, run(out, err, "--shots", "10", tempDir.resolve("missing.txt").toString()));
+        assertEquals("", out.toString(StandardCharsets.UTF_8));
+        assertTrue(err.toString(StandardCharsets.UTF_8).startsWith("Использование"));
+    }
+}
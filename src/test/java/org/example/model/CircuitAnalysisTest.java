@@ -0,0 +1,154 @@
+package org.example.model;
+
+import org.example.model.tensor.ContractionPlan;
+import org.example.script.Command;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CircuitAnalysisTest {
+
+    private Command createRegisterCmd(String backend) {
+        Map<String, Object> args = new HashMap<>();
+        args.put("realRegisterName", "r");
+        args.put("realRegisterSize", 3);
+        args.put("nominalRegisters", List.of(Map.of("name", "q", "size", 3, "offset", 0)));
+        if (backend != null) {
+            args.put("backend", backend);
+        }
+        return new Command(Command.CommandType.CREATE_REGISTER, args);
+    }
+
+    private Command applyGateCmd(String gateName) {
+        Map<String, Object> args = new HashMap<>();
+        args.put("gate", gateName);
+        return new Command(Command.CommandType.APPLY_GATE, args);
+    }
+
+    private Command measureCmd() {
+        return new Command(Command.CommandType.MEASURE, new HashMap<>(Map.of("register", "q", "index", 0)));
+    }
+
+    // Строка CR с несколькими номинальными регистрами, первый - старший
+    private Command createLineCmd(String realName, Object... namesAndSizes) {
+        List<Map<String, Object>> nominals = new ArrayList<>();
+        int offset = 0;
+        for (int i = namesAndSizes.length - 2; i >= 0; i -= 2) {
+            nominals.add(0, Map.of("name", namesAndSizes[i], "size", namesAndSizes[i + 1], "offset", offset));
+            offset += (int) namesAndSizes[i + 1];
+        }
+        Map<String, Object> args = new HashMap<>();
+        args.put("realRegisterName", realName);
+        args.put("realRegisterSize", offset);
+        args.put("nominalRegisters", nominals);
+        return new Command(Command.CommandType.CREATE_REGISTER, args);
+    }
+
+    private Command gateOnCmd(String gateName, String... registers) {
+        List<Map<String, Object>> operands = new ArrayList<>();
+        for (String register : registers) {
+            operands.add(Map.of("register", register, "index", 0));
+        }
+        Map<String, Object> args = new HashMap<>();
+        args.put("gate", gateName);
+        args.put("operands", operands);
+        return new Command(Command.CommandType.APPLY_GATE, args);
+    }
+
+    @Test
+    void testCliffordOnlyScript() {
+        assertTrue(CircuitAnalysis.isCliffordOnly(List.of(createRegisterCmd(null), applyGateCmd("H"),
+                applyGateCmd("CX"), applyGateCmd("CNOT"), applyGateCmd("S"), applyGateCmd("SWAP"), measureCmd())));
+    }
+
+    @Test
+    void testNonCliffordGates() {
+        assertFalse(CircuitAnalysis.isCliffordOnly(List.of(createRegisterCmd(null), applyGateCmd("T"))));
+        assertFalse(CircuitAnalysis.isCliffordOnly(List.of(createRegisterCmd(null), applyGateCmd("P"))));
+        assertFalse(CircuitAnalysis.isCliffordOnly(List.of(createRegisterCmd(null), applyGateCmd("CCX"))));
+        assertFalse(CircuitAnalysis.isCliffordOnly(List.of(createRegisterCmd(null), applyGateCmd("INC"))));
+        assertFalse(CircuitAnalysis.isCliffordOnly(List.of(createRegisterCmd(null),
+                new Command(Command.CommandType.APPLY_ORACLE, new HashMap<>()))));
+    }
+
+    @Test
+    void testExplicitBackend() {
+        assertTrue(CircuitAnalysis.hasExplicitBackend(List.of(createRegisterCmd("DENSITY"), applyGateCmd("H"))));
+        assertFalse(CircuitAnalysis.hasExplicitBackend(List.of(createRegisterCmd(null), applyGateCmd("H"))));
+    }
+
+    @Test
+    void testStabilizerRankEstimate() {
+        StabilizerRankEstimate estimate = CircuitAnalysis.estimateStabilizerRank(List.of(createRegisterCmd(null),
+                applyGateCmd("H"), applyGateCmd("T"), applyGateCmd("P"), applyGateCmd("T"), measureCmd()));
+        assertTrue(estimate.isSupported());
+        assertEquals(3, estimate.getTCount());
+        assertEquals(3, estimate.getRankExponent());
+        assertEquals(1, estimate.getCliffordCount());
+        assertEquals(3, CircuitAnalysis.countTGates(List.of(applyGateCmd("T"), applyGateCmd("P"), applyGateCmd("T"))));
+
+        // ранг ограничен 2^n
+        StabilizerRankEstimate capped = CircuitAnalysis.estimateStabilizerRank(List.of(createRegisterCmd(null),
+                applyGateCmd("T"), applyGateCmd("T"), applyGateCmd("T"), applyGateCmd("T")));
+        assertEquals(3, capped.getRankExponent());
+        assertFalse(CircuitAnalysis.estimateStabilizerRank(List.of(createRegisterCmd(null), applyGateCmd("INC"))).isSupported());
+    }
+
+    @Test
+    void testTensorContractionEstimate() {
+        Map<String, Object> cx = new HashMap<>();
+        cx.put("gate", "CX");
+        cx.put("operands", List.of(Map.of("register", "q", "index", 0), Map.of("register", "q", "index", 1)));
+        Map<String, Object> inc = new HashMap<>();
+        inc.put("gate", "INC");
+        inc.put("operands", List.of(Map.of("register", "q", "index", 2)));
+        ContractionPlan plan = CircuitAnalysis.estimateTensorContraction(List.of(createRegisterCmd(null),
+                new Command(Command.CommandType.APPLY_GATE, cx), new Command(Command.CommandType.APPLY_GATE, inc)));
+        assertEquals(2, plan.getLeafCount());
+        // INC действует на весь регистр из 3 кубитов, две метки связывают его с CX
+        assertEquals(8 * Math.pow(2, 2), plan.getEstimatedFlops(), 0);
+    }
+
+    @Test
+    void testPlanSplitsIndependentRegisters() {
+        RegisterPlan plan = CircuitAnalysis.planRegisters(List.of(
+                createLineCmd("r", "a", 1, "b", 2, "c", 1),
+                gateOnCmd("CX", "a", "c"),
+                gateOnCmd("H", "b")));
+        assertEquals(List.of(List.of("a", "c"), List.of("b")), plan.groupsOf(List.of("a", "b", "c")));
+        assertEquals(1, plan.getSplitCreateCount());
+        assertTrue(plan.getPlannedJoins().isEmpty());
+
+        // INC действует на весь реальный регистр, строка остаётся целой
+        RegisterPlan whole = CircuitAnalysis.planRegisters(List.of(
+                createLineCmd("r", "a", 1, "b", 2),
+                gateOnCmd("INC", "b")));
+        assertEquals(List.of(List.of("a", "b")), whole.groupsOf(List.of("a", "b")));
+        assertTrue(whole.isTrivial());
+    }
+
+    @Test
+    void testPlanOrdersJoinsBySupport() {
+        RegisterPlan plan = CircuitAnalysis.planRegisters(List.of(
+                createLineCmd("r1", "x", 2),
+                createLineCmd("r2", "y", 1),
+                createLineCmd("r3", "z", 1),
+                createLineCmd("r4", "k", 1),
+                gateOnCmd("H", "x"),
+                gateOnCmd("H", "x"),
+                gateOnCmd("H", "y"),
+                gateOnCmd("CCX", "x", "y", "z"),
+                // k в базисном состоянии: классический управляющий кубит не требует объединения
+                gateOnCmd("CX", "k", "z")));
+        assertEquals(1, plan.getPlannedJoins().size());
+        RegisterPlan.PlannedJoin join = plan.getPlannedJoins().get(0);
+        assertEquals(7, join.commandIndex());
+        assertEquals(List.of("{z}", "{y}", "{x}"), join.realRegisters());
+        assertArrayEquals(new double[]{2, 8}, join.predictedSupports(), 0);
+    }
+}
@@ -173,9 +173,20 @@ public class EmulationTest {
         assertNotNull(realReg2);
         assertNotEquals(realName1, realName2);
 
-        // Apply CNOT across registers, should trigger join
+        // Control a[0] is classically |0>, so CNOT is the identity and no join is needed
+        Map<String, Object> classical = emulation.run(applyGateCmd("CNOT", "a[0]", "b[0]"));
+        assertNull(classical.get("joinInfo"));
+        assertNotSame(emulation.getNominalRegister("a").getRealRegister(), emulation.getNominalRegister("b").getRealRegister());
+        assertEquals(0, emulation.getJoinCount());
+        assertEquals(1, emulation.getAvoidedJoinCount());
+
+        // With a[0] in superposition CNOT entangles the registers, should trigger join
+        emulation.run(applyGateCmd("H", "a[0]"));
         Command applyCmd = applyGateCmd("CNOT", "a[0]", "b[0]");
         Map<String, Object> result = emulation.run(applyCmd);
+        assertEquals(1, emulation.getJoinCount());
+        emulation.run(applyGateCmd("CNOT", "a[0]", "b[0]"));
+        emulation.run(applyGateCmd("H", "a[0]"));
 
         assertNotNull(result.get("joinInfo"), "Should trigger join");
         Map<String, Object> joinInfo = (Map<String, Object>) result.get("joinInfo");
@@ -415,4 +426,534 @@ public class EmulationTest {
             // assertNotSame(originalTrace, clonedTrace); // Check if it needs deep clone
          }
      }
-} 
\ No newline at end of file
+
+    @Test
+    void testDensityBackendRegister() {
+        Command cmd = createRegisterCmd("q[2]");
+        cmd.getArguments().put("backend", "DENSITY");
+        emulation.run(cmd);
+        QubitRegister real = emulation.getNominalRegister("q").getRealRegister();
+        assertNotNull(real.getBackend());
+        assertEquals("DENSITY", real.getBackend().getType());
+
+        emulation.run(applyGateCmd("H", "q[1]"));
+        emulation.run(applyGateCmd("CX", "q[1]", "q[0]"));
+        Map<Integer, Complex> state = emulation.getRegisterState("q");
+        assertEquals(2, state.size());
+        assertEquals(0.5, state.get(0).modulusSquared(), DELTA);
+        assertEquals(0.5, state.get(3).modulusSquared(), DELTA);
+
+        String first = (String) emulation.run(measureCmd("q", 0)).get("output");
+        String second = (String) emulation.run(measureCmd("q", 1)).get("output");
+        assertEquals(first, second);
+    }
+
+    @Test
+    void testDensityBackendJoinsWithStateVector() {
+        Command dm = createRegisterCmd("a[1]");
+        dm.getArguments().put("backend", "DENSITY");
+        emulation.run(dm);
+        emulation.run(createRegisterCmd("b[1]"));
+        emulation.run(applyGateCmd("H", "b[0]"));
+
+        Map<String, Object> result = emulation.run(applyGateCmd("CX", "b[0]", "a[0]"));
+        assertNotNull(result.get("joinInfo"));
+        QubitRegister joined = emulation.getNominalRegister("a").getRealRegister();
+        assertSame(joined, emulation.getNominalRegister("b").getRealRegister());
+        assertEquals("DENSITY", joined.getBackend().getType());
+        Map<Integer, Complex> state = emulation.getRegisterState("a");
+        assertEquals(2, state.size());
+        assertEquals(0.5, state.get(3).modulusSquared(), DELTA);
+    }
+
+    @Test
+    void testCliffordScriptSelectsStabilizerBackend() {
+        List<Command> script = List.of(
+                createRegisterCmd("a[2]"),
+                createRegisterCmd("b[1]"),
+                applyGateCmd("H", "a[1]"),
+                applyGateCmd("CX", "a[1]", "a[0]"),
+                applyGateCmd("CX", "a[0]", "b[0]"),
+                measureCmd("b", 0));
+        emulation.prepare(script);
+        assertEquals("STABILIZER", emulation.getDefaultBackendType());
+
+        for (int i = 0; i < script.size() - 1; i++) {
+            emulation.run(script.get(i));
+        }
+        QubitRegister joined = emulation.getNominalRegister("a").getRealRegister();
+        assertEquals("STABILIZER", joined.getBackend().getType());
+        Map<Integer, Complex> state = emulation.getRegisterState("a");
+        assertEquals(2, state.size());
+        assertEquals(0.5, state.get(0b000).modulusSquared(), DELTA);
+        assertEquals(0.5, state.get(0b111).modulusSquared(), DELTA);
+
+        String measured = (String) emulation.run(script.get(script.size() - 1)).get("output");
+        assertEquals(measured, emulation.run(measureCmd("a", 0)).get("output"));
+        assertEquals(measured, emulation.run(measureCmd("a", 1)).get("output"));
+    }
+
+    @Test
+    void testNonCliffordScriptKeepsStateVector() {
+        List<Command> script = List.of(createRegisterCmd("q[1]"), applyGateCmd("T", "q[0]"));
+        emulation.prepare(script);
+        assertNull(emulation.getDefaultBackendType());
+        emulation.run(script.get(0));
+        assertNull(emulation.getNominalRegister("q").getRealRegister().getBackend());
+    }
+
+    @Test
+    void testExtendedStabilizerModeReportsCost() {
+        List<Command> script = List.of(
+                createRegisterCmd("q[2]"),
+                applyGateCmd("H", "q[0]"),
+                applyGateCmd("T", "q[0]"),
+                applyGateCmd("CX", "q[0]", "q[1]"),
+                applyGateCmd("T", "q[1]"));
+        emulation.setSimulationMode(SimulationMode.EXTENDED_STABILIZER);
+        emulation.prepare(script);
+        assertEquals("EXTENDED_STABILIZER", emulation.getDefaultBackendType());
+        assertTrue(emulation.getPreparationReport().contains("T-count 2"));
+
+        script.forEach(emulation::run);
+        Map<Integer, Complex> state = emulation.getRegisterState("q");
+        assertEquals(2, state.size());
+        assertEquals(0.5, state.get(0b00).modulusSquared(), DELTA);
+        assertEquals(0.5, state.get(0b11).modulusSquared(), DELTA);
+    }
+
+    @Test
+    void testMpsBackendRegister() {
+        Command cmd = createRegisterCmd("chain[60]");
+        cmd.getArguments().put("backend", "MPS");
+        cmd.getArguments().put("backendParameters", List.of(8.0, 1e-10));
+        emulation.run(cmd);
+        QubitRegister real = emulation.getNominalRegister("chain").getRealRegister();
+        assertEquals("MPS", real.getBackend().getType());
+
+        emulation.run(applyGateCmd("H", "chain[0]"));
+        for (int i = 1; i < 60; i++) {
+            Map<String, Object> result = emulation.run(applyGateCmd("CX", "chain[" + (i - 1) + "]", "chain[" + i + "]"));
+            assertTrue(((String) result.get("output")).contains("MPS"));
+        }
+        String first = (String) emulation.run(measureCmd("chain", 0)).get("output");
+        assertEquals(first, emulation.run(measureCmd("chain", 59)).get("output"));
+    }
+
+    @Test
+    void testDecisionDiagramBackendRegister() {
+        Command cmd = createRegisterCmd("wide[50]");
+        cmd.getArguments().put("backend", "QMDD");
+        emulation.run(cmd);
+        QubitRegister real = emulation.getNominalRegister("wide").getRealRegister();
+        assertEquals("DD", real.getBackend().getType());
+
+        for (int i = 0; i < 50; i++) {
+            emulation.run(applyGateCmd("H", "wide[" + i + "]"));
+        }
+        String output = (String) emulation.run(applyGateCmd("CZ", "wide[0]", "wide[49]")).get("output");
+        assertTrue(output.contains("DD: узлов"));
+        emulation.run(measureCmd("wide", 10));
+    }
+
+    @Test
+    void testTensorNetworkModeReportsCost() {
+        List<Command> script = List.of(
+                createRegisterCmd("q[40]"),
+                applyGateCmd("H", "q[0]"),
+                applyGateCmd("CX", "q[0]", "q[39]"),
+                applyGateCmd("T", "q[39]"));
+        emulation.setSimulationMode(SimulationMode.TENSOR_NETWORK);
+        emulation.prepare(script);
+        assertEquals("TENSOR_NETWORK", emulation.getDefaultBackendType());
+        assertTrue(emulation.getPreparationReport().contains("FLOP"));
+
+        script.forEach(emulation::run);
+        String first = (String) emulation.run(measureCmd("q", 0)).get("output");
+        assertEquals(first, emulation.run(measureCmd("q", 39)).get("output"));
+    }
+
+    @Test
+    void testAmplitudeQueryAcrossJoinedRegisters() {
+        emulation.run(createRegisterCmd("q[1]"));
+        emulation.run(createRegisterCmd("a[1]"));
+        emulation.run(applyGateCmd("H", "q[0]"));
+        emulation.run(applyGateCmd("CX", "q[0]", "a[0]"));
+
+        assertEquals(0.5, emulation.amplitude(Map.of("q", "1", "a", "1")).modulusSquared(), DELTA);
+        assertEquals(0, emulation.amplitude(Map.of("q", "1", "a", "0")).modulusSquared(), DELTA);
+        assertThrows(IllegalArgumentException.class, () -> emulation.amplitude(Map.of("q", "1")));
+        assertThrows(IllegalArgumentException.class, () -> emulation.amplitude(Map.of("q", "10", "a", "1")));
+
+        Map<String, Object> args = new HashMap<>();
+        args.put("values", new LinkedHashMap<>(Map.of("q", "0", "a", "0")));
+        String output = (String) emulation.run(new Command(Command.CommandType.AMPLITUDE, args)).get("output");
+        assertTrue(output.startsWith("Амплитуда |"), output);
+        assertTrue(output.contains("ветвящихся гейтов: 1"), output);
+
+        assertEquals(0.5, emulation.amplitude(Map.of("q", "1", "a", "1"), List.of("q")).modulusSquared(), DELTA);
+        args.put("split", List.of("a"));
+        output = (String) emulation.run(new Command(Command.CommandType.AMPLITUDE, args)).get("output");
+        assertTrue(output.contains("разрезанных гейтов 1"), output);
+    }
+
+    @Test
+    void testAmplitudeQueryRejectsMeasuredRegister() {
+        emulation.run(createRegisterCmd("q[2]"));
+        emulation.run(applyGateCmd("H", "q[0]"));
+        emulation.run(measureCmd("q", 0));
+        Map<String, Object> args = new HashMap<>();
+        args.put("values", Map.of("q", "00"));
+        String output = (String) emulation.run(new Command(Command.CommandType.AMPLITUDE, args)).get("output");
+        assertTrue(output.startsWith("Ошибка вычисления амплитуды"), output);
+    }
+
+    @Test
+    void testMeasurementSplitsDisentangledRegister() {
+        emulation.run(createRegisterCmd("a[1]"));
+        emulation.run(createRegisterCmd("b[2]"));
+        emulation.run(applyGateCmd("H", "a[0]"));
+        emulation.run(applyGateCmd("CX", "a[0]", "b[1]"));
+        emulation.run(applyGateCmd("H", "b[0]"));
+        QubitRegister joined = emulation.getNominalRegister("a").getRealRegister();
+        assertSame(joined, emulation.getNominalRegister("b").getRealRegister());
+
+        Map<String, Object> result = emulation.run(measureCmd("a", 0));
+        int value = Integer.parseInt((String) result.get("output"));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> splitInfo = (Map<String, Object>) result.get("splitInfo");
+        assertNotNull(splitInfo);
+        assertEquals(joined.getName(), splitInfo.get("oldRealRegName"));
+        assertNull(emulation.getRealRegister(joined.getName()));
+
+        QubitRegister a = emulation.getNominalRegister("a");
+        QubitRegister b = emulation.getNominalRegister("b");
+        assertNotSame(a.getRealRegister(), b.getRealRegister());
+        assertEquals(1, a.getRealSize());
+        // b[0] остался в суперпозиции, а b[1] совпадает с результатом измерения a[0]
+        assertEquals(1, emulation.getRegisterState("a").size());
+        Map<Integer, Complex> stateB = emulation.getRegisterState("b");
+        assertEquals(2, stateB.size());
+        assertEquals(0.5, stateB.get(value << 1).modulusSquared(), DELTA);
+        assertEquals(0.5, stateB.get(value << 1 | 1).modulusSquared(), DELTA);
+
+        // Следующие гейты работают с отдельными регистрами
+        emulation.run(applyGateCmd("X", "b[1]"));
+        assertEquals(0.5, emulation.getRegisterState("b").get((1 - value) << 1).modulusSquared(), DELTA);
+    }
+
+    @Test
+    void testSplitKeepsDeferredFrames() {
+        emulation.run(createRegisterCmd("q[12], b[1]"));
+        for (int i = 0; i < 12; i++) {
+            emulation.run(applyGateCmd(i == 3 ? "X" : "H", "q[" + i + "]"));
+        }
+        Map<String, Object> result = emulation.run(measureCmd("b", 0));
+        assertNotNull(result.get("splitInfo"));
+        QubitRegister q = emulation.getNominalRegister("q");
+        assertNotSame(q.getRealRegister(), emulation.getNominalRegister("b").getRealRegister());
+        // Кадры H и рамка Паули перешли к отделённому регистру несвёрнутыми
+        assertEquals(1, q.getRealRegister().getStoredStates().cardinality());
+        Map<Integer, Complex> state = emulation.getRegisterState("q");
+        assertEquals(2048, state.size());
+        state.forEach((index, amplitude) -> {
+            assertEquals(1 << 3, index & (1 << 3));
+            assertEquals(1.0 / 2048, amplitude.modulusSquared(), DELTA);
+        });
+    }
+
+    @Test
+    void testDeferredGateTraceUsesDisplayedState() {
+        emulation.run(createRegisterCmd("q[2]"));
+        emulation.run(applyGateCmd("X", "q[1]"));
+        Map<Integer, Complex> before = emulation.getRegisterState("q");
+        emulation.run(applyGateCmd("H", "q[0]"));
+        // X на q[1] остался в рамке Паули: трасса идёт из отображаемого состояния |10>
+        Map<Integer, Map<Integer, Complex>> trace = emulation.getLastGateTrace().traceFrom(before);
+        assertEquals(Set.of(0b10), trace.keySet());
+        assertEquals(Set.of(0b10, 0b11), trace.get(0b10).keySet());
+        assertEquals(Math.sqrt(0.5), trace.get(0b10).get(0b11).getReal(), DELTA);
+    }
+
+    @Test
+    void testControlledGateTraceUsesDisplayedState() {
+        emulation.run(createRegisterCmd("q[2]"));
+        emulation.run(applyGateCmd("H", "q[0]"));
+        emulation.run(applyGateCmd("X", "q[1]"));
+        Map<Integer, Complex> before = emulation.getRegisterState("q");
+        emulation.run(applyGateCmd("CX", "q[0]", "q[1]"));
+        // CX идёт через ядро слияния, а H и X перед ним ещё не свёрнуты в хранимое состояние
+        Map<Integer, Map<Integer, Complex>> trace = emulation.getLastGateTrace().traceFrom(before);
+        assertEquals(Set.of(0b10, 0b11), trace.keySet());
+        assertEquals(Set.of(0b10), trace.get(0b10).keySet());
+        assertEquals(Set.of(0b01), trace.get(0b11).keySet());
+        assertEquals(Math.sqrt(0.5), trace.get(0b11).get(0b01).getReal(), DELTA);
+    }
+
+    @Test
+    void testRepeatedMeasurementKeepsAmplitudesNormalised() {
+        emulation.run(createRegisterCmd("q[2]"));
+        for (int i = 0; i < 70; i++) {
+            emulation.run(applyGateCmd("H", "q[0]"));
+            emulation.run(measureCmd("q", 0));
+        }
+        emulation.run(applyGateCmd("H", "q[0]"));
+        emulation.run(applyGateCmd("CX", "q[0]", "q[1]"));
+        // Нормировка измерений не копится в множителе: амплитуды 1/sqrt(2) не отбрасываются порогами ядер
+        Map<Integer, Complex> state = emulation.getRegisterState("q");
+        assertEquals(Set.of(0b00, 0b11), state.keySet());
+        assertEquals(0.5, state.get(0b00).modulusSquared(), DELTA);
+        assertEquals(0.5, state.get(0b11).modulusSquared(), DELTA);
+        QubitRegister real = emulation.getNominalRegister("q").getRealRegister();
+        real.getStoredStates().forEach(i -> assertTrue(real.getStoredAmplitudes().get(i).modulusSquared() > 0.1));
+    }
+
+    @Test
+    void testMeasurementKeepsEntangledRegister() {
+        emulation.run(createRegisterCmd("a[1],b[1],c[1]"));
+        emulation.run(applyGateCmd("H", "b[0]"));
+        emulation.run(applyGateCmd("CX", "b[0]", "c[0]"));
+        Map<String, Object> result = emulation.run(measureCmd("a", 0));
+        // a всегда был |0> и отделяется, b и c остаются запутанными
+        @SuppressWarnings("unchecked")
+        List<String> newNames = (List<String>) ((Map<String, Object>) result.get("splitInfo")).get("newRealRegNames");
+        assertEquals(2, newNames.size());
+        assertSame(emulation.getNominalRegister("b").getRealRegister(), emulation.getNominalRegister("c").getRealRegister());
+        assertEquals(2, emulation.getRegisterState("c").size());
+    }
+
+    @Test
+    void testOracleJoinsRegistersSplitByMeasurement(@TempDir Path tempDir) throws IOException {
+        Path csvFile = tempDir.resolve("oracle_split.csv");
+        try (FileWriter writer = new FileWriter(csvFile.toFile())) {
+            writer.write("2\n");
+            writer.write("3\n");
+        }
+        emulation.run(new Command(Command.CommandType.DEFINE_ORACLE_CSV, Map.of("oracleName", "F", "csvPath", csvFile.toString())));
+        emulation.run(createRegisterCmd("inp[2],anc[1]"));
+        emulation.run(applyGateCmd("X", "inp[0]"));
+        emulation.run(applyGateCmd("X", "inp[1]"));
+        emulation.run(measureCmd("anc", 0));
+        assertNotSame(emulation.getNominalRegister("inp").getRealRegister(), emulation.getNominalRegister("anc").getRealRegister());
+
+        Map<String, Object> applyResult = emulation.run(new Command(Command.CommandType.APPLY_ORACLE, Map.of(
+                "oracleName", "F", "inputRegisterName", "inp", "ancillaRegisterName", "anc", "ancillaIndex", 0)));
+        assertTrue(((String) applyResult.get("output")).contains("применен"), (String) applyResult.get("output"));
+        assertNotNull(applyResult.get("joinInfo"));
+        QubitRegister inp = emulation.getNominalRegister("inp");
+        QubitRegister anc = emulation.getNominalRegister("anc");
+        assertSame(inp.getRealRegister(), anc.getRealRegister());
+        int expected = 3 << inp.getOffsetInRealRegister() | 1 << anc.getOffsetInRealRegister();
+        assertEquals(Set.of(expected), emulation.getRegisterState("inp").keySet());
+    }
+
+    @Test
+    void testClassicalControlAvoidsJoin() {
+        emulation.run(createRegisterCmd("c[1]"));
+        emulation.run(createRegisterCmd("t[1]"));
+        emulation.run(createRegisterCmd("u[1]"));
+        emulation.run(applyGateCmd("X", "c[0]"));
+        emulation.run(applyGateCmd("H", "t[0]"));
+        emulation.run(applyGateCmd("H", "u[0]"));
+
+        // c = |1>: CCX(c, t, u) сводится к CX(t, u), объединяются только t и u
+        Map<String, Object> result = emulation.run(applyGateCmd("CCX", "c[0]", "t[0]", "u[0]"));
+        assertNotNull(result.get("joinInfo"));
+        assertNotSame(emulation.getNominalRegister("c").getRealRegister(), emulation.getNominalRegister("t").getRealRegister());
+        assertSame(emulation.getNominalRegister("t").getRealRegister(), emulation.getNominalRegister("u").getRealRegister());
+        assertEquals(1, emulation.getJoinCount());
+        assertEquals(1, emulation.getAvoidedJoinCount());
+
+        // Фазовый гейт с классическим целевым кубитом: CZ(t, c) = Z(t), объединение не нужно
+        emulation.run(createRegisterCmd("p[1]"));
+        emulation.run(applyGateCmd("H", "p[0]"));
+        result = emulation.run(applyGateCmd("CZ", "p[0]", "c[0]"));
+        assertNull(result.get("joinInfo"));
+        assertEquals(emulation.getNominalRegister("p").getRealRegister().getName(), result.get("targetRealRegName"));
+        Map<Integer, Complex> state = emulation.getRegisterState("p");
+        assertEquals(1 / Math.sqrt(2), state.get(0).getReal(), DELTA);
+        assertEquals(-1 / Math.sqrt(2), state.get(1).getReal(), DELTA);
+        assertEquals(1, emulation.getJoinCount());
+        assertEquals(2, emulation.getAvoidedJoinCount());
+    }
+
+    @Test
+    void testJoinMergesOnlyEntangledFactors() {
+        emulation.run(createRegisterCmd("a[1], b[3]"));
+        emulation.run(createRegisterCmd("c[1]"));
+        String abName = emulation.getNominalRegister("a").getRealRegister().getName();
+        emulation.run(applyGateCmd("H", "b[0]"));
+        emulation.run(applyGateCmd("H", "b[1]"));
+        emulation.run(applyGateCmd("H", "a[0]"));
+
+        // b не затронут гейтом и не запутан с a: он выносится, объединяются только a и c
+        Map<String, Object> result = emulation.run(applyGateCmd("CX", "a[0]", "c[0]"));
+        Map<String, Object> joinInfo = (Map<String, Object>) result.get("joinInfo");
+        assertNotNull(joinInfo);
+        assertEquals(1, emulation.getJoinCount());
+        assertEquals(1, emulation.getFactoredOutCount());
+        assertTrue(((List<String>) joinInfo.get("oldRealRegNames")).contains(abName));
+        List<Map<String, Object>> factoredParts = (List<Map<String, Object>>) joinInfo.get("factoredParts");
+        assertEquals(1, factoredParts.size());
+        assertEquals(abName, factoredParts.get(0).get("oldRealRegName"));
+
+        QubitRegister joined = emulation.getRealRegister((String) joinInfo.get("newRealRegName"));
+        assertEquals(2, joined.getRealSize());
+        assertSame(joined, emulation.getNominalRegister("c").getRealRegister());
+        QubitRegister bReal = emulation.getNominalRegister("b").getRealRegister();
+        assertNotSame(joined, bReal);
+        assertEquals(3, bReal.getRealSize());
+        assertEquals(List.of(bReal.getName()), factoredParts.get(0).get("newRealRegNames"));
+
+        Map<Integer, Complex> bell = emulation.getRealRegisterState(joined.getName());
+        assertEquals(2, bell.size());
+        assertEquals(1 / Math.sqrt(2), bell.get(0).getReal(), DELTA);
+        assertEquals(1 / Math.sqrt(2), bell.get(3).getReal(), DELTA);
+        assertEquals(4, emulation.getRegisterState("b").size());
+    }
+
+    @Test
+    void testPlannedCreateSplitsIndependentRegisters() {
+        List<Command> script = List.of(
+                createRegisterCmd("a[1], b[2], c[1]"),
+                applyGateCmd("X", "a[0]"),
+                applyGateCmd("CX", "a[0]", "c[0]"),
+                applyGateCmd("H", "b[0]"));
+        emulation.prepare(script);
+        assertTrue(emulation.getPreparationReport().startsWith("План регистров: разделено строк CR 1"));
+
+        Map<String, Object> created = emulation.run(script.get(0));
+        String realName = script.get(0).getArgumentAsString("realRegisterName");
+        assertEquals(List.of(realName + "(a,c)", realName + "(b)"), created.get("realRegNames"));
+        QubitRegister ac = emulation.getRealRegister(realName + "(a,c)");
+        assertEquals(2, ac.getRealSize());
+        assertEquals(1, emulation.getNominalRegister("a").getOffsetInRealRegister());
+        assertEquals(0, emulation.getNominalRegister("c").getOffsetInRealRegister());
+        assertEquals(0, emulation.getNominalRegister("b").getOffsetInRealRegister());
+        assertEquals(2, emulation.getRealRegister(realName + "(b)").getRealSize());
+
+        for (Command command : script.subList(1, script.size())) {
+            assertNull(emulation.run(command).get("joinInfo"));
+        }
+        // a = 1 (старший бит) и c = 1 после CX
+        assertEquals(1.0, emulation.getRegisterState("c").get(0b11).getReal(), DELTA);
+        assertEquals(0, emulation.getJoinCount());
+    }
+
+    @Test
+    void testJoinOrderBySupport() {
+        emulation.run(createRegisterCmd("x[2]"));
+        emulation.run(createRegisterCmd("y[1]"));
+        emulation.run(createRegisterCmd("z[1]"));
+        emulation.run(applyGateCmd("H", "x[0]"));
+        emulation.run(applyGateCmd("H", "x[1]"));
+        // CX сворачивает отложенные H, носитель x становится полным
+        emulation.run(applyGateCmd("CX", "x[0]", "x[1]"));
+        emulation.run(applyGateCmd("H", "z[0]"));
+        emulation.run(applyGateCmd("CX", "z[0]", "y[0]"));
+
+        // Носители: x - 4, (y, z) уже объединены - 2; w в базисном состоянии объединяется первым
+        emulation.run(createRegisterCmd("w[1]"));
+        String yz = emulation.getNominalRegister("y").getRealRegister().getName();
+        String x = emulation.getNominalRegister("x").getRealRegister().getName();
+        String w = emulation.getNominalRegister("w").getRealRegister().getName();
+        Map<String, Object> result = emulation.run(applyGateCmd("CCX", "x[0]", "y[0]", "w[0]"));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> joinInfo = (Map<String, Object>) result.get("joinInfo");
+        assertEquals(List.of(w, yz, x), joinInfo.get("oldRealRegNames"));
+        assertEquals(3, emulation.getJoinCount());
+    }
+
+    @Test
+    void testJoinOrderFollowsPlan() {
+        List<Command> script = List.of(
+                createRegisterCmd("x[2]"),
+                createRegisterCmd("y[1]"),
+                createRegisterCmd("z[1]"),
+                applyGateCmd("H", "x[0]"),
+                applyGateCmd("H", "x[1]"),
+                applyGateCmd("H", "z[0]"),
+                applyGateCmd("CCX", "x[0]", "z[0]", "y[0]"));
+        emulation.prepare(script);
+        for (Command command : script.subList(0, script.size() - 1)) {
+            emulation.run(command);
+        }
+        // H отложены, хранимые носители всех трёх регистров равны 1; план предсказывает y - 1, z - 2, x - 4
+        String x = emulation.getNominalRegister("x").getRealRegister().getName();
+        String y = emulation.getNominalRegister("y").getRealRegister().getName();
+        String z = emulation.getNominalRegister("z").getRealRegister().getName();
+        Map<String, Object> result = emulation.run(script.get(script.size() - 1));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> joinInfo = (Map<String, Object>) result.get("joinInfo");
+        assertEquals(List.of(y, z, x), joinInfo.get("oldRealRegNames"));
+    }
+
+    @Test
+    void testHadamardPrefixKeepsStoredSupport() {
+        emulation.run(createRegisterCmd("q[4]"));
+        for (int i = 0; i < 4; i++) {
+            emulation.run(applyGateCmd("H", "q[" + i + "]"));
+        }
+        QubitRegister real = emulation.getNominalRegister("q").getRealRegister();
+        assertEquals(1, real.getStoredStates().cardinality());
+        Map<Integer, Complex> state = emulation.getRegisterState("q");
+        assertEquals(16, state.size());
+        assertEquals(0.25, state.get(0b1011).getReal(), DELTA);
+        assertEquals(1, real.getStoredStates().cardinality());
+
+        // Измерение сворачивает только измеряемый кубит
+        emulation.run(measureCmd("q", 0));
+        assertEquals(1, real.getStoredStates().cardinality());
+        assertEquals(8, emulation.getRegisterState("q").size());
+    }
+
+    @Test
+    void testApproximationReportsFidelityBound() {
+        emulation.setApproximation(new ApproximationPolicy(0.2, 0, 0.1, false));
+        emulation.run(createRegisterCmd("q[2]"));
+        emulation.run(applyGateCmd("H", "q[0]"));
+        emulation.run(applyGateCmd("T", "q[0]"));
+        emulation.run(applyGateCmd("H", "q[0]"));
+        Map<String, Object> result = emulation.run(applyGateCmd("CX", "q[0]", "q[1]"));
+
+        double small = Math.pow(Math.sin(Math.PI / 8), 2);
+        assertEquals(small, emulation.getDiscardedProbability(), DELTA);
+        // Одно отсечение: граница совпадает с точностью 1 - p
+        assertEquals(1 - small, emulation.getFidelityBound(), DELTA);
+        assertTrue(emulation.isErrorBudgetExceeded());
+        assertNotNull(result.get("warning"));
+        assertEquals(Set.of(0), emulation.getRegisterState("q").keySet());
+
+        // Предупреждение выдаётся один раз, гейты продолжают применяться
+        assertNull(emulation.run(applyGateCmd("X", "q[1]")).get("warning"));
+        assertTrue(emulation.getRegisterState("q").containsKey(0b10));
+        assertTrue(emulation.getApproximationReport().contains("граница точности"));
+    }
+
+    @Test
+    void testApproximationStopsWhenBudgetExceeded() {
+        emulation.setApproximation(new ApproximationPolicy(0.2, 0, 0.1, true));
+        emulation.run(createRegisterCmd("q[2]"));
+        emulation.run(applyGateCmd("H", "q[0]"));
+        emulation.run(applyGateCmd("T", "q[0]"));
+        emulation.run(applyGateCmd("H", "q[0]"));
+        emulation.run(applyGateCmd("CX", "q[0]", "q[1]"));
+
+        Map<String, Object> result = emulation.run(applyGateCmd("X", "q[1]"));
+        assertTrue(((String) result.get("output")).startsWith("Бюджет ошибки"));
+        assertEquals(Set.of(0), emulation.getRegisterState("q").keySet());
+    }
+
+    @Test
+    void testExactModeDoesNotPrune() {
+        emulation.run(createRegisterCmd("q[2]"));
+        emulation.run(applyGateCmd("H", "q[0]"));
+        emulation.run(applyGateCmd("T", "q[0]"));
+        emulation.run(applyGateCmd("H", "q[0]"));
+        emulation.run(applyGateCmd("CX", "q[0]", "q[1]"));
+        assertEquals(2, emulation.getRegisterState("q").size());
+        assertEquals(0.0, emulation.getDiscardedProbability(), DELTA);
+        assertEquals(1.0, emulation.getFidelityBound(), DELTA);
+        assertNull(emulation.getApproximationReport());
+    }
+}
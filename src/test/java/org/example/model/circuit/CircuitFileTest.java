@@ -0,0 +1,166 @@
+package org.example.model.circuit;
+
+import org.example.script.Command;
+import org.example.script.ScriptParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CircuitFileTest {
+
+    private static CompiledCircuit sample(Path tempDir) throws IOException {
+        Path csv = tempDir.resolve("oracle.csv");
+        Files.writeString(csv, "2\n1\n2\n");
+        return CompiledCircuit.compile(CompiledCircuitTest.parse(
+                "CR a[2], b[1]",
+                "CR c[2]",
+                "H a[0]",
+                "H a[1]",
+                "P 0.25 c[0]",
+                "CCX a[0] a[1] c[1]",
+                "CSWAP b[0] a[0] c[0]",
+                "INC c[0]",
+                "DEFINE_ORACLE_CSV Marked \"" + csv + "\"",
+                "APPLY_ORACLE Marked a -> b[0]",
+                "M b[0]",
+                "M a[1]"));
+    }
+
+    private static void assertSameCircuit(CompiledCircuit expected, CompiledCircuit actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getMeasurementCount(), actual.getMeasurementCount());
+        assertEquals(expected.getRegisters(), actual.getRegisters());
+        assertEquals(expected.getInstructions().size(), actual.getInstructions().size());
+        for (int i = 0; i < expected.getInstructions().size(); i++) {
+            CompiledCircuit.Instruction e = expected.getInstructions().get(i);
+            CompiledCircuit.Instruction a = actual.getInstructions().get(i);
+            assertEquals(e.opcode(), a.opcode(), "инструкция " + i);
+            assertEquals(e.name(), a.name(), "инструкция " + i);
+            assertEquals(e.phase(), a.phase(), "инструкция " + i);
+            assertEquals(e.controlMask(), a.controlMask(), "инструкция " + i);
+            assertEquals(e.target(), a.target(), "инструкция " + i);
+            assertEquals(e.operand(), a.operand(), "инструкция " + i);
+            assertEquals(e.width(), a.width(), "инструкция " + i);
+            assertEquals(e.slot(), a.slot(), "инструкция " + i);
+            assertTrue(Arrays.equals(e.matrix(), a.matrix()), "инструкция " + i);
+            assertEquals(e.table(), a.table(), "инструкция " + i);
+        }
+    }
+
+    @Test
+    void testBinaryRoundTrip(@TempDir Path tempDir) throws IOException {
+        CompiledCircuit circuit = sample(tempDir);
+        Path file = tempDir.resolve("circuit.qcir");
+        CircuitFile.write(circuit, file);
+        CompiledCircuit loaded = CircuitFile.read(file);
+
+        assertSameCircuit(circuit, loaded);
+        assertEquals(1, loaded.getOracles().size());
+        assertArrayEquals(new int[]{1, 2}, loaded.getOracles().get(0).marked());
+        Random first = new Random(5);
+        Random second = new Random(5);
+        for (int shot = 0; shot < 20; shot++) {
+            assertArrayEquals(circuit.run(first), loaded.run(second));
+        }
+    }
+
+    @Test
+    void testScriptRoundTrip(@TempDir Path tempDir) throws IOException {
+        CompiledCircuit circuit = sample(tempDir);
+        List<String> script = circuit.toScript();
+        assertEquals("CR a[2], b[1]", script.get(0));
+        assertEquals("CR c[2]", script.get(1));
+
+        CompiledCircuit recompiled = CompiledCircuit.compile(CompiledCircuitTest.parse(script.toArray(new String[0])));
+        assertSameCircuit(circuit, recompiled);
+    }
+
+    @Test
+    void testCommandsMatchScriptLines(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("circuit.qcir");
+        CircuitFile.write(sample(tempDir), file);
+        CompiledCircuit loaded = CircuitFile.read(file);
+        List<Command> commands = loaded.toCommands();
+        List<Command> parsed = ScriptParser.parse(String.join("\n", loaded.toScript()));
+        assertEquals(parsed.size(), commands.size());
+        for (int i = 0; i < parsed.size(); i++) {
+            assertEquals(parsed.get(i).getType(), commands.get(i).getType(), "строка " + i);
+            assertEquals(parsed.get(i).getArguments(), commands.get(i).getArguments(), "строка " + i);
+        }
+    }
+
+    @Test
+    void testRejectsForeignFiles(@TempDir Path tempDir) throws IOException {
+        Path text = tempDir.resolve("script.qcir");
+        Files.writeString(text, "CR q[2]\nH q[0]\n");
+        assertThrows(IllegalArgumentException.class, () -> CircuitFile.read(text));
+
+        Path future = tempDir.resolve("future.qcir");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(future))) {
+            out.writeInt(CircuitFile.MAGIC);
+            out.writeShort(CircuitFile.VERSION + 1);
+        }
+        assertThrows(IllegalArgumentException.class, () -> CircuitFile.read(future));
+
+        Path file = tempDir.resolve("circuit.qcir");
+        CircuitFile.write(sample(tempDir), file);
+        byte[] bytes = Files.readAllBytes(file);
+        Path truncated = tempDir.resolve("truncated.qcir");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 7));
+        assertThrows(IllegalArgumentException.class, () -> CircuitFile.read(truncated));
+    }
+
+    @Test
+    void testRejectsCorruptCountsAndIndices(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("circuit.qcir");
+        CircuitFile.write(sample(tempDir), file);
+        byte[] bytes = Files.readAllBytes(file);
+        int last = bytes.length - 33;
+        // Ширина, число регистров, номер имени и target последней инструкции
+        assertCorrupt(tempDir, bytes, 6, -1);
+        assertCorrupt(tempDir, bytes, 14, -5);
+        assertCorrupt(tempDir, bytes, 14, Integer.MAX_VALUE);
+        assertCorrupt(tempDir, bytes, last + 1, 1000);
+        assertCorrupt(tempDir, bytes, last + 1 + 4 + 8 + 4, 99);
+    }
+
+    @Test
+    void testDamagedBytesNeverEscapeAsOtherExceptions(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("circuit.qcir");
+        CircuitFile.write(sample(tempDir), file);
+        byte[] bytes = Files.readAllBytes(file);
+        Path damaged = tempDir.resolve("damaged.qcir");
+        for (int i = 6; i < bytes.length; i++) {
+            for (byte value : new byte[]{(byte) 0x7F, (byte) 0xFF, 0x1F}) {
+                byte[] copy = bytes.clone();
+                copy[i] = value;
+                Files.write(damaged, copy);
+                try {
+                    CircuitFile.read(damaged).toScript();
+                } catch (IllegalArgumentException expected) {
+                    // повреждение обнаружено
+                } catch (RuntimeException e) {
+                    fail("байт " + i + " = " + value + ": " + e);
+                }
+            }
+        }
+    }
+
+    private static void assertCorrupt(Path tempDir, byte[] bytes, int at, int value) throws IOException {
+        byte[] copy = bytes.clone();
+        ByteBuffer.wrap(copy).putInt(at, value);
+        Path corrupt = tempDir.resolve("corrupt.qcir");
+        Files.write(corrupt, copy);
+        assertThrows(IllegalArgumentException.class, () -> CircuitFile.read(corrupt));
+    }
+}
@@ -0,0 +1,158 @@
+package org.example.model.circuit;
+
+import org.example.model.Emulation;
+import org.example.model.qubit.Complex;
+import org.example.model.qubit.QubitRegister;
+import org.example.model.qubit.backend.BackendFactory;
+import org.example.script.Command;
+import org.example.script.Parser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompiledCircuitTest {
+    private static final double DELTA = 1e-9;
+
+    // Строки CR собираются здесь: Parser нумерует реальные регистры общим счётчиком, от которого зависит ParserTest
+    static List<Command> parse(String... lines) {
+        List<Command> script = new ArrayList<>();
+        for (String line : lines) {
+            script.add(line.startsWith("CR ") ? createRegister(line.substring(3), script.size()) : Parser.parse(line));
+        }
+        return script;
+    }
+
+    private static Command createRegister(String spec, int number) {
+        List<Map<String, Object>> nominals = new ArrayList<>();
+        String[] definitions = spec.split(",");
+        int offset = Arrays.stream(definitions).mapToInt(d -> Integer.parseInt(d.trim().split("\\[|\\]")[1])).sum();
+        int total = offset;
+        for (String definition : definitions) {
+            String[] parts = definition.trim().split("\\[|\\]");
+            int size = Integer.parseInt(parts[1]);
+            offset -= size;
+            nominals.add(Map.of("name", parts[0], "size", size, "offset", offset));
+        }
+        return new Command(Command.CommandType.CREATE_REGISTER, Map.of(
+                "realRegisterName", "row_" + number, "realRegisterSize", total, "nominalRegisters", nominals));
+    }
+
+    @Test
+    void testMatchesEmulation(@TempDir Path tempDir) throws IOException {
+        Path csv = tempDir.resolve("oracle.csv");
+        Files.writeString(csv, "3\n5\n6\n");
+        List<Command> script = parse(
+                "CR a[3], b[2]",
+                "H a[0]",
+                "H a[1]",
+                "CNOT a[0] b[0]",
+                "P 0.7 b[1]",
+                "CCX a[0] a[1] a[2]",
+                "SWAP a[2] b[1]",
+                "CSWAP b[0] a[1] b[1]",
+                "INC a[0]",
+                "CH a[1] b[0]",
+                "DEC b[1]",
+                "DEFINE_ORACLE_CSV Marked \"" + csv + "\"",
+                "APPLY_ORACLE Marked a -> b[1]",
+                "T a[2]");
+
+        Emulation emulation = new Emulation();
+        script.forEach(emulation::run);
+        String realName = emulation.getNominalRegister("a").getRealRegister().getName();
+        Map<Integer, Complex> expected = emulation.getRealRegisterState(realName);
+
+        CompiledCircuit circuit = CompiledCircuit.compile(script);
+        assertEquals(5, circuit.getWidth());
+        QubitRegister register = circuit.newRegister(new Random(1));
+        circuit.run(register);
+        Map<Integer, Complex> actual = BackendFactory.stateVectorOf(register);
+        for (int state = 0; state < 1 << 5; state++) {
+            Complex e = expected.getOrDefault(state, Complex.getZero());
+            Complex a = actual.getOrDefault(state, Complex.getZero());
+            assertEquals(e.getReal(), a.getReal(), DELTA, "re в состоянии " + state);
+            assertEquals(e.getImaginary(), a.getImaginary(), DELTA, "im в состоянии " + state);
+        }
+    }
+
+    @Test
+    void testInstructionsAreResolved() {
+        CompiledCircuit circuit = CompiledCircuit.compile(parse(
+                "CR q[2]",
+                "CR r[3]",
+                "CX q[1] r[2]",
+                "M r[2]"));
+        List<CompiledCircuit.Instruction> instructions = circuit.getInstructions();
+        assertEquals(2, instructions.size());
+        // Строки CR занимают подряд идущие кубиты: r начинается со второго
+        assertEquals(CompiledCircuit.Opcode.UNITARY, instructions.get(0).opcode());
+        assertEquals(1 << 1, instructions.get(0).controlMask());
+        assertEquals(4, instructions.get(0).target());
+        assertEquals(CompiledCircuit.Opcode.MEASURE, instructions.get(1).opcode());
+        assertEquals(1, circuit.getMeasurementCount());
+        assertThrows(UnsupportedOperationException.class, () -> instructions.add(instructions.get(0)));
+    }
+
+    @Test
+    void testRepeatedShotsAreCorrelated() {
+        CompiledCircuit circuit = CompiledCircuit.compile(parse(
+                "CR q[2]",
+                "H q[0]",
+                "CX q[0] q[1]",
+                "M q[0]",
+                "M q[1]"));
+        Random random = new Random(17);
+        int ones = 0;
+        for (int shot = 0; shot < 200; shot++) {
+            int[] outcomes = circuit.run(random);
+            assertEquals(outcomes[0], outcomes[1]);
+            ones += outcomes[0];
+        }
+        assertTrue(ones > 60 && ones < 140, "Исходы должны быть равновероятны: " + ones);
+    }
+
+    @Test
+    void testSampleMatchesRepeatedRuns() {
+        CompiledCircuit circuit = CompiledCircuit.compile(parse(
+                "CR q[3]",
+                "H q[0]",
+                "CX q[0] q[1]",
+                "H q[2]",
+                "M q[0]",
+                "M q[1]",
+                "X q[2]",
+                "M q[2]"));
+        // Состояние перед первым измерением считается один раз, исходы те же, что у отдельных запусков
+        Map<String, Integer> expected = new java.util.TreeMap<>();
+        Random random = new Random(23);
+        for (int shot = 0; shot < 300; shot++) {
+            int[] outcomes = circuit.run(random);
+            expected.merge("" + outcomes[0] + outcomes[1] + outcomes[2], 1, Integer::sum);
+        }
+        Map<String, Integer> counts = circuit.sample(300, new Random(23));
+        assertEquals(expected, counts);
+        assertEquals(4, counts.size());
+        assertTrue(counts.keySet().stream().allMatch(key -> key.charAt(0) == key.charAt(1)));
+        assertThrows(IllegalArgumentException.class, () -> circuit.sample(0, new Random()));
+    }
+
+    @Test
+    void testCompileErrors() {
+        assertThrows(IllegalArgumentException.class, () -> CompiledCircuit.compile(parse("CR q[2]", "FOO q[0]")));
+        assertThrows(IllegalArgumentException.class, () -> CompiledCircuit.compile(parse("CR q[2]", "H r[0]")));
+        assertThrows(IllegalArgumentException.class, () -> CompiledCircuit.compile(parse("CR q[2]", "H q[2]")));
+        assertThrows(IllegalArgumentException.class, () -> CompiledCircuit.compile(parse("CR q[2]", "CX q[0] q[0]")));
+        assertThrows(IllegalArgumentException.class, () -> CompiledCircuit.compile(parse("CR q[20]", "CR r[11]")));
+        assertThrows(IllegalArgumentException.class, () -> CompiledCircuit.compile(parse("CR q[2]", "APPLY_ORACLE O q -> q[1]")));
+    }
+}
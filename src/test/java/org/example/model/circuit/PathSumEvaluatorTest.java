@@ -0,0 +1,114 @@
+package org.example.model.circuit;
+
+import org.example.model.gate.GateResolver;
+import org.example.model.qubit.Complex;
+import org.example.model.qubit.QubitRegister;
+import org.example.model.qubit.backend.BackendFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PathSumEvaluatorTest {
+    private static final double DELTA = 1e-9;
+
+    private void apply(CircuitLog log, QubitRegister register, String gate, int... qubits) {
+        log.addGate(gate, 0.7, qubits);
+        Integer[] indices = Arrays.stream(qubits).boxed().toArray(Integer[]::new);
+        GateResolver.resolveByName(gate, register, indices, 0.7).apply();
+    }
+
+    @Test
+    void testMatchesStateVector() {
+        String[] single = {"H", "S", "T", "X", "Y", "P"};
+        String[] pair = {"CX", "CZ", "SWAP", "CH"};
+        Random random = new Random(5);
+        int n = 5;
+        for (int trial = 0; trial < 4; trial++) {
+            CircuitLog log = new CircuitLog(n);
+            QubitRegister register = new QubitRegister("ref", n);
+            for (int step = 0; step < 20; step++) {
+                if (step % 7 == 6) {
+                    apply(log, register, "CCX", 2, 4, 1);
+                } else if (step % 9 == 8) {
+                    apply(log, register, "INC", 0, 1, 2, 3, 4);
+                } else if (random.nextBoolean()) {
+                    apply(log, register, single[random.nextInt(single.length)], random.nextInt(n));
+                } else {
+                    int a = random.nextInt(n);
+                    int b = (a + 1 + random.nextInt(n - 1)) % n;
+                    apply(log, register, pair[random.nextInt(pair.length)], a, b);
+                }
+            }
+            Map<Integer, Complex> expected = BackendFactory.stateVectorOf(register);
+            PathSumEvaluator evaluator = new PathSumEvaluator(log);
+            for (int state = 0; state < (1 << n); state++) {
+                Complex e = expected.getOrDefault(state, Complex.getZero());
+                Complex a = evaluator.amplitude(state);
+                assertEquals(e.getReal(), a.getReal(), DELTA);
+                assertEquals(e.getImaginary(), a.getImaginary(), DELTA);
+            }
+        }
+    }
+
+    @Test
+    void testWideGhzState() {
+        int n = 60;
+        CircuitLog log = new CircuitLog(n);
+        log.addGate("H", 0, new int[]{0});
+        for (int q = 1; q < n; q++) {
+            log.addGate("CX", 0, new int[]{q - 1, q});
+        }
+        PathSumEvaluator evaluator = new PathSumEvaluator(log);
+        assertEquals(1, evaluator.getBranchingGateCount());
+        long all = (1L << n) - 1;
+        assertEquals(0.5, evaluator.amplitude(0).modulusSquared(), DELTA);
+        assertEquals(0.5, evaluator.amplitude(all).modulusSquared(), DELTA);
+        assertEquals(0, evaluator.amplitude(all ^ 1L << 30).modulusSquared(), DELTA);
+    }
+
+    @Test
+    void testOracleMarksState() {
+        // |-> на ancilla, H на входе: отмеченное состояние меняет знак
+        CircuitLog log = new CircuitLog(3);
+        log.addGate("X", 0, new int[]{2});
+        log.addGate("H", 0, new int[]{2});
+        log.addGate("H", 0, new int[]{0});
+        log.addGate("H", 0, new int[]{1});
+        log.addOracle("f", new int[]{0, 1, 2}, Set.of(2));
+        PathSumEvaluator evaluator = new PathSumEvaluator(log);
+        double amplitude = 1 / Math.sqrt(8);
+        assertEquals(amplitude, evaluator.amplitude(0b001).getReal(), DELTA);
+        assertEquals(-amplitude, evaluator.amplitude(0b010).getReal(), DELTA);
+        assertEquals(amplitude, evaluator.amplitude(0b110).getReal(), DELTA);
+        assertEquals(-amplitude, evaluator.amplitude(0b101).getReal(), DELTA);
+    }
+
+    @Test
+    void testJoinShiftsHighRegister() {
+        CircuitLog high = new CircuitLog(2);
+        high.addGate("X", 0, new int[]{1});
+        CircuitLog low = new CircuitLog(1);
+        low.addGate("H", 0, new int[]{0});
+        CircuitLog joined = CircuitLog.join(high, low);
+        assertEquals(3, joined.size());
+        assertArrayEquals(new int[]{2}, joined.getOperations().get(1).qubits());
+
+        PathSumEvaluator evaluator = new PathSumEvaluator(joined);
+        assertEquals(0.5, evaluator.amplitude(0b100).modulusSquared(), DELTA);
+        assertEquals(0.5, evaluator.amplitude(0b101).modulusSquared(), DELTA);
+        assertEquals(0, evaluator.amplitude(0b010).modulusSquared(), DELTA);
+    }
+
+    @Test
+    void testRejectsMeasuredRegister() {
+        CircuitLog log = new CircuitLog(1);
+        log.addGate("H", 0, new int[]{0});
+        log.addMeasurement();
+        assertThrows(IllegalArgumentException.class, () -> new PathSumEvaluator(log));
+    }
+}
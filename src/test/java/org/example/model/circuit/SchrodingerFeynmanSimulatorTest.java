@@ -0,0 +1,104 @@
+package org.example.model.circuit;
+
+import org.example.model.gate.GateResolver;
+import org.example.model.qubit.Complex;
+import org.example.model.qubit.QubitRegister;
+import org.example.model.qubit.backend.BackendFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SchrodingerFeynmanSimulatorTest {
+    private static final double DELTA = 1e-9;
+
+    private void apply(CircuitLog log, QubitRegister register, String gate, int... qubits) {
+        log.addGate(gate, 0.4, qubits);
+        Integer[] indices = Arrays.stream(qubits).boxed().toArray(Integer[]::new);
+        GateResolver.resolveByName(gate, register, indices, 0.4).apply();
+    }
+
+    private void assertMatches(QubitRegister register, SchrodingerFeynmanSimulator simulator, int n) {
+        Map<Integer, Complex> expected = BackendFactory.stateVectorOf(register);
+        long[] bits = new long[1 << n];
+        for (int state = 0; state < bits.length; state++) {
+            bits[state] = state;
+        }
+        Complex[] actual = simulator.amplitudes(bits);
+        for (int state = 0; state < bits.length; state++) {
+            Complex e = expected.getOrDefault(state, Complex.getZero());
+            assertEquals(e.getReal(), actual[state].getReal(), DELTA);
+            assertEquals(e.getImaginary(), actual[state].getImaginary(), DELTA);
+        }
+    }
+
+    @Test
+    void testMatchesStateVectorForInterleavedPartition() {
+        String[] single = {"H", "S", "T", "Y", "P"};
+        String[] pair = {"CX", "CZ", "SWAP", "CH", "CP"};
+        Random random = new Random(11);
+        int n = 6;
+        CircuitLog log = new CircuitLog(n);
+        QubitRegister register = new QubitRegister("ref", n);
+        for (int step = 0; step < 24; step++) {
+            if (step % 10 == 9) {
+                apply(log, register, "CCX", 0, 3, 5);
+            } else if (random.nextBoolean()) {
+                apply(log, register, single[random.nextInt(single.length)], random.nextInt(n));
+            } else {
+                int a = random.nextInt(n);
+                int b = (a + 1 + random.nextInt(n - 1)) % n;
+                apply(log, register, pair[random.nextInt(pair.length)], a, b);
+            }
+        }
+        assertMatches(register, new SchrodingerFeynmanSimulator(log, 0b010101), n);
+    }
+
+    @Test
+    void testIncrementAcrossLowHighCut() {
+        int n = 5;
+        CircuitLog log = new CircuitLog(n);
+        QubitRegister register = new QubitRegister("ref", n);
+        apply(log, register, "H", 0);
+        apply(log, register, "H", 1);
+        apply(log, register, "X", 2);
+        apply(log, register, "INC", 0, 1, 2, 3, 4);
+        apply(log, register, "CX", 4, 0);
+        apply(log, register, "DEC", 0, 1, 2, 3, 4);
+        assertMatches(register, new SchrodingerFeynmanSimulator(log, 0b00011), n);
+        assertMatches(register, new SchrodingerFeynmanSimulator(log, 0b11100), n);
+        assertThrows(IllegalArgumentException.class, () -> new SchrodingerFeynmanSimulator(log, 0b01010));
+    }
+
+    @Test
+    void testControlledGatesHaveRankTwo() {
+        int n = 24;
+        CircuitLog log = new CircuitLog(n);
+        for (int q = 0; q < 12; q++) {
+            log.addGate("H", 0, new int[]{q});
+        }
+        for (int q = 0; q < 3; q++) {
+            log.addGate("CZ", 0, new int[]{q, q + 12});
+        }
+        log.addGate("SWAP", 0, new int[]{11, 12});
+        SchrodingerFeynmanSimulator simulator = new SchrodingerFeynmanSimulator(log, (1L << 12) - 1);
+        assertEquals(4, simulator.getCrossingGateCount());
+        // CZ раскладывается на 2 слагаемых, SWAP - на 4
+        assertEquals(32, simulator.getPathCount(), DELTA);
+
+        // SWAP переносит суперпозицию кубита 11 на кубит 12
+        long bits = ((1L << 11) - 1) | 1L << 12;
+        assertEquals(Math.pow(2, -6), simulator.amplitude(bits).getReal(), 1e-12);
+        assertEquals(0, simulator.amplitude(bits | 1L << 11).modulusSquared(), 1e-15);
+    }
+
+    @Test
+    void testRejectsEmptyHalf() {
+        CircuitLog log = new CircuitLog(3);
+        assertThrows(IllegalArgumentException.class, () -> new SchrodingerFeynmanSimulator(log, 0b111));
+        assertThrows(IllegalArgumentException.class, () -> new SchrodingerFeynmanSimulator(log, 0));
+    }
+}
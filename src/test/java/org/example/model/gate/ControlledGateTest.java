@@ -5,9 +5,9 @@ import org.example.model.gate.instances.pauli.X;
 import org.example.model.qubit.ChunkedComplexArray;
 import org.example.model.qubit.Complex;
 import org.example.model.qubit.QubitRegister;
+import org.example.model.qubit.SupportSet;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
-import java.util.BitSet;
 
 public class ControlledGateTest {
     private static final double DELTA = 1e-9;
@@ -15,7 +15,7 @@ public class ControlledGateTest {
     // Helper from QubitRegisterTest
     private double calculateTotalProbability(QubitRegister register) {
         double totalProb = 0;
-        BitSet states = register.getStates();
+        SupportSet states = register.getStates();
         ChunkedComplexArray amplitudes = register.getAmplitudes();
         for (int i = states.nextSetBit(0); i >= 0; i = states.nextSetBit(i + 1)) {
             totalProb += amplitudes.get(i).modulusSquared();
@@ -36,7 +36,7 @@ public class ControlledGateTest {
         regCNOT.getStates().set(0);
         regCNOT.getAmplitudes().set(0, Complex.getOne());
         cnotGate.apply();
-        BitSet state00 = regCNOT.getStates();
+        SupportSet state00 = regCNOT.getStates();
         assertEquals(1, state00.cardinality());
         assertTrue(state00.get(0));
         assertTrue(Complex.getOne().equals(regCNOT.getAmplitudes().get(0)));
@@ -51,7 +51,7 @@ public class ControlledGateTest {
         xGate = new X(regCNOT, new Integer[]{1});
         cnotGate = new ControlledGate(regCNOT, xGate, new Integer[]{0});
         cnotGate.apply();
-        BitSet state01 = regCNOT.getStates();
+        SupportSet state01 = regCNOT.getStates();
         assertEquals(1, state01.cardinality());
         assertTrue(state01.get(3)); // State should be |11> (index 3)
         assertTrue(Complex.getOne().equals(regCNOT.getAmplitudes().get(3)));
@@ -65,7 +65,7 @@ public class ControlledGateTest {
         xGate = new X(regCNOT, new Integer[]{1});
         cnotGate = new ControlledGate(regCNOT, xGate, new Integer[]{0});
         cnotGate.apply();
-        BitSet state10 = regCNOT.getStates();
+        SupportSet state10 = regCNOT.getStates();
         assertEquals(1, state10.cardinality());
         assertTrue(state10.get(2)); // State should be |10> (index 2)
         assertTrue(Complex.getOne().equals(regCNOT.getAmplitudes().get(2)));
@@ -79,7 +79,7 @@ public class ControlledGateTest {
         xGate = new X(regCNOT, new Integer[]{1});
         cnotGate = new ControlledGate(regCNOT, xGate, new Integer[]{0});
         cnotGate.apply();
-        BitSet state11 = regCNOT.getStates();
+        SupportSet state11 = regCNOT.getStates();
         assertEquals(1, state11.cardinality());
         assertTrue(state11.get(1)); // State should be |01> (index 1)
         assertTrue(Complex.getOne().equals(regCNOT.getAmplitudes().get(1)));
@@ -104,7 +104,7 @@ public class ControlledGateTest {
         cxGate = new ControlledGate(regCCNOT, xGate, new Integer[]{1});
         ccnotGate = new ControlledGate(regCCNOT, cxGate, new Integer[]{0});
         ccnotGate.apply();
-        BitSet state011 = regCCNOT.getStates();
+        SupportSet state011 = regCCNOT.getStates();
         assertEquals(1, state011.cardinality());
         assertTrue(state011.get(7)); // State should be |111> (index 7)
         assertTrue(Complex.getOne().equals(regCCNOT.getAmplitudes().get(7)));
@@ -118,7 +118,7 @@ public class ControlledGateTest {
         cxGate = new ControlledGate(regCCNOT, xGate, new Integer[]{1});
         ccnotGate = new ControlledGate(regCCNOT, cxGate, new Integer[]{0});
         ccnotGate.apply();
-        BitSet state110 = regCCNOT.getStates();
+        SupportSet state110 = regCCNOT.getStates();
         assertEquals(1, state110.cardinality());
         assertTrue(state110.get(6)); // State should be |110> (index 6)
         assertTrue(Complex.getOne().equals(regCCNOT.getAmplitudes().get(6)));
@@ -132,7 +132,7 @@ public class ControlledGateTest {
         cxGate = new ControlledGate(regCCNOT, xGate, new Integer[]{1});
         ccnotGate = new ControlledGate(regCCNOT, cxGate, new Integer[]{0});
         ccnotGate.apply();
-        BitSet state111 = regCCNOT.getStates();
+        SupportSet state111 = regCCNOT.getStates();
         assertEquals(1, state111.cardinality());
         assertTrue(state111.get(3)); // State should be |011> (index 3)
         assertTrue(Complex.getOne().equals(regCCNOT.getAmplitudes().get(3)));
@@ -154,7 +154,7 @@ public class ControlledGateTest {
         swapGate = new SWAP(regCSWAP, new Integer[]{1, 2});
         cswapGate = new ControlledGate(regCSWAP, swapGate, new Integer[]{0});
         cswapGate.apply();
-        BitSet state010 = regCSWAP.getStates();
+        SupportSet state010 = regCSWAP.getStates();
         assertEquals(1, state010.cardinality());
         assertTrue(state010.get(2));
         assertTrue(Complex.getOne().equals(regCSWAP.getAmplitudes().get(2)));
@@ -167,7 +167,7 @@ public class ControlledGateTest {
         swapGate = new SWAP(regCSWAP, new Integer[]{1, 2});
         cswapGate = new ControlledGate(regCSWAP, swapGate, new Integer[]{0});
         cswapGate.apply();
-        BitSet state110 = regCSWAP.getStates();
+        SupportSet state110 = regCSWAP.getStates();
         assertEquals(1, state110.cardinality());
         assertTrue(state110.get(6)); // State should be |110> (index 6)
         assertTrue(Complex.getOne().equals(regCSWAP.getAmplitudes().get(6)));
@@ -180,7 +180,7 @@ public class ControlledGateTest {
         swapGate = new SWAP(regCSWAP, new Integer[]{1, 2});
         cswapGate = new ControlledGate(regCSWAP, swapGate, new Integer[]{0});
         cswapGate.apply();
-        BitSet state101 = regCSWAP.getStates();
+        SupportSet state101 = regCSWAP.getStates();
         assertEquals(1, state101.cardinality());
         assertTrue(state101.get(3)); // State should be |011> (index 3)
         assertTrue(Complex.getOne().equals(regCSWAP.getAmplitudes().get(3)));
@@ -193,7 +193,7 @@ public class ControlledGateTest {
         swapGate = new SWAP(regCSWAP, new Integer[]{1, 2});
         cswapGate = new ControlledGate(regCSWAP, swapGate, new Integer[]{0});
         cswapGate.apply();
-        BitSet state111 = regCSWAP.getStates();
+        SupportSet state111 = regCSWAP.getStates();
         assertEquals(1, state111.cardinality());
         assertTrue(state111.get(7));
         assertTrue(Complex.getOne().equals(regCSWAP.getAmplitudes().get(7)));
@@ -1,6 +1,7 @@
 package org.example.model.gate;
 
 import org.example.model.qubit.Complex;
+import org.example.model.qubit.QubitRegister;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -107,4 +108,21 @@ public class GateTraceTest {
         assertTrue(fromMap.containsKey(6));
         assertTrue(I.equals(fromMap.get(6)), "Amplitude for 5->6 should be overwritten to I.");
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testLazyTraceBuildsTransitionsFromGivenState() {
+        QubitRegister register = new QubitRegister("q", 2);
+        GateTrace lazy = GateTrace.of(GateResolver.resolveByName("H", register, new Integer[]{0}, 0));
+        // Применение гейта трассу не записывает, переходы строятся от переданного состояния
+        assertTrue(lazy.getTrace().isEmpty());
+
+        Map<Integer, Map<Integer, Complex>> trace = lazy.traceFrom(Map.of(0b10, I));
+        assertEquals(1, trace.size());
+        assertEquals(2, trace.get(0b10).size());
+        assertEquals(Math.sqrt(0.5), trace.get(0b10).get(0b10).getImaginary(), 1e-9);
+        assertEquals(Math.sqrt(0.5), trace.get(0b10).get(0b11).getImaginary(), 1e-9);
+
+        gateTrace.addAmplitude(0, 1, ONE);
+        assertSame(gateTrace.getTrace(), gateTrace.traceFrom(Map.of(0, ONE)));
+    }
+}
@@ -4,9 +4,9 @@ import javafx.util.Pair;
 import org.example.model.qubit.ChunkedComplexArray;
 import org.example.model.qubit.Complex;
 import org.example.model.qubit.QubitRegister;
+import org.example.model.qubit.SupportSet;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
-import java.util.BitSet;
 
 public class IncrementTest {
     private static final double DELTA = 1e-9;
@@ -74,7 +74,7 @@ public class IncrementTest {
         // Increment: |010> -> |011> (state 3)
         Increment incGate = new Increment(reg, dummyTarget, true);
         incGate.apply();
-        BitSet state1 = reg.getStates();
+        SupportSet state1 = reg.getStates();
         assertEquals(1, state1.cardinality());
         assertTrue(state1.get(3));
         assertTrue(ONE.equals(reg.getAmplitudes().get(3)));
@@ -83,7 +83,7 @@ public class IncrementTest {
         // Increment again: |011> -> |100> (state 4)
         Increment incGate2 = new Increment(reg, dummyTarget, true);
         incGate2.apply();
-        BitSet state2 = reg.getStates();
+        SupportSet state2 = reg.getStates();
         assertEquals(1, state2.cardinality());
         assertTrue(state2.get(4));
         assertTrue(ONE.equals(reg.getAmplitudes().get(4)));
@@ -92,7 +92,7 @@ public class IncrementTest {
         // Decrement: |100> -> |011> (state 3)
         Increment decGate1 = new Increment(reg, dummyTarget, false);
         decGate1.apply();
-        BitSet state3 = reg.getStates();
+        SupportSet state3 = reg.getStates();
         assertEquals(1, state3.cardinality());
         assertTrue(state3.get(3));
         assertTrue(ONE.equals(reg.getAmplitudes().get(3)));
@@ -101,7 +101,7 @@ public class IncrementTest {
         // Decrement again: |011> -> |010> (state 2)
         Increment decGate2 = new Increment(reg, dummyTarget, false);
         decGate2.apply();
-        BitSet state4 = reg.getStates();
+        SupportSet state4 = reg.getStates();
         assertEquals(1, state4.cardinality());
         assertTrue(state4.get(2));
         assertTrue(ONE.equals(reg.getAmplitudes().get(2)));
@@ -122,7 +122,7 @@ public class IncrementTest {
         // Increment: |11> -> |00> (state 0)
         Increment incGate = new Increment(reg, dummyTarget, true);
         incGate.apply();
-        BitSet state1 = reg.getStates();
+        SupportSet state1 = reg.getStates();
         assertEquals(1, state1.cardinality());
         assertTrue(state1.get(0));
         assertTrue(ONE.equals(reg.getAmplitudes().get(0)));
@@ -131,7 +131,7 @@ public class IncrementTest {
         // Decrement: |00> -> |11> (state 3)
         Increment decGate = new Increment(reg, dummyTarget, false);
         decGate.apply();
-        BitSet state2 = reg.getStates();
+        SupportSet state2 = reg.getStates();
         assertEquals(1, state2.cardinality());
         assertTrue(state2.get(3));
         assertTrue(ONE.equals(reg.getAmplitudes().get(3)));
@@ -153,7 +153,7 @@ public class IncrementTest {
         Increment incGate = new Increment(reg, new Integer[]{}, true);
         incGate.apply();
 
-        BitSet finalState = reg.getStates();
+        SupportSet finalState = reg.getStates();
         assertEquals(2, finalState.cardinality());
         assertTrue(finalState.get(1)); // |01>
         assertTrue(finalState.get(3)); // |11>
@@ -166,7 +166,7 @@ public class IncrementTest {
     // Helper
     private double calculateTotalProbability(QubitRegister register) {
         double totalProb = 0;
-        BitSet states = register.getStates();
+        SupportSet states = register.getStates();
         ChunkedComplexArray amplitudes = register.getAmplitudes();
         for (int i = states.nextSetBit(0); i >= 0; i = states.nextSetBit(i + 1)) {
             totalProb += amplitudes.get(i).modulusSquared();
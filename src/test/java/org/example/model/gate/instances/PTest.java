@@ -4,9 +4,9 @@ import javafx.util.Pair;
 import org.example.model.qubit.ChunkedComplexArray;
 import org.example.model.qubit.Complex;
 import org.example.model.qubit.QubitRegister;
+import org.example.model.qubit.SupportSet;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
-import java.util.BitSet;
 
 public class PTest {
     private static final double DELTA = 1e-9;
@@ -111,7 +111,7 @@ public class PTest {
         // = (|00> + exp(i*phase)|01>)/sqrt(2)
         pGate.apply();
 
-        BitSet finalState = reg.getStates();
+        SupportSet finalState = reg.getStates();
         assertEquals(2, finalState.cardinality());
         assertTrue(finalState.get(0)); // |00>
         assertTrue(finalState.get(1)); // |01>
@@ -123,7 +123,7 @@ public class PTest {
     // Helper
     private double calculateTotalProbability(QubitRegister register) {
         double totalProb = 0;
-        BitSet states = register.getStates();
+        SupportSet states = register.getStates();
         ChunkedComplexArray amplitudes = register.getAmplitudes();
         for (int i = states.nextSetBit(0); i >= 0; i = states.nextSetBit(i + 1)) {
             totalProb += amplitudes.get(i).modulusSquared();
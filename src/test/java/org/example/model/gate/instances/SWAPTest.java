@@ -4,9 +4,9 @@ import javafx.util.Pair;
 import org.example.model.qubit.ChunkedComplexArray;
 import org.example.model.qubit.Complex;
 import org.example.model.qubit.QubitRegister;
+import org.example.model.qubit.SupportSet;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
-import java.util.BitSet;
 
 public class SWAPTest {
     private static final double DELTA = 1e-9;
@@ -91,7 +91,7 @@ public class SWAPTest {
         SWAP swapGate = new SWAP(reg, new Integer[]{0, 1});
         swapGate.apply();
 
-        BitSet state1 = reg.getStates();
+        SupportSet state1 = reg.getStates();
         assertEquals(1, state1.cardinality());
         assertTrue(state1.get(2)); // State should be |10> (index 2)
         assertTrue(Complex.getOne().equals(reg.getAmplitudes().get(2)));
@@ -100,7 +100,7 @@ public class SWAPTest {
         swapGate = new SWAP(reg, new Integer[]{0, 1});
         swapGate.apply(); // Use the same gate instance
 
-        BitSet state2 = reg.getStates();
+        SupportSet state2 = reg.getStates();
         assertEquals(1, state2.cardinality());
         assertTrue(state2.get(1)); // State should be |01> (index 1)
         assertTrue(Complex.getOne().equals(reg.getAmplitudes().get(1)));
@@ -126,7 +126,7 @@ public class SWAPTest {
         SWAP swapGate = new SWAP(reg, new Integer[]{0, 1});
         swapGate.apply();
 
-        BitSet finalState = reg.getStates();
+        SupportSet finalState = reg.getStates();
         assertEquals(2, finalState.cardinality());
         assertTrue(finalState.get(1)); // |01>
         assertTrue(finalState.get(2)); // |10>
@@ -138,7 +138,7 @@ public class SWAPTest {
     // Helper from QubitRegisterTest
     private double calculateTotalProbability(QubitRegister register) {
         double totalProb = 0;
-        BitSet states = register.getStates();
+        SupportSet states = register.getStates();
         ChunkedComplexArray amplitudes = register.getAmplitudes();
         for (int i = states.nextSetBit(0); i >= 0; i = states.nextSetBit(i + 1)) {
             totalProb += amplitudes.get(i).modulusSquared();
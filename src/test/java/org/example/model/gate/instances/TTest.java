@@ -4,9 +4,9 @@ import javafx.util.Pair;
 import org.example.model.qubit.ChunkedComplexArray;
 import org.example.model.qubit.Complex;
 import org.example.model.qubit.QubitRegister;
+import org.example.model.qubit.SupportSet;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
-import java.util.BitSet;
 
 public class TTest {
     private static final double DELTA = 1e-9;
@@ -82,7 +82,7 @@ public class TTest {
         T tGate1 = new T(reg1, new Integer[]{0});
         tGate1.apply();
 
-        BitSet state1 = reg1.getStates();
+        SupportSet state1 = reg1.getStates();
         assertEquals(2, state1.cardinality());
         assertTrue(state1.get(0)); // |00>
         assertTrue(state1.get(2)); // |10>
@@ -95,7 +95,7 @@ public class TTest {
         T tGate2 = new T(reg1, new Integer[]{0});
         tGate2.apply();
 
-        BitSet state2 = reg1.getStates();
+        SupportSet state2 = reg1.getStates();
         assertEquals(2, state2.cardinality());
         assertTrue(state2.get(0)); // |00>
         assertTrue(state2.get(2)); // |10>
@@ -107,7 +107,7 @@ public class TTest {
     // Helper
     private double calculateTotalProbability(QubitRegister register) {
         double totalProb = 0;
-        BitSet states = register.getStates();
+        SupportSet states = register.getStates();
         ChunkedComplexArray amplitudes = register.getAmplitudes();
         for (int i = states.nextSetBit(0); i >= 0; i = states.nextSetBit(i + 1)) {
             totalProb += amplitudes.get(i).modulusSquared();
@@ -4,9 +4,9 @@ import javafx.util.Pair;
 import org.example.model.qubit.ChunkedComplexArray;
 import org.example.model.qubit.Complex;
 import org.example.model.qubit.QubitRegister;
+import org.example.model.qubit.SupportSet;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
-import java.util.BitSet;
 
 public class XTest {
     private static final double DELTA = 1e-9;
@@ -67,7 +67,7 @@ public class XTest {
         X xGate1 = new X(reg1, new Integer[]{0});
         xGate1.apply();
 
-        BitSet state1 = reg1.getStates();
+        SupportSet state1 = reg1.getStates();
         assertEquals(1, state1.cardinality());
         assertTrue(state1.get(1)); // State should be |01> (index 1)
         assertTrue(Complex.getOne().equals(reg1.getAmplitudes().get(1)));
@@ -77,7 +77,7 @@ public class XTest {
         X xGate2 = new X(reg1, new Integer[]{1});
         xGate2.apply();
 
-        BitSet state2 = reg1.getStates();
+        SupportSet state2 = reg1.getStates();
         assertEquals(1, state2.cardinality());
         assertTrue(state2.get(3)); // State should be |11> (index 3)
         assertTrue(Complex.getOne().equals(reg1.getAmplitudes().get(3)));
@@ -87,7 +87,7 @@ public class XTest {
         X xGate3 = new X(reg1, new Integer[]{0});
         xGate3.apply();
 
-        BitSet state3 = reg1.getStates();
+        SupportSet state3 = reg1.getStates();
         assertEquals(1, state3.cardinality());
         assertTrue(state3.get(2)); // State should be |10> (index 2)
         assertTrue(Complex.getOne().equals(reg1.getAmplitudes().get(2)));
@@ -108,7 +108,7 @@ public class XTest {
         X xGate = new X(reg, new Integer[]{0});
         xGate.apply();
 
-        BitSet finalState = reg.getStates();
+        SupportSet finalState = reg.getStates();
         assertEquals(2, finalState.cardinality());
         assertTrue(finalState.get(1)); // |01>
         assertTrue(finalState.get(3)); // |11>
@@ -120,7 +120,7 @@ public class XTest {
     // Helper from QubitRegisterTest
     private double calculateTotalProbability(QubitRegister register) {
         double totalProb = 0;
-        BitSet states = register.getStates();
+        SupportSet states = register.getStates();
         ChunkedComplexArray amplitudes = register.getAmplitudes();
         for (int i = states.nextSetBit(0); i >= 0; i = states.nextSetBit(i + 1)) {
             totalProb += amplitudes.get(i).modulusSquared();
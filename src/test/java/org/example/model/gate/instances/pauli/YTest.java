@@ -4,9 +4,9 @@ import javafx.util.Pair;
 import org.example.model.qubit.ChunkedComplexArray;
 import org.example.model.qubit.Complex;
 import org.example.model.qubit.QubitRegister;
+import org.example.model.qubit.SupportSet;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
-import java.util.BitSet;
 
 public class YTest {
     private static final double DELTA = 1e-9;
@@ -71,7 +71,7 @@ public class YTest {
         Y yGate1 = new Y(reg1, new Integer[]{0});
         yGate1.apply();
 
-        BitSet state1 = reg1.getStates();
+        SupportSet state1 = reg1.getStates();
         assertEquals(1, state1.cardinality());
         assertTrue(state1.get(1)); // State |01>
         assertTrue(I.equals(reg1.getAmplitudes().get(1)));
@@ -81,7 +81,7 @@ public class YTest {
         Y yGate2 = new Y(reg1, new Integer[]{0});
         yGate2.apply();
 
-        BitSet state2 = reg1.getStates();
+        SupportSet state2 = reg1.getStates();
         assertEquals(1, state2.cardinality());
         assertTrue(state2.get(0)); // State |00>
         assertTrue(Complex.getOne().equals(reg1.getAmplitudes().get(0)));
@@ -104,7 +104,7 @@ public class YTest {
         Y yGate = new Y(reg, new Integer[]{0});
         yGate.apply();
 
-        BitSet finalState = reg.getStates();
+        SupportSet finalState = reg.getStates();
         Complex expectedAmp = I.multiply(amp); // i / sqrt(2)
         assertEquals(2, finalState.cardinality());
         assertTrue(finalState.get(1)); // |01>
@@ -117,7 +117,7 @@ public class YTest {
     // Helper
     private double calculateTotalProbability(QubitRegister register) {
         double totalProb = 0;
-        BitSet states = register.getStates();
+        SupportSet states = register.getStates();
         ChunkedComplexArray amplitudes = register.getAmplitudes();
         for (int i = states.nextSetBit(0); i >= 0; i = states.nextSetBit(i + 1)) {
             totalProb += amplitudes.get(i).modulusSquared();
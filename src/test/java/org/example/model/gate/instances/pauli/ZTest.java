@@ -4,9 +4,9 @@ import javafx.util.Pair;
 import org.example.model.qubit.ChunkedComplexArray;
 import org.example.model.qubit.Complex;
 import org.example.model.qubit.QubitRegister;
+import org.example.model.qubit.SupportSet;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
-import java.util.BitSet;
 
 public class ZTest {
     private static final double DELTA = 1e-9;
@@ -81,7 +81,7 @@ public class ZTest {
         Z zGate1 = new Z(reg1, new Integer[]{0});
         zGate1.apply();
 
-        BitSet state1 = reg1.getStates();
+        SupportSet state1 = reg1.getStates();
         assertEquals(2, state1.cardinality());
         assertTrue(state1.get(0)); // |00>
         assertTrue(state1.get(2)); // |10>
@@ -94,7 +94,7 @@ public class ZTest {
         Z zGate2 = new Z(reg1, new Integer[]{0});
         zGate2.apply();
 
-        BitSet state2 = reg1.getStates();
+        SupportSet state2 = reg1.getStates();
         assertEquals(2, state2.cardinality());
         assertTrue(state2.get(0)); // |00>
         assertTrue(state2.get(2)); // |10>
@@ -115,7 +115,7 @@ public class ZTest {
         Z zGate1 = new Z(reg1, new Integer[]{0});
         zGate1.apply();
 
-        BitSet state1 = reg1.getStates();
+        SupportSet state1 = reg1.getStates();
         assertEquals(1, state1.cardinality());
         assertTrue(state1.get(1)); // State still |01>
         assertTrue(NEG_ONE.equals(reg1.getAmplitudes().get(1))); // Amplitude is -1
@@ -125,7 +125,7 @@ public class ZTest {
     // Helper
     private double calculateTotalProbability(QubitRegister register) {
         double totalProb = 0;
-        BitSet states = register.getStates();
+        SupportSet states = register.getStates();
         ChunkedComplexArray amplitudes = register.getAmplitudes();
         for (int i = states.nextSetBit(0); i >= 0; i = states.nextSetBit(i + 1)) {
             totalProb += amplitudes.get(i).modulusSquared();
@@ -4,9 +4,9 @@ import javafx.util.Pair;
 import org.example.model.qubit.ChunkedComplexArray;
 import org.example.model.qubit.Complex;
 import org.example.model.qubit.QubitRegister;
+import org.example.model.qubit.SupportSet;
 import org.junit.jupiter.api.Test;
 
-import java.util.BitSet;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -19,7 +19,7 @@ public class OracleGateTest {
     // Helper from QubitRegisterTest
     private double calculateTotalProbability(QubitRegister register) {
         double totalProb = 0;
-        BitSet states = register.getStates();
+        SupportSet states = register.getStates();
         ChunkedComplexArray amplitudes = register.getAmplitudes();
         for (int i = states.nextSetBit(0); i >= 0; i = states.nextSetBit(i + 1)) {
             totalProb += amplitudes.get(i).modulusSquared();
@@ -107,7 +107,7 @@ public class OracleGateTest {
         reg.getStates().set(2); // State |010>
         reg.getAmplitudes().set(2, Complex.getOne());
         oracle.apply();
-        BitSet finalState1 = reg.getStates();
+        SupportSet finalState1 = reg.getStates();
         assertEquals(1, finalState1.cardinality());
         assertTrue(finalState1.get(6)); // State |110>
         assertTrue(Complex.getOne().equals(reg.getAmplitudes().get(6)));
@@ -122,7 +122,7 @@ public class OracleGateTest {
         // Recreate gate because apply modifies internal state
         oracle = new OracleGate("ApplyOracle", reg, 0, 2, 2, markedStates);
         oracle.apply();
-        BitSet finalState2 = reg.getStates();
+        SupportSet finalState2 = reg.getStates();
         assertEquals(1, finalState2.cardinality());
         assertTrue(finalState2.get(3));
         assertTrue(Complex.getOne().equals(reg.getAmplitudes().get(3)));
@@ -151,7 +151,7 @@ public class OracleGateTest {
 
         oracle.apply();
 
-        BitSet finalState = reg.getStates();
+        SupportSet finalState = reg.getStates();
         ChunkedComplexArray finalAmps = reg.getAmplitudes();
 
         assertEquals(2, finalState.cardinality());
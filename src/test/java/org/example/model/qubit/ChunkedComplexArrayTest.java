@@ -2,6 +2,9 @@ package org.example.model.qubit;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class ChunkedComplexArrayTest {
@@ -123,4 +126,137 @@ public class ChunkedComplexArrayTest {
         assertTrue(zero.equals(array.get(101)));
         assertTrue(zero.equals(array.get(100 + CHUNK_SIZE)));
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testPromotionToComplexKeepsValues() {
+        array.set(3, new Complex(0.5, 0.0));
+        array.setReal(CHUNK_SIZE + 1, -0.25);
+        assertTrue(array.isReal());
+
+        array.set(7, new Complex(0.0, 1.0));
+        assertFalse(array.isReal());
+        assertTrue(new Complex(0.5, 0.0).equals(array.get(3)));
+        assertTrue(new Complex(-0.25, 0.0).equals(array.get(CHUNK_SIZE + 1)));
+        assertTrue(new Complex(0.0, 1.0).equals(array.get(7)));
+
+        ChunkedComplexArray copy = array.clone();
+        copy.set(7, zero);
+        assertTrue(new Complex(0.0, 1.0).equals(array.get(7)));
+        assertEquals(-0.25, copy.getReal(CHUNK_SIZE + 1), 0);
+    }
+
+    @Test
+    void testRepeatedValuesStayCompressed() {
+        Complex plus = new Complex(1 / Math.sqrt(8));
+        Complex minus = new Complex(-1 / Math.sqrt(8));
+        for (int i = 0; i < 1000; i++) {
+            array.set(i, i % 3 == 0 ? minus : plus);
+        }
+        assertTrue(array.isCompressed());
+        assertEquals(2, array.getClassCount());
+        assertTrue(minus.equals(array.get(999)));
+        assertTrue(plus.equals(array.get(998)));
+
+        array.scaleAll(new Complex(0, 2));
+        assertEquals(2 / Math.sqrt(8), array.get(1).getImaginary(), 1e-15);
+        assertFalse(array.isReal());
+    }
+
+    @Test
+    void testManyDistinctValuesFallBackToExplicitStorage() {
+        for (int i = 0; i < 300; i++) {
+            array.set(i, new Complex(i + 1, 0.5));
+        }
+        assertFalse(array.isCompressed());
+        for (int i = 0; i < 300; i++) {
+            assertTrue(new Complex(i + 1, 0.5).equals(array.get(i)));
+        }
+    }
+
+    @Test
+    void testCloseValuesKeepTheirExactBits() {
+        double base = 1 / Math.sqrt(2);
+        double close = Math.nextUp(base);
+        array.setReal(0, base);
+        array.setReal(1, close);
+        array.setReal(2, 1e-15);
+        array.setReal(3, -1e-15);
+        array.setReal(4, base);
+        assertTrue(array.isCompressed());
+        assertEquals(4, array.getClassCount());
+        assertEquals(close, array.getReal(1), 0);
+        assertEquals(-1e-15, array.getReal(3), 0);
+        assertEquals(base, array.getReal(4), 0);
+    }
+
+    @Test
+    void testOverflowDisablesCompressionPermanently() {
+        for (int i = 0; i < 300; i++) {
+            array.setReal(i, i + 1);
+        }
+        assertFalse(array.isCompressed());
+        array.clear();
+        array.setReal(0, 1.0);
+        assertFalse(array.isCompressed());
+        assertFalse(array.newEmpty().isCompressed());
+        assertFalse(array.clone().isCompressed());
+        assertTrue(new ChunkedComplexArray(CHUNK_SIZE).isCompressed());
+    }
+
+    @Test
+    void testEmptiedChunksReturnToPool() {
+        // 256 различных значений не помещаются в словарь классов: явный режим
+        for (int i = 0; i < 8 * CHUNK_SIZE; i++) {
+            array.setReal(i, i + 1);
+        }
+        assertFalse(array.isCompressed());
+        assertEquals(8, array.getChunkCount());
+        int pooled = array.getPooledCount();
+        // Обнуление последнего элемента освобождает чанк без просмотра остальных
+        for (int i = CHUNK_SIZE; i < 2 * CHUNK_SIZE; i++) {
+            array.setReal(i, 0.0);
+        }
+        assertEquals(7, array.getChunkCount());
+        assertEquals(pooled + 1, array.getPooledCount());
+
+        // Новый массив регистра берёт чанки из общего пула, они уже обнулены
+        ChunkedComplexArray next = array.newEmpty();
+        next.set(1000, new Complex(0.0, 1.0));
+        assertEquals(pooled, next.getPooledCount());
+        assertTrue(zero.equals(next.get(1001)));
+        array.release();
+        assertEquals(0, array.getChunkCount());
+        assertEquals(pooled + 7, next.getPooledCount());
+    }
+
+    @Test
+    void testZeroBulkChunksReturnToPool() {
+        ChunkedComplexArray bulk = new ChunkedComplexArray(8);
+        double[] filled = new double[8];
+        filled[3] = 0.5;
+        // Нулевой чанк, например от взаимно уничтоженных амплитуд, не хранится, но его массивы не теряются
+        bulk.putChunks(Map.of(0, filled, 1, new double[8]), Map.of(0, new double[8], 1, new double[8]));
+        assertEquals(1, bulk.getChunkCount());
+        assertEquals(2, bulk.getPooledCount());
+        assertEquals(0.5, bulk.getReal(3), 0);
+        assertTrue(zero.equals(bulk.get(8)));
+    }
+
+    @Test
+    void testCustomChunkSize() {
+        assertThrows(IllegalArgumentException.class, () -> new ChunkedComplexArray(24));
+        ChunkedComplexArray small = new ChunkedComplexArray(8);
+        for (int i = 0; i < 64; i += 3) {
+            small.setReal(i, i);
+        }
+        assertEquals(8, small.getChunkCount());
+        ChunkedComplexArray copy = small.clone();
+        assertEquals(8, copy.getChunkSize());
+        for (int i = 0; i < 64; i++) {
+            assertEquals(i % 3 == 0 ? i : 0, copy.getReal(i), 0);
+        }
+        assertEquals(16, ChunkedComplexArray.chunkSizeFor(30));
+        assertEquals(8, ChunkedComplexArray.chunkSizeFor(2));
+        assertEquals(256, ChunkedComplexArray.chunkSizeFor(14));
+    }
+}
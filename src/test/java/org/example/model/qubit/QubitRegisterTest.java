@@ -1,8 +1,9 @@
 package org.example.model.qubit;
 
+import org.example.model.gate.GateResolver;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import java.util.BitSet;
+import java.util.Random;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class QubitRegisterTest {
@@ -312,9 +313,319 @@ public class QubitRegisterTest {
         assertEquals(1.0, calculateTotalProbability(product), DELTA);
     }
 
+    // Плотный регистр со случайными амплитудами (без нормировки - для произведения она не важна)
+    private QubitRegister randomDenseRegister(String name, int size, Random random) {
+        QubitRegister register = new QubitRegister(name, size);
+        for (int i = 0; i < (1 << size); i++) {
+            register.getStates().set(i);
+            register.getAmplitudes().set(i, new Complex(random.nextDouble() + 0.1, random.nextDouble() - 0.5));
+        }
+        return register;
+    }
+
+    @Test
+    void testTensorProductLargeDenseRegisters() {
+        Random random = new Random(3);
+        // Параллельный путь: большой младший регистр и регистр из двух кубитов, где группы делят слова носителя
+        int[][] sizes = {{7, 8}, {13, 2}, {3, 1}};
+        for (int[] pair : sizes) {
+            QubitRegister reg1 = randomDenseRegister("dense1", pair[0], random);
+            QubitRegister reg2 = randomDenseRegister("dense2", pair[1], random);
+            // Дыра в носителе второго регистра
+            reg2.getStates().clear(1);
+            reg2.getAmplitudes().set(1, Complex.getZero());
+            QubitRegister product = QubitRegister.tensorProduct(reg1, reg2, "dense_prod");
+            assertEquals(pair[0] + pair[1], product.size());
+            assertEquals((1 << pair[0]) * ((1 << pair[1]) - 1), product.getStates().cardinality());
+            for (int s1 = 0; s1 < (1 << pair[0]); s1++) {
+                for (int s2 = 0; s2 < (1 << pair[1]); s2++) {
+                    int index = (s1 << pair[1]) | s2;
+                    Complex expected = reg1.getAmplitudes().get(s1).multiply(reg2.getAmplitudes().get(s2));
+                    Complex actual = product.getAmplitudes().get(index);
+                    assertEquals(s2 != 1, product.getStates().get(index));
+                    assertEquals(expected.getReal(), actual.getReal(), DELTA);
+                    assertEquals(expected.getImaginary(), actual.getImaginary(), DELTA);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testDeferredFramesKeepSupport() {
+        QubitRegister register = new QubitRegister("frames", 3);
+        for (int q = 0; q < 3; q++) {
+            register.deferSingleQubitGate(q, GateResolver.resolveLocal("H", 1, 0));
+        }
+        assertTrue(register.hasPendingFrames());
+        assertEquals(1, register.getStoredStates().cardinality());
+        // Вывод не сворачивает кадры хранимого состояния
+        assertTrue(register.toString().contains("|111>"));
+        assertEquals(1, register.getStoredStates().cardinality());
+
+        // H H = I: кадр кубита 0 исчезает
+        register.deferSingleQubitGate(0, GateResolver.resolveLocal("H", 1, 0));
+        register.deferSingleQubitGate(2, GateResolver.resolveLocal("S", 1, 0));
+        QubitRegister reference = new QubitRegister("reference", 3);
+        GateResolver.resolveByName("H", reference, new Integer[]{1}, 0).apply();
+        GateResolver.resolveByName("H", reference, new Integer[]{2}, 0).apply();
+        GateResolver.resolveByName("S", reference, new Integer[]{2}, 0).apply();
+
+        // CX сворачивает только кадры своих кубитов
+        GateResolver.resolveByName("CX", register, new Integer[]{2, 0}, 0).apply();
+        GateResolver.resolveByName("CX", reference, new Integer[]{2, 0}, 0).apply();
+        assertTrue(register.hasPendingFrames());
+        assertEquals(2, register.getStoredStates().cardinality());
+
+        assertEquals(reference.getStates(), register.getStates());
+        assertFalse(register.hasPendingFrames());
+        for (int i = 0; i < 8; i++) {
+            assertTrue(reference.getAmplitudes().get(i).equals(register.getAmplitudes().get(i)));
+        }
+    }
+
+    @Test
+    void testPauliFrameMatchesDirectApplication() {
+        String[] single = {"X", "Y", "Z", "H", "S", "T"};
+        String[] pair = {"CX", "CZ", "SWAP", "CY"};
+        Random random = new Random(11);
+        for (int trial = 0; trial < 20; trial++) {
+            QubitRegister lazy = new QubitRegister("lazy", 4);
+            QubitRegister reference = new QubitRegister("reference", 4);
+            for (int step = 0; step < 25; step++) {
+                if (random.nextInt(3) > 0) {
+                    String gate = single[random.nextInt(single.length)];
+                    int q = random.nextInt(4);
+                    lazy.deferSingleQubitGate(q, GateResolver.resolveLocal(gate, 1, 0));
+                    GateResolver.resolveByName(gate, reference, new Integer[]{q}, 0).apply();
+                } else {
+                    String gate = pair[random.nextInt(pair.length)];
+                    int a = random.nextInt(4);
+                    int b = (a + 1 + random.nextInt(3)) % 4;
+                    GateResolver.resolveByName(gate, lazy, new Integer[]{a, b}, 0).apply();
+                    GateResolver.resolveByName(gate, reference, new Integer[]{a, b}, 0).apply();
+                }
+            }
+            for (int i = 0; i < 16; i++) {
+                Complex expected = reference.getAmplitudes().get(i);
+                Complex actual = lazy.getAmplitudes().get(i);
+                assertEquals(expected.getReal(), actual.getReal(), DELTA);
+                assertEquals(expected.getImaginary(), actual.getImaginary(), DELTA);
+            }
+        }
+    }
+
+    @Test
+    void testPauliCorrectionsKeepStoredState() {
+        QubitRegister register = new QubitRegister("corrections", 3);
+        register.deferSingleQubitGate(0, GateResolver.resolveLocal("X", 1, 0));
+        GateResolver.resolveByName("CX", register, new Integer[]{0, 1}, 0).apply();
+        register.deferSingleQubitGate(2, GateResolver.resolveLocal("Y", 1, 0));
+        GateResolver.resolveByName("CZ", register, new Integer[]{1, 2}, 0).apply();
+        GateResolver.resolveByName("SWAP", register, new Integer[]{0, 2}, 0).apply();
+        // Хранимое состояние не менялось: всё в рамке Паули
+        assertEquals(1, register.getStoredStates().cardinality());
+        assertTrue(register.getStoredStates().get(0));
+        assertEquals(1, register.measureQubit(0));
+        assertEquals(1, register.measureQubit(1));
+        assertEquals(1, register.measureQubit(2));
+        assertTrue(register.getStoredStates().get(0));
+
+        // |111> с фазой: Y|0> = i|1>, затем CZ на |11> даёт -1
+        assertTrue(register.getStates().get(0b111));
+        assertEquals(-1.0, register.getAmplitudes().get(0b111).getImaginary(), DELTA);
+    }
+
+    @Test
+    void testMeasurementRenormalisesLazily() {
+        QubitRegister register = new QubitRegister("lazy_norm", 2);
+        GateResolver.resolveByName("H", register, new Integer[]{0}, 0).apply();
+        GateResolver.resolveByName("H", register, new Integer[]{1}, 0).apply();
+        register.multiplyScale(new Complex(0, 1));
+        int first = register.measureQubit(0);
+        // Хранимые амплитуды не пересчитываются, нормировка и фаза - в множителе
+        int kept = register.getStoredStates().nextSetBit(0);
+        assertEquals(0.5, register.getStoredAmplitudes().get(kept).getReal(), DELTA);
+        assertTrue(register.hasPendingFrames());
+
+        int second = register.measureQubit(1);
+        assertEquals(first, register.measureQubit(0));
+        assertEquals(second, register.measureQubit(1));
+        int state = second << 1 | first;
+        assertEquals(1.0, register.getAmplitudes().get(state).getImaginary(), DELTA);
+        assertEquals(0.0, register.getAmplitudes().get(state).getReal(), DELTA);
+        assertFalse(register.hasPendingFrames());
+        assertEquals(1.0, calculateTotalProbability(register), DELTA);
+    }
+
+    @Test
+    void testRealAmplitudesUntilPhaseGate() {
+        QubitRegister register = new QubitRegister("real_path", 3);
+        GateResolver.resolveByName("H", register, new Integer[]{0}, 0).apply();
+        GateResolver.resolveByName("CX", register, new Integer[]{0, 1}, 0).apply();
+        GateResolver.resolveByName("H", register, new Integer[]{2}, 0).apply();
+        GateResolver.resolveByName("CZ", register, new Integer[]{2, 1}, 0).apply();
+        assertTrue(register.getAmplitudes().isReal());
+        assertEquals(-0.5, register.getAmplitudes().get(0b111).getReal(), DELTA);
+
+        GateResolver.resolveByName("S", register, new Integer[]{0}, 0).apply();
+        assertFalse(register.getAmplitudes().isReal());
+        assertEquals(-0.5, register.getAmplitudes().get(0b111).getImaginary(), DELTA);
+        assertEquals(0.5, register.getAmplitudes().get(0b000).getReal(), DELTA);
+
+        // Произведение вещественных регистров остаётся вещественным
+        QubitRegister other = new QubitRegister("real_other", 1);
+        GateResolver.resolveByName("H", other, new Integer[]{0}, 0).apply();
+        QubitRegister product = QubitRegister.tensorProduct(other, new QubitRegister("zero", 2), "real_product");
+        assertTrue(product.getAmplitudes().isReal());
+    }
+
+    @Test
+    void testPruneDiscardsSmallAmplitudes() {
+        // H T H: вероятности cos^2(pi/8) и sin^2(pi/8)
+        QubitRegister register = new QubitRegister("pruned", 1);
+        GateResolver.resolveByName("H", register, new Integer[]{0}, 0).apply();
+        GateResolver.resolveByName("T", register, new Integer[]{0}, 0).apply();
+        GateResolver.resolveByName("H", register, new Integer[]{0}, 0).apply();
+        double small = Math.pow(Math.sin(Math.PI / 8), 2);
+
+        assertEquals(0.0, register.prune(0.1, 0), DELTA);
+        assertEquals(2, register.getStoredStates().cardinality());
+        assertEquals(small, register.prune(0.2, 0), DELTA);
+        assertEquals(1, register.getStoredStates().cardinality());
+        assertEquals(1.0, calculateTotalProbability(register), DELTA);
+        assertEquals(1.0, register.getAmplitudes().get(0).modulusSquared(), DELTA);
+    }
+
+    @Test
+    void testBeamKeepsLargestAmplitudes() {
+        QubitRegister register = new QubitRegister("beam", 2);
+        for (int q = 0; q < 2; q++) {
+            GateResolver.resolveByName("H", register, new Integer[]{q}, 0).apply();
+            GateResolver.resolveByName("T", register, new Integer[]{q}, 0).apply();
+            GateResolver.resolveByName("H", register, new Integer[]{q}, 0).apply();
+        }
+        double large = Math.pow(Math.cos(Math.PI / 8), 2);
+        double small = Math.pow(Math.sin(Math.PI / 8), 2);
+        assertEquals(4, register.getStoredStates().cardinality());
+
+        // Из двух равных амплитуд 01 и 10 остаётся первая по индексу
+        assertEquals(small * large + small * small, register.prune(0, 2), DELTA);
+        assertEquals(2, register.getStoredStates().cardinality());
+        assertTrue(register.getStoredStates().get(0b00));
+        assertTrue(register.getStoredStates().get(0b01));
+        assertEquals(1.0, calculateTotalProbability(register), DELTA);
+        assertEquals(0.0, register.prune(0, 2), DELTA);
+    }
+
+    @Test
+    void testUniformSuperpositionIsCompressed() {
+        QubitRegister register = new QubitRegister("uniform", 10);
+        for (int q = 0; q < 10; q++) {
+            GateResolver.resolveByName("H", register, new Integer[]{q}, 0).apply();
+        }
+        GateResolver.resolveByName("CZ", register, new Integer[]{0, 9}, 0).apply();
+        assertEquals(1024, register.getStates().cardinality());
+        assertTrue(register.getAmplitudes().isCompressed());
+        assertEquals(2, register.getAmplitudes().getClassCount());
+        assertEquals(-1 / 32.0, register.getAmplitudes().get(1023).getReal(), DELTA);
+        assertEquals(1.0, calculateTotalProbability(register), DELTA);
+    }
+
+    @Test
+    void testJoinedAndFactoredRegistersKeepTheirGenerator() {
+        int[] draws = {0};
+        Random random = new Random(42) {
+            @Override
+            public double nextDouble() {
+                draws[0]++;
+                return super.nextDouble();
+            }
+        };
+        QubitRegister high = new QubitRegister("high", 2, random);
+        QubitRegister low = new QubitRegister("low", 1, random);
+        QubitRegister product = QubitRegister.tensorProduct(high, low, "product");
+        product.measureQubit(0);
+        assertEquals(1, draws[0]);
+
+        QubitRegister[] factors = QubitRegister.factorOut(product, 1, 2, "part", "rest");
+        assertNotNull(factors);
+        factors[0].measureQubit(0);
+        factors[1].measureQubit(0);
+        assertEquals(3, draws[0]);
+    }
+
+    @Test
+    void testFactorOutInverseOfTensorProduct() {
+        // high: (|01> + i|11>) / sqrt(2), low: (|0> - |1>) / sqrt(2)
+        QubitRegister high = new QubitRegister("high", 2);
+        high.getStates().clear();
+        high.getAmplitudes().set(0, Complex.getZero());
+        high.getStates().set(1);
+        high.getAmplitudes().set(1, new Complex(1.0 / Math.sqrt(2.0)));
+        high.getStates().set(3);
+        high.getAmplitudes().set(3, new Complex(0, 1.0 / Math.sqrt(2.0)));
+        QubitRegister low = new QubitRegister("low", 1);
+        low.getAmplitudes().set(0, new Complex(1.0 / Math.sqrt(2.0)));
+        low.getStates().set(1);
+        low.getAmplitudes().set(1, new Complex(-1.0 / Math.sqrt(2.0)));
+        QubitRegister product = QubitRegister.tensorProduct(high, low, "product");
+
+        QubitRegister[] factors = QubitRegister.factorOut(product, 1, 2, "part", "rest");
+        assertNotNull(factors);
+        assertEquals(2, factors[0].size());
+        assertEquals(1, factors[1].size());
+        assertEquals(1.0, calculateTotalProbability(factors[0]), DELTA);
+        assertEquals(1.0, calculateTotalProbability(factors[1]), DELTA);
+        QubitRegister rebuilt = QubitRegister.tensorProduct(factors[0], factors[1], "rebuilt");
+        for (int i = 0; i < 8; i++) {
+            Complex expected = product.getAmplitudes().get(i);
+            Complex actual = rebuilt.getAmplitudes().get(i);
+            assertEquals(expected.getReal(), actual.getReal(), DELTA);
+            assertEquals(expected.getImaginary(), actual.getImaginary(), DELTA);
+        }
+    }
+
+    @Test
+    void testFactorOutRejectsEntangledState() {
+        // (|00> + |11>) / sqrt(2)
+        QubitRegister bell = new QubitRegister("bell", 2);
+        bell.getAmplitudes().set(0, new Complex(1.0 / Math.sqrt(2.0)));
+        bell.getStates().set(3);
+        bell.getAmplitudes().set(3, new Complex(1.0 / Math.sqrt(2.0)));
+        assertNull(QubitRegister.factorOut(bell, 0, 1, "part", "rest"));
+
+        // Носитель - произведение, но амплитуды нет: (|00> + |01> + |10> - |11>) / 2
+        QubitRegister cz = new QubitRegister("cz", 2);
+        for (int i = 0; i < 4; i++) {
+            cz.getStates().set(i);
+            cz.getAmplitudes().set(i, new Complex(i == 3 ? -0.5 : 0.5));
+        }
+        assertNull(QubitRegister.factorOut(cz, 1, 1, "part", "rest"));
+        assertThrows(IllegalArgumentException.class, () -> QubitRegister.factorOut(cz, 0, 2, "part", "rest"));
+    }
+
+    @Test
+    void testGatesAlternateBetweenTwoBuffers() {
+        QubitRegister reg = new QubitRegister("buffers", 3);
+        GateResolver.resolveByName("X", reg, new Integer[]{0}, 0).apply();
+        SupportSet first = reg.getStates();
+        ChunkedComplexArray firstAmplitudes = reg.getAmplitudes();
+        GateResolver.resolveByName("SWAP", reg, new Integer[]{0, 2}, 0).apply();
+        SupportSet second = reg.getStates();
+        assertNotSame(first, second);
+        assertArrayEquals(new int[]{0b100}, second.toArray());
+        // Третье состояние строится в буферах первого, прежние значения из них стёрты
+        GateResolver.resolveByName("SWAP", reg, new Integer[]{2, 1}, 0).apply();
+        assertSame(first, reg.getStates());
+        assertSame(firstAmplitudes, reg.getAmplitudes());
+        assertArrayEquals(new int[]{0b010}, reg.getStates().toArray());
+        assertEquals(1.0, reg.getAmplitudes().get(0b010).modulusSquared(), DELTA);
+        assertEquals(0.0, reg.getAmplitudes().get(0b001).modulusSquared(), DELTA);
+    }
+
     private double calculateTotalProbability(QubitRegister register) {
         double totalProb = 0;
-        BitSet states = register.getStates();
+        SupportSet states = register.getStates();
         ChunkedComplexArray amplitudes = register.getAmplitudes();
         for (int i = states.nextSetBit(0); i >= 0; i = states.nextSetBit(i + 1)) {
             totalProb += amplitudes.get(i).modulusSquared();
@@ -324,7 +635,7 @@ public class QubitRegisterTest {
 
     private QubitRegister copyRegisterState(QubitRegister original) {
         QubitRegister copy = new QubitRegister(original.getName() + "_copy", original.size());
-        BitSet originalStates = original.getStates();
+        SupportSet originalStates = original.getStates();
         ChunkedComplexArray originalAmps = original.getAmplitudes();
 
         copy.getStates().clear();
@@ -0,0 +1,157 @@
+package org.example.model.qubit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SortedSparseStateTest {
+    private static final double DELTA = 1e-12;
+
+    // Случайное разреженное состояние на numQubits кубитах с долей заполнения density
+    private static SupportSet randomState(int numQubits, double density, long seed, ChunkedComplexArray amplitudes) {
+        Random random = new Random(seed);
+        SupportSet states = new SupportSet();
+        for (int i = 0; i < 1 << numQubits; i++) {
+            if (random.nextDouble() < density) {
+                states.set(i);
+                amplitudes.set(i, new Complex(random.nextDouble() - 0.5, random.nextDouble() - 0.5));
+            }
+        }
+        return states;
+    }
+
+    // Прямое применение контролируемого оператора к плотному вектору
+    private static double[][] reference(SupportSet states, ChunkedComplexArray amplitudes, int numQubits,
+                                        int controlMask, int target, double[] m) {
+        int dim = 1 << numQubits;
+        double[] re = new double[dim];
+        double[] im = new double[dim];
+        for (int i = states.nextSetBit(0); i >= 0; i = states.nextSetBit(i + 1)) {
+            re[i] = amplitudes.get(i).getReal();
+            im[i] = amplitudes.get(i).getImaginary();
+        }
+        double[] outRe = re.clone();
+        double[] outIm = im.clone();
+        int bit = 1 << target;
+        for (int i = 0; i < dim; i++) {
+            if ((i & bit) != 0 || (i & controlMask) != controlMask) {
+                continue;
+            }
+            int j = i | bit;
+            outRe[i] = m[0] * re[i] - m[1] * im[i] + m[2] * re[j] - m[3] * im[j];
+            outIm[i] = m[0] * im[i] + m[1] * re[i] + m[2] * im[j] + m[3] * re[j];
+            outRe[j] = m[4] * re[i] - m[5] * im[i] + m[6] * re[j] - m[7] * im[j];
+            outIm[j] = m[4] * im[i] + m[5] * re[i] + m[6] * im[j] + m[7] * re[j];
+        }
+        return new double[][]{outRe, outIm};
+    }
+
+    private static void assertMatchesReference(int numQubits, double density, int controlMask, int target, double[] m) {
+        ChunkedComplexArray amplitudes = new ChunkedComplexArray();
+        SupportSet states = randomState(numQubits, density, 31L * target + controlMask, amplitudes);
+        double[][] expected = reference(states, amplitudes, numQubits, controlMask, target, m);
+
+        SortedSparseState result = SortedSparseState.of(states, amplitudes).applySingleQubit(controlMask, target, m, 1e-15);
+        for (int k = 1; k < result.size; k++) {
+            assertTrue(result.indices[k - 1] < result.indices[k], "Индексы должны остаться отсортированными");
+        }
+        SupportSet resultStates = result.toStates();
+        ChunkedComplexArray resultAmplitudes = result.toAmplitudes(amplitudes);
+        for (int i = 0; i < 1 << numQubits; i++) {
+            assertEquals(expected[0][i], resultAmplitudes.get(i).getReal(), DELTA, "re в состоянии " + i);
+            assertEquals(expected[1][i], resultAmplitudes.get(i).getImaginary(), DELTA, "im в состоянии " + i);
+            if (!resultStates.get(i)) {
+                assertEquals(0.0, Math.hypot(expected[0][i], expected[1][i]), 1e-15);
+            }
+        }
+    }
+
+    @Test
+    void testMergeMatchesDenseApplication() {
+        double h = 1 / Math.sqrt(2);
+        double[] hadamard = {h, 0, h, 0, h, 0, -h, 0};
+        double[] general = {0.6, 0.1, -0.2, 0.7, 0.3, -0.5, 0.8, 0.2};
+        for (int target = 0; target < 6; target++) {
+            assertMatchesReference(6, 0.3, 0, target, hadamard);
+            assertMatchesReference(6, 0.5, 0, target, general);
+        }
+        // Управляющие кубиты по обе стороны от целевого
+        assertMatchesReference(6, 0.6, 0b100001, 3, general);
+        assertMatchesReference(6, 0.6, 0b000110, 0, hadamard);
+    }
+
+    @Test
+    void testParallelMergeMatchesDenseApplication() {
+        double[] general = {0.6, 0.1, -0.2, 0.7, 0.3, -0.5, 0.8, 0.2};
+        assertMatchesReference(16, 0.4, 0, 5, general);
+        assertMatchesReference(16, 0.4, 1 << 15, 0, general);
+        // Целевой кубит старший: один сегмент на весь массив
+        assertMatchesReference(16, 0.4, 0, 15, general);
+    }
+
+    @Test
+    void testInterferenceRemovesStates() {
+        ChunkedComplexArray amplitudes = new ChunkedComplexArray();
+        SupportSet states = new SupportSet();
+        double h = 1 / Math.sqrt(2);
+        states.set(0b00);
+        states.set(0b10);
+        amplitudes.setReal(0b00, h);
+        amplitudes.setReal(0b10, h);
+        double[] hadamard = {h, 0, h, 0, h, 0, -h, 0};
+
+        SortedSparseState result = SortedSparseState.of(states, amplitudes).applySingleQubit(0, 1, hadamard, 1e-9);
+        assertEquals(1, result.size);
+        assertEquals(0, result.indices[0]);
+        assertEquals(1.0, result.re[0], DELTA);
+        assertNull(result.im, "Вещественный гейт на вещественном состоянии не создаёт мнимых частей");
+        assertTrue(result.toAmplitudes(amplitudes).isReal());
+    }
+
+    @Test
+    void testRetainBitCompacts() {
+        ChunkedComplexArray amplitudes = new ChunkedComplexArray();
+        SupportSet states = randomState(8, 0.5, 7, amplitudes);
+        SortedSparseState sorted = SortedSparseState.of(states, amplitudes);
+        sorted.retainBit(3, 1);
+        assertEquals(states.stream().filter(i -> (i & 0b1000) != 0).count(), sorted.size);
+        SupportSet kept = sorted.toStates();
+        ChunkedComplexArray keptAmplitudes = sorted.toAmplitudes(amplitudes);
+        for (int i = kept.nextSetBit(0); i >= 0; i = kept.nextSetBit(i + 1)) {
+            assertEquals(1, (i >> 3) & 1);
+            assertTrue(amplitudes.get(i).equals(keptAmplitudes.get(i)));
+        }
+    }
+
+    @Test
+    void testReusedBuffersMatchFreshResults() {
+        double h = 1 / Math.sqrt(2);
+        double[] hadamard = {h, 0, h, 0, h, 0, -h, 0};
+        double[] general = {0.6, 0.1, -0.2, 0.7, 0.3, -0.5, 0.8, 0.2};
+        SortedSparseState source = new SortedSparseState();
+        SortedSparseState result = new SortedSparseState();
+        SupportSet targetStates = new SupportSet();
+        ChunkedComplexArray targetAmplitudes = new ChunkedComplexArray();
+        // Размер носителя то растёт, то падает, вещественные и комплексные шаги чередуются
+        int[] sizes = {16, 6, 12, 4};
+        for (int step = 0; step < sizes.length; step++) {
+            ChunkedComplexArray amplitudes = new ChunkedComplexArray();
+            SupportSet states = randomState(sizes[step], 0.4, step, amplitudes);
+            double[] m = step % 2 == 0 ? general : hadamard;
+            SortedSparseState fresh = SortedSparseState.of(states, amplitudes).applySingleQubit(0, 2, m, 1e-15);
+            source.load(states, amplitudes).applySingleQubit(0, 2, m, 1e-15, result);
+            assertEquals(fresh.size, result.size);
+
+            targetStates.clear();
+            targetAmplitudes.clear();
+            result.writeTo(targetStates, targetAmplitudes);
+            assertEquals(fresh.toStates(), targetStates);
+            ChunkedComplexArray expected = fresh.toAmplitudes(amplitudes);
+            for (int i = targetStates.nextSetBit(0); i >= 0; i = targetStates.nextSetBit(i + 1)) {
+                assertTrue(expected.get(i).equals(targetAmplitudes.get(i)), "амплитуда " + i + " на шаге " + step);
+            }
+        }
+    }
+}
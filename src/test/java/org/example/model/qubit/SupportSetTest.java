@@ -0,0 +1,157 @@
+package org.example.model.qubit;
+
+import org.example.model.gate.GateResolver;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SupportSetTest {
+
+    private static void assertSameAs(BitSet expected, SupportSet actual) {
+        assertEquals(expected.cardinality(), actual.cardinality());
+        assertEquals(expected.length(), actual.length());
+        assertArrayEquals(expected.stream().toArray(), actual.toArray());
+        for (int from : new int[]{0, 1, 4095, 65535, 65536, 70000, 200000}) {
+            assertEquals(expected.nextSetBit(from), actual.nextSetBit(from), "nextSetBit(" + from + ")");
+        }
+    }
+
+    @Test
+    void testMatchesBitSetUnderRandomUpdates() {
+        Random random = new Random(5);
+        BitSet expected = new BitSet();
+        SupportSet actual = new SupportSet();
+        // Плотный блок переходит в битовую карту и обратно, разреженные блоки остаются массивами
+        for (int step = 0; step < 60000; step++) {
+            int index = random.nextBoolean() ? random.nextInt(1 << 16) : random.nextInt(1 << 20);
+            boolean value = step < 40000 || random.nextBoolean();
+            expected.set(index, value);
+            actual.set(index, value);
+        }
+        assertSameAs(expected, actual);
+        for (int i = 0; i < 1 << 16; i += 3) {
+            expected.clear(i);
+            actual.clear(i);
+        }
+        assertSameAs(expected, actual);
+        for (int i = 0; i < 1 << 20; i += 7) {
+            assertEquals(expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    void testFromSortedChoosesContainers() {
+        // Интервал, отдельные индексы и плотный нерегулярный блок
+        BitSet expected = new BitSet();
+        expected.set(1 << 16, 3 << 16);
+        Random random = new Random(11);
+        for (int i = 0; i < 10; i++) {
+            expected.set(random.nextInt(1 << 16));
+        }
+        for (int i = 5 << 16; i < 6 << 16; i++) {
+            if (random.nextInt(3) == 0) {
+                expected.set(i);
+            }
+        }
+        int[] indices = expected.stream().toArray();
+        SupportSet actual = SupportSet.fromSorted(indices, indices.length);
+        assertSameAs(expected, actual);
+        assertEquals(4, actual.getContainerCount());
+
+        // Точечные изменения в блоке интервалов
+        expected.clear(100000);
+        actual.clear(100000);
+        expected.set(3 << 16);
+        actual.set(3 << 16);
+        assertSameAs(expected, actual);
+        assertEquals(actual, actual.clone());
+    }
+
+    @Test
+    void testUnionAndIntersection() {
+        Random random = new Random(3);
+        BitSet a = new BitSet();
+        BitSet b = new BitSet();
+        SupportSet left = new SupportSet();
+        SupportSet right = new SupportSet();
+        for (int step = 0; step < 20000; step++) {
+            int i = random.nextInt(3 << 16);
+            int j = random.nextInt(1 << 17) + (1 << 16);
+            a.set(i);
+            left.set(i);
+            b.set(j);
+            right.set(j);
+        }
+        BitSet expectedUnion = (BitSet) a.clone();
+        expectedUnion.or(b);
+        SupportSet union = left.clone();
+        union.or(right);
+        assertSameAs(expectedUnion, union);
+
+        BitSet expectedIntersection = (BitSet) a.clone();
+        expectedIntersection.and(b);
+        SupportSet intersection = left.clone();
+        intersection.and(right);
+        assertSameAs(expectedIntersection, intersection);
+        // Исходные множества не изменились
+        assertEquals(a.cardinality(), left.cardinality());
+    }
+
+    @Test
+    void testHasBit() {
+        SupportSet set = new SupportSet();
+        set.set(0b1010);
+        set.set(5 << 16 | 0b1110);
+        assertTrue(set.hasBit(1, 1));
+        assertFalse(set.hasBit(1, 0));
+        assertTrue(set.hasBit(0, 0));
+        assertFalse(set.hasBit(0, 1));
+        assertTrue(set.hasBit(2, 0));
+        assertTrue(set.hasBit(2, 1));
+        assertTrue(set.hasBit(16, 1));
+        assertFalse(set.hasBit(17, 1));
+
+        int[] run = new int[1 << 12];
+        for (int i = 0; i < run.length; i++) {
+            run[i] = (1 << 12) + i;
+        }
+        SupportSet runs = SupportSet.fromSorted(run, run.length);
+        assertTrue(runs.hasBit(12, 1));
+        assertFalse(runs.hasBit(12, 0));
+        assertTrue(runs.hasBit(11, 0));
+        assertTrue(runs.hasBit(11, 1));
+    }
+
+    @Test
+    void testWideRegisterStoresOnlySupport() {
+        // 2^30 бит BitSet заняли бы 128 МБ
+        QubitRegister register = new QubitRegister("wide", 30);
+        GateResolver.resolveByName("H", register, new Integer[]{29}, 0).apply();
+        GateResolver.resolveByName("CX", register, new Integer[]{29, 0}, 0).apply();
+        SupportSet states = register.getStates();
+        assertArrayEquals(new int[]{0, 1 << 29 | 1}, states.toArray());
+        assertEquals(2, states.getContainerCount());
+    }
+
+    @Test
+    void testClearedSetIsRefilledFromScratch() {
+        Random random = new Random(17);
+        SupportSet actual = new SupportSet();
+        for (int round = 0; round < 5; round++) {
+            BitSet expected = new BitSet();
+            actual.clear();
+            assertTrue(actual.isEmpty());
+            assertEquals(-1, actual.nextSetBit(0));
+            // Блоки идут не по порядку, часть из них плотные: переиспользуются только пустые массивы
+            for (int step = 0; step < 20000; step++) {
+                int index = random.nextBoolean() ? random.nextInt(1 << 16) : random.nextInt(1 << 22);
+                expected.set(index);
+                actual.set(index);
+            }
+            assertSameAs(expected, actual);
+        }
+    }
+}
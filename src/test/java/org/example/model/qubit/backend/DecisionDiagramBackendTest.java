@@ -0,0 +1,136 @@
+package org.example.model.qubit.backend;
+
+import org.example.model.gate.GateResolver;
+import org.example.model.qubit.Complex;
+import org.example.model.qubit.QubitRegister;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DecisionDiagramBackendTest {
+    private static final double DELTA = 1e-9;
+
+    private void apply(DecisionDiagramBackend backend, String gate, int... qubits) {
+        backend.apply(GateResolver.resolveLocal(gate, qubits.length, 0.7), qubits);
+    }
+
+    @Test
+    void testFactoryAliases() {
+        assertEquals(BackendFactory.DECISION_DIAGRAM, BackendFactory.normalizeType("qmdd"));
+        assertInstanceOf(DecisionDiagramBackend.class, BackendFactory.create("DD", 3));
+        assertThrows(IllegalArgumentException.class, () -> new DecisionDiagramBackend(0));
+    }
+
+    @Test
+    void testUniformSuperpositionIsLinear() {
+        int n = 40;
+        DecisionDiagramBackend backend = new DecisionDiagramBackend(n);
+        for (int q = 0; q < n; q++) {
+            apply(backend, "H", q);
+        }
+        assertEquals(n, backend.getNodeCount());
+        assertEquals(Math.pow(2, n), backend.countNonZeroAmplitudes(), 0);
+        assertEquals(n, backend.getNodeCountHistory().size());
+        assertEquals(0.5, backend.getOutcomeProbabilities(17)[0], DELTA);
+        assertTrue(backend.getStateSnapshot().isEmpty());
+    }
+
+    @Test
+    void testMatchesStateVector() {
+        String[] single = {"H", "S", "T", "X", "Y", "P"};
+        String[] pair = {"CX", "CZ", "SWAP", "CP"};
+        Random random = new Random(5);
+        int n = 5;
+        for (int trial = 0; trial < 5; trial++) {
+            DecisionDiagramBackend backend = new DecisionDiagramBackend(n);
+            QubitRegister register = new QubitRegister("ref", n);
+            for (int step = 0; step < 30; step++) {
+                String gate;
+                Integer[] qubits;
+                if (step % 7 == 6) {
+                    gate = "CCX";
+                    qubits = new Integer[]{3, 0, 4};
+                } else if (step % 11 == 10) {
+                    gate = "INC";
+                    qubits = IntStream.range(0, n).boxed().toArray(Integer[]::new);
+                } else if (random.nextBoolean()) {
+                    gate = single[random.nextInt(single.length)];
+                    qubits = new Integer[]{random.nextInt(n)};
+                } else {
+                    gate = pair[random.nextInt(pair.length)];
+                    int a = random.nextInt(n);
+                    int b = (a + 1 + random.nextInt(n - 1)) % n;
+                    qubits = new Integer[]{a, b};
+                }
+                GateResolver.resolveByName(gate, register, qubits, 0.7).apply();
+                apply(backend, gate, Arrays.stream(qubits).mapToInt(Integer::intValue).toArray());
+            }
+            Map<Integer, Complex> expected = BackendFactory.stateVectorOf(register);
+            Map<Integer, Complex> actual = backend.getStateSnapshot();
+            for (int state = 0; state < (1 << n); state++) {
+                Complex e = expected.getOrDefault(state, Complex.getZero());
+                Complex a = actual.getOrDefault(state, Complex.getZero());
+                assertEquals(e.getReal(), a.getReal(), 1e-8);
+                assertEquals(e.getImaginary(), a.getImaginary(), 1e-8);
+            }
+        }
+    }
+
+    @Test
+    void testIncrementAndDecrementOnLargeRegister() {
+        int n = 48;
+        int[] all = IntStream.range(0, n).toArray();
+        DecisionDiagramBackend backend = new DecisionDiagramBackend(n);
+        apply(backend, "DEC", all);
+        for (int q = 0; q < n; q++) {
+            assertEquals(1.0, backend.getOutcomeProbabilities(q)[1], DELTA);
+        }
+        apply(backend, "INC", all);
+        apply(backend, "INC", all);
+        assertEquals(1.0, backend.getOutcomeProbabilities(0)[1], DELTA);
+        assertEquals(1.0, backend.getOutcomeProbabilities(1)[0], DELTA);
+        assertEquals(n, backend.getNodeCount());
+    }
+
+    @Test
+    void testGhzMeasurementCollapses() {
+        int n = 30;
+        DecisionDiagramBackend backend = new DecisionDiagramBackend(n);
+        apply(backend, "H", 0);
+        for (int q = 1; q < n; q++) {
+            apply(backend, "CX", q - 1, q);
+        }
+        assertEquals(2 * n - 1, backend.getNodeCount());
+        Random random = new Random(8);
+        int first = backend.measure(n / 2, random);
+        for (int q = 0; q < n; q += 7) {
+            assertEquals(first, backend.sample(q, random));
+        }
+        Map<Integer, Complex> snapshot = backend.getStateSnapshot();
+        assertEquals(1, snapshot.size());
+        assertEquals(1.0, snapshot.values().iterator().next().modulusSquared(), DELTA);
+        assertEquals(n, backend.getNodeCount());
+        assertTrue(backend.getMaxNodeCount() >= 2 * n - 1);
+    }
+
+    @Test
+    void testFromPureStateAndTensorProduct() {
+        Map<Integer, Complex> plus = Map.of(0, new Complex(1 / Math.sqrt(2)), 1, new Complex(0, 1 / Math.sqrt(2)));
+        DecisionDiagramBackend high = DecisionDiagramBackend.fromPureState(1, plus);
+        DecisionDiagramBackend low = new DecisionDiagramBackend(2);
+        apply(low, "X", 1);
+        apply(low, "SWAP", 0, 1);
+
+        DecisionDiagramBackend joined = (DecisionDiagramBackend) high.tensorProduct(low);
+        Map<Integer, Complex> snapshot = joined.getStateSnapshot();
+        assertEquals(2, snapshot.size());
+        assertEquals(1 / Math.sqrt(2), snapshot.get(0b001).getReal(), DELTA);
+        assertEquals(1 / Math.sqrt(2), snapshot.get(0b101).getImaginary(), DELTA);
+        assertTrue(joined.toString().contains("DD: узлов 3"));
+    }
+}
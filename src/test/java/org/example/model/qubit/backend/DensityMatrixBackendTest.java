@@ -0,0 +1,116 @@
+package org.example.model.qubit.backend;
+
+import org.example.model.gate.GateResolver;
+import org.example.model.qubit.Complex;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DensityMatrixBackendTest {
+    private static final double DELTA = 1e-9;
+
+    private void apply(DensityMatrixBackend backend, String gate, int... qubits) {
+        backend.apply(GateResolver.resolveLocal(gate, qubits.length, 0), qubits);
+    }
+
+    @Test
+    void testInitialState() {
+        DensityMatrixBackend backend = new DensityMatrixBackend(2);
+        assertEquals(1.0, backend.get(0, 0).getReal(), DELTA);
+        assertEquals(0.0, backend.get(1, 1).getReal(), DELTA);
+        assertEquals(1.0, backend.getPurity(), DELTA);
+    }
+
+    @Test
+    void testTooManyQubits() {
+        assertThrows(IllegalArgumentException.class, () -> new DensityMatrixBackend(DensityMatrixBackend.MAX_QUBITS + 1));
+        assertThrows(IllegalArgumentException.class, () -> new DensityMatrixBackend(0));
+    }
+
+    @Test
+    void testHadamardCoherences() {
+        DensityMatrixBackend backend = new DensityMatrixBackend(1);
+        apply(backend, "H", 0);
+        assertEquals(0.5, backend.get(0, 0).getReal(), DELTA);
+        assertEquals(0.5, backend.get(0, 1).getReal(), DELTA);
+        assertEquals(0.5, backend.get(1, 0).getReal(), DELTA);
+        assertEquals(0.5, backend.get(1, 1).getReal(), DELTA);
+    }
+
+    @Test
+    void testPhaseGateConjugation() {
+        // S|+> : rho_01 = 1/2 * conj(i) = -i/2
+        DensityMatrixBackend backend = new DensityMatrixBackend(1);
+        apply(backend, "H", 0);
+        apply(backend, "S", 0);
+        assertEquals(0.0, backend.get(0, 1).getReal(), DELTA);
+        assertEquals(-0.5, backend.get(0, 1).getImaginary(), DELTA);
+        assertEquals(0.5, backend.get(1, 0).getImaginary(), DELTA);
+    }
+
+    @Test
+    void testBellStateAndMeasurement() {
+        DensityMatrixBackend backend = new DensityMatrixBackend(2);
+        apply(backend, "H", 1);
+        apply(backend, "CX", 1, 0);
+
+        double[] probabilities = backend.getOutcomeProbabilities(0);
+        assertEquals(0.5, probabilities[0], DELTA);
+        assertEquals(0.5, probabilities[1], DELTA);
+        assertEquals(0.5, backend.get(0, 3).getReal(), DELTA);
+
+        int result = backend.measure(1, new Random(7));
+        int expectedState = result == 1 ? 3 : 0;
+        assertEquals(1.0, backend.get(expectedState, expectedState).getReal(), DELTA);
+        assertEquals(result, backend.measure(0, new Random(7)));
+        assertEquals(1.0, backend.getPurity(), DELTA);
+    }
+
+    @Test
+    void testMatchesStateVectorOnUnitaries() {
+        DensityMatrixBackend backend = new DensityMatrixBackend(3);
+        apply(backend, "H", 0);
+        apply(backend, "T", 0);
+        apply(backend, "CX", 0, 2);
+        apply(backend, "Y", 1);
+        apply(backend, "SWAP", 1, 2);
+
+        // |psi> = i (|100> + e^{i pi/4} |111>) / sqrt(2)
+        Map<Integer, Complex> snapshot = backend.getStateSnapshot();
+        assertEquals(2, snapshot.size());
+        assertEquals(0.5, snapshot.get(0b100).modulusSquared(), DELTA);
+        assertEquals(0.5, snapshot.get(0b111).modulusSquared(), DELTA);
+        Complex coherence = backend.get(0b111, 0b100);
+        assertEquals(0.5 * Math.cos(Math.PI / 4), coherence.getReal(), DELTA);
+        assertEquals(0.5 * Math.sin(Math.PI / 4), coherence.getImaginary(), DELTA);
+    }
+
+    @Test
+    void testWholeRegisterIncrement() {
+        DensityMatrixBackend backend = new DensityMatrixBackend(2);
+        apply(backend, "INC", 0, 1);
+        apply(backend, "INC", 0, 1);
+        assertEquals(1.0, backend.get(2, 2).getReal(), DELTA);
+    }
+
+    @Test
+    void testFromPureStateAndTensorProduct() {
+        Map<Integer, Complex> plus = new HashMap<>();
+        plus.put(0, new Complex(1 / Math.sqrt(2)));
+        plus.put(1, new Complex(1 / Math.sqrt(2)));
+        DensityMatrixBackend high = DensityMatrixBackend.fromPureState(1, plus);
+        DensityMatrixBackend low = new DensityMatrixBackend(1);
+        apply(low, "X", 0);
+
+        DensityMatrixBackend joined = (DensityMatrixBackend) high.tensorProduct(low);
+        assertEquals(2, joined.size());
+        assertEquals(0.5, joined.get(0b01, 0b01).getReal(), DELTA);
+        assertEquals(0.5, joined.get(0b11, 0b11).getReal(), DELTA);
+        assertEquals(0.5, joined.get(0b01, 0b11).getReal(), DELTA);
+        assertEquals(0.0, joined.get(0b00, 0b00).getReal(), DELTA);
+    }
+}
@@ -0,0 +1,173 @@
+package org.example.model.qubit.backend;
+
+import org.example.model.gate.GateResolver;
+import org.example.model.qubit.Complex;
+import org.example.model.qubit.QubitRegister;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExtendedStabilizerBackendTest {
+    private static final double DELTA = 1e-9;
+
+    private void apply(ExtendedStabilizerBackend backend, String gate, int... qubits) {
+        backend.apply(GateResolver.resolveLocal(gate, qubits.length, 0), qubits);
+    }
+
+    // |<expected|actual>|^2 для нормированных состояний
+    private double fidelity(Map<Integer, Complex> expected, Map<Integer, Complex> actual) {
+        double overlapRe = 0;
+        double overlapIm = 0;
+        for (Map.Entry<Integer, Complex> entry : expected.entrySet()) {
+            Complex a = entry.getValue();
+            Complex b = actual.getOrDefault(entry.getKey(), Complex.getZero());
+            overlapRe += a.getReal() * b.getReal() + a.getImaginary() * b.getImaginary();
+            overlapIm += a.getReal() * b.getImaginary() - a.getImaginary() * b.getReal();
+        }
+        return overlapRe * overlapRe + overlapIm * overlapIm;
+    }
+
+    @Test
+    void testCliffordGatesKeepRankOne() {
+        ExtendedStabilizerBackend backend = new ExtendedStabilizerBackend(3);
+        apply(backend, "H", 0);
+        apply(backend, "CX", 0, 1);
+        apply(backend, "CZ", 1, 2);
+        assertEquals(1, backend.getRank());
+    }
+
+    @Test
+    void testTGateRelativePhase() {
+        ExtendedStabilizerBackend backend = new ExtendedStabilizerBackend(1);
+        apply(backend, "H", 0);
+        apply(backend, "T", 0);
+        assertEquals(2, backend.getRank());
+
+        Map<Integer, Complex> snapshot = backend.getStateSnapshot();
+        assertEquals(1 / Math.sqrt(2), snapshot.get(0).getReal(), DELTA);
+        assertEquals(0.5, snapshot.get(1).getReal(), DELTA);
+        assertEquals(0.5, snapshot.get(1).getImaginary(), DELTA);
+
+        // T^8 = I
+        for (int i = 0; i < 7; i++) {
+            apply(backend, "T", 0);
+        }
+        apply(backend, "H", 0);
+        assertEquals(1.0, backend.getStateSnapshot().get(0).modulusSquared(), DELTA);
+        assertEquals(0, backend.sample(0, new Random(1)));
+    }
+
+    @Test
+    void testMatchesStateVectorOnCliffordPlusT() {
+        String[] single = {"H", "S", "X", "Y", "Z", "T"};
+        String[] pair = {"CX", "CZ", "SWAP"};
+        Random random = new Random(11);
+        int n = 4;
+        for (int trial = 0; trial < 10; trial++) {
+            ExtendedStabilizerBackend backend = new ExtendedStabilizerBackend(n);
+            QubitRegister register = new QubitRegister("ref", n);
+            for (int step = 0; step < 25; step++) {
+                String gate;
+                Integer[] qubits;
+                if (random.nextBoolean()) {
+                    gate = single[random.nextInt(single.length)];
+                    qubits = new Integer[]{random.nextInt(n)};
+                } else {
+                    gate = pair[random.nextInt(pair.length)];
+                    int a = random.nextInt(n);
+                    int b = (a + 1 + random.nextInt(n - 1)) % n;
+                    qubits = new Integer[]{a, b};
+                }
+                GateResolver.resolveByName(gate, register, qubits, 0).apply();
+                apply(backend, gate, Arrays.stream(qubits).mapToInt(Integer::intValue).toArray());
+            }
+            assertEquals(1.0, fidelity(BackendFactory.stateVectorOf(register), backend.getStateSnapshot()), 1e-6);
+        }
+    }
+
+    @Test
+    void testToffoliAndPhaseGate() {
+        ExtendedStabilizerBackend backend = new ExtendedStabilizerBackend(3);
+        QubitRegister register = new QubitRegister("ref", 3);
+        String[] gates = {"H", "H", "CCX", "P", "CCX"};
+        Integer[][] operands = {{0}, {1}, {0, 1, 2}, {2}, {1, 2, 0}};
+        for (int i = 0; i < gates.length; i++) {
+            GateResolver.resolveByName(gates[i], register, operands[i], 0.3).apply();
+            int[] qubits = Arrays.stream(operands[i]).mapToInt(Integer::intValue).toArray();
+            backend.apply(GateResolver.resolveLocal(gates[i], qubits.length, 0.3), qubits);
+        }
+        assertEquals(1.0, fidelity(BackendFactory.stateVectorOf(register), backend.getStateSnapshot()), 1e-6);
+    }
+
+    @Test
+    void testMeasurementCollapse() {
+        ExtendedStabilizerBackend backend = new ExtendedStabilizerBackend(2);
+        apply(backend, "H", 0);
+        apply(backend, "T", 0);
+        apply(backend, "CX", 0, 1);
+        apply(backend, "H", 0);
+
+        Random random = new Random(3);
+        int first = backend.measure(1, random);
+        Map<Integer, Complex> snapshot = backend.getStateSnapshot();
+        double total = 0;
+        for (Map.Entry<Integer, Complex> entry : snapshot.entrySet()) {
+            assertEquals(first, (entry.getKey() >> 1) & 1);
+            total += entry.getValue().modulusSquared();
+        }
+        assertEquals(1.0, total, DELTA);
+        assertEquals(first, backend.measure(1, random));
+    }
+
+    @Test
+    void testMeasurementStatistics() {
+        // H T H |0>: P(0) = cos^2(pi/8)
+        int zeros = 0;
+        Random random = new Random(17);
+        for (int i = 0; i < 2000; i++) {
+            ExtendedStabilizerBackend backend = new ExtendedStabilizerBackend(1);
+            apply(backend, "H", 0);
+            apply(backend, "T", 0);
+            apply(backend, "H", 0);
+            if (backend.measure(0, random) == 0) {
+                zeros++;
+            }
+        }
+        assertEquals(Math.pow(Math.cos(Math.PI / 8), 2), zeros / 2000.0, 0.03);
+    }
+
+    @Test
+    void testTensorProduct() {
+        ExtendedStabilizerBackend high = new ExtendedStabilizerBackend(1);
+        apply(high, "H", 0);
+        apply(high, "T", 0);
+        ExtendedStabilizerBackend low = ExtendedStabilizerBackend.fromPureState(1, Map.of(1, Complex.getOne()));
+
+        ExtendedStabilizerBackend joined = (ExtendedStabilizerBackend) high.tensorProduct(low);
+        Map<Integer, Complex> snapshot = joined.getStateSnapshot();
+        assertEquals(2, snapshot.size());
+        assertEquals(0.5, snapshot.get(0b01).modulusSquared(), DELTA);
+        assertEquals(0.5, snapshot.get(0b11).getReal(), DELTA);
+        assertEquals(0.5, snapshot.get(0b11).getImaginary(), DELTA);
+    }
+
+    @Test
+    void testLargeRegisterWithFewTGates() {
+        int n = 200;
+        ExtendedStabilizerBackend backend = new ExtendedStabilizerBackend(n);
+        apply(backend, "H", 0);
+        for (int q = 1; q < n; q++) {
+            apply(backend, "CX", q - 1, q);
+        }
+        apply(backend, "T", 5);
+        apply(backend, "T", 7);
+        assertTrue(backend.getRank() <= 4);
+        Random random = new Random(9);
+        int first = backend.measure(0, random);
+        assertEquals(first, backend.measure(n - 1, random));
+    }
+}
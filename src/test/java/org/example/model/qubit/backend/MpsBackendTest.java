@@ -0,0 +1,150 @@
+package org.example.model.qubit.backend;
+
+import org.example.model.gate.GateResolver;
+import org.example.model.qubit.Complex;
+import org.example.model.qubit.QubitRegister;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MpsBackendTest {
+    private static final double DELTA = 1e-9;
+
+    private void apply(MpsBackend backend, String gate, int... qubits) {
+        backend.apply(GateResolver.resolveLocal(gate, qubits.length, 0.7), qubits);
+    }
+
+    @Test
+    void testInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new MpsBackend(0));
+        assertThrows(IllegalArgumentException.class, () -> new MpsBackend(2, 0, 1e-10));
+        assertThrows(IllegalArgumentException.class, () -> MpsBackend.withParameters(2, List.of(4.0, 1e-8, 1.0)));
+        MpsBackend backend = MpsBackend.withParameters(3, List.of(8.0, 1e-6));
+        assertEquals(8, backend.getMaxBondDimension());
+        assertEquals(1e-6, backend.getTruncationThreshold(), 0);
+    }
+
+    @Test
+    void testBellStateExact() {
+        MpsBackend backend = new MpsBackend(2);
+        apply(backend, "H", 1);
+        apply(backend, "CX", 1, 0);
+        Map<Integer, Complex> snapshot = backend.getStateSnapshot();
+        assertEquals(2, snapshot.size());
+        assertEquals(0.5, snapshot.get(0).modulusSquared(), DELTA);
+        assertEquals(0.5, snapshot.get(3).modulusSquared(), DELTA);
+        assertEquals(2, backend.getCurrentBondDimension());
+        assertEquals(0.0, backend.getTotalTruncationError(), DELTA);
+    }
+
+    @Test
+    void testMatchesStateVectorWithLongRangeGates() {
+        String[] single = {"H", "S", "T", "X", "Y", "P"};
+        String[] pair = {"CX", "CZ", "SWAP", "CP"};
+        Random random = new Random(21);
+        int n = 5;
+        for (int trial = 0; trial < 5; trial++) {
+            MpsBackend backend = new MpsBackend(n);
+            QubitRegister register = new QubitRegister("ref", n);
+            for (int step = 0; step < 30; step++) {
+                String gate;
+                Integer[] qubits;
+                if (step % 7 == 6) {
+                    gate = "CCX";
+                    qubits = new Integer[]{4, 0, 2};
+                } else if (random.nextBoolean()) {
+                    gate = single[random.nextInt(single.length)];
+                    qubits = new Integer[]{random.nextInt(n)};
+                } else {
+                    gate = pair[random.nextInt(pair.length)];
+                    int a = random.nextInt(n);
+                    int b = (a + 1 + random.nextInt(n - 1)) % n;
+                    qubits = new Integer[]{a, b};
+                }
+                GateResolver.resolveByName(gate, register, qubits, 0.7).apply();
+                apply(backend, gate, Arrays.stream(qubits).mapToInt(Integer::intValue).toArray());
+            }
+            Map<Integer, Complex> expected = BackendFactory.stateVectorOf(register);
+            Map<Integer, Complex> actual = backend.getStateSnapshot();
+            for (int state = 0; state < (1 << n); state++) {
+                Complex e = expected.getOrDefault(state, Complex.getZero());
+                Complex a = actual.getOrDefault(state, Complex.getZero());
+                assertEquals(e.getReal(), a.getReal(), 1e-8);
+                assertEquals(e.getImaginary(), a.getImaginary(), 1e-8);
+            }
+        }
+    }
+
+    @Test
+    void testWholeRegisterIncrement() {
+        MpsBackend backend = new MpsBackend(3);
+        apply(backend, "INC", 0, 1, 2);
+        apply(backend, "INC", 0, 1, 2);
+        apply(backend, "INC", 0, 1, 2);
+        assertEquals(1.0, backend.getStateSnapshot().get(3).modulusSquared(), DELTA);
+    }
+
+    @Test
+    void testBondTruncationIsReported() {
+        MpsBackend backend = new MpsBackend(6, 2, 0.0);
+        for (int q = 0; q < 6; q++) {
+            apply(backend, "H", q);
+        }
+        for (int layer = 0; layer < 3; layer++) {
+            for (int q = 0; q < 5; q++) {
+                apply(backend, "CP", q, q + 1);
+                apply(backend, "T", q);
+            }
+            for (int q = 0; q < 6; q++) {
+                apply(backend, "H", q);
+            }
+        }
+        assertTrue(backend.getCurrentBondDimension() <= 2);
+        assertTrue(backend.getTotalTruncationError() > 0);
+        assertEquals(backend.getGateTruncationErrors().stream().mapToDouble(Double::doubleValue).sum(),
+                backend.getTotalTruncationError(), 1e-12);
+        double norm = backend.getStateSnapshot().values().stream().mapToDouble(Complex::modulusSquared).sum();
+        assertEquals(1.0, norm, 1e-9);
+    }
+
+    @Test
+    void testLargeGhzMeasurement() {
+        int n = 80;
+        MpsBackend backend = new MpsBackend(n);
+        apply(backend, "H", 0);
+        for (int q = 1; q < n; q++) {
+            apply(backend, "CX", q - 1, q);
+        }
+        assertEquals(2, backend.getCurrentBondDimension());
+        double[] probabilities = backend.getOutcomeProbabilities(n / 2);
+        assertEquals(0.5, probabilities[0], DELTA);
+
+        Random random = new Random(4);
+        int first = backend.measure(n - 1, random);
+        for (int q = 0; q < n; q += 9) {
+            assertEquals(first, backend.sample(q, random));
+            assertEquals(first, backend.measure(q, random));
+        }
+        assertTrue(backend.getStateSnapshot().isEmpty());
+    }
+
+    @Test
+    void testFromPureStateAndTensorProduct() {
+        Map<Integer, Complex> plus = Map.of(0, new Complex(1 / Math.sqrt(2)), 1, new Complex(1 / Math.sqrt(2)));
+        MpsBackend high = MpsBackend.fromPureState(1, plus);
+        MpsBackend low = new MpsBackend(2);
+        apply(low, "X", 1);
+        apply(low, "SWAP", 0, 1);
+
+        MpsBackend joined = (MpsBackend) high.tensorProduct(low);
+        Map<Integer, Complex> snapshot = joined.getStateSnapshot();
+        assertEquals(2, snapshot.size());
+        assertEquals(0.5, snapshot.get(0b001).modulusSquared(), DELTA);
+        assertEquals(0.5, snapshot.get(0b101).modulusSquared(), DELTA);
+    }
+}
@@ -0,0 +1,134 @@
+package org.example.model.qubit.backend;
+
+import org.example.model.gate.GateResolver;
+import org.example.model.qubit.Complex;
+import org.example.model.qubit.QubitRegister;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StabilizerBackendTest {
+    private static final double DELTA = 1e-9;
+
+    private void apply(StabilizerBackend backend, String gate, int... qubits) {
+        backend.apply(GateResolver.resolveLocal(gate, qubits.length, 0), qubits);
+    }
+
+    @Test
+    void testInitialStabilizers() {
+        StabilizerBackend backend = new StabilizerBackend(3);
+        assertArrayEquals(new String[]{"+IIZ", "+IZI", "+ZII"}, backend.getStabilizerStrings());
+        assertEquals(0, backend.sample(2, new Random(1)));
+    }
+
+    @Test
+    void testBellStabilizers() {
+        StabilizerBackend backend = new StabilizerBackend(2);
+        apply(backend, "H", 1);
+        apply(backend, "CX", 1, 0);
+        assertArrayEquals(new String[]{"+ZZ", "+XX"}, backend.getStabilizerStrings());
+
+        Map<Integer, Complex> snapshot = backend.getStateSnapshot();
+        assertEquals(2, snapshot.size());
+        assertEquals(1 / Math.sqrt(2), snapshot.get(0).getReal(), DELTA);
+        assertEquals(1 / Math.sqrt(2), snapshot.get(3).getReal(), DELTA);
+    }
+
+    @Test
+    void testDeterministicOutcome() {
+        StabilizerBackend backend = new StabilizerBackend(2);
+        apply(backend, "X", 0);
+        apply(backend, "H", 1);
+        apply(backend, "Z", 1);
+        apply(backend, "H", 1);
+        // |1> на обоих кубитах: H Z H = X
+        assertEquals(1, backend.measure(0, new Random(3)));
+        assertEquals(1, backend.measure(1, new Random(3)));
+    }
+
+    @Test
+    void testNonCliffordGateRejected() {
+        StabilizerBackend backend = new StabilizerBackend(1);
+        assertThrows(IllegalArgumentException.class, () -> apply(backend, "T", 0));
+        assertThrows(IllegalArgumentException.class, () -> new StabilizerBackend(2).apply(GateResolver.resolveLocal("CCX", 3, 0), new int[]{0, 1, 2}));
+    }
+
+    @Test
+    void testMatchesStateVectorUpToGlobalPhase() {
+        String[] single = {"H", "S", "X", "Y", "Z"};
+        String[] pair = {"CX", "CY", "CZ", "SWAP"};
+        Random random = new Random(42);
+        int n = 4;
+        for (int trial = 0; trial < 20; trial++) {
+            StabilizerBackend backend = new StabilizerBackend(n);
+            QubitRegister register = new QubitRegister("ref", n);
+            for (int step = 0; step < 30; step++) {
+                String gate;
+                Integer[] qubits;
+                if (random.nextBoolean()) {
+                    gate = single[random.nextInt(single.length)];
+                    qubits = new Integer[]{random.nextInt(n)};
+                } else {
+                    gate = pair[random.nextInt(pair.length)];
+                    int a = random.nextInt(n);
+                    int b = (a + 1 + random.nextInt(n - 1)) % n;
+                    qubits = new Integer[]{a, b};
+                }
+                GateResolver.resolveByName(gate, register, qubits, 0).apply();
+                int[] local = new int[qubits.length];
+                for (int i = 0; i < qubits.length; i++) {
+                    local[i] = qubits[i];
+                }
+                apply(backend, gate, local);
+            }
+
+            Map<Integer, Complex> expected = BackendFactory.stateVectorOf(register);
+            Map<Integer, Complex> actual = backend.getStateSnapshot();
+            // |<expected|actual>| = 1
+            double overlapRe = 0;
+            double overlapIm = 0;
+            for (Map.Entry<Integer, Complex> entry : expected.entrySet()) {
+                Complex a = entry.getValue();
+                Complex b = actual.getOrDefault(entry.getKey(), Complex.getZero());
+                overlapRe += a.getReal() * b.getReal() + a.getImaginary() * b.getImaginary();
+                overlapIm += a.getReal() * b.getImaginary() - a.getImaginary() * b.getReal();
+            }
+            assertEquals(1.0, overlapRe * overlapRe + overlapIm * overlapIm, 1e-6);
+        }
+    }
+
+    @Test
+    void testLargeGhzCorrelations() {
+        int n = 1000;
+        StabilizerBackend backend = new StabilizerBackend(n);
+        apply(backend, "H", 0);
+        for (int q = 1; q < n; q++) {
+            apply(backend, "CX", q - 1, q);
+        }
+        Random random = new Random(5);
+        int first = backend.measure(n / 2, random);
+        for (int q = 0; q < n; q += 97) {
+            assertEquals(first, backend.measure(q, random));
+        }
+        assertTrue(backend.getStateSnapshot().isEmpty());
+    }
+
+    @Test
+    void testTensorProductAndFromPureState() {
+        StabilizerBackend high = new StabilizerBackend(1);
+        apply(high, "H", 0);
+        StabilizerBackend low = StabilizerBackend.fromPureState(2, Map.of(0b10, Complex.getOne()));
+
+        StabilizerBackend joined = (StabilizerBackend) high.tensorProduct(low);
+        assertEquals(3, joined.size());
+        Map<Integer, Complex> snapshot = joined.getStateSnapshot();
+        assertEquals(2, snapshot.size());
+        assertEquals(0.5, snapshot.get(0b010).modulusSquared(), DELTA);
+        assertEquals(0.5, snapshot.get(0b110).modulusSquared(), DELTA);
+        assertThrows(IllegalArgumentException.class,
+                () -> StabilizerBackend.fromPureState(1, Map.of(0, Complex.getOne(), 1, Complex.getOne())));
+    }
+}
@@ -0,0 +1,57 @@
+package org.example.model.qubit.backend;
+
+import org.example.model.gate.GateResolver;
+import org.example.model.qubit.Complex;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TensorNetworkBackendTest {
+    private static final double DELTA = 1e-9;
+
+    private void apply(TensorNetworkBackend backend, String gate, int... qubits) {
+        backend.apply(GateResolver.resolveLocal(gate, qubits.length, 0), qubits);
+    }
+
+    @Test
+    void testFactoryAliases() {
+        assertEquals(BackendFactory.TENSOR_NETWORK, BackendFactory.normalizeType("tn"));
+        assertInstanceOf(TensorNetworkBackend.class, BackendFactory.create("TENSOR_NETWORK", 2));
+        assertThrows(IllegalArgumentException.class, () -> TensorNetworkBackend.fromPureState(1,
+                Map.of(0, new Complex(1 / Math.sqrt(2)), 1, new Complex(1 / Math.sqrt(2)))));
+    }
+
+    @Test
+    void testLargeGhzMeasurement() {
+        int n = 40;
+        TensorNetworkBackend backend = new TensorNetworkBackend(n);
+        apply(backend, "H", 0);
+        for (int q = 1; q < n; q++) {
+            apply(backend, "CX", q - 1, q);
+        }
+        assertEquals(0.5, backend.getOutcomeProbabilities(n - 1)[0], DELTA);
+        Random random = new Random(11);
+        int first = backend.measure(n / 2, random);
+        for (int q = 0; q < n; q += 6) {
+            assertEquals(first, backend.sample(q, random));
+            assertEquals(first, backend.measure(q, random));
+        }
+        long bits = first == 1 ? (1L << n) - 1 : 0;
+        assertEquals(1.0, backend.amplitude(bits).modulusSquared(), DELTA);
+        assertTrue(backend.getStateSnapshot().isEmpty());
+        assertTrue(backend.planAmplitude().getEstimatedFlops() > 0);
+    }
+
+    @Test
+    void testSnapshotAndBasisState() {
+        TensorNetworkBackend backend = TensorNetworkBackend.fromPureState(3, Map.of(0b101, Complex.getOne()));
+        apply(backend, "SWAP", 0, 1);
+        Map<Integer, Complex> snapshot = backend.getStateSnapshot();
+        assertEquals(1, snapshot.size());
+        assertEquals(1.0, snapshot.get(0b110).getReal(), DELTA);
+        assertTrue(backend.toString().contains("TN: кубитов 3"));
+    }
+}
@@ -0,0 +1,126 @@
+package org.example.model.tensor;
+
+import org.example.model.gate.GateResolver;
+import org.example.model.gate.LocalOperator;
+import org.example.model.qubit.Complex;
+import org.example.model.qubit.QubitRegister;
+import org.example.model.qubit.backend.BackendFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TensorNetworkTest {
+    private static final double DELTA = 1e-9;
+
+    private void apply(TensorNetwork network, String gate, int... qubits) {
+        network.applyGate(LocalOperator.of(GateResolver.resolveLocal(gate, qubits.length, 0.7), qubits.length), qubits);
+    }
+
+    @Test
+    void testMatchesStateVector() {
+        String[] single = {"H", "S", "T", "X", "Y", "P"};
+        String[] pair = {"CX", "CZ", "SWAP", "CP"};
+        Random random = new Random(3);
+        int n = 5;
+        for (int trial = 0; trial < 4; trial++) {
+            TensorNetwork network = new TensorNetwork(n);
+            QubitRegister register = new QubitRegister("ref", n);
+            for (int step = 0; step < 25; step++) {
+                String gate;
+                Integer[] qubits;
+                if (step % 8 == 7) {
+                    gate = "CCX";
+                    qubits = new Integer[]{1, 3, 0};
+                } else if (random.nextBoolean()) {
+                    gate = single[random.nextInt(single.length)];
+                    qubits = new Integer[]{random.nextInt(n)};
+                } else {
+                    gate = pair[random.nextInt(pair.length)];
+                    int a = random.nextInt(n);
+                    int b = (a + 1 + random.nextInt(n - 1)) % n;
+                    qubits = new Integer[]{a, b};
+                }
+                GateResolver.resolveByName(gate, register, qubits, 0.7).apply();
+                apply(network, gate, Arrays.stream(qubits).mapToInt(Integer::intValue).toArray());
+            }
+            Map<Integer, Complex> expected = BackendFactory.stateVectorOf(register);
+            Map<Integer, Complex> actual = network.amplitudes();
+            double p0 = 0;
+            for (int state = 0; state < (1 << n); state++) {
+                Complex e = expected.getOrDefault(state, Complex.getZero());
+                Complex a = actual.getOrDefault(state, Complex.getZero());
+                assertEquals(e.getReal(), a.getReal(), 1e-8);
+                assertEquals(e.getImaginary(), a.getImaginary(), 1e-8);
+                Complex single0 = network.amplitude(state);
+                assertEquals(e.getReal(), single0.getReal(), 1e-8);
+                assertEquals(e.getImaginary(), single0.getImaginary(), 1e-8);
+                if ((state & 0b100) == 0) {
+                    p0 += e.modulusSquared();
+                }
+            }
+            assertEquals(p0, network.probability(Map.of(2, 0)), 1e-8);
+        }
+    }
+
+    @Test
+    void testWideShallowCircuitUsesLightCone() {
+        int n = 200;
+        TensorNetwork network = new TensorNetwork(n);
+        for (int q = 0; q < n; q++) {
+            apply(network, "H", q);
+        }
+        for (int layer = 0; layer < 2; layer++) {
+            for (int q = layer; q + 1 < n; q += 2) {
+                apply(network, "CP", q, q + 1);
+            }
+            for (int q = 0; q < n; q++) {
+                apply(network, "T", q);
+            }
+        }
+        assertEquals(0.5, network.probability(Map.of(100, 0)), DELTA);
+        ContractionPlan local = network.planProbability(Map.of(100, 0));
+        assertTrue(local.getLeafCount() < 40);
+        assertEquals(Math.pow(2, -n), network.amplitude(0).modulusSquared(), 1e-70);
+    }
+
+    @Test
+    void testPlanReportsCost() {
+        List<int[]> chain = new ArrayList<>();
+        for (int q = 0; q + 1 < 10; q++) {
+            chain.add(new int[]{q, q + 1});
+        }
+        ContractionPlan plan = TensorNetwork.planAmplitude(10, chain);
+        assertEquals(9, plan.getLeafCount());
+        assertEquals(8, plan.getStepCount());
+        assertTrue(plan.getEstimatedFlops() > 0);
+        assertTrue(plan.getPeakMemoryBytes() > 0);
+        assertTrue(plan.getMaxRank() <= 4);
+        assertTrue(plan.toString().contains("FLOP"));
+    }
+
+    @Test
+    void testProjectionAndTensorProduct() {
+        TensorNetwork high = new TensorNetwork(1);
+        apply(high, "H", 0);
+        TensorNetwork low = new TensorNetwork(2);
+        apply(low, "H", 0);
+        apply(low, "CX", 0, 1);
+        low.project(1, 1, Math.sqrt(2));
+
+        TensorNetwork joined = high.tensorProduct(low);
+        Map<Integer, Integer> fixed = new HashMap<>();
+        fixed.put(0, 1);
+        assertEquals(1.0, joined.probability(fixed), DELTA);
+        Map<Integer, Complex> state = joined.amplitudes();
+        assertEquals(2, state.size());
+        assertEquals(0.5, state.get(0b011).modulusSquared(), DELTA);
+        assertEquals(0.5, state.get(0b111).modulusSquared(), DELTA);
+    }
+}
@@ -169,4 +169,35 @@ public class ParserTest {
         assertThrows(IllegalArgumentException.class, () -> Parser.parse("CR X Y Z")); // CR needs size
         assertThrows(IllegalArgumentException.class, () -> Parser.parse("123 start")); // starts with number
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testParseCreateRegisterWithBackend() {
+        Command command = Parser.parse("CR rho[2], anc[1] AS density");
+        assertNotNull(command);
+        assertEquals("DENSITY", command.getArgumentAsString("backend"));
+        assertEquals(3, command.getArgumentAsInt("realRegisterSize"));
+
+        Command plain = Parser.parse("CR plain[2]");
+        assertNull(plain.getArgument("backend"));
+
+        Command mps = Parser.parse("CR chain[50] AS MPS(16, 1e-8)");
+        assertEquals("MPS", mps.getArgumentAsString("backend"));
+        assertEquals(List.of(16.0, 1e-8), mps.getArgument("backendParameters"));
+        assertThrows(IllegalArgumentException.class, () -> Parser.parse("CR chain[5] AS MPS(big)"));
+    }
+
+    @Test
+    void testParseAmplitude() {
+        Command command = Parser.parse("AMPLITUDE a=0101, b=1");
+        assertEquals(Command.CommandType.AMPLITUDE, command.getType());
+        assertEquals(Map.of("a", "0101", "b", "1"), command.getArgument("values"));
+
+        assertThrows(IllegalArgumentException.class, () -> Parser.parse("AMPLITUDE a=012"));
+        assertThrows(IllegalArgumentException.class, () -> Parser.parse("AMPLITUDE a=1 a=0"));
+
+        Command hybrid = Parser.parse("AMPLITUDE a=0101 b=1 SPLIT a");
+        assertEquals(List.of("a"), hybrid.getArgument("split"));
+        assertNull(command.getArgument("split"));
+        assertThrows(IllegalArgumentException.class, () -> Parser.parse("AMPLITUDE a=1 SPLIT"));
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.script;
+
+import java.util.List;
+
+// Разбор скрипта из миллиона строк целиком (ScriptParser.parseLines) и прежним построчным разбором регулярными
+// выражениями (LegacyParser, как раньше выполнял скрипт Main). Первый проход в свежей JVM выводится отдельно: он включает
+// загрузку классов и компиляцию JIT. Команды обоих способов сверяются, расхождение завершает замер исключением.
+// Запуск: java -cp <классы тестов и приложения> org.example.script.ScriptParserBenchmark [число строк]
+public class ScriptParserBenchmark {
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        String script = generate(lines);
+        System.out.printf("Скрипт: %d строк, %.1f МБ%n", lines, script.length() / 1e6);
+
+        long scriptTotal = 0;
+        long legacyTotal = 0;
+        for (int round = 0; round <= ROUNDS; round++) {
+            long start = System.nanoTime();
+            List<Command> whole = ScriptParser.parseLines(script);
+            long scriptTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            List<Command> legacy = LegacyParser.parseLines(script);
+            long legacyTime = System.nanoTime() - start;
+
+            String difference = LegacyParser.difference(legacy, whole);
+            if (difference != null) {
+                throw new IllegalStateException(difference);
+            }
+            System.out.printf("%s: ScriptParser %d мс, регулярные выражения %d мс%n",
+                    round == 0 ? "Холодный проход" : "Проход " + round, scriptTime / 1_000_000, legacyTime / 1_000_000);
+            if (round > 0) {
+                scriptTotal += scriptTime;
+                legacyTotal += legacyTime;
+            }
+        }
+        System.out.printf("Ускорение после прогрева: %.1fx%n", (double) legacyTotal / scriptTotal);
+    }
+
+    private static String generate(int lines) {
+        String[] body = {
+                "H a[0]",
+                "CNOT a[0] b[1]",
+                "P 0.785398 b[0]",
+                "CCX a[0] a[1] b[2]",
+                "SWAP a[2] b[0]",
+                "APPLY_ORACLE Marked a -> b[3]",
+                "T a[1]",
+                "M b[1]",
+        };
+        StringBuilder script = new StringBuilder(lines * 16);
+        script.append("CR a[4], b[4]\n");
+        script.append("DEFINE_ORACLE_CSV Marked \"oracles/marked.csv\"\n");
+        for (int i = 2; i < lines; i++) {
+            if (i % 1000 == 0) {
+                script.append("# блок ").append(i / 1000).append('\n');
+            } else {
+                script.append(body[i % body.length]).append('\n');
+            }
+        }
+        return script.toString();
+    }
+}
@@ -0,0 +1,117 @@
+package org.example.script;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScriptParserTest {
+
+    private static void assertSyntaxError(String script, int line, int column) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> ScriptParser.parse(script));
+        assertTrue(e.getMessage().startsWith("Строка " + line + ", столбец " + column + ":"), e.getMessage());
+    }
+
+    @Test
+    void testMatchesLegacyParser() {
+        String[] lines = {
+                "H q[0]",
+                "CNOT ctrl[1] target[0]",
+                "ccx a[0] a[1] 2b[3]",
+                "P -1.5e-3 q[2]",
+                "M result[5]",
+                "DEFINE_ORACLE_CSV MyOracle \"data/my oracle.csv\"",
+                "APPLY_ORACLE SearchOracle InputReg->AncillaReg[0]",
+                "AMPLITUDE a=0101, b=1 SPLIT a",
+        };
+        List<Command> commands = ScriptParser.parse(String.join("\n", lines));
+        assertEquals(lines.length, commands.size());
+        for (int i = 0; i < lines.length; i++) {
+            Command expected = LegacyParser.parse(lines[i]);
+            assertEquals(expected.getType(), commands.get(i).getType(), lines[i]);
+            assertEquals(expected.getArguments(), commands.get(i).getArguments(), lines[i]);
+        }
+    }
+
+    @Test
+    void testExamplesMatchLegacyParser() throws IOException {
+        List<Path> scripts = new ArrayList<>();
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(Path.of("examples"), "*.txt")) {
+            dir.forEach(scripts::add);
+        }
+        assertFalse(scripts.isEmpty());
+        for (Path path : scripts) {
+            String script = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+            assertNull(LegacyParser.difference(LegacyParser.parseLines(script), ScriptParser.parseLines(script)),
+                    path.toString());
+        }
+    }
+
+    @Test
+    void testLinesKeepTheirPositions() {
+        String script = "CR q[2]\n\n# комментарий\n  H q[0]\r\nM q[0]";
+        List<Command> lines = ScriptParser.parseLines(script);
+        assertEquals(5, lines.size());
+        assertNull(lines.get(1));
+        assertNull(lines.get(2));
+        assertEquals(Command.CommandType.CREATE_REGISTER, lines.get(0).getType());
+        assertEquals(Command.CommandType.APPLY_GATE, lines.get(3).getType());
+        assertEquals(Command.CommandType.MEASURE, lines.get(4).getType());
+        assertEquals(3, ScriptParser.parse(script).size());
+    }
+
+    @Test
+    void testParseLine() {
+        assertEquals("real_reg_7", ScriptParser.parseLine("CR q[2]", 7).getArgument("realRegisterName"));
+        assertNull(ScriptParser.parseLine("   # комментарий", 0));
+        assertThrows(IllegalArgumentException.class, () -> ScriptParser.parseLine("H q[0]\nM q[0]", 0));
+    }
+
+    @Test
+    void testCreateRegister() {
+        List<Command> commands = ScriptParser.parse("""
+                # регистры
+                CR regA[3] , regB[1]
+
+                  CR big[4] AS mps(64, 1e-10)
+                """);
+        assertEquals(2, commands.size());
+        Map<String, Object> args = commands.get(0).getArguments();
+        assertEquals("real_reg_0", args.get("realRegisterName"));
+        assertEquals(4, args.get("realRegisterSize"));
+        assertEquals(List.of(
+                Map.of("name", "regA", "size", 3, "offset", 1),
+                Map.of("name", "regB", "size", 1, "offset", 0)), args.get("nominalRegisters"));
+        assertNull(args.get("backend"));
+
+        args = commands.get(1).getArguments();
+        assertEquals("real_reg_1", args.get("realRegisterName"));
+        assertEquals("MPS", args.get("backend"));
+        assertEquals(List.of(64.0, 1e-10), args.get("backendParameters"));
+    }
+
+    @Test
+    void testErrorsReportPosition() {
+        assertSyntaxError("CR reg[3]\nH reg[a]", 2, 7);
+        assertSyntaxError("CR reg[3], reg[2]", 1, 12);
+        assertSyntaxError("CR reg[0]", 1, 8);
+        assertSyntaxError("CR reg1[1] reg2[1]", 1, 12);
+        assertSyntaxError("\n\nX ", 3, 3);
+        assertSyntaxError("M result[1][2]", 1, 12);
+        assertSyntaxError("P 0.5 q[0] q[1]", 1, 12);
+        assertSyntaxError("DEFINE_ORACLE_CSV Name \"data.csv", 1, 24);
+        assertSyntaxError("DEFINE_ORACLE_CSV Name \"\"", 1, 24);
+        assertSyntaxError("APPLY_ORACLE Name Input -> Ancilla", 1, 35);
+        assertSyntaxError("AMPLITUDE a=0101 a=1", 1, 18);
+        assertSyntaxError("1X q[0]", 1, 1);
+        assertSyntaxError("X q[99999999999]", 1, 5);
+    }
+}